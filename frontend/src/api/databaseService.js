@@ -79,6 +79,26 @@ export const databaseAPI = {
     
     return api.get(`/tables/${databaseName}.${tableName}/data`, { params });
   },
+
+  // 精确统计表的行数（支持搜索条件）
+  countTableRows: (databaseName, tableName, searchParams = {}) =>
+    api.get(`/tables/${databaseName}.${tableName}/count`, { params: searchParams }),
+
+  // 导出地址（csv / jsonl），由浏览器直接下载，不经过axios以免受请求超时限制
+  getExportUrl: (databaseName, tableName, format = 'csv', searchParams = {}, gzip = false) => {
+    const params = new URLSearchParams({ ...searchParams, format, gzip });
+    return `/api/database/tables/${databaseName}.${tableName}/export?${params.toString()}`;
+  },
+
+  // 按游标获取表数据（cursor为上一页返回的nextCursor，第一页传空字符串），不返回总数
+  getTableDataAfter: (databaseName, tableName, cursor = '', pageSize = 100, searchParams = {}, sort) => {
+    const params = { ...searchParams, cursor, pageSize };
+    if (sort) {
+      params.sort = sort;
+    }
+
+    return api.get(`/tables/${databaseName}.${tableName}/data`, { params });
+  },
   
   // 创建记录
   createRecord: (databaseName, tableName, record) => 
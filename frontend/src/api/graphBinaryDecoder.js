@@ -0,0 +1,181 @@
+// 列式二进制图数据解码器（application/x-graph-columnar）
+// 格式说明见后端 GraphBinaryWriter，数值列解码为类型化数组
+
+export const GRAPH_BINARY_MEDIA_TYPE = 'application/x-graph-columnar';
+
+class Reader {
+  constructor(buffer) {
+    this.view = new DataView(buffer);
+    this.bytes = new Uint8Array(buffer);
+    this.offset = 0;
+  }
+
+  byte() {
+    return this.bytes[this.offset++];
+  }
+
+  varint() {
+    let result = 0;
+    let shift = 0;
+    let b;
+    do {
+      b = this.bytes[this.offset++];
+      result |= (b & 0x7f) << shift;
+      shift += 7;
+    } while (b & 0x80);
+    return result >>> 0;
+  }
+
+  zigzag() {
+    const v = this.varint();
+    return (v >>> 1) ^ -(v & 1);
+  }
+
+  double() {
+    const value = this.view.getFloat64(this.offset, true);
+    this.offset += 8;
+    return value;
+  }
+}
+
+const decodeStrings = (reader) => {
+  const count = reader.varint();
+  const decoder = new TextDecoder('utf-8');
+  const strings = new Array(count);
+  for (let i = 0; i < count; i++) {
+    const length = reader.varint();
+    strings[i] = decoder.decode(reader.bytes.subarray(reader.offset, reader.offset + length));
+    reader.offset += length;
+  }
+  return strings;
+};
+
+/**
+ * 解码二进制图数据
+ * 返回 { themes, nodes, edges }，nodes/edges为列式结构：
+ * 数值列为Int32Array/Float64Array/Uint8Array，字符串列为字典下标（-1表示null），
+ * 字符串字典位于 strings，主题列为 themes 的下标（-1表示无主题）
+ */
+export const decodeGraphBinary = (buffer) => {
+  const reader = new Reader(buffer);
+  if (reader.byte() !== 0x43 || reader.byte() !== 0x47 || reader.byte() !== 0x46 || reader.byte() !== 1) {
+    throw new Error('不支持的图数据格式');
+  }
+  const strings = decodeStrings(reader);
+  const str = () => reader.varint() - 1;
+  const opt = () => {
+    const v = reader.varint();
+    return v === 0 ? null : ((v - 1) >>> 1) ^ -((v - 1) & 1);
+  };
+  const optColumn = (count) => {
+    const column = new Int32Array(count);
+    for (let i = 0; i < count; i++) {
+      const v = opt();
+      column[i] = v === null ? -1 : v;
+    }
+    return column;
+  };
+  const varintColumn = (count, read) => {
+    const column = new Int32Array(count);
+    for (let i = 0; i < count; i++) {
+      column[i] = read();
+    }
+    return column;
+  };
+  const idColumn = (count) => {
+    const column = new Int32Array(count);
+    let previous = 0;
+    for (let i = 0; i < count; i++) {
+      previous += reader.zigzag();
+      column[i] = previous;
+    }
+    return column;
+  };
+
+  const themeCount = reader.varint();
+  const themes = [];
+  for (let i = 0; i < themeCount; i++) {
+    const id = reader.varint();
+    const name = strings[str()] ?? null;
+    const description = strings[str()] ?? null;
+    const defaultNodeColor = strings[str()] ?? null;
+    const defaultNodeSize = opt();
+    const defaultNodeIcon = strings[str()] ?? null;
+    const defaultEdgeColor = strings[str()] ?? null;
+    const defaultEdgeWidth = opt();
+    themes.push({ id, name, description, defaultNodeColor, defaultNodeSize, defaultNodeIcon, defaultEdgeColor, defaultEdgeWidth });
+  }
+
+  const nodeCount = reader.varint();
+  const nodes = { count: nodeCount };
+  nodes.id = idColumn(nodeCount);
+  nodes.theme = varintColumn(nodeCount, () => reader.varint() - 1);
+  nodes.name = varintColumn(nodeCount, str);
+  nodes.properties = varintColumn(nodeCount, str);
+  nodes.color = varintColumn(nodeCount, str);
+  nodes.size = optColumn(nodeCount);
+  nodes.icon = varintColumn(nodeCount, str);
+  nodes.hasCoordinates = new Uint8Array(nodeCount);
+  for (let i = 0; i < nodeCount; i++) {
+    nodes.hasCoordinates[i] = reader.byte() & 1;
+  }
+  nodes.x = new Float64Array(nodeCount).fill(NaN);
+  nodes.y = new Float64Array(nodeCount).fill(NaN);
+  for (let i = 0; i < nodeCount; i++) {
+    if (nodes.hasCoordinates[i]) {
+      nodes.x[i] = reader.double();
+      nodes.y[i] = reader.double();
+    }
+  }
+
+  const edgeCount = reader.varint();
+  const edges = { count: edgeCount };
+  edges.id = idColumn(edgeCount);
+  edges.source = varintColumn(edgeCount, str);
+  edges.target = varintColumn(edgeCount, str);
+  edges.relation = varintColumn(edgeCount, str);
+  edges.color = varintColumn(edgeCount, str);
+  edges.width = optColumn(edgeCount);
+  edges.dashed = new Uint8Array(edgeCount);
+  for (let i = 0; i < edgeCount; i++) {
+    edges.dashed[i] = reader.byte() & 1;
+  }
+  edges.theme = varintColumn(edgeCount, () => reader.varint() - 1);
+
+  return { strings, themes, nodes, edges };
+};
+
+/**
+ * 将列式结果还原为与JSON接口相同的 { nodes, edges } 对象数组，便于复用现有渲染逻辑
+ */
+export const toGraphObjects = ({ strings, themes, nodes, edges }) => {
+  const s = (index) => (index >= 0 ? strings[index] : null);
+  const nodeList = new Array(nodes.count);
+  for (let i = 0; i < nodes.count; i++) {
+    nodeList[i] = {
+      id: nodes.id[i],
+      theme: nodes.theme[i] >= 0 ? themes[nodes.theme[i]] : null,
+      name: s(nodes.name[i]),
+      properties: s(nodes.properties[i]),
+      color: s(nodes.color[i]),
+      size: nodes.size[i] >= 0 ? nodes.size[i] : null,
+      icon: s(nodes.icon[i]),
+      x: nodes.hasCoordinates[i] ? nodes.x[i] : null,
+      y: nodes.hasCoordinates[i] ? nodes.y[i] : null
+    };
+  }
+  const edgeList = new Array(edges.count);
+  for (let i = 0; i < edges.count; i++) {
+    edgeList[i] = {
+      id: edges.id[i],
+      sourceNodeName: s(edges.source[i]),
+      targetNodeName: s(edges.target[i]),
+      relation: s(edges.relation[i]),
+      color: s(edges.color[i]),
+      width: edges.width[i] >= 0 ? edges.width[i] : null,
+      dashed: edges.dashed[i] === 1,
+      theme: edges.theme[i] >= 0 ? themes[edges.theme[i]] : null
+    };
+  }
+  return { nodes: nodeList, edges: edgeList };
+};
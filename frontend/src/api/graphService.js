@@ -1,4 +1,5 @@
 import axios from 'axios';
+import { GRAPH_BINARY_MEDIA_TYPE, decodeGraphBinary } from './graphBinaryDecoder';
 
 // 创建axios实例
 const api = axios.create({
@@ -70,7 +71,18 @@ export const edgeAPI = {
 // 知识图谱相关API
 export const graphAPI = {
   getFullGraph: () => api.get('/graph/full'),
-  getGraphByTheme: (themeId) => api.get(`/graph/theme/${themeId}`)
+  getGraphByTheme: (themeId) => api.get(`/graph/theme/${themeId}`),
+  // 增量同步：获取since版本之后的变更
+  getChanges: (since) => api.get('/graph/changes', { params: { since } }),
+  // 列式二进制格式，体积更小，返回解码后的列式数据
+  getFullGraphBinary: () => api.get('/graph/full', {
+    responseType: 'arraybuffer',
+    headers: { Accept: GRAPH_BINARY_MEDIA_TYPE }
+  }).then(decodeGraphBinary),
+  getGraphByThemeBinary: (themeId) => api.get(`/graph/theme/${themeId}`, {
+    responseType: 'arraybuffer',
+    headers: { Accept: GRAPH_BINARY_MEDIA_TYPE }
+  }).then(decodeGraphBinary)
 };
 
 export default api;
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.cassini.graph.benchmark;
+
+import com.cassini.graph.benchmark.support.Fields;
+import com.cassini.graph.benchmark.support.StubJdbcTemplate;
+import com.cassini.graph.service.impl.DatabaseServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DatabaseServiceImpl拼接SQL的开销（分页查询、插入、更新），数据库调用由桩对象立即返回
+ * 结果中包含主键探测等附带语句的次数，便于发现多余的查询（元数据缓存后应只剩业务语句本身）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatabaseSqlBenchmark {
+
+    @Param({"0", "3"})
+    public int searchFields;
+
+    @Param({"10"})
+    public int columns;
+
+    private DatabaseServiceImpl service;
+    private StubJdbcTemplate jdbcTemplate;
+    private Map<String, String> searchParams;
+    private Map<String, Object> record;
+
+    @Setup
+    public void setup() {
+        jdbcTemplate = new StubJdbcTemplate();
+        List<Map<String, Object>> schema = Collections.singletonList(row("name", "graph"));
+        List<Map<String, Object>> columnRows = new ArrayList<>();
+        columnRows.add(row("table_name", "node", "field", "id", "type", "int", "column_key", "PRI"));
+        for (int i = 0; i < columns; i++) {
+            columnRows.add(row("table_name", "node", "field", "column_" + i, "type", "varchar(255)"));
+        }
+        List<Map<String, Object>> keys = Collections.singletonList(row("table_name", "node", "column_name", "id"));
+        jdbcTemplate.setListResults(sql -> {
+            if (sql.contains("DATABASE()")) {
+                return schema;
+            } else if (sql.contains("INFORMATION_SCHEMA.COLUMNS")) {
+                return columnRows;
+            } else if (sql.contains("INFORMATION_SCHEMA.KEY_COLUMN_USAGE")) {
+                return keys;
+            }
+            return Collections.emptyList();
+        });
+        service = new DatabaseServiceImpl();
+        Fields.set(service, "jdbcTemplate", jdbcTemplate);
+        Fields.set(service, "objectMapper", new ObjectMapper());
+
+        searchParams = new LinkedHashMap<>();
+        for (int i = 0; i < searchFields; i++) {
+            searchParams.put("search.column_" + i, "%关键字" + i + "%");
+        }
+        record = new LinkedHashMap<>();
+        for (int i = 0; i < columns; i++) {
+            record.put("column_" + i, "值" + i);
+        }
+    }
+
+    private static Map<String, Object> row(Object... keyValues) {
+        Map<String, Object> row = new LinkedCaseInsensitiveMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            row.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return row;
+    }
+
+    @Benchmark
+    public long tableDataQuery() {
+        service.getTableData("node", 10, 50, searchParams);
+        return jdbcTemplate.getStatements() + jdbcTemplate.getLastSqlLength();
+    }
+
+    @Benchmark
+    public long insertRecord() {
+        service.addRecord("node", record);
+        return jdbcTemplate.getStatements() + jdbcTemplate.getLastSqlLength();
+    }
+
+    @Benchmark
+    public long updateRecord() {
+        service.updateRecord("node", 1, record);
+        return jdbcTemplate.getStatements() + jdbcTemplate.getLastSqlLength();
+    }
+}
@@ -0,0 +1,127 @@
+package com.cassini.graph.benchmark;
+
+import com.cassini.graph.entity.Edge;
+import com.cassini.graph.entity.Node;
+import com.cassini.graph.index.GraphSnapshot;
+import com.cassini.graph.index.GraphStore;
+import com.cassini.graph.util.SyntheticGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 节点名称→边的关联查询和主题子图组装：内存图索引与逐条扫描边列表（原getAllEdges后过滤的做法）对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphIndexBenchmark {
+
+    @Param({"10000", "100000"})
+    public int nodes;
+
+    @Param({"5"})
+    public int edgesPerNode;
+
+    @Param({"10"})
+    public int themes;
+
+    @Param({SyntheticGraph.DISTRIBUTION_UNIFORM, SyntheticGraph.DISTRIBUTION_POWERLAW})
+    public String distribution;
+
+    private List<Node> nodeList;
+    private List<Edge> edgeList;
+    private GraphSnapshot snapshot;
+    private String[] names;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        SyntheticGraph graph = SyntheticGraph.generate(nodes, nodes * edgesPerNode, themes, distribution, 42L);
+        nodeList = graph.getNodes();
+        edgeList = graph.getEdges();
+        snapshot = buildSnapshot(nodeList, edgeList);
+        names = new String[1024];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = nodeList.get((int) ((long) i * nodeList.size() / names.length)).getName();
+        }
+    }
+
+    private String nextName() {
+        cursor = (cursor + 1) & (names.length - 1);
+        return names[cursor];
+    }
+
+    private int nextTheme() {
+        cursor = (cursor + 1) & (names.length - 1);
+        return cursor % themes + 1;
+    }
+
+    @Benchmark
+    public int nameToEdgesIndexed() {
+        int node = snapshot.nodeIdOf(nextName());
+        return node >= 0 ? snapshot.incidentEdges(node).length : 0;
+    }
+
+    @Benchmark
+    public int nameToEdgesScan() {
+        String name = nextName();
+        int count = 0;
+        for (Edge edge : edgeList) {
+            if (name.equals(edge.getSourceNodeName()) || name.equals(edge.getTargetNodeName())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int themeSubgraphIndexed() {
+        int themeId = nextTheme();
+        return snapshot.themeNodes(themeId).length + snapshot.themeEdges(themeId).length;
+    }
+
+    @Benchmark
+    public int themeSubgraphScan() {
+        Integer themeId = nextTheme();
+        Set<String> themeNodeNames = new HashSet<>();
+        for (Node node : nodeList) {
+            if (themeId.equals(node.getTheme().getId())) {
+                themeNodeNames.add(node.getName());
+            }
+        }
+        int count = themeNodeNames.size();
+        for (Edge edge : edgeList) {
+            if (themeNodeNames.contains(edge.getSourceNodeName()) || themeNodeNames.contains(edge.getTargetNodeName())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 从实体列表重建列式存储并生成快照（对应启动加载和reload的内存部分）
+     */
+    @Benchmark
+    public int loadSnapshot() {
+        return buildSnapshot(nodeList, edgeList).getNodeCount();
+    }
+
+    private static GraphSnapshot buildSnapshot(List<Node> nodes, List<Edge> edges) {
+        GraphStore store = new GraphStore();
+        for (Node node : nodes) {
+            store.putNode(node.getId(), node.getName(), node.getTheme().getId(), node.getX(), node.getY());
+        }
+        for (Edge edge : edges) {
+            store.putEdge(edge.getId(), edge.getSourceNodeName(), edge.getTargetNodeName(), edge.getRelation(),
+                    edge.getTheme().getId(), edge.getWidth());
+        }
+        return store.snapshot(1L);
+    }
+}
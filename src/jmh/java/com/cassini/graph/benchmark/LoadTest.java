@@ -0,0 +1,416 @@
+package com.cassini.graph.benchmark;
+
+import com.cassini.graph.GraphApplication;
+import com.cassini.graph.benchmark.support.LatencyHistogram;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 端到端压测：多线程按比例混合读写请求调用REST接口，输出各类请求的吞吐量和延迟百分位
+ * mvn -P benchmark test-compile exec:exec@load-test -Dload.args="--embedded --seed.nodes=100000 --duration=60"
+ * mvn -P benchmark test-compile exec:exec@load-test -Dload.args="--target=http://localhost:8080 --threads=32"
+ *
+ * --embedded时在进程内启动应用，以H2（MySQL兼容模式）代替MySQL，并先用--seed.*参数生成数据；
+ * 否则压测--target指向的已运行服务（可先用--seed.nodes造数据）。其余未识别的参数原样传给内嵌应用。
+ * 每个线程的随机数种子由--random派生，相同参数和数据下请求序列可重复；结果以JSON写入--out
+ *
+ * 主题子图缓存的效果可以对比两次运行：--mix=theme:30,update:10,create:5,node:55 与再加上
+ * --graph.theme-cache.max-bytes=0（不缓存，每次请求都重新组装），报告末尾附带缓存的命中统计
+ */
+public class LoadTest {
+
+    // 默认请求比例：以读为主，约15%为写
+    private static final String DEFAULT_MIX = "suggest:25,search:15,node:15,neighborhood:10,filter:10,"
+            + "timeline:5,path:3,theme:2,update:10,create:5";
+
+    // 采样节点时检索的常见姓氏
+    private static final String[] SAMPLE_QUERIES = {"李", "王", "张", "刘", "陈", "杨", "赵", "黄", "周", "吴",
+            "徐", "孙", "胡", "朱", "高", "林"};
+
+    private static final String[] DYNASTIES = {"汉", "唐", "宋", "元", "明", "清"};
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private String target;
+    private int threads = 16;
+    private int warmupSeconds = 10;
+    private int durationSeconds = 60;
+    private long seed = 42;
+    private String out = "target/load-result.json";
+    private final Map<String, Integer> mix = new LinkedHashMap<>();
+
+    // 采样到的节点和主题，压测期间只读
+    private final List<JsonNode> nodes = new ArrayList<>();
+    private final List<Integer> themeIds = new ArrayList<>();
+
+    private volatile boolean recording;
+    private volatile boolean stopped;
+
+    public static void main(String[] args) throws Exception {
+        LoadTest test = new LoadTest();
+        boolean embedded = false;
+        List<String> appArgs = new ArrayList<>();
+        String mixOption = DEFAULT_MIX;
+        for (String arg : args) {
+            String name = arg.contains("=") ? arg.substring(0, arg.indexOf('=')) : arg;
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            switch (name) {
+                case "--embedded":
+                    embedded = true;
+                    break;
+                case "--target":
+                    test.target = value;
+                    break;
+                case "--threads":
+                    test.threads = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    test.warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "--duration":
+                    test.durationSeconds = Integer.parseInt(value);
+                    break;
+                case "--random":
+                    test.seed = Long.parseLong(value);
+                    break;
+                case "--mix":
+                    mixOption = value;
+                    break;
+                case "--out":
+                    test.out = value;
+                    break;
+                default:
+                    appArgs.add(arg);
+            }
+        }
+        for (String part : mixOption.split(",")) {
+            String[] pair = part.trim().split(":");
+            test.mix.put(pair[0], Integer.parseInt(pair[1]));
+        }
+        // 默认每个目标地址只保留5个空闲连接，线程更多时会不断新建连接
+        System.setProperty("http.maxConnections", String.valueOf(test.threads * 2));
+
+        ConfigurableApplicationContext context = null;
+        if (embedded) {
+            context = startEmbedded(appArgs);
+            test.target = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        } else if (test.target == null) {
+            test.target = "http://localhost:8080";
+        }
+        try {
+            test.run();
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * 进程内启动应用：H2内存库（MySQL模式）、随机端口、关闭SQL日志；命令行参数优先级高于application.properties
+     */
+    private static ConfigurableApplicationContext startEmbedded(List<String> appArgs) {
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=0");
+        args.add("--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;"
+                + "INIT=RUNSCRIPT FROM 'classpath:loadtest-h2.sql'");
+        args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+        args.add("--spring.datasource.username=sa");
+        args.add("--spring.datasource.password=");
+        args.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+        args.add("--spring.jpa.show-sql=false");
+        args.add("--logging.level.com.cassini.graph=WARN");
+        args.add("--logging.level.org.springframework.jdbc.core=WARN");
+        args.add("--logging.level.com.zaxxer.hikari=WARN");
+        args.add("--seed.exit=false");
+        boolean seeded = false;
+        for (String arg : appArgs) {
+            seeded |= arg.startsWith("--seed.nodes=");
+        }
+        if (!seeded) {
+            args.add("--seed.nodes=100000");
+        }
+        args.addAll(appArgs);
+        return SpringApplication.run(GraphApplication.class, args.toArray(new String[0]));
+    }
+
+    private void run() throws Exception {
+        sample();
+        System.out.println("压测 " + target + "：" + threads + " 线程，预热 " + warmupSeconds + " 秒，测量 "
+                + durationSeconds + " 秒，采样节点 " + nodes.size() + " 个，请求比例 " + mix);
+
+        String[] schedule = schedule();
+        Worker[] workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i, new Random(seed * 31 + i), schedule);
+            workers[i].start();
+        }
+        Thread.sleep(warmupSeconds * 1000L);
+        recording = true;
+        long start = System.nanoTime();
+        Thread.sleep(durationSeconds * 1000L);
+        recording = false;
+        long elapsed = System.nanoTime() - start;
+        stopped = true;
+        for (Worker worker : workers) {
+            worker.join();
+        }
+        report(workers, elapsed / 1e9);
+    }
+
+    /**
+     * 从服务端采样主题和节点，作为压测请求的参数来源
+     */
+    private void sample() throws IOException {
+        for (JsonNode theme : MAPPER.readTree(get("/api/themes"))) {
+            themeIds.add(theme.get("id").asInt());
+        }
+        for (String query : SAMPLE_QUERIES) {
+            JsonNode result = MAPPER.readTree(get("/api/nodes/search?q=" + encode(query) + "&limit=200"));
+            for (JsonNode node : result.path("nodes")) {
+                nodes.add(node);
+            }
+        }
+        if (nodes.isEmpty() || themeIds.isEmpty()) {
+            throw new IllegalStateException("服务端没有可用的节点或主题，请先用--seed.nodes生成数据");
+        }
+    }
+
+    /**
+     * 按比例展开为长度100左右的请求序列，每个线程从中随机抽取
+     */
+    private String[] schedule() {
+        int total = 0;
+        for (int weight : mix.values()) {
+            total += weight;
+        }
+        List<String> slots = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            int count = Math.max(1, Math.round(entry.getValue() * 100f / total));
+            for (int i = 0; i < count; i++) {
+                slots.add(entry.getKey());
+            }
+        }
+        return slots.toArray(new String[0]);
+    }
+
+    private class Worker extends Thread {
+        private final int index;
+        private final Random random;
+        private final String[] schedule;
+        private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+        private final Map<String, long[]> errors = new LinkedHashMap<>();
+        private int created;
+
+        Worker(int index, Random random, String[] schedule) {
+            super("load-" + index);
+            this.index = index;
+            this.random = random;
+            this.schedule = schedule;
+            for (String operation : mix.keySet()) {
+                latencies.put(operation, new LatencyHistogram());
+                errors.put(operation, new long[1]);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                String operation = schedule[random.nextInt(schedule.length)];
+                long begin = System.nanoTime();
+                boolean ok;
+                try {
+                    ok = execute(operation) < 400;
+                } catch (IOException e) {
+                    ok = false;
+                }
+                long micros = (System.nanoTime() - begin) / 1000;
+                if (recording) {
+                    latencies.get(operation).record(micros);
+                    if (!ok) {
+                        errors.get(operation)[0]++;
+                    }
+                }
+            }
+        }
+
+        private int execute(String operation) throws IOException {
+            JsonNode node = nodes.get(random.nextInt(nodes.size()));
+            String name = node.get("name").asText();
+            int id = node.get("id").asInt();
+            switch (operation) {
+                case "suggest":
+                    String prefix = name.substring(0, Math.min(name.length(), 1 + random.nextInt(2)));
+                    return request("GET", "/api/nodes/suggest?limit=10&prefix=" + encode(prefix), null);
+                case "search":
+                    return request("GET", "/api/nodes/search?limit=20&q=" + encode(name), null);
+                case "node":
+                    return request("GET", "/api/nodes/" + id, null);
+                case "neighborhood":
+                    return request("GET", "/api/graph/neighborhood/" + id + "?depth=2&limit=200&edgeLimit=1000", null);
+                case "filter":
+                    String filter = "{\"op\":\"and\",\"filters\":[{\"key\":\"朝代\",\"eq\":\""
+                            + DYNASTIES[random.nextInt(DYNASTIES.length)] + "\"},{\"key\":\"年龄\",\"gte\":"
+                            + (20 + random.nextInt(60)) + "}]}";
+                    return request("POST", "/api/nodes/filter?limit=50", filter);
+                case "timeline":
+                    return request("GET", "/api/timeline/events/year/" + (600 + random.nextInt(1350)), null);
+                case "path":
+                    int to = nodes.get(random.nextInt(nodes.size())).get("id").asInt();
+                    return request("GET", "/api/graph/path?from=" + id + "&to=" + to + "&maxExplored=20000", null);
+                case "theme":
+                    return request("GET", "/api/graph/theme/" + themeIds.get(random.nextInt(themeIds.size())), null);
+                case "update":
+                    // 名称不变，只改属性，避免影响引用该名称的边
+                    ObjectNode updated = node.deepCopy();
+                    updated.put("properties", "{\"朝代\":\"" + DYNASTIES[random.nextInt(DYNASTIES.length)]
+                            + "\",\"年龄\":" + (20 + random.nextInt(70)) + "}");
+                    return request("POST", "/api/nodes/batch", batch(updated));
+                case "create":
+                    ArrayNode upserts = MAPPER.createArrayNode();
+                    for (int i = 0; i < 5; i++) {
+                        ObjectNode item = upserts.addObject();
+                        item.put("name", "压测" + index + "-" + (created++) + "-" + seed);
+                        item.putObject("theme").put("id", themeIds.get(random.nextInt(themeIds.size())));
+                        item.put("properties", "{\"来源\":\"压测\"}");
+                    }
+                    return request("POST", "/api/nodes/batch", "{\"upserts\":" + upserts + "}");
+                default:
+                    throw new IllegalArgumentException("Unknown operation: " + operation);
+            }
+        }
+
+        private String batch(ObjectNode node) {
+            return "{\"upserts\":[" + node + "]}";
+        }
+    }
+
+    private void report(Worker[] workers, double seconds) throws IOException {
+        ObjectNode result = MAPPER.createObjectNode();
+        result.put("target", target);
+        result.put("threads", threads);
+        result.put("durationSeconds", seconds);
+        result.put("seed", seed);
+        result.put("sampledNodes", nodes.size());
+        ObjectNode operations = result.putObject("operations");
+
+        LatencyHistogram overall = new LatencyHistogram();
+        long overallErrors = 0;
+        System.out.println(String.format("%-14s %10s %8s %10s %9s %9s %9s %9s %9s",
+                "operation", "requests", "errors", "ops/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)"));
+        for (String operation : mix.keySet()) {
+            LatencyHistogram merged = new LatencyHistogram();
+            long errorCount = 0;
+            for (Worker worker : workers) {
+                merged.merge(worker.latencies.get(operation));
+                errorCount += worker.errors.get(operation)[0];
+            }
+            overall.merge(merged);
+            overallErrors += errorCount;
+            operations.set(operation, summary(merged, errorCount, seconds));
+            print(operation, merged, errorCount, seconds);
+        }
+        result.set("overall", summary(overall, overallErrors, seconds));
+        print("overall", overall, overallErrors, seconds);
+        if (mix.containsKey("theme")) {
+            JsonNode cacheStats = MAPPER.readTree(get("/api/graph/theme-cache/stats"));
+            result.set("themeCache", cacheStats);
+            System.out.println("主题子图缓存：" + cacheStats);
+        }
+
+        File file = new File(out);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, result);
+        System.out.println("结果已写入 " + file.getAbsolutePath());
+    }
+
+    private static ObjectNode summary(LatencyHistogram histogram, long errors, double seconds) {
+        ObjectNode summary = MAPPER.createObjectNode();
+        summary.put("requests", histogram.getCount());
+        summary.put("errors", errors);
+        summary.put("throughput", histogram.getCount() / seconds);
+        summary.put("meanMicros", histogram.getMean());
+        summary.put("p50Micros", histogram.percentile(50));
+        summary.put("p90Micros", histogram.percentile(90));
+        summary.put("p99Micros", histogram.percentile(99));
+        summary.put("p999Micros", histogram.percentile(99.9));
+        summary.put("maxMicros", histogram.getMax());
+        return summary;
+    }
+
+    private static void print(String operation, LatencyHistogram histogram, long errors, double seconds) {
+        System.out.println(String.format("%-14s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                operation, histogram.getCount(), errors, histogram.getCount() / seconds,
+                histogram.percentile(50) / 1000.0, histogram.percentile(90) / 1000.0,
+                histogram.percentile(99) / 1000.0, histogram.percentile(99.9) / 1000.0, histogram.getMax() / 1000.0));
+    }
+
+    private byte[] get(String path) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int status = request("GET", path, null, body);
+        if (status >= 400) {
+            throw new IOException("GET " + path + " 返回 " + status);
+        }
+        return body.toByteArray();
+    }
+
+    private int request(String method, String path, String json) throws IOException {
+        return request(method, path, json, null);
+    }
+
+    /**
+     * 发送请求并读完响应体（读完才能复用keep-alive连接），返回HTTP状态码
+     */
+    private int request(String method, String path, String json, OutputStream sink) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(target + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(60000);
+        if (json != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+            try (OutputStream output = connection.getOutputStream()) {
+                output.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream input = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (input != null) {
+            try (InputStream body = input) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = body.read(buffer)) >= 0) {
+                    if (sink != null) {
+                        sink.write(buffer, 0, read);
+                    }
+                }
+            }
+        }
+        return status;
+    }
+
+    private static String encode(String value) throws IOException {
+        return URLEncoder.encode(value, "UTF-8");
+    }
+}
@@ -0,0 +1,61 @@
+package com.cassini.graph.benchmark;
+
+import com.cassini.graph.entity.Edge;
+import com.cassini.graph.entity.Node;
+import com.cassini.graph.entity.Theme;
+import com.cassini.graph.util.GraphBinaryWriter;
+import com.cassini.graph.util.SyntheticGraph;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node/Edge实体序列化：与Spring MVC相同配置的Jackson JSON，以及列式二进制格式
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1000", "10000"})
+    public int nodes;
+
+    @Param({"5"})
+    public int edgesPerNode;
+
+    private ObjectMapper objectMapper;
+    private List<Theme> themes;
+    private List<Node> nodeList;
+    private List<Edge> edgeList;
+
+    @Setup
+    public void setup() {
+        SyntheticGraph graph = SyntheticGraph.generate(nodes, nodes * edgesPerNode, 6,
+                SyntheticGraph.DISTRIBUTION_POWERLAW, 42L);
+        themes = graph.getThemes();
+        nodeList = graph.getNodes();
+        edgeList = graph.getEdges();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public byte[] nodesToJson() throws Exception {
+        return objectMapper.writeValueAsBytes(nodeList);
+    }
+
+    @Benchmark
+    public byte[] edgesToJson() throws Exception {
+        return objectMapper.writeValueAsBytes(edgeList);
+    }
+
+    @Benchmark
+    public byte[] graphToColumnar() {
+        return GraphBinaryWriter.encode(themes, nodeList, edgeList);
+    }
+}
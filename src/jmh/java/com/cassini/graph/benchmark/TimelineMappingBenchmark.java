@@ -0,0 +1,72 @@
+package com.cassini.graph.benchmark;
+
+import com.cassini.graph.benchmark.support.Fields;
+import com.cassini.graph.benchmark.support.StubJdbcTemplate;
+import com.cassini.graph.model.TimelineEvent;
+import com.cassini.graph.model.TimelinePerson;
+import com.cassini.graph.service.impl.TimelineServiceImpl;
+import com.cassini.graph.util.SyntheticGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TimelineServiceImpl的行映射：人物使用BeanPropertyRowMapper（反射），事件使用手写RowMapper
+ * 数据来自内存中的ResultSet，不包含数据库和网络开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimelineMappingBenchmark {
+
+    private static final String[] PERSON_COLUMNS = {"id", "name", "birth_date", "death_date", "bio", "life_span"};
+
+    private static final String[] EVENT_COLUMNS = {"id", "event_name", "start_date", "end_date", "description",
+            "event_category", "create_time", "update_time"};
+
+    @Param({"1000"})
+    public int rows;
+
+    private TimelineServiceImpl personService;
+    private TimelineServiceImpl eventService;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42L);
+        List<Object[]> persons = new ArrayList<>(rows);
+        List<Object[]> events = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long birth = -30000000000000L + (long) (random.nextDouble() * 25000000000000L);
+            int lifeSpan = 20 + random.nextInt(70);
+            persons.add(new Object[]{i + 1, SyntheticGraph.randomName(random), new Timestamp(birth),
+                    new Timestamp(birth + lifeSpan * 31557600000L), "合成人物简介" + i, lifeSpan});
+            events.add(new Object[]{i + 1, "事件" + i, "1000-01-01", random.nextBoolean() ? "1001-01-01" : null,
+                    "合成事件描述" + i, "政治", new Timestamp(System.currentTimeMillis()), null});
+        }
+        StubJdbcTemplate personJdbc = new StubJdbcTemplate();
+        personJdbc.setRows(PERSON_COLUMNS, persons);
+        personService = new TimelineServiceImpl();
+        Fields.set(personService, "jdbcTemplate", personJdbc);
+        StubJdbcTemplate eventJdbc = new StubJdbcTemplate();
+        eventJdbc.setRows(EVENT_COLUMNS, events);
+        eventService = new TimelineServiceImpl();
+        Fields.set(eventService, "jdbcTemplate", eventJdbc);
+    }
+
+    @Benchmark
+    public List<TimelinePerson> mapPersons() {
+        return personService.getAllPersons();
+    }
+
+    @Benchmark
+    public List<TimelineEvent> mapEvents() {
+        return eventService.getAllEvents();
+    }
+}
@@ -0,0 +1,22 @@
+package com.cassini.graph.benchmark.support;
+
+import java.lang.reflect.Field;
+
+/**
+ * 给服务类的@Autowired私有字段注入依赖
+ */
+public final class Fields {
+
+    private Fields() {
+    }
+
+    public static void set(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.cassini.graph.benchmark.support;
+
+/**
+ * 延迟直方图（微秒），对数线性分桶：64微秒以下精确计数，以上每个2的幂区间分32个桶，相对误差不超过约3%
+ * 非线程安全，每个压测线程各自记录，结束后合并
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int LINEAR_LIMIT = SUB_COUNT * 2;
+
+    // 覆盖到2^40微秒（约12天），足够任何单次请求
+    private static final int BUCKETS = LINEAR_LIMIT + (40 - SUB_BITS) * SUB_COUNT;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    public void record(long micros) {
+        long value = Math.max(micros, 0);
+        counts[Math.min(indexOf(value), BUCKETS - 1)]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * 百分位延迟（微秒），返回所在桶的上界，不超过实际最大值
+     */
+    public long percentile(double percent) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percent / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        int top = (int) (value >>> shift);
+        return LINEAR_LIMIT + (shift - 1) * SUB_COUNT + (top - SUB_COUNT);
+    }
+
+    private static long upperBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_COUNT + 1;
+        long top = (index - LINEAR_LIMIT) % SUB_COUNT + SUB_COUNT;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,102 @@
+package com.cassini.graph.benchmark.support;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * 基于内存行数据的ResultSet，用于在没有数据库的情况下测量行映射的开销
+ * 只实现RowMapper常用的取值方法，其他方法抛出UnsupportedOperationException
+ */
+public final class ResultSets {
+
+    private ResultSets() {
+    }
+
+    public static ResultSet of(String[] columns, List<Object[]> rows) {
+        int[] cursor = {-1};
+        boolean[] lastNull = {false};
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(ResultSets.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return columns.length;
+                        case "getColumnLabel":
+                        case "getColumnName":
+                            return columns[(Integer) args[0] - 1];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        return (ResultSet) Proxy.newProxyInstance(ResultSets.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    String name = method.getName();
+                    switch (name) {
+                        case "next":
+                            return ++cursor[0] < rows.size();
+                        case "getMetaData":
+                            return metaData;
+                        case "wasNull":
+                            return lastNull[0];
+                        case "findColumn":
+                            return indexOf(columns, (String) args[0]) + 1;
+                        case "getRow":
+                            return cursor[0] + 1;
+                        case "close":
+                            return null;
+                        case "isClosed":
+                            return false;
+                        case "getStatement":
+                            return null;
+                        default:
+                            break;
+                    }
+                    if (!name.startsWith("get") || args == null || args.length == 0) {
+                        throw new UnsupportedOperationException(name);
+                    }
+                    int column = args[0] instanceof Integer ? (Integer) args[0] - 1 : indexOf(columns, (String) args[0]);
+                    Object value = rows.get(cursor[0])[column];
+                    lastNull[0] = value == null;
+                    return convert(value, method.getReturnType());
+                });
+    }
+
+    private static int indexOf(String[] columns, String column) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown column: " + column);
+    }
+
+    private static Object convert(Object value, Class<?> type) {
+        if (type == int.class) {
+            return value != null ? ((Number) value).intValue() : 0;
+        }
+        if (type == long.class) {
+            return value != null ? ((Number) value).longValue() : 0L;
+        }
+        if (type == double.class) {
+            return value != null ? ((Number) value).doubleValue() : 0.0;
+        }
+        if (type == boolean.class) {
+            return value != null && (Boolean) value;
+        }
+        if (value == null) {
+            return null;
+        }
+        if (type == String.class) {
+            return value.toString();
+        }
+        if (type == Timestamp.class && value instanceof java.util.Date) {
+            return new Timestamp(((java.util.Date) value).getTime());
+        }
+        if (type == java.sql.Date.class && value instanceof java.util.Date) {
+            return new java.sql.Date(((java.util.Date) value).getTime());
+        }
+        return value;
+    }
+}
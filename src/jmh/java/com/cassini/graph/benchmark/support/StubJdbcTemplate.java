@@ -0,0 +1,122 @@
+package com.cassini.graph.benchmark.support;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 不连接数据库的JdbcTemplate：queryForList按SQL返回预设结果，query把预设行交给RowMapper，
+ * 写操作只记录语句。用于单独测量服务层拼接SQL和映射结果的开销
+ */
+public class StubJdbcTemplate extends JdbcTemplate {
+
+    private Function<String, List<Map<String, Object>>> listResults = sql -> Collections.emptyList();
+
+    private String[] columns = new String[0];
+
+    private List<Object[]> rows = Collections.emptyList();
+
+    private long statements;
+
+    private int lastSqlLength;
+
+    public void setListResults(Function<String, List<Map<String, Object>>> listResults) {
+        this.listResults = listResults;
+    }
+
+    public void setRows(String[] columns, List<Object[]> rows) {
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    /**
+     * 执行过的语句数和最后一条语句的长度，供基准方法返回以免被JIT消除
+     */
+    public long getStatements() {
+        return statements;
+    }
+
+    public int getLastSqlLength() {
+        return lastSqlLength;
+    }
+
+    private void record(String sql) {
+        statements++;
+        lastSqlLength = sql.length();
+    }
+
+    @Override
+    public void execute(String sql) {
+        record(sql);
+    }
+
+    @Override
+    public List<Map<String, Object>> queryForList(String sql) {
+        record(sql);
+        return listResults.apply(sql);
+    }
+
+    @Override
+    public List<Map<String, Object>> queryForList(String sql, Object... args) {
+        record(sql);
+        return listResults.apply(sql);
+    }
+
+    @Override
+    public <T> T queryForObject(String sql, Class<T> requiredType) {
+        record(sql);
+        return requiredType.cast(0L);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public <T> T queryForObject(String sql, Object[] args, Class<T> requiredType) {
+        record(sql);
+        return requiredType.cast(0L);
+    }
+
+    @Override
+    public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+        record(sql);
+        return requiredType.cast(0L);
+    }
+
+    @Override
+    public <T> List<T> query(String sql, RowMapper<T> rowMapper) {
+        record(sql);
+        return map(rowMapper);
+    }
+
+    @Override
+    public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+        record(sql);
+        return map(rowMapper);
+    }
+
+    @Override
+    public int update(String sql, Object... args) {
+        record(sql);
+        return 1;
+    }
+
+    private <T> List<T> map(RowMapper<T> rowMapper) {
+        ResultSet rs = ResultSets.of(columns, rows);
+        List<T> result = new ArrayList<>(rows.size());
+        try {
+            int rowNum = 0;
+            while (rs.next()) {
+                result.add(rowMapper.mapRow(rs, rowNum++));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,14 @@
+-- 压测内嵌H2库的初始化脚本，每次建立连接时执行
+-- H2的JSON类型会把字符串参数当作JSON字符串值存储，node表先按CLOB建好，Hibernate的ddl-auto=update不会修改已有列
+CREATE TABLE IF NOT EXISTS node (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    theme_id INT NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    properties CLOB,
+    color VARCHAR(20),
+    size INT,
+    icon VARCHAR(100),
+    x DOUBLE,
+    y DOUBLE,
+    created_at TIMESTAMP
+);
@@ -0,0 +1,256 @@
+package com.cassini.graph.algorithm;
+
+import com.cassini.graph.index.GraphSnapshot;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 中心性计算（PageRank、抽样介数）
+ * 直接在快照的CSR入边/出边上运行，按节点区间或采样源点区间fork/join并行
+ */
+public class Centrality {
+
+    // 每个fork/join任务处理的最少节点数
+    private static final int SPLIT_THRESHOLD = 2048;
+
+    // 介数计算中每个任务处理的源点数
+    private static final int SOURCES_PER_TASK = 4;
+
+    private final GraphSnapshot graph;
+
+    private final ForkJoinPool pool;
+
+    private int pageRankIterations;
+
+    public Centrality(GraphSnapshot graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    /**
+     * 最近一次PageRank实际迭代的轮数
+     */
+    public int getPageRankIterations() {
+        return pageRankIterations;
+    }
+
+    /**
+     * 拉取式PageRank，出度为0的节点的得分平均分给所有节点
+     *
+     * @param initial 上一次的结果，用于热启动（长度可以小于当前节点数，新节点取平均值），为null时从均匀分布开始
+     * @param tolerance 两轮之间L1差值小于该值时停止
+     */
+    public double[] pageRank(double[] initial, double damping, int maxIterations, double tolerance) {
+        int n = graph.getNodeCount();
+        double[] rank = new double[n];
+        if (n == 0) {
+            return rank;
+        }
+        if (initial != null) {
+            int copied = Math.min(initial.length, n);
+            System.arraycopy(initial, 0, rank, 0, copied);
+            Arrays.fill(rank, copied, n, 1.0 / n);
+            normalize(rank);
+        } else {
+            Arrays.fill(rank, 1.0 / n);
+        }
+
+        double[] next = new double[n];
+        double[] contribution = new double[n];
+        pageRankIterations = 0;
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            pageRankIterations++;
+            double dangling = 0;
+            for (int v = 0; v < n; v++) {
+                int degree = graph.outDegree(v);
+                if (degree == 0) {
+                    dangling += rank[v];
+                    contribution[v] = 0;
+                } else {
+                    contribution[v] = rank[v] / degree;
+                }
+            }
+            double base = (1 - damping) / n + damping * dangling / n;
+            pool.invoke(new PageRankTask(0, n, contribution, next, base, damping));
+            double diff = 0;
+            for (int v = 0; v < n; v++) {
+                diff += Math.abs(next[v] - rank[v]);
+            }
+            double[] swap = rank;
+            rank = next;
+            next = swap;
+            if (diff < tolerance) {
+                break;
+            }
+        }
+        return rank;
+    }
+
+    private static void normalize(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        if (sum > 0) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] /= sum;
+            }
+        }
+    }
+
+    private class PageRankTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final double[] contribution;
+        private final double[] next;
+        private final double base;
+        private final double damping;
+
+        PageRankTask(int from, int to, double[] contribution, double[] next, double base, double damping) {
+            this.from = from;
+            this.to = to;
+            this.contribution = contribution;
+            this.next = next;
+            this.base = base;
+            this.damping = damping;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int v = from; v < to; v++) {
+                    double sum = 0;
+                    for (int i = graph.inBegin(v); i < graph.inEnd(v); i++) {
+                        sum += contribution[graph.edgeSource(graph.inEdge(i))];
+                    }
+                    next[v] = base + damping * sum;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PageRankTask(from, mid, contribution, next, base, damping),
+                    new PageRankTask(mid, to, contribution, next, base, damping));
+        }
+    }
+
+    /**
+     * 抽样介数中心性（Brandes算法，沿出边的无权最短路径）
+     * 从随机抽取的源点出发累加依赖值，再按 节点数/样本数 放大为全量估计
+     *
+     * @param samples 源点样本数，大于等于节点数时为精确值
+     */
+    public double[] betweenness(int samples, long seed) {
+        int n = graph.getNodeCount();
+        if (n == 0) {
+            return new double[0];
+        }
+        int[] sources;
+        if (samples >= n) {
+            sources = new int[n];
+            for (int i = 0; i < n; i++) {
+                sources[i] = i;
+            }
+        } else {
+            // 部分Fisher-Yates洗牌抽取不重复的源点
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            Random random = new Random(seed);
+            for (int i = 0; i < samples; i++) {
+                int j = i + random.nextInt(n - i);
+                int swap = all[i];
+                all[i] = all[j];
+                all[j] = swap;
+            }
+            sources = Arrays.copyOf(all, samples);
+        }
+        double[] result = pool.invoke(new BetweennessTask(sources, 0, sources.length));
+        double scale = (double) n / sources.length;
+        for (int v = 0; v < n; v++) {
+            result[v] *= scale;
+        }
+        return result;
+    }
+
+    private class BetweennessTask extends RecursiveTask<double[]> {
+
+        private final int[] sources;
+        private final int from;
+        private final int to;
+
+        BetweennessTask(int[] sources, int from, int to) {
+            this.sources = sources;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from > SOURCES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                BetweennessTask left = new BetweennessTask(sources, from, mid);
+                left.fork();
+                double[] right = new BetweennessTask(sources, mid, to).compute();
+                double[] merged = left.join();
+                for (int v = 0; v < merged.length; v++) {
+                    merged[v] += right[v];
+                }
+                return merged;
+            }
+            int n = graph.getNodeCount();
+            double[] centrality = new double[n];
+            int[] distance = new int[n];
+            double[] sigma = new double[n];
+            double[] delta = new double[n];
+            int[] order = new int[n];
+            Arrays.fill(distance, -1);
+            for (int s = from; s < to; s++) {
+                int source = sources[s];
+                // BFS，order同时作为队列和出栈顺序
+                int head = 0;
+                int tail = 0;
+                order[tail++] = source;
+                distance[source] = 0;
+                sigma[source] = 1;
+                while (head < tail) {
+                    int v = order[head++];
+                    for (int i = graph.outBegin(v); i < graph.outEnd(v); i++) {
+                        int w = graph.edgeTarget(graph.outEdge(i));
+                        if (distance[w] < 0) {
+                            distance[w] = distance[v] + 1;
+                            order[tail++] = w;
+                        }
+                        if (distance[w] == distance[v] + 1) {
+                            sigma[w] += sigma[v];
+                        }
+                    }
+                }
+                // 逆BFS顺序回传依赖值，前驱通过入边和距离判断
+                for (int k = tail - 1; k > 0; k--) {
+                    int w = order[k];
+                    double coefficient = (1 + delta[w]) / sigma[w];
+                    for (int i = graph.inBegin(w); i < graph.inEnd(w); i++) {
+                        int v = graph.edgeSource(graph.inEdge(i));
+                        if (distance[v] >= 0 && distance[v] == distance[w] - 1) {
+                            delta[v] += sigma[v] * coefficient;
+                        }
+                    }
+                    centrality[w] += delta[w];
+                }
+                for (int k = 0; k < tail; k++) {
+                    int v = order[k];
+                    distance[v] = -1;
+                    sigma[v] = 0;
+                    delta[v] = 0;
+                }
+            }
+            return centrality;
+        }
+    }
+}
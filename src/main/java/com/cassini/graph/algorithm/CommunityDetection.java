@@ -0,0 +1,434 @@
+package com.cassini.graph.algorithm;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 社区发现（Louvain + 标签传播快速模式）
+ * 在无向加权CSR邻接上运行；每轮按节点哈希分成两组交替移动，
+ * 同组节点的最优去向由fork/join并行计算，再统一应用，避免相邻节点同时互换
+ */
+public class CommunityDetection {
+
+    // 每个fork/join任务处理的最少节点数
+    private static final int SPLIT_THRESHOLD = 1024;
+
+    // 单层局部移动的最大轮数
+    private static final int MAX_PASSES = 20;
+
+    // Louvain最多聚合的层数
+    private static final int MAX_LEVELS = 12;
+
+    private final ForkJoinPool pool;
+
+    private final Level base;
+
+    // 每个工作线程复用的邻居社区累加区
+    private final ThreadLocal<Scratch> scratch = new ThreadLocal<>();
+
+    /**
+     * 某一层的无向图：自环以 2w 存放在行内，节点度 = 行内权重之和
+     */
+    private static class Level {
+        final int n;
+        final int[] offsets;
+        final int[] targets;
+        final double[] weights;
+        final double[] degree;
+        double totalDegree;
+
+        Level(int n, int[] offsets, int[] targets, double[] weights) {
+            this.n = n;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.degree = new double[n];
+            for (int i = 0; i < n; i++) {
+                double sum = 0;
+                for (int p = offsets[i]; p < offsets[i + 1]; p++) {
+                    sum += weights[p];
+                }
+                degree[i] = sum;
+                totalDegree += sum;
+            }
+        }
+    }
+
+    private static class Scratch {
+        double[] weight;
+        int[] touched;
+
+        Scratch(int n) {
+            weight = new double[n];
+            touched = new int[n];
+        }
+    }
+
+    /**
+     * @param nodeCount 节点数
+     * @param edgeSource 边的源节点（局部编号），方向被忽略
+     * @param edgeTarget 边的目标节点（局部编号）
+     * @param edgeWeight 边权，为null时每条边权重为1
+     */
+    public CommunityDetection(int nodeCount, int[] edgeSource, int[] edgeTarget, double[] edgeWeight,
+                              ForkJoinPool pool) {
+        this.pool = pool;
+        int[] offsets = new int[nodeCount + 1];
+        for (int e = 0; e < edgeSource.length; e++) {
+            offsets[edgeSource[e] + 1]++;
+            if (edgeSource[e] != edgeTarget[e]) {
+                offsets[edgeTarget[e] + 1]++;
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] targets = new int[offsets[nodeCount]];
+        double[] weights = new double[offsets[nodeCount]];
+        int[] cursor = Arrays.copyOf(offsets, nodeCount);
+        for (int e = 0; e < edgeSource.length; e++) {
+            int s = edgeSource[e];
+            int t = edgeTarget[e];
+            double w = edgeWeight != null ? edgeWeight[e] : 1.0;
+            if (s == t) {
+                targets[cursor[s]] = s;
+                weights[cursor[s]++] = 2 * w;
+            } else {
+                targets[cursor[s]] = t;
+                weights[cursor[s]++] = w;
+                targets[cursor[t]] = s;
+                weights[cursor[t]++] = w;
+            }
+        }
+        this.base = new Level(nodeCount, offsets, targets, weights);
+    }
+
+    public int getNodeCount() {
+        return base.n;
+    }
+
+    /**
+     * Louvain：局部移动 + 社区聚合，重复直到没有节点移动
+     *
+     * @return 每个节点的社区编号（从0开始连续编号）
+     */
+    public int[] louvain() {
+        int[] assignment = new int[base.n];
+        for (int i = 0; i < base.n; i++) {
+            assignment[i] = i;
+        }
+        Level level = base;
+        for (int depth = 0; depth < MAX_LEVELS; depth++) {
+            int[] community = new int[level.n];
+            if (!moveNodes(level, community)) {
+                break;
+            }
+            int count = renumber(community);
+            for (int i = 0; i < base.n; i++) {
+                assignment[i] = community[assignment[i]];
+            }
+            if (count == level.n) {
+                break;
+            }
+            level = aggregate(level, community, count);
+        }
+        renumber(assignment);
+        return assignment;
+    }
+
+    /**
+     * 标签传播：每个节点反复取邻居中权重最大的标签，速度快但质量低于Louvain
+     */
+    public int[] labelPropagation(int maxIterations) {
+        Level level = base;
+        int[] labels = new int[level.n];
+        for (int i = 0; i < level.n; i++) {
+            labels[i] = i;
+        }
+        int[] next = new int[level.n];
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            int changed = 0;
+            for (int color = 0; color < 2; color++) {
+                int phase = iteration * 2 + color;
+                int group = color;
+                pool.invoke(new NodeTask(0, level.n, i -> {
+                    next[i] = color(i, phase) == group ? bestLabel(level, labels, i) : labels[i];
+                }));
+                for (int i = 0; i < level.n; i++) {
+                    if (next[i] != labels[i]) {
+                        labels[i] = next[i];
+                        changed++;
+                    }
+                }
+            }
+            if (changed <= level.n / 1000) {
+                break;
+            }
+        }
+        renumber(labels);
+        return labels;
+    }
+
+    /**
+     * 划分在原图上的模块度
+     */
+    public double modularity(int[] community) {
+        int count = 0;
+        for (int c : community) {
+            count = Math.max(count, c + 1);
+        }
+        double[] inside = new double[count];
+        double[] total = new double[count];
+        for (int i = 0; i < base.n; i++) {
+            int c = community[i];
+            total[c] += base.degree[i];
+            for (int p = base.offsets[i]; p < base.offsets[i + 1]; p++) {
+                if (community[base.targets[p]] == c) {
+                    inside[c] += base.weights[p];
+                }
+            }
+        }
+        double m2 = base.totalDegree;
+        if (m2 == 0) {
+            return 0;
+        }
+        double q = 0;
+        for (int c = 0; c < count; c++) {
+            q += inside[c] / m2 - (total[c] / m2) * (total[c] / m2);
+        }
+        return q;
+    }
+
+    /**
+     * 单层局部移动，community初始化为每个节点独立成社区，返回是否有节点移动
+     */
+    private boolean moveNodes(Level level, int[] community) {
+        int n = level.n;
+        double[] total = Arrays.copyOf(level.degree, n);
+        int[] size = new int[n];
+        for (int i = 0; i < n; i++) {
+            community[i] = i;
+            size[i] = 1;
+        }
+        if (level.totalDegree == 0) {
+            return false;
+        }
+        int[] target = new int[n];
+        boolean movedAny = false;
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            int moved = 0;
+            for (int color = 0; color < 2; color++) {
+                int phase = pass * 2 + color;
+                int group = color;
+                pool.invoke(new NodeTask(0, n, i -> {
+                    target[i] = color(i, phase) == group ? bestCommunity(level, community, total, size, i)
+                            : community[i];
+                }));
+                for (int i = 0; i < n; i++) {
+                    int from = community[i];
+                    int to = target[i];
+                    if (to != from) {
+                        total[from] -= level.degree[i];
+                        total[to] += level.degree[i];
+                        size[from]--;
+                        size[to]++;
+                        community[i] = to;
+                        moved++;
+                    }
+                }
+            }
+            if (moved > 0) {
+                movedAny = true;
+            }
+            if (moved <= n / 1000) {
+                break;
+            }
+        }
+        return movedAny;
+    }
+
+    private int bestCommunity(Level level, int[] community, double[] total, int[] size, int i) {
+        Scratch s = scratch(level.n);
+        int own = community[i];
+        int touchedCount = 0;
+        s.touched[touchedCount++] = own;
+        for (int p = level.offsets[i]; p < level.offsets[i + 1]; p++) {
+            int j = level.targets[p];
+            if (j == i) {
+                continue;
+            }
+            int c = community[j];
+            if (s.weight[c] == 0 && c != own) {
+                s.touched[touchedCount++] = c;
+            }
+            s.weight[c] += level.weights[p];
+        }
+        double k = level.degree[i];
+        double m2 = level.totalDegree;
+        int best = own;
+        double bestGain = s.weight[own] - (total[own] - k) * k / m2;
+        for (int t = 1; t < touchedCount; t++) {
+            int c = s.touched[t];
+            double gain = s.weight[c] - total[c] * k / m2;
+            // 两个单点社区只允许向编号小的一方合并，防止同时互换
+            if (gain > bestGain + 1e-12 && !(size[own] == 1 && size[c] == 1 && c > own)) {
+                best = c;
+                bestGain = gain;
+            }
+        }
+        for (int t = 0; t < touchedCount; t++) {
+            s.weight[s.touched[t]] = 0;
+        }
+        return best;
+    }
+
+    private int bestLabel(Level level, int[] labels, int i) {
+        Scratch s = scratch(level.n);
+        int touchedCount = 0;
+        for (int p = level.offsets[i]; p < level.offsets[i + 1]; p++) {
+            int j = level.targets[p];
+            if (j == i) {
+                continue;
+            }
+            int label = labels[j];
+            if (s.weight[label] == 0) {
+                s.touched[touchedCount++] = label;
+            }
+            s.weight[label] += level.weights[p];
+        }
+        int own = labels[i];
+        int best = own;
+        double bestWeight = s.weight[own];
+        for (int t = 0; t < touchedCount; t++) {
+            int label = s.touched[t];
+            double weight = s.weight[label];
+            if (weight > bestWeight || (weight == bestWeight && best != own && label < best)) {
+                best = label;
+                bestWeight = weight;
+            }
+        }
+        for (int t = 0; t < touchedCount; t++) {
+            s.weight[s.touched[t]] = 0;
+        }
+        return best;
+    }
+
+    private Scratch scratch(int n) {
+        Scratch s = scratch.get();
+        if (s == null || s.weight.length < n) {
+            s = new Scratch(n);
+            scratch.set(s);
+        }
+        return s;
+    }
+
+    /**
+     * 将社区合并为超级节点，社区内部的边成为自环
+     */
+    private Level aggregate(Level level, int[] community, int count) {
+        // 按社区对节点做计数排序
+        int[] memberOffsets = new int[count + 1];
+        for (int i = 0; i < level.n; i++) {
+            memberOffsets[community[i] + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        int[] members = new int[level.n];
+        int[] cursor = Arrays.copyOf(memberOffsets, count);
+        for (int i = 0; i < level.n; i++) {
+            members[cursor[community[i]]++] = i;
+        }
+
+        int[] offsets = new int[count + 1];
+        int[] targets = new int[Math.max(16, level.targets.length / 2)];
+        double[] weights = new double[targets.length];
+        double[] accumulator = new double[count];
+        int[] touched = new int[count];
+        int size = 0;
+        for (int c = 0; c < count; c++) {
+            int touchedCount = 0;
+            for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                int i = members[m];
+                for (int p = level.offsets[i]; p < level.offsets[i + 1]; p++) {
+                    int d = community[level.targets[p]];
+                    if (accumulator[d] == 0) {
+                        touched[touchedCount++] = d;
+                    }
+                    accumulator[d] += level.weights[p];
+                }
+            }
+            if (size + touchedCount > targets.length) {
+                int length = Math.max(targets.length * 2, size + touchedCount);
+                targets = Arrays.copyOf(targets, length);
+                weights = Arrays.copyOf(weights, length);
+            }
+            for (int t = 0; t < touchedCount; t++) {
+                int d = touched[t];
+                targets[size] = d;
+                weights[size++] = accumulator[d];
+                accumulator[d] = 0;
+            }
+            offsets[c + 1] = size;
+        }
+        return new Level(count, offsets, Arrays.copyOf(targets, size), Arrays.copyOf(weights, size));
+    }
+
+    /**
+     * 原地重新编号为0..k-1（按首次出现的顺序），返回社区数
+     */
+    private static int renumber(int[] community) {
+        int max = 0;
+        for (int c : community) {
+            max = Math.max(max, c + 1);
+        }
+        int[] mapping = new int[max];
+        Arrays.fill(mapping, -1);
+        int count = 0;
+        for (int i = 0; i < community.length; i++) {
+            int c = community[i];
+            if (mapping[c] < 0) {
+                mapping[c] = count++;
+            }
+            community[i] = mapping[c];
+        }
+        return count;
+    }
+
+    private static int color(int node, int phase) {
+        int h = (node + phase * 0x9E3779B9) * 0x85EBCA6B;
+        return (h ^ (h >>> 15)) & 1;
+    }
+
+    private interface NodeAction {
+        void apply(int node);
+    }
+
+    private static class NodeTask extends RecursiveAction {
+
+        private final int from;
+
+        private final int to;
+
+        private final NodeAction action;
+
+        NodeTask(int from, int to, NodeAction action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    action.apply(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new NodeTask(from, mid, action), new NodeTask(mid, to, action));
+        }
+    }
+}
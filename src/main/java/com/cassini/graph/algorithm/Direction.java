@@ -0,0 +1,28 @@
+package com.cassini.graph.algorithm;
+
+/**
+ * 图遍历方向
+ */
+public enum Direction {
+    OUT,
+    IN,
+    BOTH;
+
+    /**
+     * 解析请求参数，不区分大小写，为空时默认BOTH
+     */
+    public static Direction parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return BOTH;
+        }
+        return valueOf(value.trim().toUpperCase());
+    }
+
+    public boolean followsOut() {
+        return this != IN;
+    }
+
+    public boolean followsIn() {
+        return this != OUT;
+    }
+}
@@ -0,0 +1,359 @@
+package com.cassini.graph.algorithm;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 力导向布局（Fruchterman-Reingold + Barnes-Hut近似）
+ * 所有数据保存在原始数组中，每轮迭代的受力计算通过fork/join按节点区间并行
+ */
+public class ForceLayout {
+
+    // Barnes-Hut开角阈值，越小越精确
+    private static final double THETA = 0.8;
+
+    // 每个fork/join任务处理的最少节点数
+    private static final int SPLIT_THRESHOLD = 512;
+
+    private final int nodeCount;
+
+    private final int[] adjacencyOffsets;
+
+    private final int[] adjacency;
+
+    private final double[] x;
+
+    private final double[] y;
+
+    // 节点可移动程度：1为自由移动，0为固定
+    private final double[] mobility;
+
+    private final double[] forceX;
+
+    private final double[] forceY;
+
+    // 理想边长
+    private final double k;
+
+    private final QuadTree tree;
+
+    /**
+     * @param nodeCount 节点数
+     * @param edgeSource 边的源节点（局部编号）
+     * @param edgeTarget 边的目标节点（局部编号）
+     * @param x 初始横坐标，布局结果原地写回
+     * @param y 初始纵坐标，布局结果原地写回
+     * @param mobility 节点可移动程度，为null时全部自由移动
+     * @param idealEdgeLength 理想边长
+     */
+    public ForceLayout(int nodeCount, int[] edgeSource, int[] edgeTarget, double[] x, double[] y,
+                       double[] mobility, double idealEdgeLength) {
+        this.nodeCount = nodeCount;
+        this.x = x;
+        this.y = y;
+        this.k = idealEdgeLength;
+        if (mobility == null) {
+            mobility = new double[nodeCount];
+            Arrays.fill(mobility, 1.0);
+        }
+        this.mobility = mobility;
+        this.forceX = new double[nodeCount];
+        this.forceY = new double[nodeCount];
+        this.tree = new QuadTree(nodeCount);
+
+        // 构建无向邻接表，使每个节点的引力只由自身任务累加，避免并发写
+        adjacencyOffsets = new int[nodeCount + 1];
+        for (int e = 0; e < edgeSource.length; e++) {
+            if (edgeSource[e] != edgeTarget[e]) {
+                adjacencyOffsets[edgeSource[e] + 1]++;
+                adjacencyOffsets[edgeTarget[e] + 1]++;
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            adjacencyOffsets[i + 1] += adjacencyOffsets[i];
+        }
+        adjacency = new int[adjacencyOffsets[nodeCount]];
+        int[] cursor = Arrays.copyOf(adjacencyOffsets, nodeCount);
+        for (int e = 0; e < edgeSource.length; e++) {
+            if (edgeSource[e] != edgeTarget[e]) {
+                adjacency[cursor[edgeSource[e]]++] = edgeTarget[e];
+                adjacency[cursor[edgeTarget[e]]++] = edgeSource[e];
+            }
+        }
+    }
+
+    /**
+     * 为没有坐标的节点生成初始位置：有已定位邻居时放在邻居重心附近，否则随机散布
+     *
+     * @param placed 节点是否已有坐标
+     */
+    public void seedPositions(boolean[] placed, long seed) {
+        Random random = new Random(seed);
+        double radius = Math.sqrt(nodeCount) * k;
+        for (int i = 0; i < nodeCount; i++) {
+            if (placed[i]) {
+                continue;
+            }
+            double sumX = 0;
+            double sumY = 0;
+            int count = 0;
+            for (int a = adjacencyOffsets[i]; a < adjacencyOffsets[i + 1]; a++) {
+                int j = adjacency[a];
+                if (placed[j]) {
+                    sumX += x[j];
+                    sumY += y[j];
+                    count++;
+                }
+            }
+            if (count > 0) {
+                x[i] = sumX / count + (random.nextDouble() - 0.5) * k;
+                y[i] = sumY / count + (random.nextDouble() - 0.5) * k;
+            } else {
+                x[i] = (random.nextDouble() - 0.5) * 2 * radius;
+                y[i] = (random.nextDouble() - 0.5) * 2 * radius;
+            }
+        }
+    }
+
+    /**
+     * 执行布局迭代，温度从initialTemperature线性降为0
+     */
+    public void run(int iterations, double initialTemperature, ForkJoinPool pool) {
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            double temperature = initialTemperature * (1.0 - (double) iteration / iterations);
+            tree.build(x, y, nodeCount);
+            pool.invoke(new ForceTask(0, nodeCount));
+            for (int i = 0; i < nodeCount; i++) {
+                double fx = forceX[i];
+                double fy = forceY[i];
+                double length = Math.sqrt(fx * fx + fy * fy);
+                if (length > 0) {
+                    double step = Math.min(length, temperature) * mobility[i] / length;
+                    x[i] += fx * step;
+                    y[i] += fy * step;
+                }
+            }
+        }
+    }
+
+    /**
+     * 计算单个节点所受合力：四叉树近似的斥力 + 邻边引力 + 指向原点的弱重力
+     */
+    private void computeForce(int i, int[] stack) {
+        double fx = 0;
+        double fy = 0;
+        double kk = k * k;
+        double xi = x[i];
+        double yi = y[i];
+
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int cell = stack[--top];
+            int count = tree.count[cell];
+            if (count == 0 || tree.point[cell] == i) {
+                continue;
+            }
+            double dx = xi - tree.sumX[cell] / count;
+            double dy = yi - tree.sumY[cell] / count;
+            double d2 = dx * dx + dy * dy;
+            if (tree.firstChild[cell] < 0 || tree.size[cell] * tree.size[cell] < THETA * THETA * d2) {
+                if (d2 < 1e-9) {
+                    // 重合节点，给一个确定性的微小扰动
+                    dx = ((i * 31) % 7 - 3) * 0.01;
+                    dy = ((i * 17) % 7 - 3) * 0.01;
+                    d2 = dx * dx + dy * dy + 1e-9;
+                }
+                double f = kk * count / d2;
+                fx += dx * f;
+                fy += dy * f;
+            } else {
+                int child = tree.firstChild[cell];
+                stack[top++] = child;
+                stack[top++] = child + 1;
+                stack[top++] = child + 2;
+                stack[top++] = child + 3;
+            }
+        }
+
+        for (int a = adjacencyOffsets[i]; a < adjacencyOffsets[i + 1]; a++) {
+            int j = adjacency[a];
+            double dx = xi - x[j];
+            double dy = yi - y[j];
+            double d = Math.sqrt(dx * dx + dy * dy);
+            fx -= dx * d / k;
+            fy -= dy * d / k;
+        }
+
+        double gravity = 0.01;
+        fx -= xi * gravity;
+        fy -= yi * gravity;
+
+        forceX[i] = fx;
+        forceY[i] = fy;
+    }
+
+    private class ForceTask extends RecursiveAction {
+
+        private final int from;
+
+        private final int to;
+
+        ForceTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                int[] stack = new int[4 * QuadTree.MAX_DEPTH + 8];
+                for (int i = from; i < to; i++) {
+                    computeForce(i, stack);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ForceTask(from, mid), new ForceTask(mid, to));
+        }
+    }
+
+    /**
+     * 基于数组的四叉树，每个内部节点的4个子节点连续存放
+     */
+    static class QuadTree {
+
+        static final int MAX_DEPTH = 40;
+
+        double[] minX;
+        double[] minY;
+        double[] size;
+        double[] sumX;
+        double[] sumY;
+        int[] count;
+        int[] firstChild;
+        // 叶子中唯一的点编号，-1为空，-2为内部节点或多点聚合叶子
+        int[] point;
+        int cells;
+
+        QuadTree(int nodeCount) {
+            allocate(Math.max(16, nodeCount * 2));
+        }
+
+        private void allocate(int capacity) {
+            minX = new double[capacity];
+            minY = new double[capacity];
+            size = new double[capacity];
+            sumX = new double[capacity];
+            sumY = new double[capacity];
+            count = new int[capacity];
+            firstChild = new int[capacity];
+            point = new int[capacity];
+        }
+
+        private void ensure(int capacity) {
+            if (capacity <= count.length) {
+                return;
+            }
+            int length = Math.max(capacity, count.length * 2);
+            minX = Arrays.copyOf(minX, length);
+            minY = Arrays.copyOf(minY, length);
+            size = Arrays.copyOf(size, length);
+            sumX = Arrays.copyOf(sumX, length);
+            sumY = Arrays.copyOf(sumY, length);
+            count = Arrays.copyOf(count, length);
+            firstChild = Arrays.copyOf(firstChild, length);
+            point = Arrays.copyOf(point, length);
+        }
+
+        private int newCell(double x0, double y0, double s) {
+            int cell = cells++;
+            minX[cell] = x0;
+            minY[cell] = y0;
+            size[cell] = s;
+            sumX[cell] = 0;
+            sumY[cell] = 0;
+            count[cell] = 0;
+            firstChild[cell] = -1;
+            point[cell] = -1;
+            return cell;
+        }
+
+        void build(double[] x, double[] y, int n) {
+            double x0 = Double.MAX_VALUE;
+            double y0 = Double.MAX_VALUE;
+            double x1 = -Double.MAX_VALUE;
+            double y1 = -Double.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                x0 = Math.min(x0, x[i]);
+                y0 = Math.min(y0, y[i]);
+                x1 = Math.max(x1, x[i]);
+                y1 = Math.max(y1, y[i]);
+            }
+            cells = 0;
+            if (n == 0) {
+                newCell(0, 0, 1);
+                return;
+            }
+            newCell(x0, y0, Math.max(Math.max(x1 - x0, y1 - y0), 1e-6) * 1.0001);
+            for (int i = 0; i < n; i++) {
+                insert(i, x, y);
+            }
+        }
+
+        private int childFor(int cell, double px, double py) {
+            double half = size[cell] / 2;
+            int quadrant = (px >= minX[cell] + half ? 1 : 0) + (py >= minY[cell] + half ? 2 : 0);
+            return firstChild[cell] + quadrant;
+        }
+
+        private void split(int cell) {
+            ensure(cells + 4);
+            double half = size[cell] / 2;
+            int first = newCell(minX[cell], minY[cell], half);
+            newCell(minX[cell] + half, minY[cell], half);
+            newCell(minX[cell], minY[cell] + half, half);
+            newCell(minX[cell] + half, minY[cell] + half, half);
+            firstChild[cell] = first;
+        }
+
+        private void insert(int p, double[] x, double[] y) {
+            double px = x[p];
+            double py = y[p];
+            int cell = 0;
+            int depth = 0;
+            while (true) {
+                count[cell]++;
+                sumX[cell] += px;
+                sumY[cell] += py;
+                if (firstChild[cell] >= 0) {
+                    cell = childFor(cell, px, py);
+                    depth++;
+                    continue;
+                }
+                if (count[cell] == 1) {
+                    point[cell] = p;
+                    return;
+                }
+                if (point[cell] == -2 || depth >= MAX_DEPTH) {
+                    // 深度达到上限的重合点聚合在同一叶子中
+                    point[cell] = -2;
+                    return;
+                }
+                // 叶子中已有一个点，分裂后把原有点下移
+                int q = point[cell];
+                point[cell] = -2;
+                split(cell);
+                int qChild = childFor(cell, x[q], y[q]);
+                count[qChild] = 1;
+                sumX[qChild] = x[q];
+                sumY[qChild] = y[q];
+                point[qChild] = q;
+                cell = childFor(cell, px, py);
+                depth++;
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.cassini.graph.algorithm;
+
+import com.cassini.graph.index.GraphSnapshot;
+import com.cassini.graph.index.IntArrayList;
+
+import java.util.BitSet;
+
+/**
+ * k跳邻域（ego graph）搜索
+ * 基于快照的CSR邻接做逐层BFS，使用位图记录已访问节点，节点数或边数达到上限时提前停止
+ */
+public class NeighborhoodSearch {
+
+    private final GraphSnapshot graph;
+
+    private final Direction direction;
+
+    // 允许的关系编号，为null时不过滤
+    private final boolean[] allowedRelations;
+
+    /**
+     * 搜索结果：访问到的节点（按BFS顺序）、每个节点的跳数、导出子图的边
+     */
+    public static class Result {
+        public final IntArrayList nodes = new IntArrayList();
+        public final IntArrayList depths = new IntArrayList();
+        public final IntArrayList edges = new IntArrayList();
+        public int depthReached;
+        public boolean truncated;
+    }
+
+    public NeighborhoodSearch(GraphSnapshot graph, Direction direction, boolean[] allowedRelations) {
+        this.graph = graph;
+        this.direction = direction;
+        this.allowedRelations = allowedRelations;
+    }
+
+    private boolean allowed(int edge) {
+        return allowedRelations == null || allowedRelations[graph.edgeRelation(edge)];
+    }
+
+    /**
+     * @param start 起始节点内部编号
+     * @param maxDepth 最大跳数
+     * @param nodeLimit 最多返回的节点数
+     * @param edgeLimit 最多返回的边数
+     */
+    public Result search(int start, int maxDepth, int nodeLimit, int edgeLimit) {
+        Result result = new Result();
+        BitSet visited = new BitSet(graph.getNodeCount());
+        visited.set(start);
+        result.nodes.add(start);
+        result.depths.add(0);
+
+        IntArrayList frontier = new IntArrayList();
+        IntArrayList next = new IntArrayList();
+        frontier.add(start);
+        int depth = 0;
+        expand:
+        while (depth < maxDepth && !frontier.isEmpty()) {
+            depth++;
+            next.clear();
+            for (int f = 0; f < frontier.size(); f++) {
+                int node = frontier.get(f);
+                if (direction.followsOut()) {
+                    for (int i = graph.outBegin(node); i < graph.outEnd(node); i++) {
+                        int edge = graph.outEdge(i);
+                        if (allowed(edge) && visit(graph.edgeTarget(edge), depth, visited, next, result, nodeLimit)) {
+                            break expand;
+                        }
+                    }
+                }
+                if (direction.followsIn()) {
+                    for (int i = graph.inBegin(node); i < graph.inEnd(node); i++) {
+                        int edge = graph.inEdge(i);
+                        if (allowed(edge) && visit(graph.edgeSource(edge), depth, visited, next, result, nodeLimit)) {
+                            break expand;
+                        }
+                    }
+                }
+            }
+            IntArrayList swap = frontier;
+            frontier = next;
+            next = swap;
+        }
+        result.depthReached = result.depths.get(result.depths.size() - 1);
+
+        // 导出子图：两端都已访问且关系允许的边，每条边只从源节点一侧收集一次
+        for (int n = 0; n < result.nodes.size(); n++) {
+            int node = result.nodes.get(n);
+            for (int i = graph.outBegin(node); i < graph.outEnd(node); i++) {
+                int edge = graph.outEdge(i);
+                if (allowed(edge) && visited.get(graph.edgeTarget(edge))) {
+                    if (result.edges.size() >= edgeLimit) {
+                        result.truncated = true;
+                        return result;
+                    }
+                    result.edges.add(edge);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 访问节点，返回true表示已达到节点上限需要停止
+     */
+    private boolean visit(int node, int depth, BitSet visited, IntArrayList next, Result result, int nodeLimit) {
+        if (visited.get(node)) {
+            return false;
+        }
+        if (result.nodes.size() >= nodeLimit) {
+            result.truncated = true;
+            return true;
+        }
+        visited.set(node);
+        result.nodes.add(node);
+        result.depths.add(depth);
+        next.add(node);
+        return false;
+    }
+}
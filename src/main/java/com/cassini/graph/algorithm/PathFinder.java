@@ -0,0 +1,381 @@
+package com.cassini.graph.algorithm;
+
+import com.cassini.graph.index.GraphSnapshot;
+import com.cassini.graph.index.IntArrayList;
+import com.cassini.graph.index.IntIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 两点间路径搜索
+ * 支持无权双向BFS、按Edge.width加权的Dijkstra，以及基于Dijkstra的Yen k最短路径；
+ * 搜索状态按访问到的节点稀疏存储，单次搜索访问的节点数超过上限时放弃
+ */
+public class PathFinder {
+
+    private final GraphSnapshot graph;
+
+    private final Direction direction;
+
+    private final boolean[] allowedRelations;
+
+    private final Set<Integer> allowedThemes;
+
+    private final boolean weighted;
+
+    private final int maxExplored;
+
+    private boolean exhausted;
+
+    private int explored;
+
+    /**
+     * 一条路径：节点序列、边序列和总代价
+     */
+    public static class Path implements Comparable<Path> {
+        public final int[] nodes;
+        public final int[] edges;
+        public final double cost;
+
+        Path(int[] nodes, int[] edges, double cost) {
+            this.nodes = nodes;
+            this.edges = edges;
+            this.cost = cost;
+        }
+
+        @Override
+        public int compareTo(Path other) {
+            int c = Double.compare(cost, other.cost);
+            return c != 0 ? c : Integer.compare(edges.length, other.edges.length);
+        }
+    }
+
+    /**
+     * @param allowedRelations 按关系编号索引的过滤数组，为null时不过滤
+     * @param allowedThemes 中间节点允许的主题，为null时不过滤（起点和终点不受限制）
+     * @param weighted true时以Edge.width为边权，否则每条边代价为1
+     * @param maxExplored 单次搜索最多访问的节点数
+     */
+    public PathFinder(GraphSnapshot graph, Direction direction, boolean[] allowedRelations,
+                      Set<Integer> allowedThemes, boolean weighted, int maxExplored) {
+        this.graph = graph;
+        this.direction = direction;
+        this.allowedRelations = allowedRelations;
+        this.allowedThemes = allowedThemes;
+        this.weighted = weighted;
+        this.maxExplored = maxExplored;
+    }
+
+    /**
+     * 是否有搜索因访问节点数超过上限而提前终止
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * 累计访问的节点数
+     */
+    public int getExplored() {
+        return explored;
+    }
+
+    private boolean edgeAllowed(int edge) {
+        return allowedRelations == null || allowedRelations[graph.edgeRelation(edge)];
+    }
+
+    private boolean nodeAllowed(int node, int source, int target) {
+        return allowedThemes == null || node == source || node == target
+                || allowedThemes.contains(graph.nodeTheme(node));
+    }
+
+    private double weight(int edge) {
+        return weighted ? Math.max(graph.edgeWidth(edge), 1) : 1.0;
+    }
+
+    /**
+     * 按给定方向遍历node的相邻边，回调参数为(边编号, 邻居节点)
+     */
+    private interface EdgeVisitor {
+        boolean visit(int edge, int neighbor);
+    }
+
+    private boolean forEachNeighbor(int node, boolean forward, EdgeVisitor visitor) {
+        boolean followOut = forward ? direction.followsOut() : direction.followsIn();
+        boolean followIn = forward ? direction.followsIn() : direction.followsOut();
+        if (followOut) {
+            for (int i = graph.outBegin(node); i < graph.outEnd(node); i++) {
+                int edge = graph.outEdge(i);
+                if (edgeAllowed(edge) && visitor.visit(edge, graph.edgeTarget(edge))) {
+                    return true;
+                }
+            }
+        }
+        if (followIn) {
+            for (int i = graph.inBegin(node); i < graph.inEnd(node); i++) {
+                int edge = graph.inEdge(i);
+                // 无向遍历时自环已在出边中处理过
+                if (edgeAllowed(edge) && !(followOut && graph.edgeSource(edge) == node)
+                        && visitor.visit(edge, graph.edgeSource(edge))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 稀疏搜索状态：节点 -> 槽位，槽位上保存距离和前驱
+     */
+    private static class SearchState {
+        final IntIntMap slots = new IntIntMap();
+        int[] node = new int[64];
+        double[] distance = new double[64];
+        int[] parentEdge = new int[64];
+        int[] parentSlot = new int[64];
+        int size;
+
+        int slotOf(int n) {
+            return slots.get(n, -1);
+        }
+
+        int add(int n, double d, int edge, int parent) {
+            if (size == node.length) {
+                int length = size * 2;
+                node = Arrays.copyOf(node, length);
+                distance = Arrays.copyOf(distance, length);
+                parentEdge = Arrays.copyOf(parentEdge, length);
+                parentSlot = Arrays.copyOf(parentSlot, length);
+            }
+            node[size] = n;
+            distance[size] = d;
+            parentEdge[size] = edge;
+            parentSlot[size] = parent;
+            slots.put(n, size);
+            return size++;
+        }
+
+        /**
+         * 从槽位回溯到起点，返回的节点和边按从起点出发的顺序排列
+         */
+        void trace(int slot, IntArrayList nodes, IntArrayList edges) {
+            IntArrayList reversedNodes = new IntArrayList();
+            IntArrayList reversedEdges = new IntArrayList();
+            while (slot >= 0) {
+                reversedNodes.add(node[slot]);
+                if (parentEdge[slot] >= 0) {
+                    reversedEdges.add(parentEdge[slot]);
+                }
+                slot = parentSlot[slot];
+            }
+            for (int i = reversedNodes.size() - 1; i >= 0; i--) {
+                nodes.add(reversedNodes.get(i));
+            }
+            for (int i = reversedEdges.size() - 1; i >= 0; i--) {
+                edges.add(reversedEdges.get(i));
+            }
+        }
+    }
+
+    /**
+     * 无权最短路径：双向BFS，每次扩展较小一侧的一整层
+     */
+    public Path bidirectionalBfs(int source, int target) {
+        if (source == target) {
+            return new Path(new int[]{source}, new int[0], 0);
+        }
+        SearchState forward = new SearchState();
+        SearchState backward = new SearchState();
+        forward.add(source, 0, -1, -1);
+        backward.add(target, 0, -1, -1);
+        IntArrayList forwardFrontier = new IntArrayList();
+        IntArrayList backwardFrontier = new IntArrayList();
+        forwardFrontier.add(0);
+        backwardFrontier.add(0);
+        int[] best = {Integer.MAX_VALUE, -1, -1, -1};
+
+        while (!forwardFrontier.isEmpty() && !backwardFrontier.isEmpty()) {
+            boolean expandForward = forwardFrontier.size() <= backwardFrontier.size();
+            SearchState self = expandForward ? forward : backward;
+            SearchState other = expandForward ? backward : forward;
+            IntArrayList frontier = expandForward ? forwardFrontier : backwardFrontier;
+            IntArrayList next = new IntArrayList();
+            for (int f = 0; f < frontier.size(); f++) {
+                int slot = frontier.get(f);
+                int node = self.node[slot];
+                double depth = self.distance[slot];
+                forEachNeighbor(node, expandForward, (edge, neighbor) -> {
+                    if (!nodeAllowed(neighbor, source, target)) {
+                        return false;
+                    }
+                    int otherSlot = other.slotOf(neighbor);
+                    if (otherSlot >= 0) {
+                        int length = (int) depth + 1 + (int) other.distance[otherSlot];
+                        if (length < best[0]) {
+                            best[0] = length;
+                            best[1] = expandForward ? slot : otherSlot;
+                            best[2] = expandForward ? otherSlot : slot;
+                            best[3] = edge;
+                        }
+                    }
+                    if (self.slotOf(neighbor) < 0) {
+                        next.add(self.add(neighbor, depth + 1, edge, slot));
+                        if (++explored > maxExplored) {
+                            exhausted = true;
+                            return true;
+                        }
+                    }
+                    return false;
+                });
+                if (exhausted) {
+                    return null;
+                }
+            }
+            if (best[1] >= 0) {
+                // 拼接：起点 -> 前向相遇点 -> 连接边 -> 后向相遇点 -> 终点
+                IntArrayList nodes = new IntArrayList();
+                IntArrayList edges = new IntArrayList();
+                forward.trace(best[1], nodes, edges);
+                edges.add(best[3]);
+                int slot = best[2];
+                while (slot >= 0) {
+                    nodes.add(backward.node[slot]);
+                    if (backward.parentEdge[slot] >= 0) {
+                        edges.add(backward.parentEdge[slot]);
+                    }
+                    slot = backward.parentSlot[slot];
+                }
+                return new Path(nodes.toArray(), edges.toArray(), best[0]);
+            }
+            if (expandForward) {
+                forwardFrontier = next;
+            } else {
+                backwardFrontier = next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 单源Dijkstra，可排除指定节点和边（用于Yen算法的偏离路径）
+     */
+    public Path dijkstra(int source, int target, BitSet bannedNodes, BitSet bannedEdges) {
+        SearchState state = new SearchState();
+        state.add(source, 0, -1, -1);
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        queue.add(new double[]{0, 0});
+        BitSet settled = new BitSet();
+        int[] settledCount = {0};
+        while (!queue.isEmpty()) {
+            double[] top = queue.poll();
+            int slot = (int) top[1];
+            if (settled.get(slot) || top[0] > state.distance[slot]) {
+                continue;
+            }
+            settled.set(slot);
+            int node = state.node[slot];
+            if (node == target) {
+                IntArrayList nodes = new IntArrayList();
+                IntArrayList edges = new IntArrayList();
+                state.trace(slot, nodes, edges);
+                return new Path(nodes.toArray(), edges.toArray(), state.distance[slot]);
+            }
+            explored++;
+            if (++settledCount[0] > maxExplored) {
+                exhausted = true;
+                return null;
+            }
+            double distance = state.distance[slot];
+            forEachNeighbor(node, true, (edge, neighbor) -> {
+                if ((bannedEdges != null && bannedEdges.get(edge))
+                        || (bannedNodes != null && bannedNodes.get(neighbor))
+                        || !nodeAllowed(neighbor, source, target)) {
+                    return false;
+                }
+                double candidate = distance + weight(edge);
+                int neighborSlot = state.slotOf(neighbor);
+                if (neighborSlot < 0) {
+                    neighborSlot = state.add(neighbor, candidate, edge, slot);
+                    queue.add(new double[]{candidate, neighborSlot});
+                } else if (candidate < state.distance[neighborSlot]) {
+                    state.distance[neighborSlot] = candidate;
+                    state.parentEdge[neighborSlot] = edge;
+                    state.parentSlot[neighborSlot] = slot;
+                    queue.add(new double[]{candidate, neighborSlot});
+                }
+                return false;
+            });
+        }
+        return null;
+    }
+
+    /**
+     * Yen算法求前k条无环最短路径，按代价升序返回
+     */
+    public List<Path> kShortestPaths(int source, int target, int k) {
+        List<Path> accepted = new ArrayList<>();
+        Path first = dijkstra(source, target, null, null);
+        if (first == null) {
+            return accepted;
+        }
+        accepted.add(first);
+        PriorityQueue<Path> candidates = new PriorityQueue<>();
+        Set<String> seen = new HashSet<>();
+        seen.add(Arrays.toString(first.edges));
+
+        while (accepted.size() < k) {
+            Path previous = accepted.get(accepted.size() - 1);
+            for (int i = 0; i < previous.edges.length; i++) {
+                int spurNode = previous.nodes[i];
+                BitSet bannedEdges = new BitSet();
+                for (Path path : accepted) {
+                    if (path.edges.length > i && samePrefix(path, previous, i)) {
+                        bannedEdges.set(path.edges[i]);
+                    }
+                }
+                BitSet bannedNodes = new BitSet();
+                double rootCost = 0;
+                for (int j = 0; j < i; j++) {
+                    bannedNodes.set(previous.nodes[j]);
+                    rootCost += weight(previous.edges[j]);
+                }
+                Path spur = dijkstra(spurNode, target, bannedNodes, bannedEdges);
+                if (exhausted) {
+                    return accepted;
+                }
+                if (spur == null) {
+                    continue;
+                }
+                int[] nodes = new int[i + spur.nodes.length];
+                int[] edges = new int[i + spur.edges.length];
+                System.arraycopy(previous.nodes, 0, nodes, 0, i);
+                System.arraycopy(spur.nodes, 0, nodes, i, spur.nodes.length);
+                System.arraycopy(previous.edges, 0, edges, 0, i);
+                System.arraycopy(spur.edges, 0, edges, i, spur.edges.length);
+                if (seen.add(Arrays.toString(edges))) {
+                    candidates.add(new Path(nodes, edges, rootCost + spur.cost));
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            accepted.add(candidates.poll());
+        }
+        return accepted;
+    }
+
+    private static boolean samePrefix(Path a, Path b, int length) {
+        for (int j = 0; j < length; j++) {
+            if (a.edges[j] != b.edges[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,74 @@
+package com.cassini.graph.controller;
+
+import com.cassini.graph.service.CentralityService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 节点中心性控制器
+ * 得分由后台任务计算，这里只读取最近一次的结果
+ */
+@RestController
+@RequestMapping("/api/graph/centrality")
+public class CentralityController {
+
+    @Autowired
+    private CentralityService centralityService;
+
+    /**
+     * 按指标排名的前N个节点，themeId为空时不限主题
+     */
+    @GetMapping("/top")
+    public ResponseEntity<?> getTopNodes(
+            @RequestParam(required = false) Integer themeId,
+            @RequestParam(defaultValue = CentralityService.METRIC_PAGERANK) String metric,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            List<Map<String, Object>> nodes = centralityService.getTopNodes(themeId, metric, Math.min(limit, 1000));
+            return new ResponseEntity<>(nodes, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return badMetric();
+        }
+    }
+
+    /**
+     * 按中心性得分计算的节点显示尺寸（节点ID -> 尺寸）
+     */
+    @GetMapping("/sizes")
+    public ResponseEntity<?> getNodeSizes(
+            @RequestParam(required = false) Integer themeId,
+            @RequestParam(defaultValue = CentralityService.METRIC_PAGERANK) String metric,
+            @RequestParam(defaultValue = "10") int minSize,
+            @RequestParam(defaultValue = "60") int maxSize) {
+        try {
+            return new ResponseEntity<>(centralityService.getNodeSizes(themeId, metric, minSize, maxSize),
+                    HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return badMetric();
+        }
+    }
+
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return new ResponseEntity<>(centralityService.getStatus(), HttpStatus.OK);
+    }
+
+    @PostMapping("/recompute")
+    public ResponseEntity<Map<String, Object>> recompute() {
+        centralityService.requestRecompute();
+        return new ResponseEntity<>(centralityService.getStatus(), HttpStatus.ACCEPTED);
+    }
+
+    private ResponseEntity<Map<String, Object>> badMetric() {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "参数错误");
+        errorResponse.put("message", "metric只支持pagerank、betweenness、degree、inDegree、outDegree");
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+}
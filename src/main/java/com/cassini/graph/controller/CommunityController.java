@@ -0,0 +1,72 @@
+package com.cassini.graph.controller;
+
+import com.cassini.graph.service.CommunityService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 社区图控制器
+ * 返回按社区折叠的超级节点图，前端按需展开单个社区
+ */
+@RestController
+@RequestMapping("/api/graph/communities")
+public class CommunityController {
+
+    @Autowired
+    private CommunityService communityService;
+
+    /**
+     * 折叠后的社区图，algorithm=lpa时使用标签传播快速模式
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getCommunityGraph(
+            @RequestParam(required = false) Integer themeId,
+            @RequestParam(defaultValue = CommunityService.ALGORITHM_LOUVAIN) String algorithm,
+            @RequestParam(defaultValue = "1") int minSize) {
+        try {
+            return new ResponseEntity<>(communityService.getCommunityGraph(themeId, algorithm, minSize),
+                    HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return badAlgorithm();
+        }
+    }
+
+    /**
+     * 展开单个社区；社区编号只在同一划分版本内有效，传入社区图返回的version时版本不一致返回409
+     */
+    @GetMapping("/{communityId}")
+    public ResponseEntity<Map<String, Object>> expandCommunity(
+            @PathVariable int communityId,
+            @RequestParam(required = false) Integer themeId,
+            @RequestParam(defaultValue = CommunityService.ALGORITHM_LOUVAIN) String algorithm,
+            @RequestParam(defaultValue = "2000") int limit,
+            @RequestParam(required = false) Long version) {
+        Map<String, Object> result;
+        try {
+            result = communityService.expandCommunity(themeId, algorithm, communityId, limit, version);
+        } catch (IllegalArgumentException e) {
+            return badAlgorithm();
+        } catch (IllegalStateException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "版本已变化");
+            errorResponse.put("message", "社区划分已重新计算，请重新获取社区图");
+            return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+        }
+        if (result == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    private ResponseEntity<Map<String, Object>> badAlgorithm() {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "参数错误");
+        errorResponse.put("message", "algorithm只支持louvain、lpa");
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+}
@@ -2,11 +2,19 @@ package com.cassini.graph.controller;
 
 import com.cassini.graph.service.DatabaseService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/database")
@@ -31,6 +39,15 @@ public class DatabaseController {
         return databaseService.getTables(database);
     }
 
+    /**
+     * 刷新元数据缓存（表结构在应用外被修改后调用），不指定database时刷新全部
+     */
+    @PostMapping("/metadata/refresh")
+    public boolean refreshMetadata(@RequestParam(required = false) String database) {
+        databaseService.refreshMetadata(database);
+        return true;
+    }
+
     /**
      * 获取表的结构信息
      */
@@ -41,12 +58,17 @@ public class DatabaseController {
 
     /**
      * 获取表的数据列表
+     * 带cursor参数（第一页传空字符串）时使用游标分页，按sort排序，返回nextCursor而不返回总数；
+     * 按页码查询时total可能是估算值或统计上限（见countMode），exactCount=true时精确统计
      */
     @GetMapping("/tables/{table}/data")
-    public Map<String, Object> getTableData(
+    public ResponseEntity<Map<String, Object>> getTableData(
             @PathVariable String table,
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "100") int pageSize,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "false") boolean exactCount,
             @RequestParam Map<String, String> allParams) {
         // 过滤掉分页相关参数和其他非搜索参数，只保留search.开头的参数
         Map<String, String> searchParams = new HashMap<>();
@@ -55,9 +77,104 @@ public class DatabaseController {
                 searchParams.put(key, value);
             }
         });
-        
-        // 调用支持搜索的服务方法
-        return databaseService.getTableData(table, page, pageSize, searchParams);
+
+        try {
+            if (cursor == null) {
+                // 调用支持搜索的服务方法
+                return ResponseEntity.ok(databaseService.getTableData(table, page, pageSize, searchParams, exactCount));
+            }
+            return ResponseEntity.ok(databaseService.getTableDataAfter(table, cursor, pageSize, sort, searchParams));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+    }
+
+    /**
+     * 精确统计表的行数，支持与数据列表相同的search.参数；表或搜索列不存在时返回400
+     */
+    @GetMapping("/tables/{table}/count")
+    public ResponseEntity<Map<String, Object>> countTableRows(@PathVariable String table,
+                                                              @RequestParam Map<String, String> allParams) {
+        Map<String, String> searchParams = new HashMap<>();
+        allParams.forEach((key, value) -> {
+            if (key.startsWith("search.")) {
+                searchParams.put(key, value);
+            }
+        });
+        Map<String, Object> result = new HashMap<>();
+        try {
+            result.put("total", databaseService.countTableRows(table, searchParams));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        result.put("countMode", "exact");
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 导出表数据（csv / jsonl），支持search.条件，从数据库游标逐行写出，gzip=true时压缩为.gz文件
+     */
+    @GetMapping("/tables/{table}/export")
+    public ResponseEntity<?> exportTable(
+            @PathVariable String table,
+            @RequestParam(defaultValue = DatabaseService.FORMAT_CSV) String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam Map<String, String> allParams) {
+        MediaType contentType;
+        switch (format) {
+            case DatabaseService.FORMAT_CSV:
+                contentType = MediaType.parseMediaType("text/csv;charset=UTF-8");
+                break;
+            case DatabaseService.FORMAT_JSONL:
+                contentType = MediaType.parseMediaType("application/x-ndjson;charset=UTF-8");
+                break;
+            default:
+                return badRequest("format只支持csv、jsonl");
+        }
+        Map<String, String> searchParams = new HashMap<>();
+        allParams.forEach((key, value) -> {
+            if (key.startsWith("search.")) {
+                searchParams.put(key, value);
+            }
+        });
+
+        // 表和搜索列在开始写响应之前校验，写出过程中出错只能中断下载
+        Set<String> columns = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        try {
+            for (Map<String, Object> field : databaseService.getTableStructure(table)) {
+                columns.add(String.valueOf(field.get("Field")));
+            }
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        for (String key : searchParams.keySet()) {
+            if (!columns.contains(key.substring(7))) {
+                return badRequest("搜索列不存在: " + key.substring(7));
+            }
+        }
+
+        String filename = table.substring(table.indexOf('.') + 1) + "." + format;
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 65536, true);
+                databaseService.exportTable(compressed, table, format, searchParams);
+                compressed.finish();
+            } else {
+                databaseService.exportTable(out, table, format, searchParams);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + filename + (gzip ? ".gz" : "") + "\"")
+                .body(body);
+    }
+
+    private static ResponseEntity<Map<String, Object>> badRequest(String message) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "参数错误");
+        errorResponse.put("message", message);
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
     /**
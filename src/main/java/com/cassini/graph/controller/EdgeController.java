@@ -1,6 +1,9 @@
 package com.cassini.graph.controller;
 
 import com.cassini.graph.entity.Edge;
+import com.cassini.graph.model.BatchRequest;
+import com.cassini.graph.model.BatchResult;
+import com.cassini.graph.service.BatchService;
 import com.cassini.graph.service.EdgeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -19,6 +22,9 @@ public class EdgeController {
     @Autowired
     private EdgeService edgeService;
 
+    @Autowired
+    private BatchService batchService;
+
     @GetMapping
     public ResponseEntity<List<Edge>> getAllEdges() {
         List<Edge> edges = edgeService.getAllEdges();
@@ -59,6 +65,23 @@ public class EdgeController {
         return new ResponseEntity<>(savedEdge, HttpStatus.CREATED);
     }
 
+    /**
+     * 批量新增/更新/删除边，在一个事务中执行，返回每个条目的结果
+     * 请求体：{"upserts": [边...], "deletes": [id...]}，upserts中不带id的边为新增
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> batchEdges(@RequestBody BatchRequest<Edge> request) {
+        try {
+            BatchResult result = batchService.applyEdges(request);
+            return new ResponseEntity<>(result, result.isCommitted() ? HttpStatus.OK : HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "参数错误");
+            errorResponse.put("message", e.getMessage());
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Edge> updateEdge(@PathVariable Integer id, @RequestBody Edge edge) {
         if (!edgeService.getEdgeById(id).isPresent()) {
@@ -3,18 +3,27 @@ package com.cassini.graph.controller;
 import com.cassini.graph.entity.Edge;
 import com.cassini.graph.entity.Node;
 import com.cassini.graph.service.EdgeService;
+import com.cassini.graph.service.GraphChangeService;
+import com.cassini.graph.service.GraphEventService;
+import com.cassini.graph.service.GraphQueryService;
+import com.cassini.graph.service.GraphStreamService;
 import com.cassini.graph.service.NodeService;
+import com.cassini.graph.service.ThemeGraphCacheService;
+import com.cassini.graph.service.ThemeService;
+import com.cassini.graph.util.GraphBinaryWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.ArrayList;
-import java.util.Set;
-import java.util.HashSet;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/graph")
@@ -26,8 +35,28 @@ public class GraphController {
     @Autowired
     private EdgeService edgeService;
 
+    @Autowired
+    private ThemeService themeService;
+
+    @Autowired
+    private GraphStreamService graphStreamService;
+
+    @Autowired
+    private GraphChangeService graphChangeService;
+
+    @Autowired
+    private GraphQueryService graphQueryService;
+
+    @Autowired
+    private ThemeGraphCacheService themeGraphCacheService;
+
+    @Autowired
+    private GraphEventService graphEventService;
+
     @GetMapping("/full")
     public ResponseEntity<Map<String, Object>> getFullGraph() {
+        // 先读取版本号，之后发生的变更会在下次增量同步中重复下发，不会遗漏
+        long version = graphChangeService.getCurrentVersion();
         List<Node> nodes = nodeService.getAllNodes();
         List<Edge> edges = edgeService.getAllEdges();
         
@@ -64,37 +93,212 @@ public class GraphController {
         Map<String, Object> graphData = new HashMap<>();
         graphData.put("nodes", nodes);
         graphData.put("edges", edges);
+        graphData.put("version", version);
         
         return new ResponseEntity<>(graphData, HttpStatus.OK);
     }
 
-    @GetMapping("/theme/{themeId}")
-    public ResponseEntity<Map<String, Object>> getGraphByTheme(@PathVariable Integer themeId) {
-        List<Node> nodes = nodeService.getNodesByThemeId(themeId);
-        
-        // 创建节点名称集合，用于快速判断边是否与节点相关
-        Set<String> nodeNames = new HashSet<>();
-        for (Node node : nodes) {
-            nodeNames.add(node.getName());
+    /**
+     * 流式返回完整图谱（/api/graph/full?stream=true）
+     * 结构与非流式接口相同，但直接从数据库游标逐行写出，不在内存中组装全部实体
+     */
+    @GetMapping(value = "/full", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamFullGraph() {
+        StreamingResponseBody body = out -> graphStreamService.writeFullGraph(out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * 导出图数据（jsonl / graphml / tsv），从数据库游标逐行写出，gzip=true时压缩为.gz文件
+     * themeId按节点和边各自的主题过滤，relations只过滤边
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportGraph(
+            @RequestParam(defaultValue = GraphStreamService.FORMAT_JSONL) String format,
+            @RequestParam(required = false) Integer themeId,
+            @RequestParam(required = false) List<String> relations,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        MediaType contentType;
+        switch (format) {
+            case GraphStreamService.FORMAT_JSONL:
+                contentType = MediaType.parseMediaType("application/x-ndjson;charset=UTF-8");
+                break;
+            case GraphStreamService.FORMAT_GRAPHML:
+                contentType = MediaType.parseMediaType("application/graphml+xml;charset=UTF-8");
+                break;
+            case GraphStreamService.FORMAT_TSV:
+                contentType = MediaType.parseMediaType("text/tab-separated-values;charset=UTF-8");
+                break;
+            default:
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "参数错误");
+                errorResponse.put("message", "format只支持jsonl、graphml、tsv");
+                return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
         }
-        
-        // 获取这些节点相关的所有边
-        List<Edge> allEdges = edgeService.getAllEdges();
-        List<Edge> themeEdges = new ArrayList<>();
-        for (Edge edge : allEdges) {
-            String sourceNodeName = edge.getSourceNodeName();
-            String targetNodeName = edge.getTargetNodeName();
-            
-            // 检查边的源节点或目标节点是否在当前主题的节点集合中
-            if (nodeNames.contains(sourceNodeName) || nodeNames.contains(targetNodeName)) {
-                themeEdges.add(edge);
+        String filename = "graph" + (themeId != null ? "-theme" + themeId : "") + "." + format;
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 65536, true);
+                graphStreamService.export(compressed, format, themeId, relations);
+                compressed.finish();
+            } else {
+                graphStreamService.export(out, format, themeId, relations);
             }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + filename + (gzip ? ".gz" : "") + "\"")
+                .body(body);
+    }
+
+    /**
+     * 以列式二进制格式返回完整图谱（Accept: application/x-graph-columnar）
+     */
+    @GetMapping(value = "/full", produces = GraphBinaryWriter.MEDIA_TYPE)
+    public ResponseEntity<byte[]> getFullGraphBinary() {
+        byte[] payload = GraphBinaryWriter.encode(themeService.getAllThemes(),
+                nodeService.getAllNodes(), edgeService.getAllEdges());
+        return new ResponseEntity<>(payload, HttpStatus.OK);
+    }
+
+    /**
+     * 增量同步：返回since版本之后新增、更新和删除的节点/边/主题
+     * 不传since或日志已被清理时返回全量快照（full = true）
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<Map<String, Object>> getChanges(@RequestParam(required = false) Long since) {
+        return new ResponseEntity<>(graphChangeService.getChangesSince(since), HttpStatus.OK);
+    }
+
+    /**
+     * 订阅图变更（text/event-stream）：写入提交后按短时间窗口合并推送changes事件，结构与/changes的增量相同
+     * themeIds只推送这些主题的节点和相关边；since或重连时的Last-Event-ID为客户端已同步的版本，先补发之后的变更。
+     * 收到resync事件时客户端应调用/changes?since=本地版本号重新同步；订阅者已满时返回503
+     */
+    @GetMapping("/events")
+    public ResponseEntity<SseEmitter> subscribeEvents(
+            @RequestParam(required = false) List<Integer> themeIds,
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        try {
+            SseEmitter emitter = graphEventService.subscribe(themeIds, lastEventId != null ? lastEventId : since);
+            return new ResponseEntity<>(emitter, HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
         }
+    }
 
-        Map<String, Object> graphData = new HashMap<>();
-        graphData.put("nodes", nodes);
-        graphData.put("edges", themeEdges);
-        
-        return new ResponseEntity<>(graphData, HttpStatus.OK);
+    /**
+     * 变更推送的订阅者数量和发送统计
+     */
+    @GetMapping("/events/stats")
+    public ResponseEntity<Map<String, Object>> getEventStats() {
+        return new ResponseEntity<>(graphEventService.getStats(), HttpStatus.OK);
+    }
+
+    /**
+     * k跳邻域查询：从节点出发在服务端BFS，返回导出子图
+     * relations为逗号分隔的关系名称，direction为out/in/both
+     */
+    @GetMapping("/neighborhood/{nodeId}")
+    public ResponseEntity<Map<String, Object>> getNeighborhood(
+            @PathVariable Integer nodeId,
+            @RequestParam(defaultValue = "2") int depth,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(defaultValue = "5000") int edgeLimit,
+            @RequestParam(required = false) List<String> relations,
+            @RequestParam(defaultValue = "both") String direction) {
+        Map<String, Object> result;
+        try {
+            result = graphQueryService.getNeighborhood(nodeId, depth, limit, edgeLimit, relations, direction);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "参数错误");
+            errorResponse.put("message", "direction只支持out、in、both");
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+        if (result == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * 两节点间最短路径：weighted=true时按边宽加权，k>1时返回前k条最短路径
+     * themes限制中间节点的主题，maxExplored限制单次搜索访问的节点数
+     */
+    @GetMapping("/path")
+    public ResponseEntity<Map<String, Object>> findPaths(
+            @RequestParam Integer from,
+            @RequestParam Integer to,
+            @RequestParam(defaultValue = "1") int k,
+            @RequestParam(defaultValue = "false") boolean weighted,
+            @RequestParam(required = false) List<String> relations,
+            @RequestParam(required = false) List<Integer> themes,
+            @RequestParam(defaultValue = "both") String direction,
+            @RequestParam(defaultValue = "200000") int maxExplored) {
+        Map<String, Object> result;
+        try {
+            result = graphQueryService.findPaths(from, to, Math.min(Math.max(k, 1), 20), weighted,
+                    relations, themes, direction, maxExplored);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "参数错误");
+            errorResponse.put("message", "direction只支持out、in、both");
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+        if (result == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * 视口查询：只返回画布可见矩形内的节点及其相连的边
+     * 传入zoom时按屏幕网格聚合，低缩放级别下返回簇标记而不是大量节点
+     */
+    @GetMapping("/viewport")
+    public ResponseEntity<Map<String, Object>> getViewport(
+            @RequestParam double minX,
+            @RequestParam double minY,
+            @RequestParam double maxX,
+            @RequestParam double maxY,
+            @RequestParam(required = false) Double zoom,
+            @RequestParam(defaultValue = "2000") int limit,
+            @RequestParam(defaultValue = "10000") int edgeLimit) {
+        Map<String, Object> result = graphQueryService.getViewport(minX, minY, maxX, maxY, zoom, limit, edgeLimit);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * 主题子图：源节点或目标节点属于当前主题的边及主题内的节点
+     * 直接返回缓存中序列化好的JSON，主题内的节点或相关边发生写入后才重新组装
+     */
+    @GetMapping("/theme/{themeId}")
+    public ResponseEntity<byte[]> getGraphByTheme(@PathVariable Integer themeId) {
+        byte[] payload = themeGraphCacheService.getThemeGraph(themeId, ThemeGraphCacheService.FORMAT_JSON);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(payload);
+    }
+
+    /**
+     * 以列式二进制格式返回主题子图（Accept: application/x-graph-columnar）
+     */
+    @GetMapping(value = "/theme/{themeId}", produces = GraphBinaryWriter.MEDIA_TYPE)
+    public ResponseEntity<byte[]> getGraphByThemeBinary(@PathVariable Integer themeId) {
+        byte[] payload = themeGraphCacheService.getThemeGraph(themeId, ThemeGraphCacheService.FORMAT_BINARY);
+        return new ResponseEntity<>(payload, HttpStatus.OK);
+    }
+
+    /**
+     * 主题子图缓存的命中率和内存占用
+     */
+    @GetMapping("/theme-cache/stats")
+    public ResponseEntity<Map<String, Object>> getThemeCacheStats() {
+        return new ResponseEntity<>(themeGraphCacheService.getStats(), HttpStatus.OK);
     }
 }
@@ -0,0 +1,80 @@
+package com.cassini.graph.controller;
+
+import com.cassini.graph.model.ImportJob;
+import com.cassini.graph.service.ImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 批量导入控制器
+ * 请求体直接作为CSV/JSONL流读取，不经过multipart缓存；请求头Content-Encoding: gzip时先解压
+ *
+ * 示例：curl -X POST --data-binary @nodes.csv -H "Content-Type: text/csv" "/api/import/nodes?format=csv&createThemes=true"
+ */
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+
+    @Autowired
+    private ImportService importService;
+
+    @PostMapping("/nodes")
+    public ResponseEntity<?> importNodes(HttpServletRequest request,
+                                         @RequestParam(defaultValue = ImportService.FORMAT_CSV) String format,
+                                         @RequestParam(defaultValue = "false") boolean createThemes) throws IOException {
+        return importData(ImportService.ENTITY_NODE, request, format, createThemes);
+    }
+
+    @PostMapping("/edges")
+    public ResponseEntity<?> importEdges(HttpServletRequest request,
+                                         @RequestParam(defaultValue = ImportService.FORMAT_CSV) String format,
+                                         @RequestParam(defaultValue = "false") boolean createThemes) throws IOException {
+        return importData(ImportService.ENTITY_EDGE, request, format, createThemes);
+    }
+
+    /**
+     * 导入任务列表，导入进行中时可用于查看进度
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<Collection<ImportJob>> getJobs() {
+        return new ResponseEntity<>(importService.getJobs(), HttpStatus.OK);
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ImportJob> getJob(@PathVariable String id) {
+        ImportJob job = importService.getJob(id);
+        if (job == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(job, HttpStatus.OK);
+    }
+
+    private ResponseEntity<?> importData(String entityType, HttpServletRequest request, String format,
+                                         boolean createThemes) throws IOException {
+        InputStream input = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(request.getHeader("Content-Encoding"))) {
+            input = new GZIPInputStream(input, 65536);
+        }
+        try {
+            ImportJob job = importService.importData(entityType, format.toLowerCase(), input, createThemes);
+            HttpStatus status = ImportJob.STATUS_FAILED.equals(job.getStatus())
+                    ? HttpStatus.INTERNAL_SERVER_ERROR : HttpStatus.OK;
+            return new ResponseEntity<>(job, status);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "参数错误");
+            errorResponse.put("message", "format只支持csv、jsonl");
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+    }
+}
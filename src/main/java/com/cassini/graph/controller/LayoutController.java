@@ -0,0 +1,46 @@
+package com.cassini.graph.controller;
+
+import com.cassini.graph.model.LayoutJob;
+import com.cassini.graph.service.LayoutService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collection;
+
+/**
+ * 服务端布局控制器
+ * 提交主题布局任务并查询进度，布局结果直接写入node.x/node.y
+ */
+@RestController
+@RequestMapping("/api/graph/layout")
+public class LayoutController {
+
+    @Autowired
+    private LayoutService layoutService;
+
+    /**
+     * 提交主题布局任务，incremental=true时只为尚无坐标的节点布局
+     */
+    @PostMapping("/{themeId}")
+    public ResponseEntity<LayoutJob> submitLayout(@PathVariable Integer themeId,
+                                                  @RequestParam(defaultValue = "false") boolean incremental) {
+        LayoutJob job = layoutService.submitLayout(themeId, incremental);
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/{themeId}")
+    public ResponseEntity<LayoutJob> getJob(@PathVariable Integer themeId) {
+        LayoutJob job = layoutService.getJob(themeId);
+        if (job == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(job, HttpStatus.OK);
+    }
+
+    @GetMapping
+    public ResponseEntity<Collection<LayoutJob>> getJobs() {
+        return new ResponseEntity<>(layoutService.getJobs(), HttpStatus.OK);
+    }
+}
@@ -1,13 +1,22 @@
 package com.cassini.graph.controller;
 
 import com.cassini.graph.entity.Node;
+import com.cassini.graph.model.BatchRequest;
+import com.cassini.graph.model.BatchResult;
+import com.cassini.graph.model.PropertyFilter;
+import com.cassini.graph.service.BatchService;
+import com.cassini.graph.service.NodeSearchService;
 import com.cassini.graph.service.NodeService;
+import com.cassini.graph.service.PropertyIndexService;
+import com.cassini.graph.service.SuggestService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -17,6 +26,18 @@ public class NodeController {
     @Autowired
     private NodeService nodeService;
 
+    @Autowired
+    private PropertyIndexService propertyIndexService;
+
+    @Autowired
+    private BatchService batchService;
+
+    @Autowired
+    private NodeSearchService nodeSearchService;
+
+    @Autowired
+    private SuggestService suggestService;
+
     @GetMapping
     public ResponseEntity<List<Node>> getAllNodes() {
         List<Node> nodes = nodeService.getAllNodes();
@@ -36,12 +57,94 @@ public class NodeController {
         return new ResponseEntity<>(nodes, HttpStatus.OK);
     }
 
+    /**
+     * 全文检索节点名称和属性文本，按BM25相关度排序
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> searchNodes(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer themeId,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit) {
+        Map<String, Object> result = nodeSearchService.search(q, themeId,
+                Math.max(offset, 0), Math.min(Math.max(limit, 0), 1000));
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * 节点名称自动补全，支持汉字拼音首字母（如 "lb" 匹配 "李白"），按度数排序
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Map<String, Object>>> suggestNodes(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(required = false) Integer themeId,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<Map<String, Object>> result = suggestService.suggest(prefix, themeId, Math.min(Math.max(limit, 0), 100));
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * 按属性条件过滤节点（走内存属性索引，不扫描properties列）
+     * 请求体为PropertyFilter，支持eq/in/范围/exists以及and/or/not组合
+     */
+    @PostMapping("/filter")
+    public ResponseEntity<Map<String, Object>> filterNodes(
+            @RequestBody PropertyFilter filter,
+            @RequestParam(required = false) Integer themeId,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "200") int limit) {
+        try {
+            Map<String, Object> result = propertyIndexService.filter(filter, themeId,
+                    Math.max(offset, 0), Math.min(Math.max(limit, 0), 10000));
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "参数错误");
+            errorResponse.put("message", e.getMessage());
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * 已索引的属性键及其不同取值数
+     */
+    @GetMapping("/properties")
+    public ResponseEntity<Map<String, Integer>> getPropertyKeys() {
+        return new ResponseEntity<>(propertyIndexService.getKeys(), HttpStatus.OK);
+    }
+
+    /**
+     * 属性键的常见取值，按节点数降序
+     */
+    @GetMapping("/properties/values")
+    public ResponseEntity<Map<String, Integer>> getPropertyValues(@RequestParam String key,
+                                                                  @RequestParam(defaultValue = "100") int limit) {
+        return new ResponseEntity<>(propertyIndexService.getValues(key, Math.max(limit, 0)), HttpStatus.OK);
+    }
+
     @PostMapping
     public ResponseEntity<Node> createNode(@RequestBody Node node) {
         Node savedNode = nodeService.saveNode(node);
         return new ResponseEntity<>(savedNode, HttpStatus.CREATED);
     }
 
+    /**
+     * 批量新增/更新/删除节点，在一个事务中执行，返回每个条目的结果
+     * 请求体：{"upserts": [节点...], "deletes": [id...]}，upserts中不带id的节点为新增
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> batchNodes(@RequestBody BatchRequest<Node> request) {
+        try {
+            BatchResult result = batchService.applyNodes(request);
+            return new ResponseEntity<>(result, result.isCommitted() ? HttpStatus.OK : HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "参数错误");
+            errorResponse.put("message", e.getMessage());
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Node> updateNode(@PathVariable Integer id, @RequestBody Node node) {
         if (!nodeService.getNodeById(id).isPresent()) {
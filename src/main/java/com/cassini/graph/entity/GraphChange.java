@@ -0,0 +1,39 @@
+package com.cassini.graph.entity;
+
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * 图变更日志，自增ID即图版本号
+ */
+@Entity
+@Table(name = "graph_change", indexes = @Index(name = "idx_graph_change_created_at", columnList = "created_at"))
+@Data
+public class GraphChange {
+    public static final String TYPE_NODE = "node";
+    public static final String TYPE_EDGE = "edge";
+    public static final String TYPE_THEME = "theme";
+
+    public static final String ACTION_UPSERT = "upsert";
+    public static final String ACTION_DELETE = "delete";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Integer entityId;
+
+    @Column(name = "action", nullable = false, length = 20)
+    private String action;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Date createdAt;
+}
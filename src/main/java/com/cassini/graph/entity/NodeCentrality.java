@@ -0,0 +1,33 @@
+package com.cassini.graph.entity;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * 节点中心性得分，由后台任务计算后批量写入
+ */
+@Entity
+@Table(name = "node_centrality")
+@Data
+public class NodeCentrality {
+    @Id
+    @Column(name = "node_id")
+    private Integer nodeId;
+
+    @Column(name = "pagerank")
+    private Double pagerank;
+
+    @Column(name = "in_degree")
+    private Integer inDegree;
+
+    @Column(name = "out_degree")
+    private Integer outDegree;
+
+    @Column(name = "betweenness")
+    private Double betweenness;
+
+    @Column(name = "updated_at")
+    private Date updatedAt;
+}
@@ -0,0 +1,427 @@
+package com.cassini.graph.index;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 图的只读压缩快照（CSR结构）
+ * 节点以名称驻留后的稠密编号表示，边按关系编号全局排序，
+ * 每个节点的出边/入边也按关系编号有序，便于按关系截取区间
+ */
+public class GraphSnapshot {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final long version;
+
+    private final NameDictionary nodeNames;
+
+    private final NameDictionary relations;
+
+    private final int nodeCount;
+
+    private final int[] nodeDbId;
+
+    private final int[] nodeTheme;
+
+    private final IntIntMap nodeByDbId;
+
+    private final double[] nodeX;
+
+    private final double[] nodeY;
+
+    private final long coordinateVersion;
+
+    private final long nodeVersion;
+
+    private final int edgeCount;
+
+    private final int[] edgeDbId;
+
+    private final int[] edgeSource;
+
+    private final int[] edgeTarget;
+
+    private final int[] edgeRelation;
+
+    private final int[] edgeTheme;
+
+    private final int[] edgeWidth;
+
+    // 关系分区：编号为r的关系的边位于[relationOffsets[r], relationOffsets[r + 1])
+    private final int[] relationOffsets;
+
+    private final int[] outOffsets;
+
+    private final int[] outEdges;
+
+    private final int[] inOffsets;
+
+    private final int[] inEdges;
+
+    // 主题分区：主题下的节点，以及至少一端属于该主题的边
+    private final Map<Integer, int[]> themeNodes;
+
+    private final Map<Integer, int[]> themeEdges;
+
+    GraphSnapshot(long version, NameDictionary nodeNames, NameDictionary relations, int nodeCount,
+                  int[] nodeDbId, int[] nodeTheme, double[] nodeX, double[] nodeY, long coordinateVersion,
+                  long nodeVersion, int edgeCount, int[] edgeDbId, int[] edgeSource,
+                  int[] edgeTarget, int[] edgeRelation, int[] edgeTheme, int[] edgeWidth,
+                  int[] relationOffsets, int[] outOffsets, int[] outEdges, int[] inOffsets, int[] inEdges,
+                  Map<Integer, int[]> themeNodes, Map<Integer, int[]> themeEdges) {
+        this.version = version;
+        this.nodeNames = nodeNames;
+        this.relations = relations;
+        this.nodeCount = nodeCount;
+        this.nodeDbId = nodeDbId;
+        this.nodeTheme = nodeTheme;
+        this.nodeX = nodeX;
+        this.nodeY = nodeY;
+        this.coordinateVersion = coordinateVersion;
+        this.nodeVersion = nodeVersion;
+        this.nodeByDbId = new IntIntMap(nodeCount);
+        for (int n = 0; n < nodeCount; n++) {
+            if (nodeDbId[n] >= 0) {
+                nodeByDbId.put(nodeDbId[n], n);
+            }
+        }
+        this.edgeCount = edgeCount;
+        this.edgeDbId = edgeDbId;
+        this.edgeSource = edgeSource;
+        this.edgeTarget = edgeTarget;
+        this.edgeRelation = edgeRelation;
+        this.edgeTheme = edgeTheme;
+        this.edgeWidth = edgeWidth;
+        this.relationOffsets = relationOffsets;
+        this.outOffsets = outOffsets;
+        this.outEdges = outEdges;
+        this.inOffsets = inOffsets;
+        this.inEdges = inEdges;
+        this.themeNodes = themeNodes;
+        this.themeEdges = themeEdges;
+    }
+
+    /**
+     * 由列式数据构建快照，edgeDbId等数组中只包含有效边
+     * 字典在构建期间可能继续追加，因此节点数和关系数取复制数据时的值
+     */
+    static GraphSnapshot build(long version, NameDictionary nodeNames, NameDictionary relations, int nodeCount,
+                               int relationCount, int[] nodeDbId, int[] nodeTheme, double[] nodeX, double[] nodeY,
+                               long coordinateVersion, long nodeVersion, int edgeCount, int[] rawDbId, int[] rawSource,
+                               int[] rawTarget, int[] rawRelation, int[] rawTheme, int[] rawWidth) {
+        // 第一步：按关系计数排序，得到全局按关系分组的边编号
+        int[] relationOffsets = new int[relationCount + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            relationOffsets[rawRelation[i] + 1]++;
+        }
+        for (int r = 0; r < relationCount; r++) {
+            relationOffsets[r + 1] += relationOffsets[r];
+        }
+        int[] cursor = new int[relationCount];
+        System.arraycopy(relationOffsets, 0, cursor, 0, relationCount);
+        int[] edgeDbId = new int[edgeCount];
+        int[] edgeSource = new int[edgeCount];
+        int[] edgeTarget = new int[edgeCount];
+        int[] edgeRelation = new int[edgeCount];
+        int[] edgeTheme = new int[edgeCount];
+        int[] edgeWidth = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            int e = cursor[rawRelation[i]]++;
+            edgeDbId[e] = rawDbId[i];
+            edgeSource[e] = rawSource[i];
+            edgeTarget[e] = rawTarget[i];
+            edgeRelation[e] = rawRelation[i];
+            edgeTheme[e] = rawTheme[i];
+            edgeWidth[e] = rawWidth[i];
+        }
+
+        // 第二步：按端点稳定计数排序，节点内的边保持关系有序
+        int[] outOffsets = new int[nodeCount + 1];
+        int[] inOffsets = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            outOffsets[edgeSource[e] + 1]++;
+            inOffsets[edgeTarget[e] + 1]++;
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            outOffsets[n + 1] += outOffsets[n];
+            inOffsets[n + 1] += inOffsets[n];
+        }
+        int[] outEdges = new int[edgeCount];
+        int[] inEdges = new int[edgeCount];
+        int[] outCursor = new int[nodeCount];
+        int[] inCursor = new int[nodeCount];
+        System.arraycopy(outOffsets, 0, outCursor, 0, nodeCount);
+        System.arraycopy(inOffsets, 0, inCursor, 0, nodeCount);
+        for (int e = 0; e < edgeCount; e++) {
+            outEdges[outCursor[edgeSource[e]]++] = e;
+            inEdges[inCursor[edgeTarget[e]]++] = e;
+        }
+
+        // 第三步：主题分区
+        Map<Integer, IntArrayList> nodesByTheme = new HashMap<>();
+        for (int n = 0; n < nodeCount; n++) {
+            if (nodeDbId[n] >= 0) {
+                nodesByTheme.computeIfAbsent(nodeTheme[n], k -> new IntArrayList()).add(n);
+            }
+        }
+        Map<Integer, IntArrayList> edgesByTheme = new HashMap<>();
+        for (int e = 0; e < edgeCount; e++) {
+            int sourceTheme = nodeDbId[edgeSource[e]] >= 0 ? nodeTheme[edgeSource[e]] : -1;
+            int targetTheme = nodeDbId[edgeTarget[e]] >= 0 ? nodeTheme[edgeTarget[e]] : -1;
+            if (sourceTheme >= 0) {
+                edgesByTheme.computeIfAbsent(sourceTheme, k -> new IntArrayList()).add(e);
+            }
+            if (targetTheme >= 0 && targetTheme != sourceTheme) {
+                edgesByTheme.computeIfAbsent(targetTheme, k -> new IntArrayList()).add(e);
+            }
+        }
+
+        return new GraphSnapshot(version, nodeNames, relations, nodeCount, nodeDbId, nodeTheme,
+                nodeX, nodeY, coordinateVersion, nodeVersion, edgeCount, edgeDbId, edgeSource, edgeTarget, edgeRelation, edgeTheme, edgeWidth,
+                relationOffsets, outOffsets, outEdges, inOffsets, inEdges,
+                toArrays(nodesByTheme), toArrays(edgesByTheme));
+    }
+
+    private static Map<Integer, int[]> toArrays(Map<Integer, IntArrayList> lists) {
+        Map<Integer, int[]> result = new HashMap<>();
+        for (Map.Entry<Integer, IntArrayList> entry : lists.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toArray());
+        }
+        return result;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * 根据节点名称获取内部编号，不存在时返回-1
+     * 仅被边引用、没有对应node记录的名称同样有编号
+     */
+    public int nodeIdOf(String name) {
+        int id = nodeNames.idOf(name);
+        return id < nodeCount ? id : -1;
+    }
+
+    /**
+     * 根据数据库主键获取节点内部编号，不存在时返回-1
+     */
+    public int nodeIdOfDbId(int dbId) {
+        return nodeByDbId.get(dbId, -1);
+    }
+
+    public String nodeName(int node) {
+        return nodeNames.nameOf(node);
+    }
+
+    /**
+     * 节点对应的数据库主键，没有node记录时返回-1
+     */
+    public int nodeDbId(int node) {
+        return nodeDbId[node];
+    }
+
+    /**
+     * 节点所属主题ID，没有node记录时返回-1
+     */
+    public int nodeTheme(int node) {
+        return nodeDbId[node] >= 0 ? nodeTheme[node] : -1;
+    }
+
+    /**
+     * 节点画布坐标，没有坐标时为NaN
+     */
+    public double nodeX(int node) {
+        return nodeX[node];
+    }
+
+    public double nodeY(int node) {
+        return nodeY[node];
+    }
+
+    public boolean hasCoordinates(int node) {
+        return !Double.isNaN(nodeX[node]) && !Double.isNaN(nodeY[node]);
+    }
+
+    /**
+     * 坐标版本号，坐标未变化的快照之间可以共用空间索引
+     */
+    public long getCoordinateVersion() {
+        return coordinateVersion;
+    }
+
+    /**
+     * 节点版本号，只在节点增删、改名或改主题时变化，边的写入和坐标变化不影响
+     */
+    public long getNodeVersion() {
+        return nodeVersion;
+    }
+
+    public int edgeDbId(int edge) {
+        return edgeDbId[edge];
+    }
+
+    public int edgeSource(int edge) {
+        return edgeSource[edge];
+    }
+
+    public int edgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    public int edgeRelation(int edge) {
+        return edgeRelation[edge];
+    }
+
+    public int edgeTheme(int edge) {
+        return edgeTheme[edge];
+    }
+
+    public int edgeWidth(int edge) {
+        return edgeWidth[edge];
+    }
+
+    public int getRelationCount() {
+        return relationOffsets.length - 1;
+    }
+
+    public int relationIdOf(String relation) {
+        int id = relations.idOf(relation);
+        return id < getRelationCount() ? id : -1;
+    }
+
+    public String relationName(int relation) {
+        return relations.nameOf(relation);
+    }
+
+    /**
+     * 关系r的边编号区间为[relationBegin(r), relationEnd(r))
+     */
+    public int relationBegin(int relation) {
+        return relationOffsets[relation];
+    }
+
+    public int relationEnd(int relation) {
+        return relationOffsets[relation + 1];
+    }
+
+    /**
+     * 节点的出边位于outEdge(outBegin(n)) ... outEdge(outEnd(n) - 1)
+     */
+    public int outBegin(int node) {
+        return outOffsets[node];
+    }
+
+    public int outEnd(int node) {
+        return outOffsets[node + 1];
+    }
+
+    public int outEdge(int i) {
+        return outEdges[i];
+    }
+
+    public int inBegin(int node) {
+        return inOffsets[node];
+    }
+
+    public int inEnd(int node) {
+        return inOffsets[node + 1];
+    }
+
+    public int inEdge(int i) {
+        return inEdges[i];
+    }
+
+    public int outDegree(int node) {
+        return outOffsets[node + 1] - outOffsets[node];
+    }
+
+    public int inDegree(int node) {
+        return inOffsets[node + 1] - inOffsets[node];
+    }
+
+    /**
+     * 节点出边中关系为relation的区间起点，与outRelationEnd配合使用
+     */
+    public int outRelationBegin(int node, int relation) {
+        return lowerBound(outEdges, outOffsets[node], outOffsets[node + 1], relation);
+    }
+
+    public int outRelationEnd(int node, int relation) {
+        return lowerBound(outEdges, outOffsets[node], outOffsets[node + 1], relation + 1);
+    }
+
+    public int inRelationBegin(int node, int relation) {
+        return lowerBound(inEdges, inOffsets[node], inOffsets[node + 1], relation);
+    }
+
+    public int inRelationEnd(int node, int relation) {
+        return lowerBound(inEdges, inOffsets[node], inOffsets[node + 1], relation + 1);
+    }
+
+    private int lowerBound(int[] adjacency, int from, int to, int relation) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (edgeRelation[adjacency[mid]] < relation) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    public Set<Integer> getThemeIds() {
+        return Collections.unmodifiableSet(themeNodes.keySet());
+    }
+
+    /**
+     * 主题下的节点编号
+     */
+    public int[] themeNodes(int themeId) {
+        int[] nodes = themeNodes.get(themeId);
+        return nodes != null ? nodes : EMPTY;
+    }
+
+    /**
+     * 源节点或目标节点属于该主题的边编号
+     */
+    public int[] themeEdges(int themeId) {
+        int[] edges = themeEdges.get(themeId);
+        return edges != null ? edges : EMPTY;
+    }
+
+    /**
+     * 与节点相连的全部边编号（出边和入边，自环只计一次）
+     */
+    public int[] incidentEdges(int node) {
+        int outBegin = outOffsets[node];
+        int outEnd = outOffsets[node + 1];
+        int inBegin = inOffsets[node];
+        int inEnd = inOffsets[node + 1];
+        IntArrayList result = new IntArrayList(outEnd - outBegin + inEnd - inBegin);
+        for (int i = outBegin; i < outEnd; i++) {
+            result.add(outEdges[i]);
+        }
+        for (int i = inBegin; i < inEnd; i++) {
+            int e = inEdges[i];
+            if (edgeSource[e] != node) {
+                result.add(e);
+            }
+        }
+        return result.toArray();
+    }
+}
@@ -0,0 +1,487 @@
+package com.cassini.graph.index;
+
+import java.util.Arrays;
+
+/**
+ * 图的可变列式存储
+ * 接收节点/边的增量写入（O(1)），并按需生成只读的GraphSnapshot
+ * 非线程安全，由调用方负责同步
+ */
+public class GraphStore {
+
+    private final NameDictionary nodeNames = new NameDictionary();
+
+    private final NameDictionary relations = new NameDictionary();
+
+    // 按名称编号索引的节点列
+    private int[] nodeDbId = filled(16);
+
+    private int[] nodeTheme = new int[16];
+
+    // 节点画布坐标，NaN表示尚未布局
+    private double[] nodeX = nanFilled(16);
+
+    private double[] nodeY = nanFilled(16);
+
+    // 坐标发生变化时递增，用于判断空间索引是否需要重建
+    private long coordinateVersion;
+
+    // 节点增删、改名或改主题时递增，用于判断只依赖节点名称的索引（如自动补全）是否需要重建
+    private long nodeVersion;
+
+    private final IntIntMap nodeByDbId = new IntIntMap();
+
+    // 按槽位索引的边列，edgeDbId为-1表示空槽
+    private int[] edgeDbId = filled(16);
+
+    private int[] edgeSource = new int[16];
+
+    private int[] edgeTarget = new int[16];
+
+    private int[] edgeRelation = new int[16];
+
+    private int[] edgeTheme = new int[16];
+
+    private int[] edgeWidth = new int[16];
+
+    private int edgeSlots;
+
+    private int liveEdges;
+
+    private final IntIntMap edgeSlotByDbId = new IntIntMap();
+
+    private final IntArrayList freeSlots = new IntArrayList();
+
+    private static int[] filled(int length) {
+        int[] array = new int[length];
+        Arrays.fill(array, -1);
+        return array;
+    }
+
+    private static double[] nanFilled(int length) {
+        double[] array = new double[length];
+        Arrays.fill(array, Double.NaN);
+        return array;
+    }
+
+    private static double[] grow(double[] array, int length) {
+        int oldLength = array.length;
+        double[] grown = Arrays.copyOf(array, length);
+        Arrays.fill(grown, oldLength, length, Double.NaN);
+        return grown;
+    }
+
+    private static int[] grow(int[] array, int length, int fill) {
+        int oldLength = array.length;
+        int[] grown = Arrays.copyOf(array, length);
+        if (fill != 0) {
+            Arrays.fill(grown, oldLength, length, fill);
+        }
+        return grown;
+    }
+
+    private int internNode(String name) {
+        int id = nodeNames.intern(name);
+        if (id >= nodeDbId.length) {
+            int length = Math.max(id + 1, nodeDbId.length * 2);
+            nodeDbId = grow(nodeDbId, length, -1);
+            nodeTheme = grow(nodeTheme, length, 0);
+            nodeX = grow(nodeX, length);
+            nodeY = grow(nodeY, length);
+        }
+        return id;
+    }
+
+    /**
+     * 新增或更新节点，节点改名时旧名称不再关联该记录
+     *
+     * @param x 画布坐标，没有坐标时为NaN
+     * @param y 画布坐标，没有坐标时为NaN
+     * @return 节点是否新增、改名或改主题（只有坐标变化时返回false，由坐标版本体现）
+     */
+    public boolean putNode(int dbId, String name, int themeId, double x, double y) {
+        int previous = nodeByDbId.get(dbId, -1);
+        int id = internNode(name);
+        if (previous >= 0 && previous != id && nodeDbId[previous] == dbId) {
+            nodeDbId[previous] = -1;
+        }
+        boolean structural = previous != id || nodeDbId[id] != dbId || nodeTheme[id] != themeId;
+        if (previous != id || Double.compare(nodeX[id], x) != 0 || Double.compare(nodeY[id], y) != 0) {
+            coordinateVersion++;
+        }
+        nodeDbId[id] = dbId;
+        nodeTheme[id] = themeId;
+        nodeX[id] = x;
+        nodeY[id] = y;
+        nodeByDbId.put(dbId, id);
+        if (structural) {
+            nodeVersion++;
+        }
+        return structural;
+    }
+
+    /**
+     * 只更新节点坐标（批量布局写回后调用）
+     */
+    public void moveNode(int dbId, double x, double y) {
+        int id = nodeByDbId.get(dbId, -1);
+        if (id >= 0) {
+            nodeX[id] = x;
+            nodeY[id] = y;
+            coordinateVersion++;
+        }
+    }
+
+    /**
+     * @return 节点是否存在
+     */
+    public boolean removeNode(int dbId) {
+        int id = nodeByDbId.remove(dbId, -1);
+        if (id >= 0 && nodeDbId[id] == dbId) {
+            nodeDbId[id] = -1;
+        }
+        if (id >= 0) {
+            nodeVersion++;
+        }
+        return id >= 0;
+    }
+
+    /**
+     * 新增或更新边
+     *
+     * @return 边是否新增或有字段变化
+     */
+    public boolean putEdge(int dbId, String sourceName, String targetName, String relation, int themeId, int width) {
+        int slot = edgeSlotByDbId.get(dbId, -1);
+        int source = internNode(sourceName);
+        int target = internNode(targetName);
+        int relationId = relations.intern(relation != null ? relation : "");
+        if (slot >= 0 && edgeSource[slot] == source && edgeTarget[slot] == target && edgeRelation[slot] == relationId
+                && edgeTheme[slot] == themeId && edgeWidth[slot] == width) {
+            return false;
+        }
+        if (slot < 0) {
+            if (!freeSlots.isEmpty()) {
+                slot = freeSlots.removeLast();
+            } else {
+                slot = edgeSlots++;
+                if (slot >= edgeDbId.length) {
+                    int length = edgeDbId.length * 2;
+                    edgeDbId = grow(edgeDbId, length, -1);
+                    edgeSource = grow(edgeSource, length, 0);
+                    edgeTarget = grow(edgeTarget, length, 0);
+                    edgeRelation = grow(edgeRelation, length, 0);
+                    edgeTheme = grow(edgeTheme, length, 0);
+                    edgeWidth = grow(edgeWidth, length, 0);
+                }
+            }
+            edgeSlotByDbId.put(dbId, slot);
+            liveEdges++;
+        }
+        edgeDbId[slot] = dbId;
+        edgeSource[slot] = source;
+        edgeTarget[slot] = target;
+        edgeRelation[slot] = relationId;
+        edgeTheme[slot] = themeId;
+        edgeWidth[slot] = width;
+        return true;
+    }
+
+    /**
+     * @return 边是否存在
+     */
+    public boolean removeEdge(int dbId) {
+        int slot = edgeSlotByDbId.remove(dbId, -1);
+        if (slot >= 0) {
+            edgeDbId[slot] = -1;
+            freeSlots.add(slot);
+            liveEdges--;
+        }
+        return slot >= 0;
+    }
+
+    /**
+     * 节点当前所属主题，节点不存在时返回-1
+     */
+    public int themeOfNode(int dbId) {
+        int id = nodeByDbId.get(dbId, -1);
+        return id >= 0 ? nodeTheme[id] : -1;
+    }
+
+    /**
+     * 名称对应节点当前所属的主题，没有node记录时返回-1
+     */
+    public int themeOfNodeName(String name) {
+        int id = nodeNames.idOf(name);
+        return id >= 0 && nodeDbId[id] >= 0 ? nodeTheme[id] : -1;
+    }
+
+    /**
+     * 节点当前的名称编号（与快照中的节点编号一致），节点不存在时返回-1
+     */
+    public int nodeIdOfDbId(int dbId) {
+        return nodeByDbId.get(dbId, -1);
+    }
+
+    /**
+     * 名称对应的节点编号，名称从未出现过时返回-1
+     */
+    public int nodeIdOf(String name) {
+        return nodeNames.idOf(name);
+    }
+
+    /**
+     * 边的源节点和目标节点编号，边不存在时返回null
+     */
+    public int[] endpointsOfEdge(int dbId) {
+        int slot = edgeSlotByDbId.get(dbId, -1);
+        return slot >= 0 ? new int[]{edgeSource[slot], edgeTarget[slot]} : null;
+    }
+
+    /**
+     * 边的源节点和目标节点当前所属的主题（没有node记录的端点为-1），边不存在时返回null
+     */
+    public int[] endpointThemesOfEdge(int dbId) {
+        int slot = edgeSlotByDbId.get(dbId, -1);
+        if (slot < 0) {
+            return null;
+        }
+        int source = edgeSource[slot];
+        int target = edgeTarget[slot];
+        return new int[]{
+                nodeDbId[source] >= 0 ? nodeTheme[source] : -1,
+                nodeDbId[target] >= 0 ? nodeTheme[target] : -1};
+    }
+
+    public int getNodeCount() {
+        return nodeByDbId.size();
+    }
+
+    /**
+     * 节点的最大数据库主键，没有节点时返回0
+     */
+    public int maxNodeDbId() {
+        int max = 0;
+        for (int i = 0; i < nodeNames.size(); i++) {
+            max = Math.max(max, nodeDbId[i]);
+        }
+        return max;
+    }
+
+    /**
+     * 边的最大数据库主键，没有边时返回0
+     */
+    public int maxEdgeDbId() {
+        int max = 0;
+        for (int slot = 0; slot < edgeSlots; slot++) {
+            max = Math.max(max, edgeDbId[slot]);
+        }
+        return max;
+    }
+
+    /**
+     * 节点数据库主键之和，与行数、最大主键一起用于校验快照是否与数据库一致
+     */
+    public long nodeDbIdSum() {
+        long sum = 0;
+        for (int i = 0; i < nodeNames.size(); i++) {
+            if (nodeDbId[i] >= 0) {
+                sum += nodeDbId[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 边数据库主键之和
+     */
+    public long edgeDbIdSum() {
+        long sum = 0;
+        for (int slot = 0; slot < edgeSlots; slot++) {
+            if (edgeDbId[slot] >= 0) {
+                sum += edgeDbId[slot];
+            }
+        }
+        return sum;
+    }
+
+    public int getEdgeCount() {
+        return liveEdges;
+    }
+
+    public long getCoordinateVersion() {
+        return coordinateVersion;
+    }
+
+    /**
+     * 存储内容的副本（边已去掉空槽），用于在锁外写入快照文件
+     */
+    public static class Image {
+        String[] nodeNames;
+        String[] relations;
+        int[] nodeDbId;
+        int[] nodeTheme;
+        double[] nodeX;
+        double[] nodeY;
+        int[] edgeDbId;
+        int[] edgeSource;
+        int[] edgeTarget;
+        int[] edgeRelation;
+        int[] edgeTheme;
+        int[] edgeWidth;
+    }
+
+    /**
+     * 复制当前内容，耗时O(节点数 + 边数)
+     */
+    public Image image() {
+        Image image = new Image();
+        int nodeCount = nodeNames.size();
+        image.nodeNames = new String[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            image.nodeNames[i] = nodeNames.nameOf(i);
+        }
+        image.relations = new String[relations.size()];
+        for (int i = 0; i < image.relations.length; i++) {
+            image.relations[i] = relations.nameOf(i);
+        }
+        image.nodeDbId = Arrays.copyOf(nodeDbId, nodeCount);
+        image.nodeTheme = Arrays.copyOf(nodeTheme, nodeCount);
+        image.nodeX = Arrays.copyOf(nodeX, nodeCount);
+        image.nodeY = Arrays.copyOf(nodeY, nodeCount);
+        image.edgeDbId = new int[liveEdges];
+        image.edgeSource = new int[liveEdges];
+        image.edgeTarget = new int[liveEdges];
+        image.edgeRelation = new int[liveEdges];
+        image.edgeTheme = new int[liveEdges];
+        image.edgeWidth = new int[liveEdges];
+        int e = 0;
+        for (int slot = 0; slot < edgeSlots; slot++) {
+            if (edgeDbId[slot] < 0) {
+                continue;
+            }
+            image.edgeDbId[e] = edgeDbId[slot];
+            image.edgeSource[e] = edgeSource[slot];
+            image.edgeTarget[e] = edgeTarget[slot];
+            image.edgeRelation[e] = edgeRelation[slot];
+            image.edgeTheme[e] = edgeTheme[slot];
+            image.edgeWidth[e] = edgeWidth[slot];
+            e++;
+        }
+        return image;
+    }
+
+    /**
+     * 从副本恢复存储，名称按原编号顺序驻留，因此节点和关系编号与写出时一致
+     */
+    public static GraphStore restore(Image image) {
+        GraphStore store = new GraphStore();
+        int nodeCount = image.nodeNames.length;
+        for (String name : image.nodeNames) {
+            store.nodeNames.intern(name);
+        }
+        for (String relation : image.relations) {
+            store.relations.intern(relation);
+        }
+        int capacity = Math.max(nodeCount, 16);
+        store.nodeDbId = grow(image.nodeDbId, capacity, -1);
+        store.nodeTheme = grow(image.nodeTheme, capacity, 0);
+        store.nodeX = grow(image.nodeX, capacity);
+        store.nodeY = grow(image.nodeY, capacity);
+        for (int i = 0; i < nodeCount; i++) {
+            if (image.nodeDbId[i] >= 0) {
+                store.nodeByDbId.put(image.nodeDbId[i], i);
+            }
+        }
+        int edgeCount = image.edgeDbId.length;
+        capacity = Math.max(edgeCount, 16);
+        store.edgeDbId = grow(image.edgeDbId, capacity, -1);
+        store.edgeSource = grow(image.edgeSource, capacity, 0);
+        store.edgeTarget = grow(image.edgeTarget, capacity, 0);
+        store.edgeRelation = grow(image.edgeRelation, capacity, 0);
+        store.edgeTheme = grow(image.edgeTheme, capacity, 0);
+        store.edgeWidth = grow(image.edgeWidth, capacity, 0);
+        for (int e = 0; e < edgeCount; e++) {
+            store.edgeSlotByDbId.put(image.edgeDbId[e], e);
+        }
+        store.edgeSlots = edgeCount;
+        store.liveEdges = edgeCount;
+        return store;
+    }
+
+    /**
+     * 生成当前数据的只读快照，耗时O(节点数 + 边数)，不访问数据库
+     */
+    public GraphSnapshot snapshot(long version) {
+        return prepareSnapshot(version).build();
+    }
+
+    /**
+     * 复制生成快照所需的数据（需要与写入同步），返回的对象可以在锁外构建CSR快照
+     */
+    public SnapshotSource prepareSnapshot(long version) {
+        SnapshotSource source = new SnapshotSource();
+        source.version = version;
+        source.nodeNames = nodeNames;
+        source.relations = relations;
+        source.nodeCount = nodeNames.size();
+        source.relationCount = relations.size();
+        source.nodeDbId = Arrays.copyOf(nodeDbId, source.nodeCount);
+        source.nodeTheme = Arrays.copyOf(nodeTheme, source.nodeCount);
+        source.nodeX = Arrays.copyOf(nodeX, source.nodeCount);
+        source.nodeY = Arrays.copyOf(nodeY, source.nodeCount);
+        source.coordinateVersion = coordinateVersion;
+        source.nodeVersion = nodeVersion;
+        source.edgeCount = liveEdges;
+        source.edgeDbId = new int[liveEdges];
+        source.edgeSource = new int[liveEdges];
+        source.edgeTarget = new int[liveEdges];
+        source.edgeRelation = new int[liveEdges];
+        source.edgeTheme = new int[liveEdges];
+        source.edgeWidth = new int[liveEdges];
+        int e = 0;
+        for (int slot = 0; slot < edgeSlots; slot++) {
+            if (edgeDbId[slot] < 0) {
+                continue;
+            }
+            source.edgeDbId[e] = edgeDbId[slot];
+            source.edgeSource[e] = edgeSource[slot];
+            source.edgeTarget[e] = edgeTarget[slot];
+            source.edgeRelation[e] = edgeRelation[slot];
+            source.edgeTheme[e] = edgeTheme[slot];
+            source.edgeWidth[e] = edgeWidth[slot];
+            e++;
+        }
+        return source;
+    }
+
+    /**
+     * 某一时刻的存储副本，名称字典只追加，按复制时的大小截取即可共用
+     */
+    public static class SnapshotSource {
+        long version;
+        NameDictionary nodeNames;
+        NameDictionary relations;
+        int nodeCount;
+        int relationCount;
+        int[] nodeDbId;
+        int[] nodeTheme;
+        double[] nodeX;
+        double[] nodeY;
+        long coordinateVersion;
+        long nodeVersion;
+        int edgeCount;
+        int[] edgeDbId;
+        int[] edgeSource;
+        int[] edgeTarget;
+        int[] edgeRelation;
+        int[] edgeTheme;
+        int[] edgeWidth;
+
+        public GraphSnapshot build() {
+            return GraphSnapshot.build(version, nodeNames, relations, nodeCount, relationCount,
+                    nodeDbId, nodeTheme, nodeX, nodeY, coordinateVersion, nodeVersion,
+                    edgeCount, edgeDbId, edgeSource, edgeTarget, edgeRelation, edgeTheme, edgeWidth);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.cassini.graph.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 图快照文件，保存GraphStore的全部内容，用于重启时跳过全表扫描
+ * 布局（大端）：魔数、格式版本、变更日志版本、写入时间，节点名称字典、关系字典，
+ * 按名称编号排列的节点列（主键、主题、坐标），边列（主键、源、目标、关系、主题、宽度），最后是前面全部内容的CRC32。
+ * 写入时先写临时文件再原子替换；读取时用FileChannel.map映射后整块读入数组
+ */
+public final class GraphStoreFile {
+
+    private static final int MAGIC = 0x4B475346;
+
+    // 布局变化时递增，旧格式的文件直接忽略
+    private static final int FORMAT_VERSION = 1;
+
+    private GraphStoreFile() {
+    }
+
+    /**
+     * 读取的快照
+     */
+    public static class Contents {
+        private final GraphStore store;
+        private final long changeVersion;
+        private final long writtenAt;
+
+        Contents(GraphStore store, long changeVersion, long writtenAt) {
+            this.store = store;
+            this.changeVersion = changeVersion;
+            this.writtenAt = writtenAt;
+        }
+
+        public GraphStore getStore() {
+            return store;
+        }
+
+        /**
+         * 写入快照时的变更日志版本号，之后的变更需要从数据库补齐
+         */
+        public long getChangeVersion() {
+            return changeVersion;
+        }
+
+        public long getWrittenAt() {
+            return writtenAt;
+        }
+    }
+
+    /**
+     * 写入快照
+     *
+     * @param changeVersion 复制image之前读取的变更日志版本号
+     */
+    public static void write(GraphStore.Image image, long changeVersion, File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(new FileOutputStream(temp), crc), 1 << 20))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(changeVersion);
+            out.writeLong(System.currentTimeMillis());
+            writeStrings(out, image.nodeNames);
+            writeStrings(out, image.relations);
+            writeInts(out, image.nodeDbId);
+            writeInts(out, image.nodeTheme);
+            writeDoubles(out, image.nodeX);
+            writeDoubles(out, image.nodeY);
+            out.writeInt(image.edgeDbId.length);
+            writeInts(out, image.edgeDbId);
+            writeInts(out, image.edgeSource);
+            writeInts(out, image.edgeTarget);
+            writeInts(out, image.edgeRelation);
+            writeInts(out, image.edgeTheme);
+            writeInts(out, image.edgeWidth);
+            // flush之后CRC覆盖前面的全部内容，再写入CRC本身
+            out.flush();
+            out.writeLong(crc.getValue());
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 读取快照，文件损坏、截断或格式版本不符时抛出IOException
+     */
+    public static Contents read(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE || length < 32) {
+                throw new IOException("Invalid snapshot size: " + length);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            ByteBuffer body = buffer.duplicate();
+            ((Buffer) body).limit((int) length - 8);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if (crc.getValue() != buffer.getLong((int) length - 8)) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+            ((Buffer) buffer).limit((int) length - 8);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a graph snapshot file");
+            }
+            int format = buffer.getInt();
+            if (format != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format: " + format);
+            }
+            long changeVersion = buffer.getLong();
+            long writtenAt = buffer.getLong();
+
+            GraphStore.Image image = new GraphStore.Image();
+            image.nodeNames = readStrings(buffer);
+            image.relations = readStrings(buffer);
+            int nodeCount = image.nodeNames.length;
+            image.nodeDbId = readInts(buffer, nodeCount);
+            image.nodeTheme = readInts(buffer, nodeCount);
+            image.nodeX = readDoubles(buffer, nodeCount);
+            image.nodeY = readDoubles(buffer, nodeCount);
+            int edgeCount = buffer.getInt();
+            image.edgeDbId = readInts(buffer, edgeCount);
+            image.edgeSource = readInts(buffer, edgeCount);
+            image.edgeTarget = readInts(buffer, edgeCount);
+            image.edgeRelation = readInts(buffer, edgeCount);
+            image.edgeTheme = readInts(buffer, edgeCount);
+            image.edgeWidth = readInts(buffer, edgeCount);
+            return new Contents(GraphStore.restore(image), changeVersion, writtenAt);
+        } catch (RuntimeException e) {
+            // 长度字段与内容不符（BufferUnderflowException等）
+            throw new IOException("Corrupt snapshot: " + e, e);
+        }
+    }
+
+    /**
+     * 字符串表：个数、每个字符串UTF-8编码后的结束偏移、全部字节
+     */
+    private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+        byte[][] encoded = new byte[values.length][];
+        int total = 0;
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = values[i].getBytes(StandardCharsets.UTF_8);
+            total += encoded[i].length;
+        }
+        out.writeInt(values.length);
+        out.writeInt(total);
+        int end = 0;
+        for (byte[] bytes : encoded) {
+            end += bytes.length;
+            out.writeInt(end);
+        }
+        for (byte[] bytes : encoded) {
+            out.write(bytes);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        int total = buffer.getInt();
+        int[] ends = readInts(buffer, count);
+        byte[] bytes = new byte[total];
+        buffer.get(bytes);
+        String[] values = new String[count];
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            values[i] = new String(bytes, start, ends[i] - start, StandardCharsets.UTF_8);
+            start = ends[i];
+        }
+        return values;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    // 定位方法统一转成Buffer调用：JDK 9+的ByteBuffer重载了position/limit，按1.8编译后在Java 8上会找不到方法
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        ((Buffer) buffer).position(buffer.position() + count * 4);
+        return values;
+    }
+
+    private static double[] readDoubles(ByteBuffer buffer, int count) {
+        double[] values = new double[count];
+        buffer.asDoubleBuffer().get(values);
+        ((Buffer) buffer).position(buffer.position() + count * 8);
+        return values;
+    }
+}
@@ -0,0 +1,126 @@
+package com.cassini.graph.index;
+
+import java.util.Arrays;
+
+/**
+ * 开放寻址的int到int哈希表，用于数据库主键到内部编号的映射
+ * 键不能为Integer.MIN_VALUE（作为空槽标记），非线程安全
+ */
+public class IntIntMap {
+
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+
+    private int[] values;
+
+    private int size;
+
+    private int mask;
+
+    public IntIntMap() {
+        this(16);
+    }
+
+    public IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2, 16) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * 获取键对应的值，不存在时返回defaultValue
+     */
+    public int get(int key, int defaultValue) {
+        int i = slot(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        int i = slot(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public void put(int key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int i = slot(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * 删除键，返回原值，不存在时返回defaultValue
+     */
+    public int remove(int key, int defaultValue) {
+        int i = slot(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                int old = values[i];
+                keys[i] = EMPTY;
+                size--;
+                // 回填后续冲突链，保持线性探测的连续性
+                int j = (i + 1) & mask;
+                while (keys[j] != EMPTY) {
+                    int k = keys[j];
+                    int v = values[j];
+                    keys[j] = EMPTY;
+                    size--;
+                    put(k, v);
+                    j = (j + 1) & mask;
+                }
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.cassini.graph.index;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 字符串驻留字典
+ * 将节点名称、关系名称等映射为从0开始的稠密int编号，编号一经分配不再回收
+ * 读操作无锁，写操作串行
+ */
+public class NameDictionary {
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private volatile String[] names = new String[16];
+
+    private volatile int size;
+
+    /**
+     * 获取名称对应的编号，不存在时分配新编号
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            int newId = size;
+            if (newId == names.length) {
+                names = Arrays.copyOf(names, newId * 2);
+            }
+            names[newId] = name;
+            size = newId + 1;
+            ids.put(name, newId);
+            return newId;
+        }
+    }
+
+    /**
+     * 获取名称对应的编号，不存在时返回-1
+     */
+    public int idOf(String name) {
+        if (name == null) {
+            return -1;
+        }
+        Integer id = ids.get(name);
+        return id != null ? id : -1;
+    }
+
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,223 @@
+package com.cassini.graph.index;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * 带权前缀索引，用于名称自动补全
+ * 所有键排序后连续存放在一个char数组中，前缀查询先二分定位键区间，
+ * 再用区间最大值线段树按权重从高到低逐个取出，取前k个只需O(k log n)。
+ * 构建后只读，可被多个线程同时查询
+ */
+public class PrefixIndex {
+
+    // 排序后的键：第i个键为 chars[offsets[i], offsets[i + 1])
+    private final char[] chars;
+    private final int[] offsets;
+
+    // 每个键对应的值（调用方定义，如节点内部编号）和权重
+    private final int[] values;
+    private final int[] weights;
+
+    // 线段树，叶子为键下标，内部节点为区间内权重最大的键下标
+    private final int[] tree;
+    private final int leafBase;
+
+    private PrefixIndex(char[] chars, int[] offsets, int[] values, int[] weights) {
+        this.chars = chars;
+        this.offsets = offsets;
+        this.values = values;
+        this.weights = weights;
+        int size = values.length;
+        int base = 1;
+        while (base < size) {
+            base <<= 1;
+        }
+        leafBase = base;
+        tree = new int[base * 2];
+        Arrays.fill(tree, -1);
+        for (int i = 0; i < size; i++) {
+            tree[base + i] = i;
+        }
+        for (int i = base - 1; i >= 1; i--) {
+            tree[i] = better(tree[2 * i], tree[2 * i + 1]);
+        }
+    }
+
+    /**
+     * 构建索引，keys可以重复（同一个值可以有多个键，如名称和拼音首字母）
+     */
+    public static PrefixIndex build(String[] keys, int[] values, int[] weights) {
+        int size = keys.length;
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.parallelSort(order, (a, b) -> keys[a].compareTo(keys[b]));
+        int totalChars = 0;
+        for (String key : keys) {
+            totalChars += key.length();
+        }
+        char[] chars = new char[totalChars];
+        int[] offsets = new int[size + 1];
+        int[] sortedValues = new int[size];
+        int[] sortedWeights = new int[size];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            String key = keys[order[i]];
+            key.getChars(0, key.length(), chars, position);
+            offsets[i] = position;
+            position += key.length();
+            sortedValues[i] = values[order[i]];
+            sortedWeights[i] = weights[order[i]];
+        }
+        offsets[size] = position;
+        return new PrefixIndex(chars, offsets, sortedValues, sortedWeights);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * 按权重从高到低遍历以prefix开头的键，visitor返回false时停止
+     * 同一个值可能通过多个键被多次访问，由调用方去重
+     */
+    public void complete(String prefix, Visitor visitor) {
+        int from = lowerBound(prefix);
+        int to = upperBound(prefix, from);
+        if (from >= to) {
+            return;
+        }
+        // 候选区间按区间最大权重排序
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> compare(a[2], b[2]));
+        ranges.add(new int[]{from, to, rangeMax(from, to)});
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.poll();
+            int best = range[2];
+            if (!visitor.visit(values[best], weights[best], key(best))) {
+                return;
+            }
+            if (range[0] < best) {
+                ranges.add(new int[]{range[0], best, rangeMax(range[0], best)});
+            }
+            if (best + 1 < range[1]) {
+                ranges.add(new int[]{best + 1, range[1], rangeMax(best + 1, range[1])});
+            }
+        }
+    }
+
+    public interface Visitor {
+        boolean visit(int value, int weight, String key);
+    }
+
+    private String key(int i) {
+        return new String(chars, offsets[i], offsets[i + 1] - offsets[i]);
+    }
+
+    /**
+     * 区间[from, to)内权重最大的键下标
+     */
+    private int rangeMax(int from, int to) {
+        int best = -1;
+        int lo = from + leafBase;
+        int hi = to + leafBase;
+        while (lo < hi) {
+            if ((lo & 1) == 1) {
+                best = better(best, tree[lo++]);
+            }
+            if ((hi & 1) == 1) {
+                best = better(best, tree[--hi]);
+            }
+            lo >>= 1;
+            hi >>= 1;
+        }
+        return best;
+    }
+
+    private int better(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        return compare(a, b) <= 0 ? a : b;
+    }
+
+    /**
+     * 权重降序，权重相同时键较短的优先，再按字典序
+     */
+    private int compare(int a, int b) {
+        if (weights[a] != weights[b]) {
+            return Integer.compare(weights[b], weights[a]);
+        }
+        int lengthA = offsets[a + 1] - offsets[a];
+        int lengthB = offsets[b + 1] - offsets[b];
+        if (lengthA != lengthB) {
+            return Integer.compare(lengthA, lengthB);
+        }
+        return Integer.compare(a, b);
+    }
+
+    /**
+     * 第一个不小于prefix的键
+     */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKey(mid, prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 从from开始第一个不以prefix开头的键
+     */
+    private int upperBound(String prefix, int from) {
+        int low = from;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (startsWith(mid, prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int compareKey(int i, String other) {
+        int start = offsets[i];
+        int length = offsets[i + 1] - start;
+        int common = Math.min(length, other.length());
+        for (int k = 0; k < common; k++) {
+            char c = chars[start + k];
+            char o = other.charAt(k);
+            if (c != o) {
+                return c - o;
+            }
+        }
+        return length - other.length();
+    }
+
+    private boolean startsWith(int i, String prefix) {
+        int start = offsets[i];
+        if (offsets[i + 1] - start < prefix.length()) {
+            return false;
+        }
+        for (int k = 0; k < prefix.length(); k++) {
+            if (chars[start + k] != prefix.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,512 @@
+package com.cassini.graph.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Node.properties的属性索引
+ * 每个属性键维护 值 -> 节点ID 的倒排表；能解析为数字的值另外进入按值排序的数值列，用于范围查询。
+ * 倒排项默认是有序的int数组，节点足够密集时才换成以节点数据库ID为下标的位图。
+ * 不同取值超过MAX_VALUES_PER_KEY的键不再维护倒排表，等值和存在查询改为扫描各节点的属性。非线程安全，由调用方负责同步
+ */
+public class PropertyIndex {
+
+    private static final String[] EMPTY = new String[0];
+
+    // 单个属性键最多维护倒排表的不同取值数
+    private static final int MAX_VALUES_PER_KEY = 10000;
+
+    // 倒排项至少有这么多节点，且超过最大节点ID的1/32（位图比int数组省内存）时才换成位图
+    private static final int MIN_BITMAP_SIZE = 1024;
+
+    // 属性键 -> 值 -> 倒排项
+    private final Map<String, Map<String, Posting>> postings = new HashMap<>();
+
+    // 取值过多、不再维护倒排表的属性键 -> 含该键的节点数
+    private final Map<String, Integer> unindexed = new HashMap<>();
+
+    // 属性键 -> 数值列
+    private final Map<String, NumericColumn> numeric = new HashMap<>();
+
+    // 节点ID -> 已索引的 (键, 值) 对，更新或删除时据此撤销旧的倒排项
+    private final Map<Integer, String[]> entriesByNode = new HashMap<>();
+
+    // 所有已索引的节点，用于NOT运算
+    private final BitSet allNodes = new BitSet();
+
+    /**
+     * 单个取值的节点集合：稀疏时为有序int数组，密集时为位图；删除后重新变稀疏时换回数组以释放位图
+     */
+    private static class Posting {
+        int[] ids = new int[1];
+        BitSet bits;
+        int size;
+
+        void add(int nodeId, int maxNodeId) {
+            if (bits != null) {
+                if (!bits.get(nodeId)) {
+                    bits.set(nodeId);
+                    size++;
+                }
+                return;
+            }
+            int at = Arrays.binarySearch(ids, 0, size, nodeId);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size >= MIN_BITMAP_SIZE && size > maxNodeId >>> 5) {
+                bits = toBitSet();
+                bits.set(nodeId);
+                ids = null;
+                size++;
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = nodeId;
+            size++;
+        }
+
+        void remove(int nodeId) {
+            if (bits != null) {
+                if (bits.get(nodeId)) {
+                    bits.clear(nodeId);
+                    size--;
+                    if (size < bits.length() >>> 6) {
+                        ids = new int[Math.max(1, size)];
+                        int i = 0;
+                        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+                            ids[i++] = id;
+                        }
+                        bits = null;
+                    }
+                }
+                return;
+            }
+            int at = Arrays.binarySearch(ids, 0, size, nodeId);
+            if (at < 0) {
+                return;
+            }
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            if (size < ids.length >>> 2) {
+                ids = Arrays.copyOf(ids, Math.max(1, ids.length >>> 1));
+            }
+        }
+
+        void orInto(BitSet result) {
+            if (bits != null) {
+                result.or(bits);
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                result.set(ids[i]);
+            }
+        }
+
+        BitSet toBitSet() {
+            if (bits != null) {
+                return (BitSet) bits.clone();
+            }
+            BitSet result = new BitSet();
+            orInto(result);
+            return result;
+        }
+    }
+
+    /**
+     * 单个属性键的数值列：写入只记录节点的值和变化的节点，范围查询前把变化的节点排序后与已排序数组归并，
+     * 未变化的部分不重新排序。排序和归并都在基本类型数组上进行
+     */
+    private static class NumericColumn {
+        final Map<Integer, double[]> valuesByNode = new HashMap<>();
+        double[] sortedValues = new double[0];
+        int[] sortedNodes = new int[0];
+        // 上次归并之后写入或删除过的节点，其在已排序数组中的旧值失效
+        final BitSet touched = new BitSet();
+        boolean dirty;
+
+        void touch(int nodeId) {
+            touched.set(nodeId);
+            dirty = true;
+        }
+
+        void rebuild() {
+            int added = 0;
+            for (int node = touched.nextSetBit(0); node >= 0; node = touched.nextSetBit(node + 1)) {
+                double[] values = valuesByNode.get(node);
+                if (values != null) {
+                    added += values.length;
+                }
+            }
+            double[] addedValues = new double[added];
+            int[] addedNodes = new int[added];
+            int a = 0;
+            for (int node = touched.nextSetBit(0); node >= 0; node = touched.nextSetBit(node + 1)) {
+                double[] values = valuesByNode.get(node);
+                if (values != null) {
+                    for (double value : values) {
+                        addedValues[a] = value;
+                        addedNodes[a] = node;
+                        a++;
+                    }
+                }
+            }
+            sort(addedValues, addedNodes, 0, added);
+
+            int kept = 0;
+            for (int node : sortedNodes) {
+                if (!touched.get(node)) {
+                    kept++;
+                }
+            }
+            double[] values = new double[kept + added];
+            int[] nodes = new int[kept + added];
+            int b = 0;
+            a = 0;
+            for (int k = 0; k < values.length; k++) {
+                while (b < sortedNodes.length && touched.get(sortedNodes[b])) {
+                    b++;
+                }
+                if (a < added && (b == sortedNodes.length || addedValues[a] < sortedValues[b])) {
+                    values[k] = addedValues[a];
+                    nodes[k] = addedNodes[a++];
+                } else {
+                    values[k] = sortedValues[b];
+                    nodes[k] = sortedNodes[b++];
+                }
+            }
+            sortedValues = values;
+            sortedNodes = nodes;
+            touched.clear();
+            dirty = false;
+        }
+
+        /**
+         * 按值对 [from, to) 区间原地排序，nodes随之交换
+         */
+        private static void sort(double[] values, int[] nodes, int from, int to) {
+            while (to - from > 16) {
+                double first = values[from];
+                double middle = values[(from + to) >>> 1];
+                double last = values[to - 1];
+                double pivot = Math.max(Math.min(first, middle), Math.min(Math.max(first, middle), last));
+                int i = from;
+                int j = to - 1;
+                while (i <= j) {
+                    while (values[i] < pivot) {
+                        i++;
+                    }
+                    while (values[j] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(values, nodes, i++, j--);
+                    }
+                }
+                // 较短的一侧递归，较长的一侧循环，递归深度为O(log n)
+                if (j - from < to - i) {
+                    sort(values, nodes, from, j + 1);
+                    from = i;
+                } else {
+                    sort(values, nodes, i, to);
+                    to = j + 1;
+                }
+            }
+            for (int i = from + 1; i < to; i++) {
+                for (int j = i; j > from && values[j - 1] > values[j]; j--) {
+                    swap(values, nodes, j - 1, j);
+                }
+            }
+        }
+
+        private static void swap(double[] values, int[] nodes, int i, int j) {
+            double value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+            int node = nodes[i];
+            nodes[i] = nodes[j];
+            nodes[j] = node;
+        }
+
+        /**
+         * 第一个满足 value > bound（strict）或 value >= bound 的位置
+         */
+        int lowerBound(double bound, boolean strict) {
+            int low = 0;
+            int high = sortedValues.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                boolean before = strict ? sortedValues[mid] <= bound : sortedValues[mid] < bound;
+                if (before) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * 替换节点的属性，entries为扁平化后的 (键, 值) 对：[key0, value0, key1, value1, ...]
+     */
+    public void put(int nodeId, String[] entries) {
+        remove(nodeId);
+        allNodes.set(nodeId);
+        if (entries.length == 0) {
+            entriesByNode.put(nodeId, EMPTY);
+            return;
+        }
+        entriesByNode.put(nodeId, entries);
+        int maxNodeId = allNodes.length() - 1;
+        Map<String, double[]> numbers = new HashMap<>();
+        Set<String> counted = null;
+        for (int i = 0; i < entries.length; i += 2) {
+            String key = entries[i];
+            String value = entries[i + 1];
+            Integer unindexedCount = unindexed.get(key);
+            if (unindexedCount != null) {
+                if (counted == null) {
+                    counted = new HashSet<>();
+                }
+                if (counted.add(key)) {
+                    unindexed.put(key, unindexedCount + 1);
+                }
+            } else {
+                Map<String, Posting> values = postings.computeIfAbsent(key, k -> new HashMap<>());
+                Posting posting = values.get(value);
+                if (posting == null) {
+                    if (values.size() >= MAX_VALUES_PER_KEY) {
+                        dropPostings(key, values, nodeId);
+                        if (counted == null) {
+                            counted = new HashSet<>();
+                        }
+                        counted.add(key);
+                        unindexed.put(key, unindexed.get(key) + 1);
+                        continue;
+                    }
+                    posting = new Posting();
+                    values.put(value, posting);
+                }
+                posting.add(nodeId, maxNodeId);
+            }
+            double number = parseNumber(value);
+            if (!Double.isNaN(number)) {
+                double[] existing = numbers.get(key);
+                double[] grown = existing == null ? new double[1] : Arrays.copyOf(existing, existing.length + 1);
+                grown[grown.length - 1] = number;
+                numbers.put(key, grown);
+            }
+        }
+        for (Map.Entry<String, double[]> entry : numbers.entrySet()) {
+            NumericColumn column = numeric.computeIfAbsent(entry.getKey(), k -> new NumericColumn());
+            column.valuesByNode.put(nodeId, entry.getValue());
+            column.touch(nodeId);
+        }
+    }
+
+    /**
+     * 键的取值超过上限后丢弃其倒排表，只记录含该键的节点数（不含正在写入的节点，由调用方计入）
+     */
+    private void dropPostings(String key, Map<String, Posting> values, int nodeId) {
+        BitSet nodes = new BitSet();
+        for (Posting posting : values.values()) {
+            posting.orInto(nodes);
+        }
+        nodes.clear(nodeId);
+        postings.remove(key);
+        unindexed.put(key, nodes.cardinality());
+    }
+
+    public void remove(int nodeId) {
+        String[] entries = entriesByNode.remove(nodeId);
+        allNodes.clear(nodeId);
+        if (entries == null) {
+            return;
+        }
+        Set<String> counted = null;
+        for (int i = 0; i < entries.length; i += 2) {
+            String key = entries[i];
+            Integer unindexedCount = unindexed.get(key);
+            if (unindexedCount != null) {
+                if (counted == null) {
+                    counted = new HashSet<>();
+                }
+                if (counted.add(key)) {
+                    if (unindexedCount > 1) {
+                        unindexed.put(key, unindexedCount - 1);
+                    } else {
+                        unindexed.remove(key);
+                    }
+                }
+            }
+            Map<String, Posting> values = postings.get(key);
+            Posting posting = values != null ? values.get(entries[i + 1]) : null;
+            if (posting != null) {
+                posting.remove(nodeId);
+                if (posting.size == 0) {
+                    values.remove(entries[i + 1]);
+                    if (values.isEmpty()) {
+                        postings.remove(key);
+                    }
+                }
+            }
+            NumericColumn column = numeric.get(key);
+            if (column != null && column.valuesByNode.remove(nodeId) != null) {
+                column.touch(nodeId);
+                if (column.valuesByNode.isEmpty()) {
+                    numeric.remove(key);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return entriesByNode.size();
+    }
+
+    public Set<String> keys() {
+        if (unindexed.isEmpty()) {
+            return Collections.unmodifiableSet(postings.keySet());
+        }
+        Set<String> keys = new HashSet<>(postings.keySet());
+        keys.addAll(unindexed.keySet());
+        return keys;
+    }
+
+    /**
+     * 某个键下不同取值的个数
+     */
+    public int distinctValues(String key) {
+        Map<String, Posting> values = postings.get(key);
+        if (values != null) {
+            return values.size();
+        }
+        return unindexed.containsKey(key) ? valueCounts(key).size() : 0;
+    }
+
+    /**
+     * 某个键下的取值及其节点数
+     */
+    public Map<String, Integer> valueCounts(String key) {
+        Map<String, Integer> counts = new HashMap<>();
+        Map<String, Posting> values = postings.get(key);
+        if (values != null) {
+            for (Map.Entry<String, Posting> entry : values.entrySet()) {
+                counts.put(entry.getKey(), entry.getValue().size);
+            }
+        } else if (unindexed.containsKey(key)) {
+            for (String[] entries : entriesByNode.values()) {
+                Set<String> seen = new HashSet<>();
+                for (int i = 0; i < entries.length; i += 2) {
+                    if (entries[i].equals(key) && seen.add(entries[i + 1])) {
+                        counts.merge(entries[i + 1], 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 全部已索引节点（副本）
+     */
+    public BitSet all() {
+        return (BitSet) allNodes.clone();
+    }
+
+    /**
+     * 键等于某个值的节点（副本）
+     */
+    public BitSet equalTo(String key, String value) {
+        Map<String, Posting> values = postings.get(key);
+        if (values == null && unindexed.containsKey(key)) {
+            return scan(key, value);
+        }
+        Posting posting = values != null ? values.get(value) : null;
+        return posting != null ? posting.toBitSet() : new BitSet();
+    }
+
+    /**
+     * 存在该键的节点
+     */
+    public BitSet exists(String key) {
+        Map<String, Posting> values = postings.get(key);
+        if (values == null && unindexed.containsKey(key)) {
+            return scan(key, null);
+        }
+        BitSet result = new BitSet();
+        if (values != null) {
+            for (Posting posting : values.values()) {
+                posting.orInto(result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 没有倒排表的键逐个节点比对，value为null时只判断键是否存在
+     */
+    private BitSet scan(String key, String value) {
+        BitSet result = new BitSet();
+        for (Map.Entry<Integer, String[]> node : entriesByNode.entrySet()) {
+            String[] entries = node.getValue();
+            for (int i = 0; i < entries.length; i += 2) {
+                if (entries[i].equals(key) && (value == null || entries[i + 1].equals(value))) {
+                    result.set(node.getKey());
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 数值范围查询，边界为NaN表示不限
+     */
+    public BitSet range(String key, double lower, boolean lowerInclusive, double upper, boolean upperInclusive) {
+        BitSet result = new BitSet();
+        NumericColumn column = numeric.get(key);
+        if (column == null) {
+            return result;
+        }
+        if (column.dirty) {
+            column.rebuild();
+        }
+        int from = Double.isNaN(lower) ? 0 : column.lowerBound(lower, !lowerInclusive);
+        int to = Double.isNaN(upper) ? column.sortedValues.length : column.lowerBound(upper, upperInclusive);
+        for (int i = from; i < to; i++) {
+            result.set(column.sortedNodes[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 解析为数字，无法解析时返回NaN
+     */
+    public static double parseNumber(String value) {
+        int length = value.length();
+        if (length == 0 || length > 32) {
+            return Double.NaN;
+        }
+        char first = value.charAt(0);
+        if (!(first >= '0' && first <= '9') && first != '-' && first != '+' && first != '.') {
+            return Double.NaN;
+        }
+        try {
+            double number = Double.parseDouble(value);
+            return Double.isInfinite(number) ? Double.NaN : number;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
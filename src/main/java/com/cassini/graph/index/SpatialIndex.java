@@ -0,0 +1,314 @@
+package com.cassini.graph.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 节点坐标的空间索引（桶式点四叉树）
+ * 由快照一次性构建：点按象限原地划分，每个单元格记录点区间、实际包围盒和坐标和，
+ * 低缩放级别下完整落在视口内的小单元格直接按网格聚合，不必逐点访问
+ */
+public class SpatialIndex {
+
+    // 叶子单元格最多容纳的点数
+    private static final int LEAF_SIZE = 32;
+
+    // 坐标完全重合的点过多时停止继续划分
+    private static final int MAX_DEPTH = 32;
+
+    private final long coordinateVersion;
+
+    // 按四叉树顺序排列的节点编号及其坐标
+    private final int[] points;
+
+    private final double[] pointX;
+
+    private final double[] pointY;
+
+    // 单元格列：点区间[begin, end)、第一个子单元格（-1为叶子，四个子单元格连续存放）、包围盒、坐标和
+    private int[] cellBegin = new int[64];
+    private int[] cellEnd = new int[64];
+    private int[] cellChild = new int[64];
+    private double[] cellMinX = new double[64];
+    private double[] cellMinY = new double[64];
+    private double[] cellMaxX = new double[64];
+    private double[] cellMaxY = new double[64];
+    private double[] cellSumX = new double[64];
+    private double[] cellSumY = new double[64];
+    private int cellCount;
+
+    /**
+     * 网格聚合后的簇标记
+     */
+    public static class Cluster {
+        public int count;
+        public double sumX;
+        public double sumY;
+        public double minX = Double.POSITIVE_INFINITY;
+        public double minY = Double.POSITIVE_INFINITY;
+        public double maxX = Double.NEGATIVE_INFINITY;
+        public double maxY = Double.NEGATIVE_INFINITY;
+        // 只有一个点时记录该点，用于还原为普通节点
+        int single = -1;
+
+        public double getX() {
+            return sumX / count;
+        }
+
+        public double getY() {
+            return sumY / count;
+        }
+
+        void add(int count, double sumX, double sumY, double minX, double minY, double maxX, double maxY) {
+            this.count += count;
+            this.sumX += sumX;
+            this.sumY += sumY;
+            this.minX = Math.min(this.minX, minX);
+            this.minY = Math.min(this.minY, minY);
+            this.maxX = Math.max(this.maxX, maxX);
+            this.maxY = Math.max(this.maxY, maxY);
+        }
+    }
+
+    /**
+     * 视口查询结果：单独显示的节点编号和聚合簇
+     */
+    public static class Result {
+        public final IntArrayList nodes = new IntArrayList();
+        public final List<Cluster> clusters = new ArrayList<>();
+        public boolean truncated;
+    }
+
+    /**
+     * 使用快照中有数据库记录且已有坐标的节点构建索引
+     */
+    public static SpatialIndex build(GraphSnapshot graph) {
+        int nodeCount = graph.getNodeCount();
+        int size = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (graph.nodeDbId(node) >= 0 && graph.hasCoordinates(node)) {
+                size++;
+            }
+        }
+        int[] points = new int[size];
+        double[] x = new double[size];
+        double[] y = new double[size];
+        int p = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (graph.nodeDbId(node) >= 0 && graph.hasCoordinates(node)) {
+                points[p] = node;
+                x[p] = graph.nodeX(node);
+                y[p] = graph.nodeY(node);
+                p++;
+            }
+        }
+        return new SpatialIndex(graph.getCoordinateVersion(), points, x, y);
+    }
+
+    private SpatialIndex(long coordinateVersion, int[] points, double[] pointX, double[] pointY) {
+        this.coordinateVersion = coordinateVersion;
+        this.points = points;
+        this.pointX = pointX;
+        this.pointY = pointY;
+        if (points.length == 0) {
+            return;
+        }
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < points.length; i++) {
+            minX = Math.min(minX, pointX[i]);
+            minY = Math.min(minY, pointY[i]);
+            maxX = Math.max(maxX, pointX[i]);
+            maxY = Math.max(maxY, pointY[i]);
+        }
+        double half = Math.max(Math.max(maxX - minX, maxY - minY), 1e-9) / 2;
+        int root = newCell();
+        split(root, 0, points.length, minX + half, minY + half, half, 0);
+    }
+
+    private int newCell() {
+        if (cellCount == cellBegin.length) {
+            int length = cellCount * 2;
+            cellBegin = Arrays.copyOf(cellBegin, length);
+            cellEnd = Arrays.copyOf(cellEnd, length);
+            cellChild = Arrays.copyOf(cellChild, length);
+            cellMinX = Arrays.copyOf(cellMinX, length);
+            cellMinY = Arrays.copyOf(cellMinY, length);
+            cellMaxX = Arrays.copyOf(cellMaxX, length);
+            cellMaxY = Arrays.copyOf(cellMaxY, length);
+            cellSumX = Arrays.copyOf(cellSumX, length);
+            cellSumY = Arrays.copyOf(cellSumY, length);
+        }
+        return cellCount++;
+    }
+
+    /**
+     * 填充单元格统计量，点数超过叶子容量时按中心划分为四个象限递归
+     */
+    private void split(int cell, int begin, int end, double centerX, double centerY, double half, int depth) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        double sumX = 0;
+        double sumY = 0;
+        for (int i = begin; i < end; i++) {
+            minX = Math.min(minX, pointX[i]);
+            minY = Math.min(minY, pointY[i]);
+            maxX = Math.max(maxX, pointX[i]);
+            maxY = Math.max(maxY, pointY[i]);
+            sumX += pointX[i];
+            sumY += pointY[i];
+        }
+        cellBegin[cell] = begin;
+        cellEnd[cell] = end;
+        cellChild[cell] = -1;
+        cellMinX[cell] = minX;
+        cellMinY[cell] = minY;
+        cellMaxX[cell] = maxX;
+        cellMaxY[cell] = maxY;
+        cellSumX[cell] = sumX;
+        cellSumY[cell] = sumY;
+        if (end - begin <= LEAF_SIZE || depth >= MAX_DEPTH) {
+            return;
+        }
+
+        // 先按y划分上下两半，再各自按x划分，得到四个连续区间
+        int middle = partition(begin, end, centerY, false);
+        int lowerMiddle = partition(begin, middle, centerX, true);
+        int upperMiddle = partition(middle, end, centerX, true);
+
+        int first = newCell();
+        newCell();
+        newCell();
+        newCell();
+        cellChild[cell] = first;
+        double quarter = half / 2;
+        split(first, begin, lowerMiddle, centerX - quarter, centerY - quarter, quarter, depth + 1);
+        split(first + 1, lowerMiddle, middle, centerX + quarter, centerY - quarter, quarter, depth + 1);
+        split(first + 2, middle, upperMiddle, centerX - quarter, centerY + quarter, quarter, depth + 1);
+        split(first + 3, upperMiddle, end, centerX + quarter, centerY + quarter, quarter, depth + 1);
+    }
+
+    /**
+     * 将区间内坐标小于pivot的点移到前面，返回分界位置
+     */
+    private int partition(int begin, int end, double pivot, boolean byX) {
+        int i = begin;
+        int j = end - 1;
+        while (i <= j) {
+            double value = byX ? pointX[i] : pointY[i];
+            if (value < pivot) {
+                i++;
+            } else {
+                swap(i, j);
+                j--;
+            }
+        }
+        return i;
+    }
+
+    private void swap(int i, int j) {
+        int point = points[i];
+        points[i] = points[j];
+        points[j] = point;
+        double x = pointX[i];
+        pointX[i] = pointX[j];
+        pointX[j] = x;
+        double y = pointY[i];
+        pointY[i] = pointY[j];
+        pointY[j] = y;
+    }
+
+    public long getCoordinateVersion() {
+        return coordinateVersion;
+    }
+
+    public int size() {
+        return points.length;
+    }
+
+    /**
+     * 视口查询
+     *
+     * @param clusterSize 聚合网格的边长（画布坐标），小于等于0时不聚合
+     * @param nodeLimit 最多单独返回的节点数
+     * @param graph 当前快照，用于排除索引构建之后被删除的节点（整体聚合的簇计数可能包含这部分节点）
+     */
+    public Result query(double minX, double minY, double maxX, double maxY, double clusterSize, int nodeLimit,
+                        GraphSnapshot graph) {
+        Result result = new Result();
+        if (points.length == 0) {
+            return result;
+        }
+        Map<Long, Cluster> grid = clusterSize > 0 ? new HashMap<>() : null;
+        IntArrayList stack = new IntArrayList();
+        stack.add(0);
+        while (!stack.isEmpty()) {
+            int cell = stack.removeLast();
+            if (cellMaxX[cell] < minX || cellMinX[cell] > maxX || cellMaxY[cell] < minY || cellMinY[cell] > maxY) {
+                continue;
+            }
+            boolean inside = cellMinX[cell] >= minX && cellMaxX[cell] <= maxX
+                    && cellMinY[cell] >= minY && cellMaxY[cell] <= maxY;
+            int count = cellEnd[cell] - cellBegin[cell];
+            // 完整可见且尺寸不超过网格的单元格整体计入所在网格
+            if (grid != null && inside && count > 1
+                    && Math.max(cellMaxX[cell] - cellMinX[cell], cellMaxY[cell] - cellMinY[cell]) <= clusterSize) {
+                double cx = cellSumX[cell] / count;
+                double cy = cellSumY[cell] / count;
+                gridCell(grid, cx, cy, clusterSize).add(count, cellSumX[cell], cellSumY[cell],
+                        cellMinX[cell], cellMinY[cell], cellMaxX[cell], cellMaxY[cell]);
+                continue;
+            }
+            if (cellChild[cell] >= 0) {
+                for (int c = 3; c >= 0; c--) {
+                    stack.add(cellChild[cell] + c);
+                }
+                continue;
+            }
+            for (int i = cellBegin[cell]; i < cellEnd[cell]; i++) {
+                double x = pointX[i];
+                double y = pointY[i];
+                if (x < minX || x > maxX || y < minY || y > maxY || graph.nodeDbId(points[i]) < 0) {
+                    continue;
+                }
+                if (grid != null) {
+                    Cluster cluster = gridCell(grid, x, y, clusterSize);
+                    cluster.single = cluster.count == 0 ? points[i] : -1;
+                    cluster.add(1, x, y, x, y, x, y);
+                } else if (result.nodes.size() < nodeLimit) {
+                    result.nodes.add(points[i]);
+                } else {
+                    result.truncated = true;
+                    return result;
+                }
+            }
+        }
+        if (grid != null) {
+            for (Cluster cluster : grid.values()) {
+                if (cluster.count == 1 && cluster.single >= 0) {
+                    if (result.nodes.size() < nodeLimit) {
+                        result.nodes.add(cluster.single);
+                    } else {
+                        result.truncated = true;
+                    }
+                } else {
+                    result.clusters.add(cluster);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Cluster gridCell(Map<Long, Cluster> grid, double x, double y, double clusterSize) {
+        long gx = (long) Math.floor(x / clusterSize);
+        long gy = (long) Math.floor(y / clusterSize);
+        return grid.computeIfAbsent((gx << 32) ^ (gy & 0xffffffffL), k -> new Cluster());
+    }
+}
@@ -0,0 +1,269 @@
+package com.cassini.graph.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 节点全文倒排索引，按BM25打分
+ * 文档按写入顺序编号，倒排表只追加；更新节点时旧文档标记删除并追加新文档，
+ * 删除的文档超过一定比例时压缩倒排表并重新编号。非线程安全，由调用方负责同步；
+ * search不修改索引，调用方可以用读写锁让多个检索并发执行
+ */
+public class TextIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    // 词频上限（按byte存储）
+    private static final int MAX_FREQUENCY = 255;
+
+    // 删除的文档超过该比例时压缩
+    private static final double COMPACT_RATIO = 0.25;
+    private static final int COMPACT_MIN_DELETED = 10000;
+
+    /**
+     * 单个词项的倒排表
+     */
+    private static class Postings {
+        int[] docs = new int[2];
+        byte[] freqs = new byte[2];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = (byte) Math.min(freq, MAX_FREQUENCY);
+            size++;
+        }
+    }
+
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    // 文档编号 -> 节点ID / 主题ID / 文档长度
+    private int[] docNode = new int[16];
+    private int[] docTheme = new int[16];
+    private int[] docLength = new int[16];
+    private int docCount;
+
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    // 节点ID -> 当前文档编号
+    private IntIntMap nodeToDoc = new IntIntMap();
+
+    private long totalLength;
+
+    /**
+     * 一次查询的结果
+     */
+    public static class Result {
+        private final int total;
+        private final int[] nodeIds;
+        private final float[] scores;
+
+        Result(int total, int[] nodeIds, float[] scores) {
+            this.total = total;
+            this.nodeIds = nodeIds;
+            this.scores = scores;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int[] getNodeIds() {
+            return nodeIds;
+        }
+
+        public float[] getScores() {
+            return scores;
+        }
+    }
+
+    /**
+     * 替换节点的文档，terms为分词结果（可重复，重复次数即词频）
+     */
+    public void put(int nodeId, int themeId, List<String> terms) {
+        remove(nodeId);
+        if (terms.isEmpty()) {
+            return;
+        }
+        int doc = docCount++;
+        if (doc == docNode.length) {
+            int capacity = doc * 2;
+            docNode = Arrays.copyOf(docNode, capacity);
+            docTheme = Arrays.copyOf(docTheme, capacity);
+            docLength = Arrays.copyOf(docLength, capacity);
+        }
+        docNode[doc] = nodeId;
+        docTheme[doc] = themeId;
+        docLength[doc] = terms.size();
+        totalLength += terms.size();
+        nodeToDoc.put(nodeId, doc);
+
+        Map<String, int[]> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.computeIfAbsent(term, t -> new int[1])[0]++;
+        }
+        for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new Postings()).add(doc, entry.getValue()[0]);
+        }
+    }
+
+    public void remove(int nodeId) {
+        int doc = nodeToDoc.remove(nodeId, -1);
+        if (doc < 0) {
+            return;
+        }
+        deleted.set(doc);
+        deletedCount++;
+        totalLength -= docLength[doc];
+        if (deletedCount >= COMPACT_MIN_DELETED && deletedCount > docCount * COMPACT_RATIO) {
+            compact();
+        }
+    }
+
+    public int size() {
+        return docCount - deletedCount;
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * BM25检索，themeId不为空时只返回该主题的节点；结果按分数降序，分数相同按节点ID升序
+     */
+    public Result search(List<String> queryTerms, Integer themeId, int offset, int limit) {
+        int live = size();
+        if (live == 0 || queryTerms.isEmpty()) {
+            return new Result(0, new int[0], new float[0]);
+        }
+        float averageLength = (float) totalLength / live;
+
+        // 查询词去重，重复出现的词按次数加权
+        Map<String, Integer> weights = new HashMap<>();
+        for (String term : queryTerms) {
+            weights.merge(term, 1, Integer::sum);
+        }
+
+        // 稀疏累加：只为命中的文档分配槽位，开销与命中数成正比，与文档总数无关
+        IntIntMap slotOfDoc = new IntIntMap();
+        int[] hitDocs = new int[16];
+        float[] hitScores = new float[16];
+        int hits = 0;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            Postings list = postings.get(entry.getKey());
+            if (list == null) {
+                continue;
+            }
+            float idf = (float) Math.log(1 + (live - list.size + 0.5) / (list.size + 0.5));
+            float queryWeight = idf * entry.getValue();
+            for (int i = 0; i < list.size; i++) {
+                int doc = list.docs[i];
+                if (deleted.get(doc) || (themeId != null && docTheme[doc] != themeId)) {
+                    continue;
+                }
+                int tf = list.freqs[i] & 0xFF;
+                float norm = K1 * (1 - B + B * docLength[doc] / averageLength);
+                int slot = slotOfDoc.get(doc, -1);
+                if (slot < 0) {
+                    slot = hits++;
+                    if (slot == hitDocs.length) {
+                        hitDocs = Arrays.copyOf(hitDocs, slot * 2);
+                        hitScores = Arrays.copyOf(hitScores, slot * 2);
+                    }
+                    hitDocs[slot] = doc;
+                    slotOfDoc.put(doc, slot);
+                }
+                hitScores[slot] += queryWeight * tf * (K1 + 1) / (tf + norm);
+            }
+        }
+
+        int total = hits;
+        int keep = Math.min(offset + limit, total);
+        if (keep <= 0) {
+            return new Result(total, new int[0], new float[0]);
+        }
+        int[] docs = hitDocs;
+        float[] scores = hitScores;
+        // 小顶堆保留前offset+limit个槽位
+        PriorityQueue<Integer> heap = new PriorityQueue<>(keep, (a, b) -> compare(docs, scores, b, a));
+        for (int slot = 0; slot < total; slot++) {
+            if (heap.size() < keep) {
+                heap.add(slot);
+            } else if (compare(docs, scores, slot, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(slot);
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(heap);
+        ranked.sort((a, b) -> compare(docs, scores, a, b));
+        int from = Math.min(offset, ranked.size());
+        int[] nodeIds = new int[ranked.size() - from];
+        float[] nodeScores = new float[nodeIds.length];
+        for (int i = from; i < ranked.size(); i++) {
+            int slot = ranked.get(i);
+            nodeIds[i - from] = docNode[docs[slot]];
+            nodeScores[i - from] = scores[slot];
+        }
+        return new Result(total, nodeIds, nodeScores);
+    }
+
+    /**
+     * 排序：分数降序，分数相同时节点ID升序（文档编号随写入递增，不稳定，不用于排序）
+     */
+    private int compare(int[] docs, float[] scores, int a, int b) {
+        int byScore = Float.compare(scores[b], scores[a]);
+        return byScore != 0 ? byScore : Integer.compare(docNode[docs[a]], docNode[docs[b]]);
+    }
+
+    /**
+     * 去掉已删除的文档并重新编号
+     */
+    private void compact() {
+        int[] remap = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+            } else {
+                remap[doc] = next;
+                docNode[next] = docNode[doc];
+                docTheme[next] = docTheme[doc];
+                docLength[next] = docLength[doc];
+                next++;
+            }
+        }
+        postings.entrySet().removeIf(entry -> {
+            Postings list = entry.getValue();
+            int kept = 0;
+            for (int i = 0; i < list.size; i++) {
+                int doc = remap[list.docs[i]];
+                if (doc >= 0) {
+                    list.docs[kept] = doc;
+                    list.freqs[kept] = list.freqs[i];
+                    kept++;
+                }
+            }
+            list.size = kept;
+            return kept == 0;
+        });
+        IntIntMap remapped = new IntIntMap(next);
+        for (int doc = 0; doc < next; doc++) {
+            remapped.put(docNode[doc], doc);
+        }
+        nodeToDoc = remapped;
+        docCount = next;
+        deleted.clear();
+        deletedCount = 0;
+    }
+}
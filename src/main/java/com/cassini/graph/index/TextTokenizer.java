@@ -0,0 +1,89 @@
+package com.cassini.graph.index;
+
+import java.util.List;
+
+/**
+ * 全文检索分词
+ * 中日韩文字按连续片段切分为二元组（bigram），建索引时同时保留单字，便于单字查询；
+ * 其他文字按字母数字组成的单词切分并转为小写
+ */
+public final class TextTokenizer {
+
+    // 超长的拉丁单词截断，避免异常数据撑大词典
+    private static final int MAX_WORD_LENGTH = 40;
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * 建索引用的分词：中日韩片段输出单字和二元组
+     */
+    public static void tokenizeForIndex(String text, List<String> out) {
+        tokenize(text, true, out);
+    }
+
+    /**
+     * 查询用的分词：中日韩片段长度不小于2时只输出二元组，单个字时输出单字
+     */
+    public static void tokenizeForQuery(String text, List<String> out) {
+        tokenize(text, false, out);
+    }
+
+    private static void tokenize(String text, boolean withUnigrams, List<String> out) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int cp = text.codePointAt(i);
+            if (isCjk(cp)) {
+                int start = i;
+                while (i < length && isCjk(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                emitCjk(text.substring(start, i), withUnigrams, out);
+            } else if (Character.isLetterOrDigit(cp)) {
+                int start = i;
+                while (i < length) {
+                    int c = text.codePointAt(i);
+                    if (!Character.isLetterOrDigit(c) || isCjk(c)) {
+                        break;
+                    }
+                    i += Character.charCount(c);
+                }
+                String word = text.substring(start, Math.min(i, start + MAX_WORD_LENGTH));
+                out.add(word.toLowerCase());
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+    }
+
+    private static void emitCjk(String run, boolean withUnigrams, List<String> out) {
+        int[] cps = run.codePoints().toArray();
+        if (cps.length == 1) {
+            out.add(run);
+            return;
+        }
+        for (int k = 0; k < cps.length; k++) {
+            if (withUnigrams) {
+                out.add(new String(cps, k, 1));
+            }
+            if (k + 1 < cps.length) {
+                out.add(new String(cps, k, 2));
+            }
+        }
+    }
+
+    public static boolean isCjk(int cp) {
+        if (cp < 0x2E80) {
+            return false;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
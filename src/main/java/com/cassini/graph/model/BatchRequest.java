@@ -0,0 +1,31 @@
+package com.cassini.graph.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量写入请求：upserts中id为空的实体新增，id不为空的实体整体更新；deletes为要删除的ID
+ * 同一请求在一个事务中先执行upserts再执行deletes
+ */
+public class BatchRequest<T> {
+
+    private List<T> upserts = new ArrayList<>();
+    private List<Integer> deletes = new ArrayList<>();
+
+    // getter和setter方法
+    public List<T> getUpserts() {
+        return upserts;
+    }
+
+    public void setUpserts(List<T> upserts) {
+        this.upserts = upserts;
+    }
+
+    public List<Integer> getDeletes() {
+        return deletes;
+    }
+
+    public void setDeletes(List<Integer> deletes) {
+        this.deletes = deletes;
+    }
+}
@@ -0,0 +1,130 @@
+package com.cassini.graph.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量写入结果，items与请求中upserts、deletes的顺序一一对应（先upserts后deletes）
+ * 校验失败或不存在的条目单独标记并跳过；事务失败时所有待写入的条目都标记为FAILED
+ */
+public class BatchResult {
+
+    public static final String OP_CREATE = "create";
+    public static final String OP_UPDATE = "update";
+    public static final String OP_DELETE = "delete";
+
+    public static final String STATUS_OK = "OK";
+    public static final String STATUS_INVALID = "INVALID";
+    public static final String STATUS_NOT_FOUND = "NOT_FOUND";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private boolean committed;
+    private int succeeded;
+    private int failed;
+    private long elapsed;
+    private String message;
+    private final List<Item> items = new ArrayList<>();
+
+    /**
+     * 单个条目的结果：请求中的下标、操作、实体ID、状态，以及写入后的实体或失败原因
+     */
+    public static class Item {
+        private final int index;
+        private final String op;
+        private Integer id;
+        private String status;
+        private String message;
+        private Object entity;
+
+        public Item(int index, String op, Integer id) {
+            this.index = index;
+            this.op = op;
+            this.id = id;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getOp() {
+            return op;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+
+        public void setId(Integer id) {
+            this.id = id;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        public Object getEntity() {
+            return entity;
+        }
+
+        public void setEntity(Object entity) {
+            this.entity = entity;
+        }
+    }
+
+    // getter和setter方法
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    public void setCommitted(boolean committed) {
+        this.committed = committed;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    public void setElapsed(long elapsed) {
+        this.elapsed = elapsed;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+}
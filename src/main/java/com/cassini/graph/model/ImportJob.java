@@ -0,0 +1,149 @@
+package com.cassini.graph.model;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 批量导入任务的进度和结果
+ * 被拒绝的行只保留前若干条明细，计数始终完整
+ */
+public class ImportJob {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private String id;
+    private String entityType;
+    private String format;
+    private String status;
+    private long processedRows;
+    private long importedRows;
+    private long rejectedRows;
+    private int createdThemes;
+    private Date startedAt;
+    private Date finishedAt;
+    private String message;
+    private final List<Rejection> rejections = new CopyOnWriteArrayList<>();
+
+    /**
+     * 被拒绝的行：行号、原因和原始内容
+     */
+    public static class Rejection {
+        private final long line;
+        private final String reason;
+        private final String content;
+
+        public Rejection(long line, String reason, String content) {
+            this.line = line;
+            this.reason = reason;
+            this.content = content;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public String getContent() {
+            return content;
+        }
+    }
+
+    // getter和setter方法
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getProcessedRows() {
+        return processedRows;
+    }
+
+    public void setProcessedRows(long processedRows) {
+        this.processedRows = processedRows;
+    }
+
+    public long getImportedRows() {
+        return importedRows;
+    }
+
+    public void setImportedRows(long importedRows) {
+        this.importedRows = importedRows;
+    }
+
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    public void setRejectedRows(long rejectedRows) {
+        this.rejectedRows = rejectedRows;
+    }
+
+    public int getCreatedThemes() {
+        return createdThemes;
+    }
+
+    public void setCreatedThemes(int createdThemes) {
+        this.createdThemes = createdThemes;
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Date startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Date getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Date finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public List<Rejection> getRejections() {
+        return rejections;
+    }
+}
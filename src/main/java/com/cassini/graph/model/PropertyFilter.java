@@ -0,0 +1,109 @@
+package com.cassini.graph.model;
+
+import java.util.List;
+
+/**
+ * 节点属性过滤条件
+ * 叶子条件作用于单个属性键（嵌套对象用点号路径，如 "birth.year"），
+ * op为and/or/not时由filters组合子条件，not只取第一个子条件
+ *
+ * 示例：{"op":"and","filters":[{"key":"朝代","eq":"唐"},{"key":"年龄","gte":30,"lt":60}]}
+ */
+public class PropertyFilter {
+
+    public static final String OP_AND = "and";
+    public static final String OP_OR = "or";
+    public static final String OP_NOT = "not";
+
+    private String op;
+    private String key;
+    private String eq;
+    private List<String> in;
+    private Double gt;
+    private Double gte;
+    private Double lt;
+    private Double lte;
+    private Boolean exists;
+    private List<PropertyFilter> filters;
+
+    // getter和setter方法
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getEq() {
+        return eq;
+    }
+
+    public void setEq(String eq) {
+        this.eq = eq;
+    }
+
+    public List<String> getIn() {
+        return in;
+    }
+
+    public void setIn(List<String> in) {
+        this.in = in;
+    }
+
+    public Double getGt() {
+        return gt;
+    }
+
+    public void setGt(Double gt) {
+        this.gt = gt;
+    }
+
+    public Double getGte() {
+        return gte;
+    }
+
+    public void setGte(Double gte) {
+        this.gte = gte;
+    }
+
+    public Double getLt() {
+        return lt;
+    }
+
+    public void setLt(Double lt) {
+        this.lt = lt;
+    }
+
+    public Double getLte() {
+        return lte;
+    }
+
+    public void setLte(Double lte) {
+        this.lte = lte;
+    }
+
+    public Boolean getExists() {
+        return exists;
+    }
+
+    public void setExists(Boolean exists) {
+        this.exists = exists;
+    }
+
+    public List<PropertyFilter> getFilters() {
+        return filters;
+    }
+
+    public void setFilters(List<PropertyFilter> filters) {
+        this.filters = filters;
+    }
+}
@@ -0,0 +1,34 @@
+package com.cassini.graph.repository;
+
+import com.cassini.graph.entity.GraphChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface GraphChangeRepository extends JpaRepository<GraphChange, Long> {
+
+    // 当前图版本号
+    @Query("SELECT MAX(c.id) FROM GraphChange c")
+    Long findMaxId();
+
+    // 日志中保留的最早版本号
+    @Query("SELECT MIN(c.id) FROM GraphChange c")
+    Long findMinId();
+
+    List<GraphChange> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long since, Long until);
+
+    @Query("SELECT COUNT(c) FROM GraphChange c WHERE c.id > :since AND c.id <= :until")
+    long countBetween(Long since, Long until);
+
+    // 清理过期日志，始终保留最新一条以便确定当前版本
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM GraphChange c WHERE c.createdAt < :before AND c.id < :maxId")
+    int deleteExpired(Date before, Long maxId);
+}
@@ -0,0 +1,17 @@
+package com.cassini.graph.service;
+
+import com.cassini.graph.entity.Edge;
+import com.cassini.graph.entity.Node;
+import com.cassini.graph.model.BatchRequest;
+import com.cassini.graph.model.BatchResult;
+
+/**
+ * 节点/边批量写入服务
+ * 一个请求的全部写入在同一事务中以JDBC批量语句执行，提交后统一更新内存索引和变更日志
+ */
+public interface BatchService {
+
+    BatchResult applyNodes(BatchRequest<Node> request);
+
+    BatchResult applyEdges(BatchRequest<Edge> request);
+}
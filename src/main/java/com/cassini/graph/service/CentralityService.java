@@ -0,0 +1,40 @@
+package com.cassini.graph.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 节点中心性服务
+ * PageRank、入度/出度和抽样介数在后台计算，图发生写入后由定时任务触发增量重算，读取时不计算
+ */
+public interface CentralityService {
+
+    String METRIC_PAGERANK = "pagerank";
+    String METRIC_BETWEENNESS = "betweenness";
+    String METRIC_DEGREE = "degree";
+    String METRIC_IN_DEGREE = "inDegree";
+    String METRIC_OUT_DEGREE = "outDegree";
+
+    /**
+     * 按指标排序的前N个节点
+     *
+     * @param themeId 只在该主题的节点中排序，为null时不限主题
+     * @param metric pagerank / betweenness / degree / inDegree / outDegree
+     */
+    List<Map<String, Object>> getTopNodes(Integer themeId, String metric, int limit);
+
+    /**
+     * 按指标将主题节点映射为显示尺寸（节点ID -> 尺寸），得分按平方根缩放到[minSize, maxSize]
+     */
+    Map<Integer, Integer> getNodeSizes(Integer themeId, String metric, int minSize, int maxSize);
+
+    /**
+     * 最近一次计算的版本、耗时等信息
+     */
+    Map<String, Object> getStatus();
+
+    /**
+     * 立即提交一次重算（已有任务在运行时忽略）
+     */
+    void requestRecompute();
+}
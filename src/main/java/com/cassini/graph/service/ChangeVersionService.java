@@ -0,0 +1,14 @@
+package com.cassini.graph.service;
+
+/**
+ * 变更日志的已提交版本
+ * graph_change的自增ID按分配顺序递增，但事务提交顺序不一定相同：较大的ID先提交时，较小的ID可能仍未可见。
+ * 直接取MAX(id)作为版本号，客户端之后按id > version同步就会永久漏掉这些变更
+ */
+public interface ChangeVersionService {
+
+    /**
+     * 已提交水位：不超过该值的变更日志都已可见（或对应的ID空缺已超过等待时间，视为回滚或跳号），尚无变更时为0
+     */
+    long getCommittedVersion();
+}
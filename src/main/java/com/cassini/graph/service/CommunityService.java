@@ -0,0 +1,33 @@
+package com.cassini.graph.service;
+
+import java.util.Map;
+
+/**
+ * 社区发现服务
+ * 基于内存图索引划分社区，结果按图的拓扑版本缓存；拓扑变化后先返回旧划分（stale=true），后台重算完成后替换
+ */
+public interface CommunityService {
+
+    String ALGORITHM_LOUVAIN = "louvain";
+
+    // 标签传播，速度快但划分质量较低
+    String ALGORITHM_LABEL_PROPAGATION = "lpa";
+
+    /**
+     * 折叠后的社区图：每个社区一个超级节点（成员数、代表节点），社区间的边按条数合并为带权连线
+     *
+     * @param themeId 只在该主题的节点上划分，为null时使用整张图
+     * @param algorithm louvain / lpa
+     * @param minSize 成员数小于该值的社区不返回（相应连线一并省略）
+     */
+    Map<String, Object> getCommunityGraph(Integer themeId, String algorithm, int minSize);
+
+    /**
+     * 展开单个社区：成员节点、社区内部的边，以及与其他社区之间的连线
+     *
+     * @param limit 最多返回的成员节点数
+     * @param version 社区图返回的version，不为null且与当前划分不一致时抛出IllegalStateException
+     * @return 社区不存在时返回null
+     */
+    Map<String, Object> expandCommunity(Integer themeId, String algorithm, int communityId, int limit, Long version);
+}
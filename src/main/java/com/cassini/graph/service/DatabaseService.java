@@ -1,10 +1,15 @@
 package com.cassini.graph.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
 public interface DatabaseService {
 
+    String FORMAT_CSV = "csv";
+    String FORMAT_JSONL = "jsonl";
+
     /**
      * 获取所有数据库列表
      */
@@ -15,6 +20,11 @@ public interface DatabaseService {
      */
     List<Map<String, Object>> getTables(String database);
 
+    /**
+     * 清除元数据和行数缓存，database为空时清除全部，下次访问时重新读取
+     */
+    void refreshMetadata(String database);
+
     /**
      * 获取表的结构信息
      */
@@ -30,6 +40,36 @@ public interface DatabaseService {
      */
     Map<String, Object> getTableData(String table, int page, int pageSize, Map<String, String> searchParams);
 
+    /**
+     * 获取表的数据列表（支持搜索），countMode说明total的来源：exact精确值，estimated估算值，capped表示超过统计上限
+     *
+     * @param exactCount 为true时总是精确统计总数
+     */
+    Map<String, Object> getTableData(String table, int page, int pageSize, Map<String, String> searchParams,
+                                     boolean exactCount);
+
+    /**
+     * 精确统计表的行数（支持搜索条件），无条件时同时更新缓存
+     *
+     * @throws IllegalArgumentException 表或搜索列不存在
+     */
+    long countTableRows(String table, Map<String, String> searchParams);
+
+    /**
+     * 按游标获取表数据（键集分页），每页开销与所在位置无关；结果不含总数，nextCursor为空表示已到末尾
+     *
+     * @param cursor 上一页返回的nextCursor，为空时从第一行开始
+     * @param sort 排序列，逗号分隔，-前缀表示降序；为空时按主键排序。排序列须有索引且不允许NULL
+     */
+    Map<String, Object> getTableDataAfter(String table, String cursor, int pageSize, String sort,
+                                          Map<String, String> searchParams);
+
+    /**
+     * 导出表数据（csv / jsonl），支持与数据列表相同的search.条件，按主键排序
+     * 使用流式结果集逐行写出，内存占用与表大小无关；表或搜索列不存在时在写出前抛出IllegalArgumentException
+     */
+    void exportTable(OutputStream out, String table, String format, Map<String, String> searchParams) throws IOException;
+
     /**
      * 删除表中的记录
      */
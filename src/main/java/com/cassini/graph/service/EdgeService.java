@@ -10,6 +10,9 @@ public interface EdgeService {
     List<Edge> getEdgesByNodeId(Integer nodeId);
     List<Edge> getEdgesByNodeName(String nodeName);
     List<Edge> getEdgesByThemeId(Integer themeId);
+    List<Edge> getEdgesByThemeNodes(Integer themeId);
     Edge saveEdge(Edge edge);
     void deleteEdge(Integer id);
+    // 绕过实体的写入（如数据库浏览）之后调用：按主键重新读取，存在时按保存处理，不存在时按删除处理
+    void syncEdge(Integer id);
 }
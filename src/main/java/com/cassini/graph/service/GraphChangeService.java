@@ -0,0 +1,33 @@
+package com.cassini.graph.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 图变更日志服务
+ * 记录节点、边、主题的写操作，为客户端提供按版本号的增量同步
+ */
+public interface GraphChangeService {
+
+    /**
+     * 记录一次变更，返回新的图版本号
+     */
+    long recordChange(String entityType, Integer entityId, String action);
+
+    /**
+     * 批量记录同类变更（JDBC批量插入），用于后台任务一次性修改大量实体的场景
+     */
+    void recordChanges(String entityType, List<Integer> entityIds, String action);
+
+    /**
+     * 当前图版本号（已提交水位，不超过它的变更都已可见），尚无任何变更时为0
+     */
+    long getCurrentVersion();
+
+    /**
+     * 获取since之后的变更
+     * 返回version、full（是否为全量快照）以及新增/更新的nodes、edges、themes和被删除的ID列表；
+     * 当since早于日志保留范围或变更过多时返回全量快照
+     */
+    Map<String, Object> getChangesSince(Long since);
+}
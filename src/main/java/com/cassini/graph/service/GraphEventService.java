@@ -0,0 +1,40 @@
+package com.cassini.graph.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 图变更推送服务（Server-Sent Events）
+ * 写操作提交后的变更按时间窗口合并，每个窗口向订阅者推送一次，数据结构与/api/graph/changes的增量相同
+ */
+public interface GraphEventService {
+
+    // 增量事件，data与增量同步结构相同，id为图版本号
+    String EVENT_CHANGES = "changes";
+
+    // 订阅成功，data为当前图版本号
+    String EVENT_READY = "ready";
+
+    // 推送跟不上或变更过多，客户端需要用/api/graph/changes?since=本地版本号重新同步
+    String EVENT_RESYNC = "resync";
+
+    /**
+     * 订阅变更
+     *
+     * @param themeIds 只推送这些主题的节点和相关的边，为空时推送全部；删除的ID和主题变更总是推送
+     * @param since 客户端已同步到的版本号（或重连时的Last-Event-ID），不为空时先补发之后的变更
+     */
+    SseEmitter subscribe(List<Integer> themeIds, Long since);
+
+    /**
+     * 登记一批已提交的变更，由GraphChangeService在记录变更日志时调用
+     */
+    void publish(String entityType, List<Integer> entityIds, String action);
+
+    /**
+     * 订阅者数量和推送统计
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,65 @@
+package com.cassini.graph.service;
+
+import com.cassini.graph.entity.Edge;
+import com.cassini.graph.entity.Node;
+import com.cassini.graph.index.GraphSnapshot;
+
+import java.util.List;
+
+/**
+ * 图内存索引服务
+ * 启动后首次访问时从node/edge表加载一次，之后由NodeService/EdgeService的写操作增量维护
+ * 快照在后台合并写入后重建，可能短暂落后于最近的写入；按名称、主题查询ID的方法总是反映最新写入
+ */
+public interface GraphIndexService {
+
+    /**
+     * 获取当前的只读图快照，可能尚未包含最近的写入（graph.index.rebuild-delay）
+     * 快照版本只在拓扑变化时改变，只移动坐标时不变，坐标变化看getCoordinateVersion
+     */
+    GraphSnapshot getSnapshot();
+
+    /**
+     * 与指定名称节点相连的所有边ID
+     */
+    List<Integer> getEdgeIdsByNodeName(String nodeName);
+
+    /**
+     * 名称对应节点当前所属的主题，没有node记录时返回-1
+     */
+    int getNodeTheme(String nodeName);
+
+    /**
+     * 主题下所有节点的ID
+     */
+    List<Integer> getNodeIdsByTheme(Integer themeId);
+
+    /**
+     * 源节点或目标节点属于该主题的边ID
+     */
+    List<Integer> getEdgeIdsByTheme(Integer themeId);
+
+    /**
+     * 主题子图的版本：主题内的节点、或端点属于该主题的边发生写入时改变，重新加载时所有主题的版本都改变
+     * 用于判断按主题缓存的数据是否过期
+     */
+    long getThemeVersion(Integer themeId);
+
+    void onNodeSaved(Node node);
+
+    void onNodeDeleted(Integer nodeId);
+
+    /**
+     * 批量更新节点坐标（后台布局直接写库后调用）
+     */
+    void onNodesMoved(int[] nodeIds, double[] x, double[] y);
+
+    void onEdgeSaved(Edge edge);
+
+    void onEdgeDeleted(Integer edgeId);
+
+    /**
+     * 丢弃内存索引，从数据库重新加载
+     */
+    void reload();
+}
@@ -0,0 +1,47 @@
+package com.cassini.graph.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 图遍历查询服务
+ * 基于内存图索引在服务端完成多跳遍历，一次返回结果子图
+ */
+public interface GraphQueryService {
+
+    /**
+     * k跳邻域查询
+     *
+     * @param nodeId 起始节点ID
+     * @param depth 最大跳数，超过graph.neighborhood.max-depth时按上限
+     * @param nodeLimit 最多返回的节点数，超过graph.neighborhood.max-nodes时按上限
+     * @param edgeLimit 最多返回的边数，超过graph.neighborhood.max-edges时按上限
+     * @param relations 允许的关系名称，为空时不过滤
+     * @param direction out / in / both
+     * @return 起始节点不存在时返回null
+     */
+    Map<String, Object> getNeighborhood(Integer nodeId, int depth, int nodeLimit, int edgeLimit,
+                                        List<String> relations, String direction);
+
+    /**
+     * 两节点间的最短路径查询
+     *
+     * @param k 返回的路径条数，大于1时使用Yen算法
+     * @param weighted true时以Edge.width为边权（Dijkstra），否则按跳数（双向BFS）
+     * @param themes 中间节点允许的主题ID，为空时不过滤
+     * @param maxExplored 单次搜索最多访问的节点数，超过graph.path.max-explored时按上限
+     * @return 任一端点不存在时返回null
+     */
+    Map<String, Object> findPaths(Integer fromId, Integer toId, int k, boolean weighted, List<String> relations,
+                                  List<Integer> themes, String direction, int maxExplored);
+
+    /**
+     * 视口查询：返回坐标落在矩形内的节点、与这些节点相连的边
+     *
+     * @param zoom 画布缩放比例，不为空时可见节点按屏幕网格聚合为簇标记（单点网格仍作为节点返回）
+     * @param nodeLimit 最多单独返回的节点数
+     * @param edgeLimit 最多返回的边数
+     */
+    Map<String, Object> getViewport(double minX, double minY, double maxX, double maxY, Double zoom,
+                                    int nodeLimit, int edgeLimit);
+}
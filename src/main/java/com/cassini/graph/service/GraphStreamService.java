@@ -0,0 +1,32 @@
+package com.cassini.graph.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * 图数据流式输出服务
+ * 直接从JDBC游标读取行并逐行写出JSON，内存占用与图规模无关
+ */
+public interface GraphStreamService {
+
+    String FORMAT_JSONL = "jsonl";
+    String FORMAT_GRAPHML = "graphml";
+    String FORMAT_TSV = "tsv";
+
+    /**
+     * 以与/api/graph/full相同的JSON结构输出全部节点和边，version在读取数据之前取得，放在最前面
+     */
+    void writeFullGraph(OutputStream out) throws IOException;
+
+    /**
+     * 导出图数据
+     * jsonl：每行一个对象，依次为主题、节点、边（type字段区分），可直接用于批量导入
+     * graphml：节点以名称为ID，边按源/目标节点名称引用
+     * tsv：只包含边的源、目标、关系和宽度
+     *
+     * @param themeId 只导出该主题的节点和边（按各自的theme_id），为null时导出全部
+     * @param relations 只导出这些关系的边，为空时不过滤
+     */
+    void export(OutputStream out, String format, Integer themeId, List<String> relations) throws IOException;
+}
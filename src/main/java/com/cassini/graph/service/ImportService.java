@@ -0,0 +1,35 @@
+package com.cassini.graph.service;
+
+import com.cassini.graph.model.ImportJob;
+
+import java.io.InputStream;
+import java.util.Collection;
+
+/**
+ * 批量导入服务
+ * 流式读取CSV/JSONL，按块在独立事务中用JDBC批量插入节点或边
+ */
+public interface ImportService {
+
+    String ENTITY_NODE = "node";
+    String ENTITY_EDGE = "edge";
+
+    String FORMAT_CSV = "csv";
+    String FORMAT_JSONL = "jsonl";
+
+    /**
+     * 同步执行导入，运行期间可以通过getJob查询进度
+     *
+     * 节点列：name, theme（主题名称）或 theme_id, properties（JSON）, color, size, icon, x, y
+     * 边列：source, target, relation, theme 或 theme_id, color, width, dashed
+     *
+     * @param entityType node / edge
+     * @param format csv（首行为列名）/ jsonl（每行一个JSON对象）
+     * @param createThemes 主题名称不存在时自动创建，否则拒绝该行
+     */
+    ImportJob importData(String entityType, String format, InputStream input, boolean createThemes);
+
+    ImportJob getJob(String id);
+
+    Collection<ImportJob> getJobs();
+}
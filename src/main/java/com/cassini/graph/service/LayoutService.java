@@ -0,0 +1,26 @@
+package com.cassini.graph.service;
+
+import com.cassini.graph.model.LayoutJob;
+
+import java.util.Collection;
+
+/**
+ * 服务端图布局服务
+ * 在后台按主题计算力导向布局，并将坐标批量写回node.x/node.y
+ */
+public interface LayoutService {
+
+    /**
+     * 提交主题布局任务；同一主题已有排队或运行中的任务时直接返回该任务
+     *
+     * @param incremental true时只移动尚无坐标的节点，已有坐标的节点保持不动
+     */
+    LayoutJob submitLayout(Integer themeId, boolean incremental);
+
+    /**
+     * 获取主题最近一次布局任务的状态
+     */
+    LayoutJob getJob(Integer themeId);
+
+    Collection<LayoutJob> getJobs();
+}
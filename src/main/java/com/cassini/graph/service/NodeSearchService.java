@@ -0,0 +1,27 @@
+package com.cassini.graph.service;
+
+import com.cassini.graph.entity.Node;
+
+import java.util.Map;
+
+/**
+ * 节点全文检索服务
+ * 索引节点名称和properties中的文本值，首次查询时从node表加载，之后由NodeService的写操作增量维护
+ */
+public interface NodeSearchService {
+
+    /**
+     * 按BM25相关度检索节点，themeId不为空时只返回该主题的节点
+     * 返回total（命中总数）、hits（节点ID和分数，按相关度降序）和nodes（与hits顺序一致）
+     */
+    Map<String, Object> search(String query, Integer themeId, int offset, int limit);
+
+    void onNodeSaved(Node node);
+
+    void onNodeDeleted(Integer nodeId);
+
+    /**
+     * 丢弃内存索引，从数据库重新加载
+     */
+    void reload();
+}
@@ -10,4 +10,6 @@ public interface NodeService {
     List<Node> getNodesByThemeId(Integer themeId);
     Node saveNode(Node node);
     void deleteNode(Integer id);
+    // 绕过实体的写入（如数据库浏览）之后调用：按主键重新读取，存在时按保存处理，不存在时按删除处理
+    void syncNode(Integer id);
 }
@@ -0,0 +1,38 @@
+package com.cassini.graph.service;
+
+import com.cassini.graph.entity.Node;
+import com.cassini.graph.model.PropertyFilter;
+
+import java.util.Map;
+
+/**
+ * 节点属性索引服务
+ * 首次访问时从node表的properties列加载，之后由NodeService的写操作增量维护
+ */
+public interface PropertyIndexService {
+
+    /**
+     * 按属性条件过滤节点，themeId不为空时只保留该主题的节点
+     * 返回total（命中总数）、nodeIds（当前页的节点ID，按ID升序）和nodes
+     */
+    Map<String, Object> filter(PropertyFilter filter, Integer themeId, int offset, int limit);
+
+    /**
+     * 已索引的属性键及每个键的不同取值数
+     */
+    Map<String, Integer> getKeys();
+
+    /**
+     * 某个属性键下的取值及节点数，按节点数降序，最多limit个
+     */
+    Map<String, Integer> getValues(String key, int limit);
+
+    void onNodeSaved(Node node);
+
+    void onNodeDeleted(Integer nodeId);
+
+    /**
+     * 丢弃内存索引，从数据库重新加载
+     */
+    void reload();
+}
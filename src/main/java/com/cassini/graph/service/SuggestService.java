@@ -0,0 +1,16 @@
+package com.cassini.graph.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 节点名称自动补全服务
+ * 按名称前缀或汉字拼音首字母前缀匹配，结果按节点度数从高到低排列
+ */
+public interface SuggestService {
+
+    /**
+     * 返回最多limit个候选节点（nodeId、name、themeId、degree、matched），themeId不为空时只返回该主题的节点
+     */
+    List<Map<String, Object>> suggest(String prefix, Integer themeId, int limit);
+}
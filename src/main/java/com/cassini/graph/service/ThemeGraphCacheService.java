@@ -0,0 +1,29 @@
+package com.cassini.graph.service;
+
+import java.util.Map;
+
+/**
+ * 主题子图缓存服务
+ * 缓存按主题组装并序列化好的子图字节，主题内节点或相关边发生写入后自动失效
+ */
+public interface ThemeGraphCacheService {
+
+    String FORMAT_JSON = "json";
+    String FORMAT_BINARY = "binary";
+
+    /**
+     * 主题子图的序列化结果：json为 {"nodes": [...], "edges": [...]}，binary为列式二进制格式
+     * 返回的数组由缓存共享，调用方不能修改
+     */
+    byte[] getThemeGraph(Integer themeId, String format);
+
+    /**
+     * 清空缓存（主题本身被修改时调用，节点和边中内嵌了主题信息）
+     */
+    void invalidateAll();
+
+    /**
+     * 命中数、未命中数、条目数、占用字节数等统计
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,502 @@
+package com.cassini.graph.service.impl;
+
+import com.cassini.graph.entity.Edge;
+import com.cassini.graph.entity.GraphChange;
+import com.cassini.graph.entity.Node;
+import com.cassini.graph.model.BatchRequest;
+import com.cassini.graph.model.BatchResult;
+import com.cassini.graph.repository.EdgeRepository;
+import com.cassini.graph.repository.NodeRepository;
+import com.cassini.graph.service.BatchService;
+import com.cassini.graph.service.GraphChangeService;
+import com.cassini.graph.service.GraphIndexService;
+import com.cassini.graph.service.NodeSearchService;
+import com.cassini.graph.service.PropertyIndexService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 节点/边批量写入服务实现
+ * 先用两条IN查询确认待更新/删除的记录和引用的主题是否存在，再在一个事务中依次执行批量INSERT、UPDATE、DELETE
+ * （依赖rewriteBatchedStatements合并为多值语句），最后按主键一次取回写入后的实体。
+ * 预先的存在性检查与事务之间记录可能被并发删除，因此以UPDATE/DELETE的影响行数为准：为0的条目改为NOT_FOUND，
+ * 不更新索引也不记录变更
+ */
+@Service
+public class BatchServiceImpl implements BatchService {
+
+    private static final String NODE_INSERT_SQL = "INSERT INTO node (theme_id, name, properties, color, size, icon, x, y, "
+            + "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String NODE_UPDATE_SQL = "UPDATE node SET theme_id = ?, name = ?, properties = ?, color = ?, "
+            + "size = ?, icon = ?, x = ?, y = ? WHERE id = ?";
+
+    private static final String EDGE_INSERT_SQL = "INSERT INTO edge (source_node_name, target_node_name, relation, color, "
+            + "width, dashed, theme_id, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String EDGE_UPDATE_SQL = "UPDATE edge SET source_node_name = ?, target_node_name = ?, relation = ?, "
+            + "color = ?, width = ?, dashed = ?, theme_id = ? WHERE id = ?";
+
+    // IN查询每次携带的ID数
+    private static final int IN_CHUNK = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NodeRepository nodeRepository;
+
+    @Autowired
+    private EdgeRepository edgeRepository;
+
+    @Autowired
+    private GraphIndexService graphIndexService;
+
+    @Autowired
+    private GraphChangeService graphChangeService;
+
+    @Autowired
+    private PropertyIndexService propertyIndexService;
+
+    @Autowired
+    private NodeSearchService nodeSearchService;
+
+    // 单个请求的最大条目数
+    @Value("${graph.batch.max-items:10000}")
+    private int maxItems;
+
+    /**
+     * 一种实体的表名、SQL和参数提取方式
+     */
+    private interface Spec<T> {
+        String table();
+
+        String insertSql();
+
+        String updateSql();
+
+        String changeType();
+
+        Integer idOf(T entity);
+
+        Integer themeIdOf(T entity);
+
+        /**
+         * 写入参数（不含created_at和id），校验失败时抛出IllegalArgumentException
+         */
+        Object[] params(T entity);
+
+        List<T> load(List<Integer> ids);
+
+        void onSaved(T entity);
+
+        void onDeleted(Integer id);
+    }
+
+    private final Spec<Node> nodeSpec = new Spec<Node>() {
+        @Override
+        public String table() {
+            return "node";
+        }
+
+        @Override
+        public String insertSql() {
+            return NODE_INSERT_SQL;
+        }
+
+        @Override
+        public String updateSql() {
+            return NODE_UPDATE_SQL;
+        }
+
+        @Override
+        public String changeType() {
+            return GraphChange.TYPE_NODE;
+        }
+
+        @Override
+        public Integer idOf(Node node) {
+            return node.getId();
+        }
+
+        @Override
+        public Integer themeIdOf(Node node) {
+            return node.getTheme() != null ? node.getTheme().getId() : null;
+        }
+
+        @Override
+        public Object[] params(Node node) {
+            String properties = node.getProperties();
+            if (properties != null) {
+                try {
+                    objectMapper.readTree(properties);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("properties不是合法的JSON");
+                }
+            }
+            return new Object[]{themeIdOf(node), required(node.getName(), "name", 100), properties,
+                    optional(node.getColor(), "color", 20), node.getSize(), optional(node.getIcon(), "icon", 100),
+                    node.getX(), node.getY()};
+        }
+
+        @Override
+        public List<Node> load(List<Integer> ids) {
+            return nodeRepository.findAllById(ids);
+        }
+
+        @Override
+        public void onSaved(Node node) {
+            graphIndexService.onNodeSaved(node);
+            propertyIndexService.onNodeSaved(node);
+            nodeSearchService.onNodeSaved(node);
+        }
+
+        @Override
+        public void onDeleted(Integer id) {
+            graphIndexService.onNodeDeleted(id);
+            propertyIndexService.onNodeDeleted(id);
+            nodeSearchService.onNodeDeleted(id);
+        }
+    };
+
+    private final Spec<Edge> edgeSpec = new Spec<Edge>() {
+        @Override
+        public String table() {
+            return "edge";
+        }
+
+        @Override
+        public String insertSql() {
+            return EDGE_INSERT_SQL;
+        }
+
+        @Override
+        public String updateSql() {
+            return EDGE_UPDATE_SQL;
+        }
+
+        @Override
+        public String changeType() {
+            return GraphChange.TYPE_EDGE;
+        }
+
+        @Override
+        public Integer idOf(Edge edge) {
+            return edge.getId();
+        }
+
+        @Override
+        public Integer themeIdOf(Edge edge) {
+            return edge.getTheme() != null ? edge.getTheme().getId() : null;
+        }
+
+        @Override
+        public Object[] params(Edge edge) {
+            return new Object[]{required(edge.getSourceNodeName(), "sourceNodeName", 100),
+                    required(edge.getTargetNodeName(), "targetNodeName", 100),
+                    required(edge.getRelation(), "relation", 50), optional(edge.getColor(), "color", 20),
+                    edge.getWidth() != null ? edge.getWidth() : 2,
+                    edge.getDashed() != null ? edge.getDashed() : Boolean.FALSE, themeIdOf(edge)};
+        }
+
+        @Override
+        public List<Edge> load(List<Integer> ids) {
+            return edgeRepository.findAllById(ids);
+        }
+
+        @Override
+        public void onSaved(Edge edge) {
+            graphIndexService.onEdgeSaved(edge);
+        }
+
+        @Override
+        public void onDeleted(Integer id) {
+            graphIndexService.onEdgeDeleted(id);
+        }
+    };
+
+    @Override
+    public BatchResult applyNodes(BatchRequest<Node> request) {
+        return apply(request, nodeSpec);
+    }
+
+    @Override
+    public BatchResult applyEdges(BatchRequest<Edge> request) {
+        return apply(request, edgeSpec);
+    }
+
+    private <T> BatchResult apply(BatchRequest<T> request, Spec<T> spec) {
+        long start = System.currentTimeMillis();
+        List<T> upserts = request.getUpserts() != null ? request.getUpserts() : new ArrayList<>();
+        List<Integer> deletes = request.getDeletes() != null ? request.getDeletes() : new ArrayList<>();
+        if (upserts.size() + deletes.size() > maxItems) {
+            throw new IllegalArgumentException("单个请求最多" + maxItems + "个条目");
+        }
+
+        // 一次性确认待更新/删除的记录和引用的主题是否存在
+        Set<Integer> referencedIds = new HashSet<>();
+        Set<Integer> referencedThemes = new HashSet<>();
+        for (T entity : upserts) {
+            if (entity != null && spec.idOf(entity) != null) {
+                referencedIds.add(spec.idOf(entity));
+            }
+            if (entity != null && spec.themeIdOf(entity) != null) {
+                referencedThemes.add(spec.themeIdOf(entity));
+            }
+        }
+        for (Integer id : deletes) {
+            if (id != null) {
+                referencedIds.add(id);
+            }
+        }
+        Set<Integer> existingIds = existing(spec.table(), referencedIds);
+        Set<Integer> existingThemes = existing("theme", referencedThemes);
+
+        BatchResult result = new BatchResult();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<BatchResult.Item> created = new ArrayList<>();
+        List<Object[]> insertParams = new ArrayList<>();
+        List<BatchResult.Item> updated = new ArrayList<>();
+        List<Object[]> updateParams = new ArrayList<>();
+        List<BatchResult.Item> deleted = new ArrayList<>();
+        List<Object[]> deleteParams = new ArrayList<>();
+
+        for (int i = 0; i < upserts.size(); i++) {
+            T entity = upserts.get(i);
+            Integer id = entity != null ? spec.idOf(entity) : null;
+            BatchResult.Item item = new BatchResult.Item(i, id == null ? BatchResult.OP_CREATE : BatchResult.OP_UPDATE, id);
+            result.getItems().add(item);
+            try {
+                if (entity == null) {
+                    throw new IllegalArgumentException("条目为空");
+                }
+                Object[] params = spec.params(entity);
+                Integer themeId = spec.themeIdOf(entity);
+                if (themeId == null) {
+                    throw new IllegalArgumentException("缺少theme");
+                }
+                if (!existingThemes.contains(themeId)) {
+                    throw new IllegalArgumentException("主题不存在: " + themeId);
+                }
+                if (id == null) {
+                    Object[] withCreatedAt = Arrays.copyOf(params, params.length + 1);
+                    withCreatedAt[params.length] = now;
+                    insertParams.add(withCreatedAt);
+                    created.add(item);
+                } else if (!existingIds.contains(id)) {
+                    item.setStatus(BatchResult.STATUS_NOT_FOUND);
+                } else {
+                    Object[] withId = Arrays.copyOf(params, params.length + 1);
+                    withId[params.length] = id;
+                    updateParams.add(withId);
+                    updated.add(item);
+                }
+            } catch (IllegalArgumentException e) {
+                item.setStatus(BatchResult.STATUS_INVALID);
+                item.setMessage(e.getMessage());
+            }
+        }
+        for (int i = 0; i < deletes.size(); i++) {
+            Integer id = deletes.get(i);
+            BatchResult.Item item = new BatchResult.Item(i, BatchResult.OP_DELETE, id);
+            result.getItems().add(item);
+            if (id == null) {
+                item.setStatus(BatchResult.STATUS_INVALID);
+                item.setMessage("id为空");
+            } else if (!existingIds.contains(id)) {
+                item.setStatus(BatchResult.STATUS_NOT_FOUND);
+            } else {
+                deleteParams.add(new Object[]{id});
+                deleted.add(item);
+            }
+        }
+
+        int[][] counts = new int[2][];
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                if (!insertParams.isEmpty()) {
+                    int[] keys = insertReturningKeys(spec.insertSql(), insertParams);
+                    for (int i = 0; i < created.size(); i++) {
+                        created.get(i).setId(keys[i]);
+                    }
+                }
+                if (!updateParams.isEmpty()) {
+                    counts[0] = jdbcTemplate.batchUpdate(spec.updateSql(), updateParams);
+                }
+                if (!deleteParams.isEmpty()) {
+                    counts[1] = jdbcTemplate.batchUpdate("DELETE FROM " + spec.table() + " WHERE id = ?", deleteParams);
+                }
+            });
+            result.setCommitted(true);
+        } catch (DataAccessException e) {
+            String message = e.getMostSpecificCause().getMessage();
+            for (List<BatchResult.Item> items : Arrays.asList(created, updated, deleted)) {
+                for (BatchResult.Item item : items) {
+                    item.setStatus(BatchResult.STATUS_FAILED);
+                    item.setMessage(message);
+                }
+            }
+            for (BatchResult.Item item : created) {
+                item.setId(null);
+            }
+            result.setMessage(message);
+        }
+
+        if (result.isCommitted()) {
+            afterCommit(spec, created, notFound(updated, counts[0]), notFound(deleted, counts[1]));
+        }
+        for (BatchResult.Item item : result.getItems()) {
+            if (BatchResult.STATUS_OK.equals(item.getStatus())) {
+                result.setSucceeded(result.getSucceeded() + 1);
+            } else {
+                result.setFailed(result.getFailed() + 1);
+            }
+        }
+        result.setElapsed(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * 提交后取回写入的实体，更新内存索引并记录变更日志
+     */
+    private <T> void afterCommit(Spec<T> spec, List<BatchResult.Item> created, List<BatchResult.Item> updated,
+                                 List<BatchResult.Item> deleted) {
+        List<Integer> savedIds = new ArrayList<>(created.size() + updated.size());
+        for (BatchResult.Item item : created) {
+            savedIds.add(item.getId());
+        }
+        for (BatchResult.Item item : updated) {
+            savedIds.add(item.getId());
+        }
+        Map<Integer, T> saved = new HashMap<>();
+        for (int from = 0; from < savedIds.size(); from += IN_CHUNK) {
+            for (T entity : spec.load(savedIds.subList(from, Math.min(from + IN_CHUNK, savedIds.size())))) {
+                saved.put(spec.idOf(entity), entity);
+            }
+        }
+        for (List<BatchResult.Item> items : Arrays.asList(created, updated)) {
+            for (BatchResult.Item item : items) {
+                T entity = saved.get(item.getId());
+                item.setStatus(BatchResult.STATUS_OK);
+                item.setEntity(entity);
+                if (entity != null) {
+                    spec.onSaved(entity);
+                }
+            }
+        }
+        List<Integer> deletedIds = new ArrayList<>(deleted.size());
+        for (BatchResult.Item item : deleted) {
+            item.setStatus(BatchResult.STATUS_OK);
+            spec.onDeleted(item.getId());
+            deletedIds.add(item.getId());
+        }
+        graphChangeService.recordChanges(spec.changeType(), savedIds, GraphChange.ACTION_UPSERT);
+        graphChangeService.recordChanges(spec.changeType(), deletedIds, GraphChange.ACTION_DELETE);
+    }
+
+    /**
+     * 影响行数为0（检查之后被并发删除）的条目标记为NOT_FOUND，返回其余条目。
+     * MySQL驱动默认返回匹配行数，值未变化的UPDATE不为0；驱动返回SUCCESS_NO_INFO时视为成功
+     */
+    private static List<BatchResult.Item> notFound(List<BatchResult.Item> items, int[] counts) {
+        if (counts == null) {
+            return items;
+        }
+        List<BatchResult.Item> found = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (i < counts.length && counts[i] == 0) {
+                items.get(i).setStatus(BatchResult.STATUS_NOT_FOUND);
+            } else {
+                found.add(items.get(i));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 批量插入并按顺序返回自增主键
+     */
+    private int[] insertReturningKeys(String sql, List<Object[]> params) {
+        return jdbcTemplate.execute((ConnectionCallback<int[]>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (Object[] row : params) {
+                    for (int i = 0; i < row.length; i++) {
+                        statement.setObject(i + 1, row[i]);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                int[] keys = new int[params.size()];
+                int count = 0;
+                try (ResultSet generated = statement.getGeneratedKeys()) {
+                    while (generated.next() && count < keys.length) {
+                        keys[count++] = generated.getInt(1);
+                    }
+                }
+                if (count != keys.length) {
+                    throw new IllegalStateException("自增主键数量与插入行数不一致");
+                }
+                return keys;
+            }
+        });
+    }
+
+    /**
+     * 表中存在的ID
+     */
+    private Set<Integer> existing(String table, Collection<Integer> ids) {
+        Set<Integer> found = new HashSet<>();
+        List<Integer> list = new ArrayList<>(ids);
+        for (int from = 0; from < list.size(); from += IN_CHUNK) {
+            List<Integer> chunk = list.subList(from, Math.min(from + IN_CHUNK, list.size()));
+            StringBuilder sql = new StringBuilder("SELECT id FROM ").append(table).append(" WHERE id IN (");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(')');
+            found.addAll(jdbcTemplate.queryForList(sql.toString(), Integer.class, chunk.toArray()));
+        }
+        return found;
+    }
+
+    private static String required(String value, String label, int maxLength) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("缺少" + label);
+        }
+        return optional(value, label, maxLength);
+    }
+
+    private static String optional(String value, String label, int maxLength) {
+        if (value != null && value.length() > maxLength) {
+            throw new IllegalArgumentException(label + "超过" + maxLength + "个字符");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,412 @@
+package com.cassini.graph.service.impl;
+
+import com.cassini.graph.algorithm.Centrality;
+import com.cassini.graph.index.GraphSnapshot;
+import com.cassini.graph.service.CentralityService;
+import com.cassini.graph.service.GraphIndexService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 节点中心性服务实现
+ * 得分保存在内存中供排名查询，同时把变化的行批量写入node_centrality表；
+ * 重算以上一次的PageRank为初值热启动，写入后通常只需少量迭代即可收敛。
+ * 只有拓扑版本变化才触发重算（坐标移动不改变版本），连续写入时等图静止quiet-period后再算，最长推迟interval
+ */
+@Service
+public class CentralityServiceImpl implements CentralityService {
+
+    private static final String UPSERT_SQL = "INSERT INTO node_centrality "
+            + "(node_id, pagerank, in_degree, out_degree, betweenness, updated_at) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE pagerank = VALUES(pagerank), in_degree = VALUES(in_degree), "
+            + "out_degree = VALUES(out_degree), betweenness = VALUES(betweenness), updated_at = VALUES(updated_at)";
+
+    // 固定的抽样种子，图未变化的部分多次计算得到相同的估计值，避免无意义的写库
+    private static final long BETWEENNESS_SEED = 20240501L;
+
+    // 得分相对变化小于该值时不重复写库
+    private static final double CHANGE_THRESHOLD = 1e-3;
+
+    private static final String DELETE_SQL = "DELETE FROM node_centrality WHERE node_id = ?";
+
+    @Autowired
+    private GraphIndexService graphIndexService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 并行度，0表示使用CPU核数
+    @Value("${graph.centrality.parallelism:0}")
+    private int parallelism;
+
+    @Value("${graph.centrality.damping:0.85}")
+    private double damping;
+
+    @Value("${graph.centrality.max-iterations:100}")
+    private int maxIterations;
+
+    @Value("${graph.centrality.tolerance:1e-6}")
+    private double tolerance;
+
+    // 介数抽样的源点数
+    @Value("${graph.centrality.betweenness-samples:128}")
+    private int betweennessSamples;
+
+    @Value("${graph.centrality.batch-size:1000}")
+    private int batchSize;
+
+    // 是否在图发生写入后自动重算
+    @Value("${graph.centrality.auto:true}")
+    private boolean autoRecompute;
+
+    // 拓扑版本在该时长内不再变化才重算
+    @Value("${graph.centrality.quiet-period:10000}")
+    private long quietPeriod;
+
+    // 持续写入时最长推迟的时间
+    @Value("${graph.centrality.interval:60000}")
+    private long maxDelay;
+
+    // 以下三项只在定时任务线程中访问
+    private long lastSeenVersion = -1;
+
+    private long lastChangeAt;
+
+    // 首次发现未计算的变化的时间，0表示没有待计算的变化
+    private long pendingSince;
+
+    private volatile Scores scores;
+
+    private volatile String lastError;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private ExecutorService executor;
+
+    private ForkJoinPool pool;
+
+    /**
+     * 一次计算的结果，数组按快照节点编号索引
+     */
+    private static class Scores {
+        GraphSnapshot graph;
+        double[] pagerank;
+        double[] betweenness;
+        int iterations;
+        int persisted;
+        long elapsed;
+        Date computedAt;
+    }
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "graph-centrality");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool = parallelism > 0 ? new ForkJoinPool(parallelism) : new ForkJoinPool();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    /**
+     * 定期检查拓扑版本，有变化且图已静止quiet-period（或已推迟超过interval）时提交重算；多次写入合并为一次计算
+     */
+    @Scheduled(fixedDelayString = "${graph.centrality.check-interval:5000}", initialDelay = 60000L)
+    public void recomputeIfChanged() {
+        if (!autoRecompute) {
+            return;
+        }
+        Scores current = scores;
+        long version = graphIndexService.getSnapshot().getVersion();
+        if (current != null && current.graph.getVersion() == version) {
+            pendingSince = 0;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (version != lastSeenVersion) {
+            lastSeenVersion = version;
+            lastChangeAt = now;
+        }
+        if (pendingSince == 0) {
+            pendingSince = now;
+        }
+        if (current == null || now - lastChangeAt >= quietPeriod || now - pendingSince >= maxDelay) {
+            if (submitRecompute()) {
+                pendingSince = 0;
+            }
+        }
+    }
+
+    @Override
+    public void requestRecompute() {
+        submitRecompute();
+    }
+
+    /**
+     * 已有计算在进行时不重复提交，返回是否提交
+     */
+    private boolean submitRecompute() {
+        if (running.compareAndSet(false, true)) {
+            executor.submit(() -> {
+                try {
+                    recompute();
+                    lastError = null;
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    lastError = e.getMessage();
+                } finally {
+                    running.set(false);
+                }
+            });
+            return true;
+        }
+        return false;
+    }
+
+    private void recompute() {
+        long start = System.currentTimeMillis();
+        GraphSnapshot graph = graphIndexService.getSnapshot();
+        Scores previous = scores;
+        double[] initial = previous != null ? previous.pagerank : loadStoredPageRank(graph);
+
+        Centrality centrality = new Centrality(graph, pool);
+        Scores computed = new Scores();
+        computed.graph = graph;
+        computed.pagerank = centrality.pageRank(initial, damping, maxIterations, tolerance);
+        computed.iterations = centrality.getPageRankIterations();
+        computed.betweenness = centrality.betweenness(betweennessSamples, BETWEENNESS_SEED);
+        computed.persisted = persist(graph, computed, previous);
+        computed.computedAt = new Date();
+        computed.elapsed = System.currentTimeMillis() - start;
+        scores = computed;
+    }
+
+    /**
+     * 服务重启后以表中保存的PageRank作为初值
+     */
+    private double[] loadStoredPageRank(GraphSnapshot graph) {
+        double[] initial = new double[graph.getNodeCount()];
+        int[] loaded = new int[1];
+        jdbcTemplate.query("SELECT node_id, pagerank FROM node_centrality", rs -> {
+            int node = graph.nodeIdOfDbId(rs.getInt(1));
+            double value = rs.getDouble(2);
+            if (node >= 0 && !rs.wasNull()) {
+                initial[node] = value;
+                loaded[0]++;
+            }
+        });
+        return loaded[0] > 0 ? initial : null;
+    }
+
+    /**
+     * 只写入得分或度数发生变化的节点，并删除上次计算以来消失（或主键变化）的节点的行，返回写入行数；
+     * 启动后第一次计算没有上次结果，按node表整体清理一次
+     */
+    private int persist(GraphSnapshot graph, Scores computed, Scores previous) {
+        Date now = new Date();
+        int written = 0;
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            int dbId = graph.nodeDbId(node);
+            if (dbId < 0) {
+                continue;
+            }
+            if (previous != null && node < previous.graph.getNodeCount()
+                    && previous.graph.nodeDbId(node) == dbId
+                    && previous.graph.inDegree(node) == graph.inDegree(node)
+                    && previous.graph.outDegree(node) == graph.outDegree(node)
+                    && !changed(previous.pagerank[node], computed.pagerank[node])
+                    && !changed(previous.betweenness[node], computed.betweenness[node])) {
+                continue;
+            }
+            batch.add(new Object[]{dbId, computed.pagerank[node], graph.inDegree(node), graph.outDegree(node),
+                    computed.betweenness[node], now});
+            if (batch.size() >= batchSize) {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+                written += batch.size();
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+            written += batch.size();
+            batch.clear();
+        }
+        if (previous == null) {
+            jdbcTemplate.update("DELETE FROM node_centrality WHERE node_id NOT IN (SELECT id FROM node)");
+            return written;
+        }
+        for (int node = 0; node < previous.graph.getNodeCount(); node++) {
+            int dbId = previous.graph.nodeDbId(node);
+            if (dbId >= 0 && (node >= graph.getNodeCount() || graph.nodeDbId(node) != dbId)) {
+                batch.add(new Object[]{dbId});
+                if (batch.size() >= batchSize) {
+                    jdbcTemplate.batchUpdate(DELETE_SQL, batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, batch);
+        }
+        return written;
+    }
+
+    private static boolean changed(double before, double after) {
+        return Math.abs(after - before) > CHANGE_THRESHOLD * Math.max(Math.abs(before), 1e-12);
+    }
+
+    private static void checkMetric(String metric) {
+        if (!METRIC_PAGERANK.equals(metric) && !METRIC_BETWEENNESS.equals(metric) && !METRIC_DEGREE.equals(metric)
+                && !METRIC_IN_DEGREE.equals(metric) && !METRIC_OUT_DEGREE.equals(metric)) {
+            throw new IllegalArgumentException("Unknown metric: " + metric);
+        }
+    }
+
+    private static double score(Scores scores, String metric, int node) {
+        GraphSnapshot graph = scores.graph;
+        switch (metric) {
+            case METRIC_PAGERANK:
+                return scores.pagerank[node];
+            case METRIC_BETWEENNESS:
+                return scores.betweenness[node];
+            case METRIC_DEGREE:
+                return graph.inDegree(node) + graph.outDegree(node);
+            case METRIC_IN_DEGREE:
+                return graph.inDegree(node);
+            case METRIC_OUT_DEGREE:
+                return graph.outDegree(node);
+            default:
+                throw new IllegalArgumentException("Unknown metric: " + metric);
+        }
+    }
+
+    /**
+     * 参与排名的节点：主题节点或全部有node记录的节点
+     */
+    private static int[] candidates(GraphSnapshot graph, Integer themeId) {
+        if (themeId != null) {
+            return graph.themeNodes(themeId);
+        }
+        int count = 0;
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            if (graph.nodeDbId(node) >= 0) {
+                count++;
+            }
+        }
+        int[] nodes = new int[count];
+        int i = 0;
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            if (graph.nodeDbId(node) >= 0) {
+                nodes[i++] = node;
+            }
+        }
+        return nodes;
+    }
+
+    @Override
+    public List<Map<String, Object>> getTopNodes(Integer themeId, String metric, int limit) {
+        checkMetric(metric);
+        Scores current = scores;
+        if (current == null) {
+            requestRecompute();
+            return Collections.emptyList();
+        }
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        // 大小为limit的小顶堆
+        PriorityQueue<double[]> heap = new PriorityQueue<>(limit + 1, (a, b) -> Double.compare(a[0], b[0]));
+        for (int node : candidates(current.graph, themeId)) {
+            double value = score(current, metric, node);
+            if (heap.size() < limit) {
+                heap.add(new double[]{value, node});
+            } else if (value > heap.peek()[0]) {
+                heap.poll();
+                heap.add(new double[]{value, node});
+            }
+        }
+        List<Map<String, Object>> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            double[] entry = heap.poll();
+            int node = (int) entry[1];
+            GraphSnapshot graph = current.graph;
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("nodeId", graph.nodeDbId(node));
+            item.put("name", graph.nodeName(node));
+            item.put("themeId", graph.nodeTheme(node));
+            item.put("score", entry[0]);
+            item.put("pagerank", current.pagerank[node]);
+            item.put("betweenness", current.betweenness[node]);
+            item.put("inDegree", graph.inDegree(node));
+            item.put("outDegree", graph.outDegree(node));
+            result.add(item);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    @Override
+    public Map<Integer, Integer> getNodeSizes(Integer themeId, String metric, int minSize, int maxSize) {
+        checkMetric(metric);
+        Scores current = scores;
+        if (current == null) {
+            requestRecompute();
+            return Collections.emptyMap();
+        }
+        int[] nodes = candidates(current.graph, themeId);
+        double max = 0;
+        for (int node : nodes) {
+            max = Math.max(max, score(current, metric, node));
+        }
+        Map<Integer, Integer> sizes = new HashMap<>();
+        for (int node : nodes) {
+            double ratio = max > 0 ? Math.sqrt(score(current, metric, node) / max) : 0;
+            sizes.put(current.graph.nodeDbId(node), (int) Math.round(minSize + (maxSize - minSize) * ratio));
+        }
+        return sizes;
+    }
+
+    @Override
+    public Map<String, Object> getStatus() {
+        Scores current = scores;
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", running.get());
+        status.put("error", lastError);
+        if (current != null) {
+            status.put("version", current.graph.getVersion());
+            status.put("nodeCount", current.graph.getNodeCount());
+            status.put("edgeCount", current.graph.getEdgeCount());
+            status.put("pagerankIterations", current.iterations);
+            status.put("betweennessSamples", Math.min(betweennessSamples, current.graph.getNodeCount()));
+            status.put("persistedRows", current.persisted);
+            status.put("elapsed", current.elapsed);
+            status.put("computedAt", current.computedAt);
+        }
+        return status;
+    }
+}
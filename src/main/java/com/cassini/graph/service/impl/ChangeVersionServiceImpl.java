@@ -0,0 +1,73 @@
+package com.cassini.graph.service.impl;
+
+import com.cassini.graph.service.ChangeVersionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 变更日志已提交版本的实现
+ * 从上次的水位向后扫描连续的ID，遇到空缺时停下；同一空缺持续超过gap-grace仍未补上时视为回滚或自增跳号，越过继续。
+ * 水位只增不减，每次只扫描水位之后的少量行
+ */
+@Service
+public class ChangeVersionServiceImpl implements ChangeVersionService {
+
+    // 单次最多扫描的行数，积压更多时下次调用继续
+    private static final int SCAN_LIMIT = 10000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // ID空缺等待补齐的最长时间（毫秒），应大于写入变更日志的事务时长
+    @Value("${graph.changes.gap-grace:5000}")
+    private long gapGrace;
+
+    // -1表示尚未初始化
+    private long watermark = -1;
+
+    // 未补齐的空缺起点 -> 首次发现的时间
+    private final Map<Long, Long> gapSeenAt = new HashMap<>();
+
+    @Override
+    public synchronized long getCommittedVersion() {
+        long now = System.currentTimeMillis();
+        if (watermark < 0) {
+            // 启动时早于等待时间写入的日志视为已全部提交，只检查最近的部分
+            Long settled = jdbcTemplate.queryForObject("SELECT MAX(id) FROM graph_change WHERE created_at < ?",
+                    Long.class, new Timestamp(now - gapGrace));
+            watermark = settled != null ? settled : 0L;
+        }
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM graph_change WHERE id > ? ORDER BY id LIMIT " + SCAN_LIMIT,
+                Long.class, watermark);
+        long next = watermark + 1;
+        for (long id : ids) {
+            if (id > next) {
+                Long seenAt = gapSeenAt.get(next);
+                if (seenAt == null) {
+                    gapSeenAt.put(next, now);
+                    break;
+                }
+                if (now - seenAt < gapGrace) {
+                    break;
+                }
+            }
+            next = id + 1;
+        }
+        watermark = next - 1;
+        Iterator<Long> gaps = gapSeenAt.keySet().iterator();
+        while (gaps.hasNext()) {
+            if (gaps.next() <= watermark) {
+                gaps.remove();
+            }
+        }
+        return watermark;
+    }
+}
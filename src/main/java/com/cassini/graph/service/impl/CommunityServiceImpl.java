@@ -0,0 +1,388 @@
+package com.cassini.graph.service.impl;
+
+import com.cassini.graph.algorithm.CommunityDetection;
+import com.cassini.graph.index.GraphSnapshot;
+import com.cassini.graph.index.IntArrayList;
+import com.cassini.graph.index.IntIntMap;
+import com.cassini.graph.repository.EdgeRepository;
+import com.cassini.graph.repository.NodeRepository;
+import com.cassini.graph.service.CommunityService;
+import com.cassini.graph.service.GraphIndexService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 社区发现服务实现
+ * 划分结果以（主题, 算法）为键缓存，缓存项只保存成员的数据库主键、社区分组和计算时的拓扑版本，不引用快照；
+ * 展开社区时按主键（无记录的节点按名称）在当前快照上取边。版本变化后先返回旧划分，
+ * 在后台线程重算，完成后替换；只有首次访问需要等待计算。同一个键同时只有一个计算
+ */
+@Service
+public class CommunityServiceImpl implements CommunityService {
+
+    @Autowired
+    private GraphIndexService graphIndexService;
+
+    @Autowired
+    private NodeRepository nodeRepository;
+
+    @Autowired
+    private EdgeRepository edgeRepository;
+
+    // 并行度，0表示使用CPU核数
+    @Value("${graph.community.parallelism:0}")
+    private int parallelism;
+
+    @Value("${graph.community.lpa-iterations:20}")
+    private int lpaIterations;
+
+    private final ConcurrentHashMap<String, Partition> cache = new ConcurrentHashMap<>();
+
+    // 正在进行的计算，同一个键的请求共享
+    private final Map<String, CompletableFuture<Partition>> computing = new HashMap<>();
+
+    private ForkJoinPool pool;
+
+    private ExecutorService executor;
+
+    /**
+     * 一次社区划分的结果，节点按局部编号存放，成员按社区分组
+     */
+    private static class Partition {
+        long version;
+        double modularity;
+        long elapsed;
+        // 局部编号 -> 节点数据库主键，只被边引用、没有node记录的名称为-1
+        int[] dbIds;
+        // 没有node记录的名称，局部编号 -> 名称
+        Map<Integer, String> externalNames;
+        int count;
+        // 按社区分组的成员（局部编号），社区c的成员为 members[memberOffsets[c] .. memberOffsets[c+1])
+        int[] memberOffsets;
+        int[] members;
+        // 每个社区度数最高的成员（局部编号）
+        int[] representative;
+        // 社区间的边数，键为 (较小社区编号 << 32) | 较大社区编号
+        Map<Long, Integer> links;
+
+        int size(int c) {
+            return memberOffsets[c + 1] - memberOffsets[c];
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        pool = parallelism > 0 ? new ForkJoinPool(parallelism) : new ForkJoinPool();
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "graph-community");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    @Override
+    public Map<String, Object> getCommunityGraph(Integer themeId, String algorithm, int minSize) {
+        Partition partition = getPartition(themeId, algorithm);
+        GraphSnapshot graph = graphIndexService.getSnapshot();
+
+        List<Map<String, Object>> communities = new ArrayList<>();
+        for (int c = 0; c < partition.count; c++) {
+            if (partition.size(c) < minSize) {
+                continue;
+            }
+            int representative = partition.representative[c];
+            Map<String, Object> item = new HashMap<>();
+            item.put("id", c);
+            item.put("size", partition.size(c));
+            item.put("label", name(partition, graph, representative));
+            item.put("representativeId", partition.dbIds[representative] >= 0 ? partition.dbIds[representative] : null);
+            communities.add(item);
+        }
+
+        List<Map<String, Object>> links = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : partition.links.entrySet()) {
+            int source = (int) (entry.getKey() >>> 32);
+            int target = (int) (long) entry.getKey();
+            if (partition.size(source) < minSize || partition.size(target) < minSize) {
+                continue;
+            }
+            links.add(link(source, target, entry.getValue()));
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("version", partition.version);
+        result.put("stale", partition.version != graph.getVersion());
+        result.put("algorithm", algorithm);
+        result.put("themeId", themeId);
+        result.put("nodeCount", partition.dbIds.length);
+        result.put("communityCount", partition.count);
+        result.put("modularity", partition.modularity);
+        result.put("elapsed", partition.elapsed);
+        result.put("communities", communities);
+        result.put("links", links);
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> expandCommunity(Integer themeId, String algorithm, int communityId, int limit,
+                                               Long version) {
+        Partition partition = getPartition(themeId, algorithm);
+        if (version != null && version != partition.version) {
+            throw new IllegalStateException("Community partition version changed: " + partition.version);
+        }
+        if (communityId < 0 || communityId >= partition.count) {
+            return null;
+        }
+
+        // 成员按主键或名称定位到当前快照，划分之后被删除的成员不再参与取边
+        GraphSnapshot graph = graphIndexService.getSnapshot();
+        List<Integer> nodeIds = new ArrayList<>();
+        List<String> externalNodeNames = new ArrayList<>();
+        IntArrayList included = new IntArrayList();
+        int end = Math.min(partition.memberOffsets[communityId + 1], partition.memberOffsets[communityId] + limit);
+        for (int m = partition.memberOffsets[communityId]; m < end; m++) {
+            int local = partition.members[m];
+            int node;
+            if (partition.dbIds[local] >= 0) {
+                nodeIds.add(partition.dbIds[local]);
+                node = graph.nodeIdOfDbId(partition.dbIds[local]);
+            } else {
+                String name = partition.externalNames.get(local);
+                externalNodeNames.add(name);
+                node = graph.nodeIdOf(name);
+            }
+            if (node >= 0) {
+                included.add(node);
+            }
+        }
+
+        // 社区内部的边：两端都在本社区且都已返回，从源节点一侧收集
+        IntIntMap returned = new IntIntMap();
+        for (int i = 0; i < included.size(); i++) {
+            returned.put(included.get(i), i);
+        }
+        List<Integer> edgeIds = new ArrayList<>();
+        for (int i = 0; i < included.size(); i++) {
+            int node = included.get(i);
+            for (int p = graph.outBegin(node); p < graph.outEnd(node); p++) {
+                int edge = graph.outEdge(p);
+                if (returned.containsKey(graph.edgeTarget(edge))) {
+                    edgeIds.add(graph.edgeDbId(edge));
+                }
+            }
+        }
+
+        List<Map<String, Object>> links = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : partition.links.entrySet()) {
+            int source = (int) (entry.getKey() >>> 32);
+            int target = (int) (long) entry.getKey();
+            if (source == communityId || target == communityId) {
+                links.add(link(source, target, entry.getValue()));
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("version", partition.version);
+        result.put("communityId", communityId);
+        result.put("size", partition.size(communityId));
+        result.put("truncated", partition.size(communityId) > limit);
+        result.put("externalNodeNames", externalNodeNames);
+        result.put("nodes", nodeRepository.findAllById(nodeIds));
+        result.put("edges", edgeRepository.findAllById(edgeIds));
+        result.put("links", links);
+        return result;
+    }
+
+    /**
+     * 成员的名称：有记录的按主键从当前快照取（已删除时为null），无记录的取划分时保存的名称
+     */
+    private static String name(Partition partition, GraphSnapshot graph, int local) {
+        if (partition.dbIds[local] < 0) {
+            return partition.externalNames.get(local);
+        }
+        int node = graph.nodeIdOfDbId(partition.dbIds[local]);
+        return node >= 0 ? graph.nodeName(node) : null;
+    }
+
+    private static Map<String, Object> link(int source, int target, int weight) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("source", source);
+        item.put("target", target);
+        item.put("weight", weight);
+        return item;
+    }
+
+    /**
+     * 取缓存的划分：拓扑版本未变时直接返回；已变化时返回旧划分并安排后台重算；
+     * 尚无划分时等待计算完成
+     */
+    private Partition getPartition(Integer themeId, String algorithm) {
+        if (!ALGORITHM_LOUVAIN.equals(algorithm) && !ALGORITHM_LABEL_PROPAGATION.equals(algorithm)) {
+            throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+        String key = themeId + ":" + algorithm;
+        Partition cached = cache.get(key);
+        if (cached != null && cached.version == graphIndexService.getSnapshot().getVersion()) {
+            return cached;
+        }
+        CompletableFuture<Partition> future = submit(key, themeId, algorithm);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 安排一次计算，已有同一个键的计算在排队或进行时复用它；计算时取最新快照
+     */
+    private synchronized CompletableFuture<Partition> submit(String key, Integer themeId, String algorithm) {
+        CompletableFuture<Partition> future = computing.get(key);
+        if (future != null) {
+            return future;
+        }
+        CompletableFuture<Partition> created = new CompletableFuture<>();
+        computing.put(key, created);
+        executor.execute(() -> {
+            try {
+                Partition partition = compute(graphIndexService.getSnapshot(), themeId, algorithm);
+                cache.put(key, partition);
+                created.complete(partition);
+            } catch (RuntimeException | Error e) {
+                created.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    computing.remove(key, created);
+                }
+            }
+        });
+        return created;
+    }
+
+    private Partition compute(GraphSnapshot graph, Integer themeId, String algorithm) {
+        long start = System.currentTimeMillis();
+        Partition partition = new Partition();
+        partition.version = graph.getVersion();
+
+        // 划分范围：整张图的全部名称，或主题下的节点
+        int[] nodes;
+        if (themeId == null) {
+            nodes = new int[graph.getNodeCount()];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = i;
+            }
+        } else {
+            nodes = graph.themeNodes(themeId);
+        }
+        IntIntMap localByNode = new IntIntMap();
+        for (int i = 0; i < nodes.length; i++) {
+            localByNode.put(nodes[i], i);
+        }
+
+        IntArrayList sources = new IntArrayList();
+        IntArrayList targets = new IntArrayList();
+        if (themeId == null) {
+            for (int e = 0; e < graph.getEdgeCount(); e++) {
+                sources.add(graph.edgeSource(e));
+                targets.add(graph.edgeTarget(e));
+            }
+        } else {
+            for (int e : graph.themeEdges(themeId)) {
+                int source = localByNode.get(graph.edgeSource(e), -1);
+                int target = localByNode.get(graph.edgeTarget(e), -1);
+                if (source >= 0 && target >= 0) {
+                    sources.add(source);
+                    targets.add(target);
+                }
+            }
+        }
+
+        CommunityDetection detection = new CommunityDetection(nodes.length, sources.toArray(), targets.toArray(),
+                null, pool);
+        int[] community = ALGORITHM_LOUVAIN.equals(algorithm) ? detection.louvain()
+                : detection.labelPropagation(lpaIterations);
+        int count = 0;
+        for (int c : community) {
+            count = Math.max(count, c + 1);
+        }
+
+        int[] memberOffsets = new int[count + 1];
+        for (int c : community) {
+            memberOffsets[c + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        int[] members = new int[nodes.length];
+        int[] cursor = new int[count];
+        int[] representative = new int[count];
+        int[] bestDegree = new int[count];
+        Arrays.fill(bestDegree, -1);
+        for (int i = 0; i < nodes.length; i++) {
+            int c = community[i];
+            members[memberOffsets[c] + cursor[c]++] = i;
+            int degree = graph.outDegree(nodes[i]) + graph.inDegree(nodes[i]);
+            if (degree > bestDegree[c]) {
+                bestDegree[c] = degree;
+                representative[c] = i;
+            }
+        }
+
+        int[] dbIds = new int[nodes.length];
+        Map<Integer, String> externalNames = new HashMap<>();
+        for (int i = 0; i < nodes.length; i++) {
+            dbIds[i] = graph.nodeDbId(nodes[i]);
+            if (dbIds[i] < 0) {
+                externalNames.put(i, graph.nodeName(nodes[i]));
+            }
+        }
+
+        Map<Long, Integer> links = new HashMap<>();
+        for (int e = 0; e < sources.size(); e++) {
+            int a = community[sources.get(e)];
+            int b = community[targets.get(e)];
+            if (a != b) {
+                long linkKey = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+                links.merge(linkKey, 1, Integer::sum);
+            }
+        }
+
+        partition.dbIds = dbIds;
+        partition.externalNames = externalNames;
+        partition.count = count;
+        partition.memberOffsets = memberOffsets;
+        partition.members = members;
+        partition.representative = representative;
+        partition.links = links;
+        partition.modularity = detection.modularity(community);
+        partition.elapsed = System.currentTimeMillis() - start;
+        return partition;
+    }
+}
@@ -1,13 +1,52 @@
 package com.cassini.graph.service.impl;
 
 import com.cassini.graph.service.DatabaseService;
+import com.cassini.graph.service.EdgeService;
+import com.cassini.graph.service.NodeService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * 通用数据表浏览服务实现
+ * 库、表、注释、列和主键等元数据由INFORMATION_SCHEMA批量读取后缓存，超过有效期或显式刷新后重新读取
+ * 表数据支持两种分页：按页码的LIMIT offset分页，以及按游标的键集分页（WHERE (排序列, 主键) > 上一页末行 ORDER BY ... LIMIT n），
+ * 后者每页的开销与翻到第几页无关。
+ * 总数不再每次精确统计：无条件的总数取缓存的精确值，缓存过期时先返回旧值并在后台重新统计，大表没有缓存时先用TABLE_ROWS估算；
+ * 有搜索条件时最多数到上限，超过时返回上限并标记为capped；需要精确值时由调用方显式请求。
+ * 导出使用流式结果集，逐行写成CSV或JSON Lines。
+ * 对默认库node、edge表的增删改写入后经NodeService/EdgeService同步内存索引并记录变更，与实体接口的写入一致
+ */
 @Service
 public class DatabaseServiceImpl implements DatabaseService {
 
@@ -17,29 +56,164 @@ public class DatabaseServiceImpl implements DatabaseService {
     @Autowired
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private NodeService nodeService;
+
+    @Autowired
+    private EdgeService edgeService;
+
+    private static final String GRAPH_NODE_TABLE = "node";
+
+    private static final String GRAPH_EDGE_TABLE = "edge";
+
+    // 导出用的流式查询（MySQL Connector/J在fetchSize = Integer.MIN_VALUE时逐行读取）
+    private JdbcTemplate cursorJdbcTemplate;
+
+    // 导出时每写出多少行主动刷新一次输出流
+    private static final int EXPORT_FLUSH_INTERVAL = 1000;
+
+    // 元数据缓存有效期（毫秒）
+    @Value("${database.metadata.ttl:300000}")
+    private long metadataTtl = 300000L;
+
+    // 数据库名列表
+    private volatile Cached<List<String>> databaseNames;
+
+    // 连接默认的数据库，不带库名的表都在这个库中
+    private volatile String defaultSchema;
+
+    // 数据库名 -> 该库的表和注释
+    private final Map<String, Cached<Map<String, TableMeta>>> schemaTables = new ConcurrentHashMap<>();
+
+    // 数据库名 -> 该库的列和主键，按需在第一次访问表结构时读取
+    private final Map<String, Cached<Map<String, TableMeta>>> schemaColumns = new ConcurrentHashMap<>();
+
+    // 无条件总数的缓存有效期（毫秒），过期后先返回旧值再在后台重新统计
+    @Value("${database.count.ttl:60000}")
+    private long countTtl = 60000L;
+
+    // TABLE_ROWS估算值低于此行数的表直接精确统计
+    @Value("${database.count.exact-threshold:200000}")
+    private long exactCountThreshold = 200000L;
+
+    // 有搜索条件时最多统计的行数
+    @Value("${database.count.filter-cap:10000}")
+    private int filterCountCap = 10000;
+
+    // 库名.表名（小写） -> 无条件的精确总数
+    private final Map<String, Cached<Long>> exactCounts = new ConcurrentHashMap<>();
+
+    // 正在后台统计的表，避免重复提交
+    private final Set<String> countingTables = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService countExecutor;
+
+    /**
+     * 带读取时间的缓存项
+     */
+    private static class Cached<T> {
+        final T value;
+        final long loadedAt;
+
+        Cached(T value) {
+            this(value, System.currentTimeMillis());
+        }
+
+        Cached(T value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * 总数及其来源：exact为精确值，estimated为估算或过期的缓存值，capped表示实际行数超过统计上限
+     */
+    private static class RowCount {
+        static final String EXACT = "exact";
+        static final String ESTIMATED = "estimated";
+        static final String CAPPED = "capped";
+
+        final long total;
+        final String mode;
+
+        RowCount(long total, String mode) {
+            this.total = total;
+            this.mode = mode;
+        }
+    }
+
+    /**
+     * 表的元数据，columns为DESCRIBE格式（Field、Type、Null、Key、Default、Extra），primaryKey按主键中的顺序排列，
+     * indexedColumns为作为某个索引第一列的列
+     */
+    private static class TableMeta {
+        final String name;
+        String comment = "";
+        // INFORMATION_SCHEMA.TABLES.TABLE_ROWS，InnoDB下为估算值，视图等没有该值时为-1
+        long estimatedRows = -1;
+        final List<Map<String, Object>> columns = new ArrayList<>();
+        final List<String> primaryKey = new ArrayList<>();
+        final Set<String> indexedColumns = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+        TableMeta(String name) {
+            this.name = name;
+        }
+
+        Map<String, Object> column(String field) {
+            for (Map<String, Object> column : columns) {
+                if (String.valueOf(column.get("Field")).equalsIgnoreCase(field)) {
+                    return column;
+                }
+            }
+            return null;
+        }
+    }
+
+    // 游标分页单页的最大行数
+    private static final int MAX_CURSOR_PAGE_SIZE = 10000;
+
+    @PostConstruct
+    public void init() {
+        cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        cursorJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        countExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "table-count");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        countExecutor.shutdownNow();
+    }
+
     @Override
     public List<Map<String, Object>> getDatabases() {
         try {
-            // 查询所有数据库
-            String sql = "SHOW DATABASES";
-            System.out.println("Executing SQL: " + sql);
-            List<Map<String, Object>> databases = jdbcTemplate.queryForList(sql);
-            
-            System.out.println("Query result size: " + (databases != null ? databases.size() : 0));
-            
-            // 处理结果，确保每个数据库有统一的字段名
-            List<Map<String, Object>> result = new ArrayList<>();
-            if (databases != null && !databases.isEmpty()) {
-                for (Map<String, Object> db : databases) {
-                    Map<String, Object> databaseInfo = new HashMap<>();
-                    // MySQL返回的字段名可能是"Database"或"schema_name"等
-                    for (Map.Entry<String, Object> entry : db.entrySet()) {
-                        System.out.println("Database field: " + entry.getKey() + " = " + entry.getValue());
-                        databaseInfo.put("name", entry.getValue());
-                        break;
-                    }
-                    result.add(databaseInfo);
+            Cached<List<String>> cached = databaseNames;
+            if (cached == null || expired(cached)) {
+                List<String> names = new ArrayList<>();
+                for (Map<String, Object> row : jdbcTemplate.queryForList(
+                        "SELECT schema_name AS name FROM INFORMATION_SCHEMA.SCHEMATA ORDER BY schema_name")) {
+                    names.add(String.valueOf(row.get("name")));
                 }
+                cached = new Cached<>(names);
+                databaseNames = cached;
+            }
+
+            // 统一返回name字段
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (String name : cached.value) {
+                Map<String, Object> databaseInfo = new HashMap<>();
+                databaseInfo.put("name", name);
+                result.add(databaseInfo);
             }
             return result;
         } catch (Exception e) {
@@ -52,50 +226,46 @@ public class DatabaseServiceImpl implements DatabaseService {
 
     @Override
     public List<Map<String, Object>> getTables(String database) {
-        // 切换到指定数据库
-        jdbcTemplate.execute("USE " + database);
-        
-        // 查询所有表
-        String sql = "SHOW TABLES";
-        List<Map<String, Object>> tables = jdbcTemplate.queryForList(sql);
-        
-        // 处理结果
+        // 一次查询取出库中全部表及注释，没有注释时用表名代替
         List<Map<String, Object>> result = new ArrayList<>();
-        for (Map<String, Object> table : tables) {
+        for (TableMeta table : tablesOf(database).values()) {
             Map<String, Object> tableInfo = new HashMap<>();
-            for (Map.Entry<String, Object> entry : table.entrySet()) {
-                String tableName = entry.getValue().toString();
-                tableInfo.put("name", tableName);
-                
-                // 获取表的注释
-                String commentSql = "SELECT table_comment FROM INFORMATION_SCHEMA.TABLES WHERE table_schema = ? AND table_name = ?";
-                List<Map<String, Object>> commentResult = jdbcTemplate.queryForList(commentSql, database, tableName);
-                if (!commentResult.isEmpty()) {
-                    String comment = commentResult.get(0).get("table_comment").toString();
-                    tableInfo.put("desc", comment.isEmpty() ? tableName : comment);
-                } else {
-                    tableInfo.put("desc", tableName);
-                }
-                break;
-            }
+            tableInfo.put("name", table.name);
+            tableInfo.put("desc", table.comment.isEmpty() ? table.name : table.comment);
             result.add(tableInfo);
         }
         return result;
     }
 
+    @Override
+    public void refreshMetadata(String database) {
+        if (database == null || database.isEmpty()) {
+            databaseNames = null;
+            defaultSchema = null;
+            schemaTables.clear();
+            schemaColumns.clear();
+            exactCounts.clear();
+        } else {
+            schemaTables.remove(database);
+            schemaColumns.remove(database);
+            exactCounts.keySet().removeIf(key -> key.startsWith(database.toLowerCase(Locale.ROOT) + "."));
+        }
+    }
+
     @Override
     public List<Map<String, Object>> getTableStructure(String table) {
-        // 使用DESCRIBE语句获取表结构
-        String sql = "DESCRIBE " + table;
-        List<Map<String, Object>> structure = jdbcTemplate.queryForList(sql);
-        
-        // 处理结果，添加额外信息
-        for (Map<String, Object> field : structure) {
-            // 检查是否为主键
-            String key = field.get("Key") != null ? field.get("Key").toString() : "";
-            field.put("isPrimaryKey", "PRI".equals(key));
-        }
-        
+        TableMeta meta = columnsOf(table);
+        if (meta == null) {
+            throw new IllegalArgumentException("表不存在: " + table);
+        }
+
+        // 复制缓存中的列信息，添加是否为主键
+        List<Map<String, Object>> structure = new ArrayList<>(meta.columns.size());
+        for (Map<String, Object> column : meta.columns) {
+            Map<String, Object> field = new LinkedHashMap<>(column);
+            field.put("isPrimaryKey", "PRI".equals(column.get("Key")));
+            structure.add(field);
+        }
         return structure;
     }
 
@@ -107,7 +277,17 @@ public class DatabaseServiceImpl implements DatabaseService {
     
     @Override
     public Map<String, Object> getTableData(String table, int page, int pageSize, Map<String, String> searchParams) {
+        return getTableData(table, page, pageSize, searchParams, false);
+    }
+
+    @Override
+    public Map<String, Object> getTableData(String table, int page, int pageSize, Map<String, String> searchParams,
+                                            boolean exactCount) {
         try {
+            TableMeta meta = columnsOf(table);
+            if (meta == null) {
+                throw new IllegalArgumentException("表不存在: " + table);
+            }
             // 计算偏移量
             int offset = (page - 1) * pageSize;
             
@@ -117,31 +297,10 @@ public class DatabaseServiceImpl implements DatabaseService {
             List<Object> params = new ArrayList<>();
             
             // 添加搜索条件
-            if (searchParams != null && !searchParams.isEmpty()) {
-                sqlBuilder.append(" WHERE");
-                countSqlBuilder.append(" WHERE");
-                boolean firstCondition = true;
-                
-                for (Map.Entry<String, String> entry : searchParams.entrySet()) {
-                    String paramName = entry.getKey();
-                    String paramValue = entry.getValue();
-                    
-                    // 处理search.前缀的参数，用于模糊搜索
-                    if (paramName.startsWith("search.")) {
-                        String fieldName = paramName.substring(7); // 移除search.前缀
-                        if (firstCondition) {
-                            firstCondition = false;
-                        } else {
-                            sqlBuilder.append(" AND");
-                            countSqlBuilder.append(" AND");
-                        }
-                        
-                        // 使用LIKE进行模糊匹配
-                        sqlBuilder.append(" " + fieldName + " LIKE ?");
-                        countSqlBuilder.append(" " + fieldName + " LIKE ?");
-                        params.add(paramValue);
-                    }
-                }
+            List<String> conditions = searchConditions(meta, searchParams, params);
+            if (!conditions.isEmpty()) {
+                sqlBuilder.append(" WHERE ").append(String.join(" AND ", conditions));
+                countSqlBuilder.append(" WHERE ").append(String.join(" AND ", conditions));
             }
             
             // 获取主键字段进行排序
@@ -153,13 +312,8 @@ public class DatabaseServiceImpl implements DatabaseService {
             // 添加分页限制
             sqlBuilder.append(" LIMIT " + offset + ", " + pageSize);
             
-            // 查询总记录数
-            Long total;
-            if (params.isEmpty()) {
-                total = jdbcTemplate.queryForObject(countSqlBuilder.toString(), Long.class);
-            } else {
-                total = jdbcTemplate.queryForObject(countSqlBuilder.toString(), params.toArray(), Long.class);
-            }
+            // 查询总记录数（按需精确，否则使用缓存、估算或封顶统计）
+            RowCount count = countRows(table, countSqlBuilder.toString(), conditions, params, exactCount);
             
             // 查询数据
             List<Map<String, Object>> data;
@@ -171,12 +325,21 @@ public class DatabaseServiceImpl implements DatabaseService {
             
             // 返回分页结果
             Map<String, Object> result = new HashMap<>();
-            result.put("total", total);
+            result.put("total", count.total);
+            result.put("countMode", count.mode);
             result.put("page", page);
             result.put("pageSize", pageSize);
             result.put("data", data);
+
+            // 单列主键时附带下一页的游标，顺序翻页时可以改用游标分页
+            if (meta.primaryKey.size() == 1 && data.size() == pageSize) {
+                result.put("nextCursor", encodeCursor(meta.primaryKey.get(0), meta.primaryKey, data.get(data.size() - 1)));
+            }
             
             return result;
+        } catch (IllegalArgumentException e) {
+            // 表或搜索列不存在由调用方返回400
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             // 返回空结果集，防止前端出错
@@ -189,6 +352,199 @@ public class DatabaseServiceImpl implements DatabaseService {
         }
     }
 
+    @Override
+    public Map<String, Object> getTableDataAfter(String table, String cursor, int pageSize, String sort,
+                                                 Map<String, String> searchParams) {
+        TableMeta meta = columnsOf(table);
+        if (meta == null) {
+            throw new IllegalArgumentException("表不存在: " + table);
+        }
+        if (meta.primaryKey.isEmpty()) {
+            throw new IllegalArgumentException("表没有主键，无法使用游标分页: " + table);
+        }
+        if (pageSize < 1 || pageSize > MAX_CURSOR_PAGE_SIZE) {
+            throw new IllegalArgumentException("pageSize应在1到" + MAX_CURSOR_PAGE_SIZE + "之间");
+        }
+
+        // 排序列之后追加主键，保证顺序唯一；主键方向与第一个排序列一致，便于沿同一索引反向扫描
+        List<String> orderColumns = new ArrayList<>();
+        List<Boolean> descending = new ArrayList<>();
+        parseSort(meta, sort, orderColumns, descending);
+        boolean keyDescending = !descending.isEmpty() && descending.get(0);
+        for (String key : meta.primaryKey) {
+            if (!containsIgnoreCase(orderColumns, key)) {
+                orderColumns.add(key);
+                descending.add(keyDescending);
+            }
+        }
+        StringBuilder sortSpec = new StringBuilder();
+        for (int i = 0; i < orderColumns.size(); i++) {
+            sortSpec.append(i > 0 ? "," : "").append(descending.get(i) ? "-" : "").append(orderColumns.get(i));
+        }
+
+        List<Object> params = new ArrayList<>();
+        List<String> conditions = searchConditions(meta, searchParams, params);
+        if (cursor != null && !cursor.isEmpty()) {
+            List<Object> after = decodeCursor(cursor, sortSpec.toString(), orderColumns.size());
+            conditions.add(seekCondition(orderColumns, descending, after, params));
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(table);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY ");
+        for (int i = 0; i < orderColumns.size(); i++) {
+            sql.append(i > 0 ? ", " : "").append(quote(orderColumns.get(i))).append(descending.get(i) ? " DESC" : "");
+        }
+        // 多取一行判断是否还有下一页
+        sql.append(" LIMIT ").append(pageSize + 1);
+
+        List<Map<String, Object>> data = jdbcTemplate.queryForList(sql.toString(), params.toArray());
+        boolean hasMore = data.size() > pageSize;
+        if (hasMore) {
+            data = new ArrayList<>(data.subList(0, pageSize));
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("pageSize", pageSize);
+        result.put("sort", sortSpec.toString());
+        result.put("data", data);
+        result.put("hasMore", hasMore);
+        result.put("nextCursor", hasMore ? encodeCursor(sortSpec.toString(), orderColumns, data.get(data.size() - 1)) : null);
+        return result;
+    }
+
+    @Override
+    public void exportTable(OutputStream out, String table, String format, Map<String, String> searchParams)
+            throws IOException {
+        if (!FORMAT_CSV.equals(format) && !FORMAT_JSONL.equals(format)) {
+            throw new IllegalArgumentException("format只支持csv、jsonl");
+        }
+        TableMeta meta = columnsOf(table);
+        if (meta == null) {
+            throw new IllegalArgumentException("表不存在: " + table);
+        }
+        // 导出没有外层的异常兜底，搜索列在开始写出前按元数据校验
+        List<Object> params = new ArrayList<>();
+        List<String> conditions = searchConditions(meta, searchParams, params);
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(table);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        if (!meta.primaryKey.isEmpty()) {
+            StringJoiner order = new StringJoiner(", ", " ORDER BY ", "");
+            for (String key : meta.primaryKey) {
+                order.add(quote(key));
+            }
+            sql.append(order);
+        }
+
+        if (FORMAT_CSV.equals(format)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 65536);
+            exportCsv(writer, meta, sql.toString(), params.toArray());
+            writer.flush();
+        } else {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            try {
+                exportJsonLines(generator, sql.toString(), params.toArray());
+            } finally {
+                generator.close();
+            }
+        }
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs, ResultSetMetaData columns) throws SQLException, IOException;
+    }
+
+    /**
+     * 流式读取并逐行交给writer，写出失败（如客户端断开）时中止查询
+     */
+    private void streamRows(String sql, Object[] args, Flushable output, RowWriter writer) throws IOException {
+        long[] count = {0};
+        try {
+            cursorJdbcTemplate.query(sql, rs -> {
+                try {
+                    writer.write(rs, rs.getMetaData());
+                    if (++count[0] % EXPORT_FLUSH_INTERVAL == 0) {
+                        output.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * CSV（RFC 4180）：首行为列名（没有数据时也输出），NULL写为空，二进制列写为Base64
+     */
+    private void exportCsv(Writer writer, TableMeta meta, String sql, Object[] args) throws IOException {
+        StringJoiner header = new StringJoiner(",");
+        for (Map<String, Object> column : meta.columns) {
+            header.add(escapeCsv(String.valueOf(column.get("Field"))));
+        }
+        writer.write(header.toString());
+        writer.write("\r\n");
+        streamRows(sql, args, writer, (rs, columns) -> {
+            for (int i = 1; i <= columns.getColumnCount(); i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                String value;
+                if (isBinary(columns.getColumnType(i))) {
+                    byte[] bytes = rs.getBytes(i);
+                    value = bytes != null ? Base64.getEncoder().encodeToString(bytes) : null;
+                } else {
+                    value = rs.getString(i);
+                }
+                if (value != null) {
+                    writer.write(escapeCsv(value));
+                }
+            }
+            writer.write("\r\n");
+        });
+    }
+
+    /**
+     * JSON Lines：每行一个对象，键为列名；JSON类型的列原样嵌入，二进制列由Jackson写为Base64
+     */
+    private void exportJsonLines(JsonGenerator generator, String sql, Object[] args) throws IOException {
+        streamRows(sql, args, generator, (rs, columns) -> {
+            generator.writeStartObject();
+            for (int i = 1; i <= columns.getColumnCount(); i++) {
+                generator.writeFieldName(columns.getColumnLabel(i));
+                Object value = rs.getObject(i);
+                if (value == null) {
+                    generator.writeNull();
+                } else if ("JSON".equalsIgnoreCase(columns.getColumnTypeName(i))) {
+                    generator.writeRawValue(rs.getString(i));
+                } else {
+                    generator.writeObject(value);
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        });
+    }
+
+    private static boolean isBinary(int type) {
+        return type == Types.BINARY || type == Types.VARBINARY || type == Types.LONGVARBINARY || type == Types.BLOB;
+    }
+
+    private static String escapeCsv(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return "\"" + value.replace("\"", "\"\"") + "\"";
+            }
+        }
+        return value;
+    }
+
     @Override
     public boolean deleteRecord(String table, Object id) {
         try {
@@ -202,6 +558,10 @@ public class DatabaseServiceImpl implements DatabaseService {
             // 构建删除语句
             String sql = "DELETE FROM " + table + " WHERE " + primaryKey + " = ?";
             int rowsAffected = jdbcTemplate.update(sql, id);
+            adjustExactCount(table, -rowsAffected);
+            if (rowsAffected > 0) {
+                syncGraph(table, id);
+            }
             
             return rowsAffected > 0;
         } catch (Exception e) {
@@ -238,8 +598,27 @@ public class DatabaseServiceImpl implements DatabaseService {
             
             sqlBuilder.append(")").append(valuesBuilder).append(")");
             
-            // 执行插入
-            int rowsAffected = jdbcTemplate.update(sqlBuilder.toString(), params.toArray());
+            // 执行插入，图数据表需要取回自增主键
+            String sql = sqlBuilder.toString();
+            if (graphTable(table) == null) {
+                int rowsAffected = jdbcTemplate.update(sql, params.toArray());
+                adjustExactCount(table, rowsAffected);
+                return rowsAffected > 0;
+            }
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            int rowsAffected = jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+                new ArgumentPreparedStatementSetter(params.toArray()).setValues(statement);
+                return statement;
+            }, keyHolder);
+            adjustExactCount(table, rowsAffected);
+            Object id = record.get("id");
+            if (keyHolder.getKeys() != null && !keyHolder.getKeys().isEmpty()) {
+                id = keyHolder.getKeys().values().iterator().next();
+            }
+            if (rowsAffected > 0 && id != null) {
+                syncGraph(table, id);
+            }
             
             return rowsAffected > 0;
         } catch (Exception e) {
@@ -288,6 +667,9 @@ public class DatabaseServiceImpl implements DatabaseService {
             
             // 执行更新
             int rowsAffected = jdbcTemplate.update(sqlBuilder.toString(), params.toArray());
+            if (rowsAffected > 0) {
+                syncGraph(table, id);
+            }
             
             return rowsAffected > 0;
         } catch (Exception e) {
@@ -296,36 +678,408 @@ public class DatabaseServiceImpl implements DatabaseService {
         }
     }
 
+    /**
+     * 写入的是默认库的node或edge表时返回对应的表名，否则返回null
+     */
+    private String graphTable(String table) {
+        String[] name = resolve(table);
+        if (name[0] == null || !name[0].equalsIgnoreCase(currentSchema())) {
+            return null;
+        }
+        if (GRAPH_NODE_TABLE.equalsIgnoreCase(name[1])) {
+            return GRAPH_NODE_TABLE;
+        }
+        return GRAPH_EDGE_TABLE.equalsIgnoreCase(name[1]) ? GRAPH_EDGE_TABLE : null;
+    }
+
+    /**
+     * 图数据表写入后按主键同步内存索引和变更日志
+     */
+    private void syncGraph(String table, Object id) {
+        String graphTable = graphTable(table);
+        if (graphTable == null) {
+            return;
+        }
+        Integer key = Integer.valueOf(String.valueOf(id));
+        if (GRAPH_NODE_TABLE.equals(graphTable)) {
+            nodeService.syncNode(key);
+        } else {
+            edgeService.syncEdge(key);
+        }
+    }
+
     @Override
     public String getPrimaryKey(String table) {
         try {
-            // 查询表的主键
-            String sql = "SHOW KEYS FROM " + table + " WHERE Key_name = 'PRIMARY'";
-            List<Map<String, Object>> keys = jdbcTemplate.queryForList(sql);
-            
-            if (!keys.isEmpty() && keys.get(0).containsKey("Column_name") && keys.get(0).get("Column_name") != null) {
-                return keys.get(0).get("Column_name").toString();
+            TableMeta meta = columnsOf(table);
+            if (meta == null) {
+                return null;
             }
-            
+            // 联合主键取第一列，与SHOW KEYS的第一行一致
+            if (!meta.primaryKey.isEmpty()) {
+                return meta.primaryKey.get(0);
+            }
+
             // 如果没有明确的主键，尝试查找id字段
-            String descSql = "DESCRIBE " + table;
-            List<Map<String, Object>> columns = jdbcTemplate.queryForList(descSql);
-            
-            if (columns != null) {
-                for (Map<String, Object> column : columns) {
-                    if (column.containsKey("Field") && column.get("Field") != null) {
-                        String columnName = column.get("Field").toString();
-                        if ("id".equalsIgnoreCase(columnName)) {
-                            return columnName;
-                        }
-                    }
+            for (Map<String, Object> column : meta.columns) {
+                String columnName = String.valueOf(column.get("Field"));
+                if ("id".equalsIgnoreCase(columnName)) {
+                    return columnName;
                 }
             }
         } catch (Exception e) {
             // 记录异常但不抛出，防止方法调用失败
             e.printStackTrace();
         }
-        
+
         return null;
     }
-}
\ No newline at end of file
+
+    @Override
+    public long countTableRows(String table, Map<String, String> searchParams) {
+        TableMeta meta = columnsOf(table);
+        if (meta == null) {
+            throw new IllegalArgumentException("表不存在: " + table);
+        }
+        List<Object> params = new ArrayList<>();
+        List<String> conditions = searchConditions(meta, searchParams, params);
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM ").append(table);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        return countRows(table, sql.toString(), conditions, params, true).total;
+    }
+
+    /**
+     * 按策略统计总数：
+     * 有条件时精确统计或最多数到filterCountCap行；无条件时优先用缓存的精确值（过期则返回旧值并后台刷新），
+     * 没有缓存时小表直接统计，大表先返回TABLE_ROWS估算值并后台统计
+     */
+    private RowCount countRows(String table, String countSql, List<String> conditions, List<Object> params, boolean exact) {
+        if (!conditions.isEmpty()) {
+            if (exact) {
+                return new RowCount(jdbcTemplate.queryForObject(countSql, Long.class, params.toArray()), RowCount.EXACT);
+            }
+            // 子查询带LIMIT，数到上限加一行即停止
+            String cappedSql = "SELECT COUNT(*) FROM (SELECT 1 FROM " + table + " WHERE " + String.join(" AND ", conditions)
+                    + " LIMIT " + (filterCountCap + 1) + ") capped";
+            long total = jdbcTemplate.queryForObject(cappedSql, Long.class, params.toArray());
+            return total > filterCountCap ? new RowCount(filterCountCap, RowCount.CAPPED) : new RowCount(total, RowCount.EXACT);
+        }
+
+        String key = countKey(table);
+        Cached<Long> cached = exactCounts.get(key);
+        if (!exact && cached != null) {
+            if (System.currentTimeMillis() - cached.loadedAt <= countTtl) {
+                return new RowCount(cached.value, RowCount.EXACT);
+            }
+            refreshCountLater(key, countSql);
+            return new RowCount(cached.value, RowCount.ESTIMATED);
+        }
+        if (!exact) {
+            long estimate = estimatedRows(table);
+            if (estimate >= exactCountThreshold) {
+                refreshCountLater(key, countSql);
+                return new RowCount(estimate, RowCount.ESTIMATED);
+            }
+        }
+        long total = jdbcTemplate.queryForObject(countSql, Long.class);
+        exactCounts.put(key, new Cached<>(total));
+        return new RowCount(total, RowCount.EXACT);
+    }
+
+    private void refreshCountLater(String key, String countSql) {
+        if (countExecutor == null || !countingTables.add(key)) {
+            return;
+        }
+        try {
+            countExecutor.execute(() -> {
+                try {
+                    exactCounts.put(key, new Cached<>(jdbcTemplate.queryForObject(countSql, Long.class)));
+                } catch (Exception e) {
+                    System.err.println("统计表行数失败: " + key + ", " + e.getMessage());
+                } finally {
+                    countingTables.remove(key);
+                }
+            });
+        } catch (RuntimeException e) {
+            countingTables.remove(key);
+        }
+    }
+
+    /**
+     * 应用内的增删直接修正缓存的精确总数，保留原统计时间
+     */
+    private void adjustExactCount(String table, int delta) {
+        if (delta != 0) {
+            exactCounts.computeIfPresent(countKey(table), (key, cached) -> new Cached<>(cached.value + delta, cached.loadedAt));
+        }
+    }
+
+    private long estimatedRows(String table) {
+        String[] name = resolve(table);
+        if (name[0] == null) {
+            return -1;
+        }
+        TableMeta meta = tablesOf(name[0]).get(name[1]);
+        return meta != null ? meta.estimatedRows : -1;
+    }
+
+    private String countKey(String table) {
+        String[] name = resolve(table);
+        return (name[0] + "." + name[1]).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 拆分库名和表名，不带库名时属于连接的默认库
+     */
+    private String[] resolve(String table) {
+        int dot = table.indexOf('.');
+        if (dot > 0) {
+            return new String[]{table.substring(0, dot), table.substring(dot + 1)};
+        }
+        return new String[]{currentSchema(), table};
+    }
+
+    /**
+     * search.开头的参数转为LIKE条件，参数值追加到params。
+     * 列名必须是表中存在的列，拼入SQL的是元数据中的列名而不是请求参数，不存在时抛出IllegalArgumentException
+     */
+    private List<String> searchConditions(TableMeta meta, Map<String, String> searchParams, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (searchParams != null) {
+            for (Map.Entry<String, String> entry : searchParams.entrySet()) {
+                // 处理search.前缀的参数，用于模糊搜索
+                if (entry.getKey().startsWith("search.")) {
+                    String field = entry.getKey().substring(7);
+                    Map<String, Object> column = meta.column(field);
+                    if (column == null) {
+                        throw new IllegalArgumentException("搜索列不存在: " + field);
+                    }
+                    conditions.add(quote(String.valueOf(column.get("Field"))) + " LIKE ?");
+                    params.add(entry.getValue());
+                }
+            }
+        }
+        return conditions;
+    }
+
+    /**
+     * 解析排序参数（逗号分隔的列名，-前缀表示降序）。排序列必须是某个索引的第一列且不允许NULL，
+     * 否则游标条件无法走索引或无法比较
+     */
+    private void parseSort(TableMeta meta, String sort, List<String> columns, List<Boolean> descending) {
+        if (sort == null || sort.trim().isEmpty()) {
+            return;
+        }
+        for (String part : sort.split(",")) {
+            String item = part.trim();
+            boolean desc = item.startsWith("-");
+            String field = desc ? item.substring(1).trim() : item;
+            Map<String, Object> column = meta.column(field);
+            if (column == null) {
+                throw new IllegalArgumentException("排序列不存在: " + field);
+            }
+            field = String.valueOf(column.get("Field"));
+            if (containsIgnoreCase(columns, field)) {
+                throw new IllegalArgumentException("排序列重复: " + field);
+            }
+            if (columns.isEmpty() && !meta.indexedColumns.contains(field)) {
+                throw new IllegalArgumentException("排序列没有索引: " + field);
+            }
+            if ("YES".equalsIgnoreCase(String.valueOf(column.get("Null")))) {
+                throw new IllegalArgumentException("排序列允许NULL，无法用于游标分页: " + field);
+            }
+            columns.add(field);
+            descending.add(desc);
+        }
+    }
+
+    /**
+     * 定位到上一页末行之后的条件。各列方向相同时用行比较 (a, b) > (?, ?)，MySQL可以直接按索引范围扫描；
+     * 方向不同时展开为 a > ? OR (a = ? AND b < ?) ...
+     */
+    private String seekCondition(List<String> columns, List<Boolean> descending, List<Object> after, List<Object> params) {
+        boolean uniform = !descending.contains(!descending.get(0));
+        if (uniform) {
+            StringJoiner left = new StringJoiner(", ", "(", ")");
+            StringJoiner right = new StringJoiner(", ", "(", ")");
+            for (int i = 0; i < columns.size(); i++) {
+                left.add(quote(columns.get(i)));
+                right.add("?");
+                params.add(after.get(i));
+            }
+            return left + (descending.get(0) ? " < " : " > ") + right;
+        }
+        StringJoiner any = new StringJoiner(" OR ", "(", ")");
+        for (int i = 0; i < columns.size(); i++) {
+            StringJoiner all = new StringJoiner(" AND ", "(", ")");
+            for (int j = 0; j < i; j++) {
+                all.add(quote(columns.get(j)) + " = ?");
+                params.add(after.get(j));
+            }
+            all.add(quote(columns.get(i)) + (descending.get(i) ? " < ?" : " > ?"));
+            params.add(after.get(i));
+            any.add(all.toString());
+        }
+        return any.toString();
+    }
+
+    /**
+     * 游标为{"sort": 排序说明, "after": [末行的排序列和主键值]}的JSON经Base64URL编码，
+     * 日期时间按字符串保存，二进制值保存为{"bytes": Base64}
+     */
+    private String encodeCursor(String sortSpec, List<String> columns, Map<String, Object> lastRow) {
+        List<Object> values = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            Object value = lastRow.get(column);
+            if (value instanceof byte[]) {
+                values.add(Collections.singletonMap("bytes", Base64.getEncoder().encodeToString((byte[]) value)));
+            } else if (value instanceof Number || value instanceof Boolean || value instanceof String) {
+                values.add(value);
+            } else {
+                values.add(String.valueOf(value));
+            }
+        }
+        Map<String, Object> token = new LinkedHashMap<>();
+        token.put("sort", sortSpec);
+        token.put("after", values);
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(token));
+        } catch (Exception e) {
+            throw new IllegalStateException("游标编码失败", e);
+        }
+    }
+
+    private List<Object> decodeCursor(String cursor, String sortSpec, int size) {
+        Map<?, ?> token;
+        try {
+            token = objectMapper.readerFor(Map.class)
+                    .with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                    .readValue(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("无效的游标");
+        }
+        if (!sortSpec.equals(token.get("sort"))) {
+            throw new IllegalArgumentException("游标与当前排序不一致，请从第一页重新开始");
+        }
+        if (!(token.get("after") instanceof List) || ((List<?>) token.get("after")).size() != size) {
+            throw new IllegalArgumentException("无效的游标");
+        }
+        List<Object> values = new ArrayList<>(size);
+        for (Object value : (List<?>) token.get("after")) {
+            if (value instanceof Map && ((Map<?, ?>) value).get("bytes") instanceof String) {
+                values.add(Base64.getDecoder().decode((String) ((Map<?, ?>) value).get("bytes")));
+            } else if (value == null || value instanceof Map || value instanceof List) {
+                throw new IllegalArgumentException("无效的游标");
+            } else {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    private static boolean containsIgnoreCase(List<String> values, String value) {
+        for (String item : values) {
+            if (item.equalsIgnoreCase(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 列名来自元数据缓存，反引号只为兼容保留字
+    private static String quote(String column) {
+        return "`" + column.replace("`", "``") + "`";
+    }
+
+    private boolean expired(Cached<?> cached) {
+        return System.currentTimeMillis() - cached.loadedAt > metadataTtl;
+    }
+
+    /**
+     * 库中的全部表和注释（表名不区分大小写），一条INFORMATION_SCHEMA.TABLES查询
+     */
+    private Map<String, TableMeta> tablesOf(String database) {
+        Cached<Map<String, TableMeta>> cached = schemaTables.get(database);
+        if (cached != null && !expired(cached)) {
+            return cached.value;
+        }
+        Map<String, TableMeta> tables = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        String sql = "SELECT table_name AS name, table_comment AS comment, table_rows AS table_rows "
+                + "FROM INFORMATION_SCHEMA.TABLES WHERE table_schema = ? ORDER BY table_name";
+        for (Map<String, Object> row : jdbcTemplate.queryForList(sql, database)) {
+            TableMeta table = new TableMeta(String.valueOf(row.get("name")));
+            table.comment = row.get("comment") != null ? row.get("comment").toString() : "";
+            if (row.get("table_rows") instanceof Number) {
+                table.estimatedRows = ((Number) row.get("table_rows")).longValue();
+            }
+            tables.put(table.name, table);
+        }
+        schemaTables.put(database, new Cached<>(tables));
+        return tables;
+    }
+
+    /**
+     * 表的列、主键和索引首列，表名不带库名时属于连接的默认库；整库的元数据用三条查询一起读取
+     */
+    private TableMeta columnsOf(String table) {
+        String[] resolved = resolve(table);
+        String schema = resolved[0];
+        String name = resolved[1];
+        if (schema == null) {
+            return null;
+        }
+
+        Cached<Map<String, TableMeta>> cached = schemaColumns.get(schema);
+        if (cached == null || expired(cached)) {
+            Map<String, TableMeta> tables = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            String columnSql = "SELECT table_name AS table_name, column_name AS field, column_type AS type, "
+                    + "is_nullable AS nullable, column_key AS column_key, column_default AS column_default, extra AS extra "
+                    + "FROM INFORMATION_SCHEMA.COLUMNS WHERE table_schema = ? ORDER BY table_name, ordinal_position";
+            for (Map<String, Object> row : jdbcTemplate.queryForList(columnSql, schema)) {
+                String tableName = String.valueOf(row.get("table_name"));
+                TableMeta meta = tables.computeIfAbsent(tableName, TableMeta::new);
+                Map<String, Object> column = new LinkedHashMap<>();
+                column.put("Field", row.get("field"));
+                column.put("Type", row.get("type"));
+                column.put("Null", row.get("nullable"));
+                column.put("Key", row.get("column_key") != null ? row.get("column_key") : "");
+                column.put("Default", row.get("column_default"));
+                column.put("Extra", row.get("extra") != null ? row.get("extra") : "");
+                meta.columns.add(column);
+            }
+            String keySql = "SELECT table_name AS table_name, column_name AS column_name FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE "
+                    + "WHERE table_schema = ? AND constraint_name = 'PRIMARY' ORDER BY table_name, ordinal_position";
+            for (Map<String, Object> row : jdbcTemplate.queryForList(keySql, schema)) {
+                TableMeta meta = tables.get(String.valueOf(row.get("table_name")));
+                if (meta != null) {
+                    meta.primaryKey.add(String.valueOf(row.get("column_name")));
+                }
+            }
+            String indexSql = "SELECT table_name AS table_name, column_name AS column_name FROM INFORMATION_SCHEMA.STATISTICS "
+                    + "WHERE table_schema = ? AND seq_in_index = 1";
+            for (Map<String, Object> row : jdbcTemplate.queryForList(indexSql, schema)) {
+                TableMeta meta = tables.get(String.valueOf(row.get("table_name")));
+                if (meta != null) {
+                    meta.indexedColumns.add(String.valueOf(row.get("column_name")));
+                }
+            }
+            cached = new Cached<>(tables);
+            schemaColumns.put(schema, cached);
+        }
+        return cached.value.get(name);
+    }
+
+    private String currentSchema() {
+        String schema = defaultSchema;
+        if (schema == null) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT DATABASE() AS name");
+            if (!rows.isEmpty() && rows.get(0).get("name") != null) {
+                schema = rows.get(0).get("name").toString();
+                defaultSchema = schema;
+            }
+        }
+        return schema;
+    }
+}
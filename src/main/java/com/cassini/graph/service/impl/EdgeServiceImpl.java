@@ -1,7 +1,10 @@
 package com.cassini.graph.service.impl;
 
 import com.cassini.graph.entity.Edge;
+import com.cassini.graph.entity.GraphChange;
 import com.cassini.graph.repository.EdgeRepository;
+import com.cassini.graph.service.GraphChangeService;
+import com.cassini.graph.service.GraphIndexService;
 import com.cassini.graph.service.EdgeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -15,6 +18,12 @@ public class EdgeServiceImpl implements EdgeService {
     @Autowired
     private EdgeRepository edgeRepository;
 
+    @Autowired
+    private GraphIndexService graphIndexService;
+
+    @Autowired
+    private GraphChangeService graphChangeService;
+
     @Override
     public List<Edge> getAllEdges() {
         return edgeRepository.findAll();
@@ -33,7 +42,8 @@ public class EdgeServiceImpl implements EdgeService {
 
     @Override
     public List<Edge> getEdgesByNodeName(String nodeName) {
-        return edgeRepository.findBySourceNodeNameOrTargetNodeName(nodeName, nodeName);
+        // 通过内存索引定位边ID，再按主键取回实体
+        return edgeRepository.findAllById(graphIndexService.getEdgeIdsByNodeName(nodeName));
     }
 
     @Override
@@ -41,13 +51,35 @@ public class EdgeServiceImpl implements EdgeService {
         return edgeRepository.findByThemeId(themeId);
     }
 
+    @Override
+    public List<Edge> getEdgesByThemeNodes(Integer themeId) {
+        return edgeRepository.findAllById(graphIndexService.getEdgeIdsByTheme(themeId));
+    }
+
     @Override
     public Edge saveEdge(Edge edge) {
-        return edgeRepository.save(edge);
+        Edge savedEdge = edgeRepository.save(edge);
+        graphIndexService.onEdgeSaved(savedEdge);
+        graphChangeService.recordChange(GraphChange.TYPE_EDGE, savedEdge.getId(), GraphChange.ACTION_UPSERT);
+        return savedEdge;
     }
 
     @Override
     public void deleteEdge(Integer id) {
         edgeRepository.deleteById(id);
+        graphIndexService.onEdgeDeleted(id);
+        graphChangeService.recordChange(GraphChange.TYPE_EDGE, id, GraphChange.ACTION_DELETE);
+    }
+
+    @Override
+    public void syncEdge(Integer id) {
+        Optional<Edge> edge = edgeRepository.findById(id);
+        if (edge.isPresent()) {
+            graphIndexService.onEdgeSaved(edge.get());
+            graphChangeService.recordChange(GraphChange.TYPE_EDGE, id, GraphChange.ACTION_UPSERT);
+        } else {
+            graphIndexService.onEdgeDeleted(id);
+            graphChangeService.recordChange(GraphChange.TYPE_EDGE, id, GraphChange.ACTION_DELETE);
+        }
     }
 }
@@ -0,0 +1,169 @@
+package com.cassini.graph.service.impl;
+
+import com.cassini.graph.entity.GraphChange;
+import com.cassini.graph.repository.EdgeRepository;
+import com.cassini.graph.repository.GraphChangeRepository;
+import com.cassini.graph.repository.NodeRepository;
+import com.cassini.graph.repository.ThemeRepository;
+import com.cassini.graph.service.ChangeVersionService;
+import com.cassini.graph.service.GraphChangeService;
+import com.cassini.graph.service.GraphEventService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 图变更日志服务实现
+ * 变更日志保存在graph_change表中，自增ID即版本号，多实例共享同一序列；
+ * 对外的当前版本取已提交水位（ChangeVersionService）而不是MAX(id)，避免跳过尚未提交的较小ID
+ * 调用方在写入提交后记录变更，记录的同时交给GraphEventService推送给订阅者
+ */
+@Service
+public class GraphChangeServiceImpl implements GraphChangeService {
+
+    @Autowired
+    private GraphChangeRepository graphChangeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NodeRepository nodeRepository;
+
+    @Autowired
+    private EdgeRepository edgeRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private GraphEventService graphEventService;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    // 变更日志保留天数
+    @Value("${graph.changes.retention-days:7}")
+    private int retentionDays;
+
+    // 单次增量的最大变更条数，超过时直接返回全量快照
+    @Value("${graph.changes.max-delta:10000}")
+    private int maxDelta;
+
+    @Override
+    public long recordChange(String entityType, Integer entityId, String action) {
+        GraphChange change = new GraphChange();
+        change.setEntityType(entityType);
+        change.setEntityId(entityId);
+        change.setAction(action);
+        long version = graphChangeRepository.save(change).getId();
+        graphEventService.publish(entityType, Collections.singletonList(entityId), action);
+        return version;
+    }
+
+    @Override
+    public void recordChanges(String entityType, List<Integer> entityIds, String action) {
+        if (entityIds.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO graph_change (entity_type, entity_id, action, created_at) VALUES (?, ?, ?, NOW())";
+        jdbcTemplate.batchUpdate(sql, entityIds, 1000, (ps, entityId) -> {
+            ps.setString(1, entityType);
+            ps.setInt(2, entityId);
+            ps.setString(3, action);
+        });
+        graphEventService.publish(entityType, entityIds, action);
+    }
+
+    @Override
+    public long getCurrentVersion() {
+        return changeVersionService.getCommittedVersion();
+    }
+
+    @Override
+    public Map<String, Object> getChangesSince(Long since) {
+        long version = getCurrentVersion();
+        if (since == null || since > version || isTruncated(since)
+                || graphChangeRepository.countBetween(since, version) > maxDelta) {
+            return fullSnapshot(version);
+        }
+
+        // 同一实体的多次变更只保留最后一次
+        Map<String, Map<Integer, String>> latest = new HashMap<>();
+        latest.put(GraphChange.TYPE_NODE, new LinkedHashMap<>());
+        latest.put(GraphChange.TYPE_EDGE, new LinkedHashMap<>());
+        latest.put(GraphChange.TYPE_THEME, new LinkedHashMap<>());
+        for (GraphChange change : graphChangeRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(since, version)) {
+            Map<Integer, String> actions = latest.get(change.getEntityType());
+            if (actions != null) {
+                actions.remove(change.getEntityId());
+                actions.put(change.getEntityId(), change.getAction());
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("version", version);
+        result.put("full", false);
+        result.put("nodes", nodeRepository.findAllById(idsWithAction(latest.get(GraphChange.TYPE_NODE), GraphChange.ACTION_UPSERT)));
+        result.put("edges", edgeRepository.findAllById(idsWithAction(latest.get(GraphChange.TYPE_EDGE), GraphChange.ACTION_UPSERT)));
+        result.put("themes", themeRepository.findAllById(idsWithAction(latest.get(GraphChange.TYPE_THEME), GraphChange.ACTION_UPSERT)));
+        result.put("removedNodeIds", idsWithAction(latest.get(GraphChange.TYPE_NODE), GraphChange.ACTION_DELETE));
+        result.put("removedEdgeIds", idsWithAction(latest.get(GraphChange.TYPE_EDGE), GraphChange.ACTION_DELETE));
+        result.put("removedThemeIds", idsWithAction(latest.get(GraphChange.TYPE_THEME), GraphChange.ACTION_DELETE));
+        return result;
+    }
+
+    /**
+     * since之后的日志是否已被清理（存在间隙时无法保证增量完整）
+     */
+    private boolean isTruncated(long since) {
+        Long minId = graphChangeRepository.findMinId();
+        return minId != null && since < minId - 1;
+    }
+
+    private List<Integer> idsWithAction(Map<Integer, String> actions, String action) {
+        List<Integer> ids = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : actions.entrySet()) {
+            if (action.equals(entry.getValue())) {
+                ids.add(entry.getKey());
+            }
+        }
+        return ids;
+    }
+
+    private Map<String, Object> fullSnapshot(long version) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("version", version);
+        result.put("full", true);
+        result.put("nodes", nodeRepository.findAll());
+        result.put("edges", edgeRepository.findAll());
+        result.put("themes", themeRepository.findAll());
+        return result;
+    }
+
+    /**
+     * 每小时清理一次过期的变更日志
+     */
+    @Scheduled(fixedDelay = 3600000L, initialDelay = 60000L)
+    public void purgeExpiredChanges() {
+        Long maxId = graphChangeRepository.findMaxId();
+        if (maxId == null) {
+            return;
+        }
+        Date before = new Date(System.currentTimeMillis() - retentionDays * 24L * 3600L * 1000L);
+        int deleted = graphChangeRepository.deleteExpired(before, maxId);
+        if (deleted > 0) {
+            System.out.println("清理过期图变更日志: " + deleted + " 条");
+        }
+    }
+}
@@ -0,0 +1,505 @@
+package com.cassini.graph.service.impl;
+
+import com.cassini.graph.entity.Edge;
+import com.cassini.graph.entity.GraphChange;
+import com.cassini.graph.entity.Node;
+import com.cassini.graph.entity.Theme;
+import com.cassini.graph.repository.EdgeRepository;
+import com.cassini.graph.repository.GraphChangeRepository;
+import com.cassini.graph.repository.NodeRepository;
+import com.cassini.graph.repository.ThemeRepository;
+import com.cassini.graph.service.ChangeVersionService;
+import com.cassini.graph.service.GraphEventService;
+import com.cassini.graph.service.GraphIndexService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 图变更推送服务实现
+ * 变更先按实体合并到当前窗口（同一实体只保留最后一次操作），窗口结束时一次性读取实体，
+ * 按订阅者的主题过滤条件分组序列化，同一分组的订阅者共享同一份数据。
+ * 每个订阅者有独立的发送队列，队列字节数超过上限时丢弃积压的事件，改发一条resync让客户端自行增量同步，
+ * 因此慢客户端占用的内存有上限，也不会阻塞其他订阅者。
+ * 只推送本实例提交的写入；多实例部署时客户端收到resync或重连后通过变更日志补齐
+ */
+@Service
+public class GraphEventServiceImpl implements GraphEventService {
+
+    @Autowired
+    private NodeRepository nodeRepository;
+
+    @Autowired
+    private EdgeRepository edgeRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private GraphChangeRepository graphChangeRepository;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @Autowired
+    private GraphIndexService graphIndexService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 合并窗口（毫秒）
+    @Value("${graph.events.window-ms:200}")
+    private long windowMs;
+
+    // 单个窗口最多合并的变更数，超过时改为通知客户端重新同步
+    @Value("${graph.events.max-batch:5000}")
+    private int maxBatch;
+
+    // 每个订阅者待发送事件的字节数上限
+    @Value("${graph.events.client-buffer-bytes:1048576}")
+    private long clientBufferBytes;
+
+    @Value("${graph.events.max-clients:1000}")
+    private int maxClients;
+
+    // 连接超时（毫秒），EventSource断开后会带着Last-Event-ID自动重连
+    @Value("${graph.events.timeout:1800000}")
+    private long timeout;
+
+    // 空闲时的心跳间隔，用于及时发现已断开的连接
+    @Value("${graph.events.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    // 当前窗口内的变更：实体类型 -> 实体ID -> 最后一次操作
+    private final Map<String, Map<Integer, String>> pending = new HashMap<>();
+    private int pendingCount;
+    private boolean pendingOverflow;
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService senders;
+    private long lastHeartbeat;
+
+    private final AtomicLong publishedChanges = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong sentEvents = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+
+    /**
+     * 待发送的事件，data为序列化好的JSON
+     */
+    private static class Event {
+        final String name;
+        final long id;
+        final String data;
+
+        Event(String name, long id, String data) {
+            this.name = name;
+            this.id = id;
+            this.data = data;
+        }
+
+        // 按字符数估算占用
+        int size() {
+            return data != null ? data.length() : 0;
+        }
+    }
+
+    private class Client {
+        final SseEmitter emitter;
+        // 为null时不过滤主题
+        final Set<Integer> themeIds;
+        // 相同过滤条件的订阅者共享序列化结果
+        final String filterKey;
+
+        final ArrayDeque<Event> queue = new ArrayDeque<>();
+        long queuedBytes;
+        boolean sending;
+        boolean closed;
+
+        Client(SseEmitter emitter, Set<Integer> themeIds) {
+            this.emitter = emitter;
+            this.themeIds = themeIds;
+            this.filterKey = themeIds != null ? themeIds.toString() : "*";
+        }
+    }
+
+    /**
+     * 一个窗口内合并后的变更，upsert的实体已从数据库读出
+     */
+    private static class Batch {
+        long version;
+        List<Node> nodes = Collections.emptyList();
+        List<Edge> edges = Collections.emptyList();
+        List<Theme> themes = Collections.emptyList();
+        List<Integer> removedNodeIds = new ArrayList<>();
+        List<Integer> removedEdgeIds = new ArrayList<>();
+        List<Integer> removedThemeIds = new ArrayList<>();
+        // 边ID -> 相关主题（边自身的主题和两端节点的主题）
+        Map<Integer, int[]> edgeThemes = new HashMap<>();
+    }
+
+    @PostConstruct
+    public void init() {
+        pending.put(GraphChange.TYPE_NODE, new HashMap<>());
+        pending.put(GraphChange.TYPE_EDGE, new HashMap<>());
+        pending.put(GraphChange.TYPE_THEME, new HashMap<>());
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "graph-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger senderCount = new AtomicInteger();
+        senders = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "graph-events-send-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushSafely, windowMs, windowMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (Client client : clients) {
+            close(client);
+        }
+        senders.shutdownNow();
+    }
+
+    @Override
+    public SseEmitter subscribe(List<Integer> themeIds, Long since) {
+        if (clients.size() >= maxClients) {
+            throw new IllegalStateException("订阅者数量已达上限: " + maxClients);
+        }
+        SseEmitter emitter = new SseEmitter(timeout);
+        Client client = new Client(emitter,
+                themeIds != null && !themeIds.isEmpty() ? Collections.unmodifiableSet(new TreeSet<>(themeIds)) : null);
+        emitter.onCompletion(() -> close(client));
+        emitter.onTimeout(() -> close(client));
+        emitter.onError(e -> close(client));
+        // 先登记再读取版本号，读取之后提交的变更一定会进入后续窗口（可能与补发的重复，客户端按版本号幂等处理）
+        clients.add(client);
+
+        long version = changeVersionService.getCommittedVersion();
+        if (since != null && since != version) {
+            catchUp(client, since, version);
+        }
+        enqueue(client, new Event(EVENT_READY, version, String.valueOf(version)));
+        return emitter;
+    }
+
+    /**
+     * 补发since之后的变更；日志已被清理、变更过多或客户端版本比服务端新时通知重新同步
+     */
+    private void catchUp(Client client, long since, long version) {
+        Long minId = graphChangeRepository.findMinId();
+        boolean truncated = minId != null && since < minId - 1;
+        if (since > version || truncated || graphChangeRepository.countBetween(since, version) > maxBatch) {
+            resyncs.incrementAndGet();
+            enqueue(client, new Event(EVENT_RESYNC, version, String.valueOf(version)));
+            return;
+        }
+        Map<String, Map<Integer, String>> changes = new HashMap<>();
+        changes.put(GraphChange.TYPE_NODE, new HashMap<>());
+        changes.put(GraphChange.TYPE_EDGE, new HashMap<>());
+        changes.put(GraphChange.TYPE_THEME, new HashMap<>());
+        for (GraphChange change : graphChangeRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(since, version)) {
+            Map<Integer, String> actions = changes.get(change.getEntityType());
+            if (actions != null) {
+                actions.put(change.getEntityId(), change.getAction());
+            }
+        }
+        Batch batch = load(changes, version);
+        String data = serialize(batch, client.themeIds);
+        if (data != null) {
+            enqueue(client, new Event(EVENT_CHANGES, version, data));
+        }
+    }
+
+    @Override
+    public void publish(String entityType, List<Integer> entityIds, String action) {
+        // 没有订阅者时不积累变更，批量导入等大批写入不产生额外开销
+        if (clients.isEmpty() || entityIds.isEmpty()) {
+            return;
+        }
+        publishedChanges.addAndGet(entityIds.size());
+        synchronized (pending) {
+            Map<Integer, String> actions = pending.get(entityType);
+            if (actions == null || pendingOverflow) {
+                return;
+            }
+            for (Integer id : entityIds) {
+                if (actions.put(id, action) == null) {
+                    pendingCount++;
+                }
+            }
+            if (pendingCount > maxBatch) {
+                pendingOverflow = true;
+                clearPending();
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("clients", clients.size());
+        stats.put("publishedChanges", publishedChanges.get());
+        stats.put("batches", batches.get());
+        stats.put("sentEvents", sentEvents.get());
+        stats.put("resyncs", resyncs.get());
+        long queuedBytes = 0;
+        for (Client client : clients) {
+            synchronized (client) {
+                queuedBytes += client.queuedBytes;
+            }
+        }
+        stats.put("queuedBytes", queuedBytes);
+        return stats;
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // 定时任务抛出异常后不会再执行，这里只记录
+            System.err.println("推送图变更失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 结束当前窗口：读取合并后的变更并推送给各订阅者
+     */
+    private void flush() {
+        Map<String, Map<Integer, String>> changes = new HashMap<>();
+        boolean overflow;
+        synchronized (pending) {
+            overflow = pendingOverflow;
+            if (pendingCount > 0) {
+                for (Map.Entry<String, Map<Integer, String>> entry : pending.entrySet()) {
+                    changes.put(entry.getKey(), new HashMap<>(entry.getValue()));
+                }
+            }
+            clearPending();
+            pendingOverflow = false;
+        }
+        long now = System.currentTimeMillis();
+        if (clients.isEmpty() || (changes.isEmpty() && !overflow)) {
+            if (now - lastHeartbeat >= heartbeatMs) {
+                lastHeartbeat = now;
+                for (Client client : clients) {
+                    enqueue(client, new Event(null, 0, null));
+                }
+            }
+            return;
+        }
+        lastHeartbeat = now;
+        long version = changeVersionService.getCommittedVersion();
+        batches.incrementAndGet();
+        if (overflow) {
+            resyncs.addAndGet(clients.size());
+            for (Client client : clients) {
+                enqueue(client, new Event(EVENT_RESYNC, version, String.valueOf(version)));
+            }
+            return;
+        }
+
+        Batch batch = load(changes, version);
+        Map<String, String> serialized = new HashMap<>();
+        for (Client client : clients) {
+            String data = serialized.computeIfAbsent(client.filterKey, key -> {
+                String json = serialize(batch, client.themeIds);
+                return json != null ? json : "";
+            });
+            if (!data.isEmpty()) {
+                enqueue(client, new Event(EVENT_CHANGES, version, data));
+            }
+        }
+    }
+
+    private void clearPending() {
+        for (Map<Integer, String> actions : pending.values()) {
+            actions.clear();
+        }
+        pendingCount = 0;
+    }
+
+    private Batch load(Map<String, Map<Integer, String>> changes, long version) {
+        Batch batch = new Batch();
+        batch.version = version;
+        List<Integer> nodeIds = split(changes.get(GraphChange.TYPE_NODE), batch.removedNodeIds);
+        List<Integer> edgeIds = split(changes.get(GraphChange.TYPE_EDGE), batch.removedEdgeIds);
+        List<Integer> themeIds = split(changes.get(GraphChange.TYPE_THEME), batch.removedThemeIds);
+        if (!nodeIds.isEmpty()) {
+            batch.nodes = nodeRepository.findAllById(nodeIds);
+        }
+        if (!edgeIds.isEmpty()) {
+            batch.edges = edgeRepository.findAllById(edgeIds);
+            for (Edge edge : batch.edges) {
+                batch.edgeThemes.put(edge.getId(), new int[]{
+                        edge.getTheme() != null ? edge.getTheme().getId() : -1,
+                        graphIndexService.getNodeTheme(edge.getSourceNodeName()),
+                        graphIndexService.getNodeTheme(edge.getTargetNodeName())});
+            }
+        }
+        if (!themeIds.isEmpty()) {
+            batch.themes = themeRepository.findAllById(themeIds);
+        }
+        return batch;
+    }
+
+    /**
+     * upsert的ID作为返回值，delete的ID放入removed
+     */
+    private static List<Integer> split(Map<Integer, String> actions, List<Integer> removed) {
+        List<Integer> upserted = new ArrayList<>();
+        if (actions == null) {
+            return upserted;
+        }
+        for (Map.Entry<Integer, String> entry : actions.entrySet()) {
+            if (GraphChange.ACTION_DELETE.equals(entry.getValue())) {
+                removed.add(entry.getKey());
+            } else {
+                upserted.add(entry.getKey());
+            }
+        }
+        return upserted;
+    }
+
+    /**
+     * 按主题过滤并序列化，过滤后没有任何内容时返回null
+     * 删除的ID无法确定原来的主题，总是推送（客户端删除不存在的ID没有影响）
+     */
+    private String serialize(Batch batch, Set<Integer> themeIds) {
+        List<Node> nodes = batch.nodes;
+        List<Edge> edges = batch.edges;
+        if (themeIds != null) {
+            nodes = new ArrayList<>();
+            for (Node node : batch.nodes) {
+                if (node.getTheme() != null && themeIds.contains(node.getTheme().getId())) {
+                    nodes.add(node);
+                }
+            }
+            edges = new ArrayList<>();
+            for (Edge edge : batch.edges) {
+                for (int theme : batch.edgeThemes.get(edge.getId())) {
+                    if (themeIds.contains(theme)) {
+                        edges.add(edge);
+                        break;
+                    }
+                }
+            }
+        }
+        if (nodes.isEmpty() && edges.isEmpty() && batch.themes.isEmpty() && batch.removedNodeIds.isEmpty()
+                && batch.removedEdgeIds.isEmpty() && batch.removedThemeIds.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("version", batch.version);
+        result.put("full", false);
+        result.put("nodes", nodes);
+        result.put("edges", edges);
+        result.put("themes", batch.themes);
+        result.put("removedNodeIds", batch.removedNodeIds);
+        result.put("removedEdgeIds", batch.removedEdgeIds);
+        result.put("removedThemeIds", batch.removedThemeIds);
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 放入订阅者的发送队列；积压超过上限时丢弃积压的事件，改为一条resync
+     */
+    private void enqueue(Client client, Event event) {
+        synchronized (client) {
+            if (client.closed) {
+                return;
+            }
+            if (client.queuedBytes + event.size() > clientBufferBytes) {
+                client.queue.clear();
+                client.queuedBytes = 0;
+                resyncs.incrementAndGet();
+                event = new Event(EVENT_RESYNC, event.id, String.valueOf(event.id));
+            }
+            client.queue.add(event);
+            client.queuedBytes += event.size();
+            if (!client.sending) {
+                client.sending = true;
+                senders.execute(() -> drain(client));
+            }
+        }
+    }
+
+    /**
+     * 发送订阅者队列中的事件，每个订阅者同一时间最多一个发送任务；写入阻塞只影响该订阅者
+     */
+    private void drain(Client client) {
+        while (true) {
+            Event event;
+            synchronized (client) {
+                event = client.queue.poll();
+                if (event == null || client.closed) {
+                    client.sending = false;
+                    return;
+                }
+                client.queuedBytes -= event.size();
+            }
+            try {
+                if (event.name == null) {
+                    client.emitter.send(SseEmitter.event().comment("ping"));
+                } else {
+                    client.emitter.send(SseEmitter.event().name(event.name).id(String.valueOf(event.id)).data(event.data));
+                    sentEvents.incrementAndGet();
+                }
+            } catch (Exception e) {
+                // 连接已断开
+                close(client);
+                return;
+            }
+        }
+    }
+
+    private void close(Client client) {
+        synchronized (client) {
+            if (client.closed) {
+                return;
+            }
+            client.closed = true;
+            client.queue.clear();
+            client.queuedBytes = 0;
+        }
+        clients.remove(client);
+        try {
+            client.emitter.complete();
+        } catch (Exception ignored) {
+            // 连接已经结束
+        }
+    }
+}
@@ -0,0 +1,602 @@
+package com.cassini.graph.service.impl;
+
+import com.cassini.graph.entity.Edge;
+import com.cassini.graph.entity.GraphChange;
+import com.cassini.graph.entity.Node;
+import com.cassini.graph.index.GraphSnapshot;
+import com.cassini.graph.index.GraphStore;
+import com.cassini.graph.index.GraphStoreFile;
+import com.cassini.graph.service.ChangeVersionService;
+import com.cassini.graph.service.GraphIndexService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 图内存索引服务实现
+ * 写操作只更新列式存储，CSR快照由后台线程合并一段时间内的写入后重建（不访问数据库），重建期间读操作继续使用旧快照；
+ * 按ID查询的方法以快照为基础，再用存储中的最新数据覆盖快照之后写入过的节点和边，因此总能读到自己的写入
+ * 列式存储定期写入快照文件，启动时先读快照，再按变更日志补齐之后的写入，避免全表扫描
+ */
+@Service
+public class GraphIndexServiceImpl implements GraphIndexService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    private GraphStore store;
+
+    // 拓扑版本：节点增删、改名、改主题以及边的写入时递增，只有坐标变化时不变（坐标由快照的坐标版本体现）
+    private long version;
+
+    // 每次写入递增；snapshotSeq为当前快照复制数据时的序号，两者不一致时需要重建
+    private long changeSeq;
+
+    private volatile long snapshotSeq;
+
+    private volatile GraphSnapshot snapshot;
+
+    // 当前快照之后写入过的节点/边主键 -> 写入序号，新快照发布后清理
+    private final Map<Integer, Long> touchedNodes = new HashMap<>();
+
+    private final Map<Integer, Long> touchedEdges = new HashMap<>();
+
+    private ScheduledExecutorService rebuildExecutor;
+
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    // 写入后延迟多久重建快照，期间的写入合并为一次重建
+    @Value("${graph.index.rebuild-delay:100}")
+    private long rebuildDelay;
+
+    // 主题 -> 最后一次写入时的序号；reloadStamp为最后一次重新加载时的序号
+    private final Map<Integer, Long> themeStamps = new HashMap<>();
+
+    private long stamp;
+
+    private long reloadStamp;
+
+    // 快照文件路径，为空时不读写快照
+    @Value("${graph.snapshot.path:data/graph.snapshot}")
+    private String snapshotPath;
+
+    // 快照之后的变更超过此条数时放弃快照，直接全量加载
+    @Value("${graph.snapshot.max-catch-up:200000}")
+    private int maxCatchUp;
+
+    private static final int CATCH_UP_CHUNK = 1000;
+
+    // reload()之后数据库可能被绕过变更日志批量改写，下次加载不使用快照
+    private boolean skipSnapshot;
+
+    // 最后一次写入快照文件时的changeSeq，没有变化时不重复写
+    private long snapshotWrittenSeq = -1;
+
+    @PostConstruct
+    public void init() {
+        rebuildExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "graph-index-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 返回最近发布的快照，可能尚未包含最近rebuild-delay毫秒内的写入；只有首次加载时在调用线程中同步构建
+     */
+    @Override
+    public GraphSnapshot getSnapshot() {
+        GraphSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                if (store == null) {
+                    load();
+                }
+                publish(store.snapshot(version), changeSeq);
+            }
+            return snapshot;
+        }
+    }
+
+    @Override
+    public synchronized List<Integer> getEdgeIdsByNodeName(String nodeName) {
+        GraphSnapshot graph = getSnapshot();
+        List<Integer> ids = new ArrayList<>();
+        int node = graph.nodeIdOf(nodeName);
+        if (node >= 0) {
+            for (int edge : graph.incidentEdges(node)) {
+                int dbId = graph.edgeDbId(edge);
+                if (!touchedEdges.containsKey(dbId)) {
+                    ids.add(dbId);
+                }
+            }
+        }
+        int current = store.nodeIdOf(nodeName);
+        if (current >= 0) {
+            for (Integer dbId : touchedEdges.keySet()) {
+                int[] endpoints = store.endpointsOfEdge(dbId);
+                if (endpoints != null && (endpoints[0] == current || endpoints[1] == current)) {
+                    ids.add(dbId);
+                }
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public synchronized int getNodeTheme(String nodeName) {
+        if (store == null) {
+            load();
+        }
+        return store.themeOfNodeName(nodeName);
+    }
+
+    @Override
+    public synchronized List<Integer> getNodeIdsByTheme(Integer themeId) {
+        GraphSnapshot graph = getSnapshot();
+        int theme = themeIdOf(themeId);
+        List<Integer> ids = new ArrayList<>();
+        for (int node : graph.themeNodes(theme)) {
+            int dbId = graph.nodeDbId(node);
+            if (!touchedNodes.containsKey(dbId)) {
+                ids.add(dbId);
+            }
+        }
+        for (Integer dbId : touchedNodes.keySet()) {
+            if (theme >= 0 && store.themeOfNode(dbId) == theme) {
+                ids.add(dbId);
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public synchronized List<Integer> getEdgeIdsByTheme(Integer themeId) {
+        GraphSnapshot graph = getSnapshot();
+        int theme = themeIdOf(themeId);
+        // 快照之后写入过的边，以及端点节点写入过（改名、改主题、增删）的边，归属需要按存储重新判断
+        Set<Integer> candidates = new HashSet<>(touchedEdges.keySet());
+        for (Integer dbId : touchedNodes.keySet()) {
+            addIncidentEdges(graph, graph.nodeIdOfDbId(dbId), candidates);
+            int current = store.nodeIdOfDbId(dbId);
+            if (current < graph.getNodeCount()) {
+                addIncidentEdges(graph, current, candidates);
+            }
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (int edge : graph.themeEdges(theme)) {
+            int dbId = graph.edgeDbId(edge);
+            if (!candidates.contains(dbId)) {
+                ids.add(dbId);
+            }
+        }
+        for (Integer dbId : candidates) {
+            int[] themes = store.endpointThemesOfEdge(dbId);
+            if (theme >= 0 && themes != null && (themes[0] == theme || themes[1] == theme)) {
+                ids.add(dbId);
+            }
+        }
+        return ids;
+    }
+
+    private static void addIncidentEdges(GraphSnapshot graph, int node, Set<Integer> edges) {
+        if (node < 0) {
+            return;
+        }
+        for (int edge : graph.incidentEdges(node)) {
+            edges.add(graph.edgeDbId(edge));
+        }
+    }
+
+    @Override
+    public synchronized long getThemeVersion(Integer themeId) {
+        if (store == null) {
+            load();
+        }
+        Long themeStamp = themeStamps.get(themeIdOf(themeId));
+        return Math.max(themeStamp != null ? themeStamp : 0L, reloadStamp);
+    }
+
+    // 索引尚未加载时忽略写通知，首次加载会读到最新数据
+    @Override
+    public synchronized void onNodeSaved(Node node) {
+        if (store == null || node == null || node.getId() == null) {
+            return;
+        }
+        // 节点改主题时旧主题和新主题都受影响
+        touchTheme(store.themeOfNode(node.getId()));
+        touchTheme(themeIdOf(node.getTheme() != null ? node.getTheme().getId() : null));
+        long coordinates = store.getCoordinateVersion();
+        boolean topology = store.putNode(node.getId(), node.getName(),
+                themeIdOf(node.getTheme() != null ? node.getTheme().getId() : null),
+                node.getX() != null ? node.getX() : Double.NaN, node.getY() != null ? node.getY() : Double.NaN);
+        if (topology) {
+            changed(true);
+            touchedNodes.put(node.getId(), changeSeq);
+        } else if (coordinates != store.getCoordinateVersion()) {
+            changed(false);
+        }
+    }
+
+    @Override
+    public synchronized void onNodeDeleted(Integer nodeId) {
+        if (store == null || nodeId == null) {
+            return;
+        }
+        touchTheme(store.themeOfNode(nodeId));
+        if (store.removeNode(nodeId)) {
+            changed(true);
+            touchedNodes.put(nodeId, changeSeq);
+        }
+    }
+
+    @Override
+    public synchronized void onEdgeSaved(Edge edge) {
+        if (store == null || edge == null || edge.getId() == null) {
+            return;
+        }
+        touchEdgeThemes(edge.getId());
+        boolean modified = store.putEdge(edge.getId(), edge.getSourceNodeName(), edge.getTargetNodeName(),
+                edge.getRelation(), themeIdOf(edge.getTheme() != null ? edge.getTheme().getId() : null),
+                edge.getWidth() != null ? edge.getWidth() : 2);
+        touchEdgeThemes(edge.getId());
+        if (modified) {
+            changed(true);
+            touchedEdges.put(edge.getId(), changeSeq);
+        }
+    }
+
+    @Override
+    public synchronized void onEdgeDeleted(Integer edgeId) {
+        if (store == null || edgeId == null) {
+            return;
+        }
+        touchEdgeThemes(edgeId);
+        if (store.removeEdge(edgeId)) {
+            changed(true);
+            touchedEdges.put(edgeId, changeSeq);
+        }
+    }
+
+    /**
+     * 只改坐标，不改变拓扑版本，依赖拓扑版本的缓存（社区、中心性、补全）不会因此失效
+     */
+    @Override
+    public synchronized void onNodesMoved(int[] nodeIds, double[] x, double[] y) {
+        if (store == null) {
+            return;
+        }
+        for (int i = 0; i < nodeIds.length; i++) {
+            touchTheme(store.themeOfNode(nodeIds[i]));
+            store.moveNode(nodeIds[i], x[i], y[i]);
+        }
+        changed(false);
+    }
+
+    @Override
+    public synchronized void reload() {
+        store = null;
+        snapshot = null;
+        version++;
+        changeSeq++;
+        touchedNodes.clear();
+        touchedEdges.clear();
+        themeStamps.clear();
+        reloadStamp = ++stamp;
+        skipSnapshot = true;
+    }
+
+    /**
+     * 定期把列式存储写入快照文件，复制在锁内完成，写文件在锁外
+     */
+    @Scheduled(fixedDelayString = "${graph.snapshot.interval:600000}",
+            initialDelayString = "${graph.snapshot.interval:600000}")
+    public void writeSnapshot() {
+        if (snapshotPath == null || snapshotPath.isEmpty()) {
+            return;
+        }
+        GraphStore.Image image;
+        long changeVersion;
+        synchronized (this) {
+            if (store == null || changeSeq == snapshotWrittenSeq) {
+                return;
+            }
+            // 先取变更日志版本再复制：两者之间提交的写入在启动补齐时会重放一次，重放是幂等的
+            changeVersion = currentChangeVersion();
+            image = store.image();
+            snapshotWrittenSeq = changeSeq;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            GraphStoreFile.write(image, changeVersion, new File(snapshotPath));
+            System.out.println("图快照已写入: " + snapshotPath + ", 变更版本 " + changeVersion
+                    + ", 耗时 " + (System.currentTimeMillis() - start) + " ms");
+        } catch (IOException e) {
+            synchronized (this) {
+                snapshotWrittenSeq = -1;
+            }
+            System.err.println("图快照写入失败: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+        writeSnapshot();
+    }
+
+    private void touchTheme(int themeId) {
+        if (themeId >= 0) {
+            themeStamps.put(themeId, ++stamp);
+        }
+    }
+
+    private void touchEdgeThemes(int edgeId) {
+        int[] themes = store.endpointThemesOfEdge(edgeId);
+        if (themes != null) {
+            touchTheme(themes[0]);
+            touchTheme(themes[1]);
+        }
+    }
+
+    private void changed(boolean topology) {
+        if (topology) {
+            version++;
+        }
+        changeSeq++;
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            try {
+                rebuildExecutor.schedule(this::rebuild, rebuildDelay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // 正在关闭
+                rebuildScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * 后台重建：锁内只复制列数据，CSR在锁外构建，构建期间的写入会触发下一次重建
+     */
+    private void rebuild() {
+        GraphStore base;
+        GraphStore.SnapshotSource source;
+        long seq;
+        synchronized (this) {
+            rebuildScheduled.set(false);
+            // 首次加载和reload()之后由读取方同步构建
+            if (store == null || snapshot == null || changeSeq == snapshotSeq) {
+                return;
+            }
+            base = store;
+            seq = changeSeq;
+            source = store.prepareSnapshot(version);
+        }
+        GraphSnapshot built = source.build();
+        synchronized (this) {
+            if (store == base && snapshot != null && seq > snapshotSeq) {
+                publish(built, seq);
+            }
+        }
+    }
+
+    private void publish(GraphSnapshot built, long seq) {
+        snapshot = built;
+        snapshotSeq = seq;
+        touchedNodes.values().removeIf(touched -> touched <= seq);
+        touchedEdges.values().removeIf(touched -> touched <= seq);
+    }
+
+    private static int themeIdOf(Integer themeId) {
+        return themeId != null ? themeId : -1;
+    }
+
+    private void load() {
+        boolean useSnapshot = !skipSnapshot;
+        skipSnapshot = false;
+        if (useSnapshot && loadFromSnapshot()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        GraphStore loaded = new GraphStore();
+        jdbcTemplate.query("SELECT id, name, theme_id, x, y FROM node", rs -> {
+            double x = rs.getDouble(4);
+            if (rs.wasNull()) {
+                x = Double.NaN;
+            }
+            double y = rs.getDouble(5);
+            if (rs.wasNull()) {
+                y = Double.NaN;
+            }
+            int themeId = rs.getInt(3);
+            loaded.putNode(rs.getInt(1), rs.getString(2), rs.wasNull() ? -1 : themeId, x, y);
+        });
+        jdbcTemplate.query("SELECT id, source_node_name, target_node_name, relation, theme_id, width FROM edge", rs -> {
+            int themeId = rs.getInt(5);
+            if (rs.wasNull()) {
+                themeId = -1;
+            }
+            int width = rs.getInt(6);
+            if (rs.wasNull()) {
+                width = 2;
+            }
+            loaded.putEdge(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4), themeId, width);
+        });
+        store = loaded;
+        version++;
+        System.out.println("图索引加载完成: " + loaded.getNodeCount() + " 个节点, " + loaded.getEdgeCount()
+                + " 条边, 耗时 " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * 读取快照并按变更日志补齐，快照不存在、损坏或无法补齐时返回false
+     */
+    private boolean loadFromSnapshot() {
+        if (snapshotPath == null || snapshotPath.isEmpty()) {
+            return false;
+        }
+        File file = new File(snapshotPath);
+        if (!file.isFile()) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        GraphStoreFile.Contents contents;
+        try {
+            contents = GraphStoreFile.read(file);
+        } catch (IOException e) {
+            System.err.println("图快照读取失败，改为全量加载: " + e.getMessage());
+            return false;
+        }
+        long readMillis = System.currentTimeMillis() - start;
+
+        long since = contents.getChangeVersion();
+        long current = currentChangeVersion();
+        Long minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM graph_change", Long.class);
+        Long pending = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM graph_change WHERE id > ?", Long.class, since);
+        // 变更日志被重建或清理到快照之后，或者积压太多时补齐不如全量加载
+        if (since > current || (minId != null && since < minId - 1) || (pending != null && pending > maxCatchUp)) {
+            System.out.println("图快照已过期（变更版本 " + since + "，当前 " + current + "），改为全量加载");
+            return false;
+        }
+
+        GraphStore loaded = contents.getStore();
+        int applied = catchUp(loaded, since);
+
+        // 绕过变更日志的写入（如直接执行SQL）无法补齐，行数、最大主键或主键之和不一致时视为快照不可用；
+        // 只改名、改主题的外部UPDATE检查不出来，应用内的写入（含数据库浏览）都会记录变更
+        if (!matches("node", loaded.getNodeCount(), loaded.maxNodeDbId(), loaded.nodeDbIdSum())
+                || !matches("edge", loaded.getEdgeCount(), loaded.maxEdgeDbId(), loaded.edgeDbIdSum())) {
+            System.out.println("图快照与数据库不一致，改为全量加载");
+            return false;
+        }
+
+        store = loaded;
+        version++;
+        System.out.println("图索引从快照加载完成: " + loaded.getNodeCount() + " 个节点, " + loaded.getEdgeCount()
+                + " 条边, 补齐 " + applied + " 条变更, 读取 " + readMillis + " ms, 总耗时 "
+                + (System.currentTimeMillis() - start) + " ms");
+        return true;
+    }
+
+    private boolean matches(String table, long count, long maxId, long idSum) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT COUNT(*) AS row_count, COALESCE(MAX(id), 0) AS max_id, COALESCE(SUM(id), 0) AS id_sum FROM " + table);
+        return ((Number) row.get("row_count")).longValue() == count
+                && ((Number) row.get("max_id")).longValue() == maxId
+                && ((Number) row.get("id_sum")).longValue() == idSum;
+    }
+
+    /**
+     * 重放快照之后的节点和边变更，同一实体只取最后一次动作，返回重放的实体数
+     */
+    private int catchUp(GraphStore loaded, long since) {
+        Map<Integer, String> nodeActions = new LinkedHashMap<>();
+        Map<Integer, String> edgeActions = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT entity_type, entity_id, action FROM graph_change WHERE id > ? ORDER BY id", rs -> {
+            String type = rs.getString(1);
+            if (GraphChange.TYPE_NODE.equals(type)) {
+                nodeActions.put(rs.getInt(2), rs.getString(3));
+            } else if (GraphChange.TYPE_EDGE.equals(type)) {
+                edgeActions.put(rs.getInt(2), rs.getString(3));
+            }
+        }, since);
+
+        // 先处理节点，边的端点按名称引用节点
+        Set<Integer> found = new HashSet<>();
+        List<Integer> upsertNodes = idsWithAction(nodeActions, GraphChange.ACTION_UPSERT);
+        for (int from = 0; from < upsertNodes.size(); from += CATCH_UP_CHUNK) {
+            List<Integer> chunk = upsertNodes.subList(from, Math.min(from + CATCH_UP_CHUNK, upsertNodes.size()));
+            jdbcTemplate.query("SELECT id, name, theme_id, x, y FROM node WHERE id IN (" + placeholders(chunk.size()) + ")",
+                    rs -> {
+                        double x = rs.getDouble(4);
+                        if (rs.wasNull()) {
+                            x = Double.NaN;
+                        }
+                        double y = rs.getDouble(5);
+                        if (rs.wasNull()) {
+                            y = Double.NaN;
+                        }
+                        int themeId = rs.getInt(3);
+                        loaded.putNode(rs.getInt(1), rs.getString(2), rs.wasNull() ? -1 : themeId, x, y);
+                        found.add(rs.getInt(1));
+                    }, chunk.toArray());
+        }
+        // 日志里是更新但行已不存在的，按删除处理
+        for (Integer id : nodeActions.keySet()) {
+            if (!found.contains(id)) {
+                loaded.removeNode(id);
+            }
+        }
+
+        found.clear();
+        List<Integer> upsertEdges = idsWithAction(edgeActions, GraphChange.ACTION_UPSERT);
+        for (int from = 0; from < upsertEdges.size(); from += CATCH_UP_CHUNK) {
+            List<Integer> chunk = upsertEdges.subList(from, Math.min(from + CATCH_UP_CHUNK, upsertEdges.size()));
+            jdbcTemplate.query("SELECT id, source_node_name, target_node_name, relation, theme_id, width FROM edge WHERE id IN ("
+                    + placeholders(chunk.size()) + ")", rs -> {
+                int themeId = rs.getInt(5);
+                if (rs.wasNull()) {
+                    themeId = -1;
+                }
+                int width = rs.getInt(6);
+                if (rs.wasNull()) {
+                    width = 2;
+                }
+                loaded.putEdge(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4), themeId, width);
+                found.add(rs.getInt(1));
+            }, chunk.toArray());
+        }
+        for (Integer id : edgeActions.keySet()) {
+            if (!found.contains(id)) {
+                loaded.removeEdge(id);
+            }
+        }
+        return nodeActions.size() + edgeActions.size();
+    }
+
+    /**
+     * 快照记录的变更版本取已提交水位，启动补齐时才不会跳过写快照时尚未提交的较小ID
+     */
+    private long currentChangeVersion() {
+        return changeVersionService.getCommittedVersion();
+    }
+
+    private static List<Integer> idsWithAction(Map<Integer, String> actions, String action) {
+        List<Integer> ids = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : actions.entrySet()) {
+            if (action.equals(entry.getValue())) {
+                ids.add(entry.getKey());
+            }
+        }
+        return ids;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,258 @@
+package com.cassini.graph.service.impl;
+
+import com.cassini.graph.algorithm.Direction;
+import com.cassini.graph.algorithm.NeighborhoodSearch;
+import com.cassini.graph.algorithm.PathFinder;
+import com.cassini.graph.index.GraphSnapshot;
+import com.cassini.graph.index.IntArrayList;
+import com.cassini.graph.index.SpatialIndex;
+import com.cassini.graph.repository.EdgeRepository;
+import com.cassini.graph.repository.NodeRepository;
+import com.cassini.graph.service.GraphIndexService;
+import com.cassini.graph.service.GraphQueryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 图遍历查询服务实现
+ * 遍历完全在内存快照上进行，最后按主键批量取回结果涉及的节点和边
+ */
+@Service
+public class GraphQueryServiceImpl implements GraphQueryService {
+
+    @Autowired
+    private GraphIndexService graphIndexService;
+
+    @Autowired
+    private NodeRepository nodeRepository;
+
+    @Autowired
+    private EdgeRepository edgeRepository;
+
+    // 聚合网格在屏幕上的边长（像素），换算到画布坐标为 cluster-cell / zoom
+    @Value("${graph.viewport.cluster-cell:64}")
+    private double clusterCell;
+
+    // 视口查询单独返回的节点数和边数上限，请求值超出时按上限执行
+    @Value("${graph.viewport.max-nodes:10000}")
+    private int maxViewportNodes;
+
+    @Value("${graph.viewport.max-edges:50000}")
+    private int maxViewportEdges;
+
+    // 邻域查询参数的上限，请求值超出时按上限执行
+    @Value("${graph.neighborhood.max-depth:6}")
+    private int maxDepth;
+
+    @Value("${graph.neighborhood.max-nodes:10000}")
+    private int maxNodes;
+
+    @Value("${graph.neighborhood.max-edges:50000}")
+    private int maxEdges;
+
+    // 路径搜索单次最多访问的节点数上限
+    @Value("${graph.path.max-explored:1000000}")
+    private int maxExploredLimit;
+
+    // 坐标版本不变时复用，节点移动或增删后在下次查询时重建
+    private volatile SpatialIndex spatialIndex;
+
+    @Override
+    public Map<String, Object> getNeighborhood(Integer nodeId, int depth, int nodeLimit, int edgeLimit,
+                                               List<String> relations, String direction) {
+        GraphSnapshot graph = graphIndexService.getSnapshot();
+        int start = graph.nodeIdOfDbId(nodeId);
+        if (start < 0) {
+            return null;
+        }
+        NeighborhoodSearch search = new NeighborhoodSearch(graph, Direction.parse(direction),
+                relationFilter(graph, relations));
+        NeighborhoodSearch.Result found = search.search(start, clamp(depth, 0, maxDepth), clamp(nodeLimit, 1, maxNodes),
+                clamp(edgeLimit, 0, maxEdges));
+
+        // 节点ID -> 跳数；仅被边引用、没有node记录的名称单独列出
+        Map<Integer, Integer> depths = new HashMap<>();
+        List<String> externalNodeNames = new ArrayList<>();
+        for (int i = 0; i < found.nodes.size(); i++) {
+            int node = found.nodes.get(i);
+            if (graph.nodeDbId(node) >= 0) {
+                depths.put(graph.nodeDbId(node), found.depths.get(i));
+            } else {
+                externalNodeNames.add(graph.nodeName(node));
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("center", nodeId);
+        result.put("depth", found.depthReached);
+        result.put("truncated", found.truncated);
+        result.put("depths", depths);
+        result.put("externalNodeNames", externalNodeNames);
+        result.put("nodes", nodeRepository.findAllById(depths.keySet()));
+        result.put("edges", edgeRepository.findAllById(toEdgeDbIds(graph, found.edges)));
+        return result;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(value, max));
+    }
+
+    @Override
+    public Map<String, Object> findPaths(Integer fromId, Integer toId, int k, boolean weighted,
+                                         List<String> relations, List<Integer> themes, String direction,
+                                         int maxExplored) {
+        GraphSnapshot graph = graphIndexService.getSnapshot();
+        int source = graph.nodeIdOfDbId(fromId);
+        int target = graph.nodeIdOfDbId(toId);
+        if (source < 0 || target < 0) {
+            return null;
+        }
+        Set<Integer> allowedThemes = themes == null || themes.isEmpty() ? null : new HashSet<>(themes);
+        PathFinder finder = new PathFinder(graph, Direction.parse(direction), relationFilter(graph, relations),
+                allowedThemes, weighted, clamp(maxExplored, 1, maxExploredLimit));
+
+        List<PathFinder.Path> paths;
+        if (k > 1) {
+            paths = finder.kShortestPaths(source, target, k);
+        } else {
+            PathFinder.Path path = weighted ? finder.dijkstra(source, target, null, null)
+                    : finder.bidirectionalBfs(source, target);
+            paths = path != null ? Collections.singletonList(path) : Collections.<PathFinder.Path>emptyList();
+        }
+
+        List<Map<String, Object>> pathList = new ArrayList<>();
+        Set<Integer> nodeIds = new LinkedHashSet<>();
+        Set<Integer> edgeIds = new LinkedHashSet<>();
+        for (PathFinder.Path path : paths) {
+            List<Integer> pathNodeIds = new ArrayList<>();
+            List<String> pathNodeNames = new ArrayList<>();
+            List<Integer> pathEdgeIds = new ArrayList<>();
+            for (int node : path.nodes) {
+                pathNodeIds.add(graph.nodeDbId(node) >= 0 ? graph.nodeDbId(node) : null);
+                pathNodeNames.add(graph.nodeName(node));
+                if (graph.nodeDbId(node) >= 0) {
+                    nodeIds.add(graph.nodeDbId(node));
+                }
+            }
+            for (int edge : path.edges) {
+                pathEdgeIds.add(graph.edgeDbId(edge));
+                edgeIds.add(graph.edgeDbId(edge));
+            }
+            Map<String, Object> item = new HashMap<>();
+            item.put("cost", path.cost);
+            item.put("length", path.edges.length);
+            item.put("nodeIds", pathNodeIds);
+            item.put("nodeNames", pathNodeNames);
+            item.put("edgeIds", pathEdgeIds);
+            pathList.add(item);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("found", !pathList.isEmpty());
+        result.put("exhausted", finder.isExhausted());
+        result.put("explored", finder.getExplored());
+        result.put("paths", pathList);
+        result.put("nodes", nodeRepository.findAllById(nodeIds));
+        result.put("edges", edgeRepository.findAllById(edgeIds));
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getViewport(double minX, double minY, double maxX, double maxY, Double zoom,
+                                           int nodeLimit, int edgeLimit) {
+        nodeLimit = clamp(nodeLimit, 0, maxViewportNodes);
+        edgeLimit = clamp(edgeLimit, 0, maxViewportEdges);
+        GraphSnapshot graph = graphIndexService.getSnapshot();
+        SpatialIndex index = spatialIndex;
+        if (index == null || index.getCoordinateVersion() != graph.getCoordinateVersion()) {
+            index = SpatialIndex.build(graph);
+            spatialIndex = index;
+        }
+        double clusterSize = zoom != null && zoom > 0 ? clusterCell / zoom : 0;
+        SpatialIndex.Result found = index.query(Math.min(minX, maxX), Math.min(minY, maxY),
+                Math.max(minX, maxX), Math.max(minY, maxY), clusterSize, nodeLimit, graph);
+
+        // 与可见节点相连的边，两端都可见的边只收集一次
+        List<Integer> nodeIds = new ArrayList<>(found.nodes.size());
+        List<Integer> edgeIds = new ArrayList<>();
+        BitSet seenEdges = new BitSet(graph.getEdgeCount());
+        boolean truncated = found.truncated;
+        collect:
+        for (int i = 0; i < found.nodes.size(); i++) {
+            int node = found.nodes.get(i);
+            nodeIds.add(graph.nodeDbId(node));
+            for (int edge : graph.incidentEdges(node)) {
+                if (seenEdges.get(edge)) {
+                    continue;
+                }
+                if (edgeIds.size() >= edgeLimit) {
+                    truncated = true;
+                    break collect;
+                }
+                seenEdges.set(edge);
+                edgeIds.add(graph.edgeDbId(edge));
+            }
+        }
+        for (int i = nodeIds.size(); i < found.nodes.size(); i++) {
+            nodeIds.add(graph.nodeDbId(found.nodes.get(i)));
+        }
+
+        List<Map<String, Object>> clusters = new ArrayList<>(found.clusters.size());
+        for (SpatialIndex.Cluster cluster : found.clusters) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("count", cluster.count);
+            item.put("x", cluster.getX());
+            item.put("y", cluster.getY());
+            item.put("minX", cluster.minX);
+            item.put("minY", cluster.minY);
+            item.put("maxX", cluster.maxX);
+            item.put("maxY", cluster.maxY);
+            clusters.add(item);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("version", graph.getVersion());
+        result.put("truncated", truncated);
+        result.put("clusterSize", clusterSize);
+        result.put("clusters", clusters);
+        result.put("nodes", nodeRepository.findAllById(nodeIds));
+        result.put("edges", edgeRepository.findAllById(edgeIds));
+        return result;
+    }
+
+    /**
+     * 将关系名称转换为按关系编号索引的过滤数组，未指定关系时返回null
+     */
+    static boolean[] relationFilter(GraphSnapshot graph, List<String> relations) {
+        if (relations == null || relations.isEmpty()) {
+            return null;
+        }
+        boolean[] allowed = new boolean[graph.getRelationCount()];
+        for (String relation : relations) {
+            int id = graph.relationIdOf(relation.trim());
+            if (id >= 0) {
+                allowed[id] = true;
+            }
+        }
+        return allowed;
+    }
+
+    static List<Integer> toEdgeDbIds(GraphSnapshot graph, IntArrayList edges) {
+        List<Integer> ids = new ArrayList<>(edges.size());
+        for (int i = 0; i < edges.size(); i++) {
+            ids.add(graph.edgeDbId(edges.get(i)));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,380 @@
+package com.cassini.graph.service.impl;
+
+import com.cassini.graph.entity.Theme;
+import com.cassini.graph.service.GraphChangeService;
+import com.cassini.graph.service.GraphStreamService;
+import com.cassini.graph.service.ThemeService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 图数据流式输出服务实现
+ * 使用MySQL Connector/J的流式结果集（fetchSize = Integer.MIN_VALUE），逐行读取逐行写出
+ */
+@Service
+public class GraphStreamServiceImpl implements GraphStreamService {
+
+    // 每写出多少行主动刷新一次输出流，让客户端尽早收到数据
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private static final String NODE_COLUMNS = "SELECT id, theme_id, name, properties, color, size, icon, x, y, created_at FROM node";
+
+    private static final String EDGE_COLUMNS = "SELECT id, source_node_name, target_node_name, relation, color, width, dashed, theme_id, created_at FROM edge";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ThemeService themeService;
+
+    @Autowired
+    private GraphChangeService graphChangeService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JdbcTemplate cursorJdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        cursorJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @Override
+    public void writeFullGraph(OutputStream out) throws IOException {
+        // 主题表很小，预先加载后按ID嵌入到每个节点和边中，与实体序列化结果保持一致
+        Map<Integer, Theme> themes = new HashMap<>();
+        for (Theme theme : themeService.getAllThemes()) {
+            themes.put(theme.getId(), theme);
+        }
+
+        // 先读取版本号，之后发生的变更会在下次增量同步中重复下发，不会遗漏
+        long version = graphChangeService.getCurrentVersion();
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("version", version);
+
+            generator.writeArrayFieldStart("nodes");
+            generator.flush();
+            streamRows(NODE_COLUMNS, generator, rs -> writeNode(generator, rs, themes));
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("edges");
+            streamRows(EDGE_COLUMNS, generator, rs -> writeEdge(generator, rs, themes));
+            generator.writeEndArray();
+
+            generator.writeEndObject();
+        } finally {
+            generator.close();
+        }
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private void streamRows(String sql, Flushable output, RowWriter writer, Object... args) throws IOException {
+        int[] count = {0};
+        try {
+            cursorJdbcTemplate.query(sql, rs -> {
+                try {
+                    writer.write(rs);
+                    if (++count[0] % FLUSH_INTERVAL == 0) {
+                        output.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args);
+        } catch (UncheckedIOException e) {
+            // 客户端断开连接等写出异常，原样抛出以终止查询
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void export(OutputStream out, String format, Integer themeId, List<String> relations) throws IOException {
+        if (!FORMAT_JSONL.equals(format) && !FORMAT_GRAPHML.equals(format) && !FORMAT_TSV.equals(format)) {
+            throw new IllegalArgumentException("Unknown format: " + format);
+        }
+        // 节点只按主题过滤，边按主题和关系过滤
+        List<Object> nodeArgs = new ArrayList<>();
+        String nodeSql = NODE_COLUMNS;
+        if (themeId != null) {
+            nodeSql += " WHERE theme_id = ?";
+            nodeArgs.add(themeId);
+        }
+        List<Object> edgeArgs = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (themeId != null) {
+            conditions.add("theme_id = ?");
+            edgeArgs.add(themeId);
+        }
+        if (relations != null && !relations.isEmpty()) {
+            conditions.add("relation IN (" + String.join(", ", Collections.nCopies(relations.size(), "?")) + ")");
+            edgeArgs.addAll(relations);
+        }
+        String edgeSql = conditions.isEmpty() ? EDGE_COLUMNS : EDGE_COLUMNS + " WHERE " + String.join(" AND ", conditions);
+
+        if (FORMAT_JSONL.equals(format)) {
+            exportJsonLines(out, themeId, nodeSql, nodeArgs.toArray(), edgeSql, edgeArgs.toArray());
+        } else {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 65536);
+            if (FORMAT_GRAPHML.equals(format)) {
+                exportGraphMl(writer, nodeSql, nodeArgs.toArray(), edgeSql, edgeArgs.toArray());
+            } else {
+                exportEdgeList(writer, edgeSql, edgeArgs.toArray());
+            }
+            writer.flush();
+        }
+    }
+
+    private void exportJsonLines(OutputStream out, Integer themeId, String nodeSql, Object[] nodeArgs,
+                                 String edgeSql, Object[] edgeArgs) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        try {
+            for (Theme theme : themeService.getAllThemes()) {
+                if (themeId != null && !themeId.equals(theme.getId())) {
+                    continue;
+                }
+                generator.writeStartObject();
+                generator.writeStringField("type", "theme");
+                generator.writeNumberField("id", theme.getId());
+                generator.writeStringField("name", theme.getName());
+                generator.writeStringField("description", theme.getDescription());
+                generator.writeStringField("defaultNodeColor", theme.getDefaultNodeColor());
+                generator.writeFieldName("defaultNodeSize");
+                generator.writeObject(theme.getDefaultNodeSize());
+                generator.writeStringField("defaultNodeIcon", theme.getDefaultNodeIcon());
+                generator.writeStringField("defaultEdgeColor", theme.getDefaultEdgeColor());
+                generator.writeFieldName("defaultEdgeWidth");
+                generator.writeObject(theme.getDefaultEdgeWidth());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+            streamRows(nodeSql, generator, rs -> {
+                generator.writeStartObject();
+                generator.writeStringField("type", "node");
+                generator.writeNumberField("id", rs.getInt("id"));
+                generator.writeNumberField("themeId", rs.getInt("theme_id"));
+                generator.writeStringField("name", rs.getString("name"));
+                // properties列为JSON类型，原样嵌入为对象
+                String properties = rs.getString("properties");
+                generator.writeFieldName("properties");
+                if (properties != null) {
+                    generator.writeRawValue(properties);
+                } else {
+                    generator.writeNull();
+                }
+                generator.writeStringField("color", rs.getString("color"));
+                generator.writeFieldName("size");
+                generator.writeObject(rs.getObject("size"));
+                generator.writeStringField("icon", rs.getString("icon"));
+                generator.writeFieldName("x");
+                generator.writeObject(rs.getObject("x"));
+                generator.writeFieldName("y");
+                generator.writeObject(rs.getObject("y"));
+                generator.writeFieldName("createdAt");
+                generator.writeObject(rs.getTimestamp("created_at"));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }, nodeArgs);
+            streamRows(edgeSql, generator, rs -> {
+                generator.writeStartObject();
+                generator.writeStringField("type", "edge");
+                generator.writeNumberField("id", rs.getInt("id"));
+                generator.writeStringField("sourceNodeName", rs.getString("source_node_name"));
+                generator.writeStringField("targetNodeName", rs.getString("target_node_name"));
+                generator.writeStringField("relation", rs.getString("relation"));
+                generator.writeStringField("color", rs.getString("color"));
+                generator.writeFieldName("width");
+                generator.writeObject(rs.getObject("width"));
+                boolean dashed = rs.getBoolean("dashed");
+                generator.writeFieldName("dashed");
+                generator.writeObject(rs.wasNull() ? null : dashed);
+                generator.writeNumberField("themeId", rs.getInt("theme_id"));
+                generator.writeFieldName("createdAt");
+                generator.writeObject(rs.getTimestamp("created_at"));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }, edgeArgs);
+        } finally {
+            generator.close();
+        }
+    }
+
+    private void exportGraphMl(Writer writer, String nodeSql, Object[] nodeArgs, String edgeSql, Object[] edgeArgs)
+            throws IOException {
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+        String[][] keys = {
+                {"node", "db_id", "int"}, {"node", "theme_id", "int"}, {"node", "properties", "string"},
+                {"node", "color", "string"}, {"node", "size", "int"}, {"node", "icon", "string"},
+                {"node", "x", "double"}, {"node", "y", "double"},
+                {"edge", "db_id", "int"}, {"edge", "relation", "string"}, {"edge", "color", "string"},
+                {"edge", "width", "int"}, {"edge", "dashed", "boolean"}, {"edge", "theme_id", "int"}};
+        for (String[] key : keys) {
+            writer.write("  <key id=\"" + key[0] + "_" + key[1] + "\" for=\"" + key[0] + "\" attr.name=\""
+                    + key[1] + "\" attr.type=\"" + key[2] + "\"/>\n");
+        }
+        writer.write("  <graph id=\"G\" edgedefault=\"directed\">\n");
+        streamRows(nodeSql, writer, rs -> {
+            writer.write("    <node id=\"");
+            writer.write(escapeXml(rs.getString("name")));
+            writer.write("\">");
+            writeData(writer, "node_db_id", rs.getString("id"));
+            writeData(writer, "node_theme_id", rs.getString("theme_id"));
+            writeData(writer, "node_properties", rs.getString("properties"));
+            writeData(writer, "node_color", rs.getString("color"));
+            writeData(writer, "node_size", rs.getString("size"));
+            writeData(writer, "node_icon", rs.getString("icon"));
+            writeData(writer, "node_x", rs.getString("x"));
+            writeData(writer, "node_y", rs.getString("y"));
+            writer.write("</node>\n");
+        }, nodeArgs);
+        streamRows(edgeSql, writer, rs -> {
+            writer.write("    <edge source=\"");
+            writer.write(escapeXml(rs.getString("source_node_name")));
+            writer.write("\" target=\"");
+            writer.write(escapeXml(rs.getString("target_node_name")));
+            writer.write("\">");
+            writeData(writer, "edge_db_id", rs.getString("id"));
+            writeData(writer, "edge_relation", rs.getString("relation"));
+            writeData(writer, "edge_color", rs.getString("color"));
+            writeData(writer, "edge_width", rs.getString("width"));
+            boolean dashed = rs.getBoolean("dashed");
+            writeData(writer, "edge_dashed", rs.wasNull() ? null : String.valueOf(dashed));
+            writeData(writer, "edge_theme_id", rs.getString("theme_id"));
+            writer.write("</edge>\n");
+        }, edgeArgs);
+        writer.write("  </graph>\n</graphml>\n");
+    }
+
+    private static void writeData(Writer writer, String key, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        writer.write("<data key=\"");
+        writer.write(key);
+        writer.write("\">");
+        writer.write(escapeXml(value));
+        writer.write("</data>");
+    }
+
+    /**
+     * 转义XML特殊字符，并去掉XML 1.0不允许出现的控制字符
+     */
+    private static String escapeXml(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement;
+            switch (c) {
+                case '&': replacement = "&amp;"; break;
+                case '<': replacement = "&lt;"; break;
+                case '>': replacement = "&gt;"; break;
+                case '"': replacement = "&quot;"; break;
+                case '\'': replacement = "&apos;"; break;
+                default:
+                    replacement = c < 0x20 && c != '\t' && c != '\n' && c != '\r' ? "" : null;
+            }
+            if (replacement != null) {
+                if (escaped == null) {
+                    escaped = new StringBuilder(value.length() + 16);
+                    escaped.append(value, 0, i);
+                }
+                escaped.append(replacement);
+            } else if (escaped != null) {
+                escaped.append(c);
+            }
+        }
+        return escaped != null ? escaped.toString() : value;
+    }
+
+    private void exportEdgeList(Writer writer, String edgeSql, Object[] edgeArgs) throws IOException {
+        writer.write("#source\ttarget\trelation\twidth\n");
+        streamRows(edgeSql, writer, rs -> {
+            writer.write(escapeTsv(rs.getString("source_node_name")));
+            writer.write('\t');
+            writer.write(escapeTsv(rs.getString("target_node_name")));
+            writer.write('\t');
+            writer.write(escapeTsv(rs.getString("relation")));
+            writer.write('\t');
+            int width = rs.getInt("width");
+            writer.write(rs.wasNull() ? "" : String.valueOf(width));
+            writer.write('\n');
+        }, edgeArgs);
+    }
+
+    private static String escapeTsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private void writeNode(JsonGenerator generator, ResultSet rs, Map<Integer, Theme> themes)
+            throws SQLException, IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", rs.getInt("id"));
+        generator.writeFieldName("theme");
+        generator.writeObject(themes.get(rs.getInt("theme_id")));
+        generator.writeStringField("name", rs.getString("name"));
+        generator.writeStringField("properties", rs.getString("properties"));
+        generator.writeStringField("color", rs.getString("color"));
+        generator.writeFieldName("size");
+        generator.writeObject(rs.getObject("size"));
+        generator.writeStringField("icon", rs.getString("icon"));
+        generator.writeFieldName("x");
+        generator.writeObject(rs.getObject("x"));
+        generator.writeFieldName("y");
+        generator.writeObject(rs.getObject("y"));
+        generator.writeFieldName("createdAt");
+        generator.writeObject(rs.getTimestamp("created_at"));
+        generator.writeEndObject();
+    }
+
+    private void writeEdge(JsonGenerator generator, ResultSet rs, Map<Integer, Theme> themes)
+            throws SQLException, IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", rs.getInt("id"));
+        generator.writeStringField("sourceNodeName", rs.getString("source_node_name"));
+        generator.writeStringField("targetNodeName", rs.getString("target_node_name"));
+        generator.writeStringField("relation", rs.getString("relation"));
+        generator.writeStringField("color", rs.getString("color"));
+        generator.writeFieldName("width");
+        generator.writeObject(rs.getObject("width"));
+        boolean dashed = rs.getBoolean("dashed");
+        generator.writeFieldName("dashed");
+        generator.writeObject(rs.wasNull() ? null : dashed);
+        generator.writeFieldName("theme");
+        generator.writeObject(themes.get(rs.getInt("theme_id")));
+        generator.writeFieldName("createdAt");
+        generator.writeObject(rs.getTimestamp("created_at"));
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,443 @@
+package com.cassini.graph.service.impl;
+
+import com.cassini.graph.entity.GraphChange;
+import com.cassini.graph.entity.Theme;
+import com.cassini.graph.model.ImportJob;
+import com.cassini.graph.service.GraphChangeService;
+import com.cassini.graph.service.GraphIndexService;
+import com.cassini.graph.service.ImportService;
+import com.cassini.graph.service.NodeSearchService;
+import com.cassini.graph.service.PropertyIndexService;
+import com.cassini.graph.service.ThemeService;
+import com.cassini.graph.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 批量导入服务实现
+ * 输入逐行解析校验，合格的行攒满一块后在单独事务中批量插入（依赖rewriteBatchedStatements合并为多值INSERT）；
+ * 某一块插入失败时回滚该块并逐行重试，只拒绝真正出错的行
+ */
+@Service
+public class ImportServiceImpl implements ImportService {
+
+    private static final String NODE_SQL = "INSERT INTO node (theme_id, name, properties, color, size, icon, x, y, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String EDGE_SQL = "INSERT INTO edge (source_node_name, target_node_name, relation, color, width, "
+            + "dashed, theme_id, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // 保留的任务记录数
+    private static final int MAX_JOBS = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ThemeService themeService;
+
+    @Autowired
+    private GraphIndexService graphIndexService;
+
+    @Autowired
+    private GraphChangeService graphChangeService;
+
+    @Autowired
+    private PropertyIndexService propertyIndexService;
+
+    @Autowired
+    private NodeSearchService nodeSearchService;
+
+    // 每个事务插入的行数
+    @Value("${graph.import.chunk-size:5000}")
+    private int chunkSize;
+
+    // 每个任务最多保留的拒绝行明细
+    @Value("${graph.import.max-rejections:1000}")
+    private int maxRejections;
+
+    private final Map<String, ImportJob> jobs = Collections.synchronizedMap(new LinkedHashMap<String, ImportJob>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest) {
+            return size() > MAX_JOBS;
+        }
+    });
+
+    /**
+     * 解析后的一行：列名已统一为小写且去掉下划线
+     */
+    private static class Row {
+        long line;
+        String raw;
+        Map<String, String> values;
+        // 行本身无法解析时的错误信息
+        String error;
+
+        String get(String... names) {
+            for (String name : names) {
+                String value = values.get(name);
+                if (value != null && !value.trim().isEmpty()) {
+                    return value.trim();
+                }
+            }
+            return null;
+        }
+    }
+
+    private interface RowSource {
+        Row next() throws IOException;
+    }
+
+    private static class PendingRow {
+        final Row row;
+        final Object[] params;
+
+        PendingRow(Row row, Object[] params) {
+            this.row = row;
+            this.params = params;
+        }
+    }
+
+    private static String normalize(String column) {
+        return column.trim().toLowerCase().replace("_", "").replace("-", "");
+    }
+
+    @Override
+    public ImportJob importData(String entityType, String format, InputStream input, boolean createThemes) {
+        boolean nodes = ENTITY_NODE.equals(entityType);
+        if (!nodes && !ENTITY_EDGE.equals(entityType)) {
+            throw new IllegalArgumentException("Unknown entity type: " + entityType);
+        }
+        if (!FORMAT_CSV.equals(format) && !FORMAT_JSONL.equals(format)) {
+            throw new IllegalArgumentException("Unknown format: " + format);
+        }
+
+        ImportJob job = new ImportJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setEntityType(entityType);
+        job.setFormat(format);
+        job.setStatus(ImportJob.STATUS_RUNNING);
+        job.setStartedAt(new Date());
+        jobs.put(job.getId(), job);
+
+        String table = nodes ? "node" : "edge";
+        Long maxIdBefore = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ThemeResolver themes = new ThemeResolver(createThemes, job);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            RowSource source = FORMAT_CSV.equals(format) ? csvSource(reader) : jsonlSource(reader);
+            List<PendingRow> chunk = new ArrayList<>(chunkSize);
+            Row row;
+            while ((row = source.next()) != null) {
+                job.setProcessedRows(job.getProcessedRows() + 1);
+                if (row.error != null) {
+                    reject(job, row, row.error);
+                    continue;
+                }
+                try {
+                    chunk.add(new PendingRow(row, nodes ? nodeParams(row, themes, now) : edgeParams(row, themes, now)));
+                } catch (IllegalArgumentException e) {
+                    reject(job, row, e.getMessage());
+                }
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, nodes ? NODE_SQL : EDGE_SQL, transaction, job);
+                }
+            }
+            flush(chunk, nodes ? NODE_SQL : EDGE_SQL, transaction, job);
+            job.setStatus(ImportJob.STATUS_DONE);
+        } catch (Exception e) {
+            e.printStackTrace();
+            job.setStatus(ImportJob.STATUS_FAILED);
+            job.setMessage(e.getMessage());
+        } finally {
+            // 已提交的块无论任务是否完成都需要记录变更并刷新图索引
+            if (job.getImportedRows() > 0) {
+                List<Integer> ids = jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE id > ?",
+                        Integer.class, maxIdBefore);
+                graphChangeService.recordChanges(nodes ? GraphChange.TYPE_NODE : GraphChange.TYPE_EDGE, ids,
+                        GraphChange.ACTION_UPSERT);
+                graphIndexService.reload();
+                if (nodes) {
+                    propertyIndexService.reload();
+                    nodeSearchService.reload();
+                }
+            }
+            job.setFinishedAt(new Date());
+        }
+        return job;
+    }
+
+    @Override
+    public ImportJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    @Override
+    public Collection<ImportJob> getJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    private void flush(List<PendingRow> chunk, String sql, TransactionTemplate transaction, ImportJob job) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Object[]> params = new ArrayList<>(chunk.size());
+        for (PendingRow pending : chunk) {
+            params.add(pending.params);
+        }
+        try {
+            transaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, params));
+            job.setImportedRows(job.getImportedRows() + chunk.size());
+        } catch (DataAccessException e) {
+            // 整块回滚后逐行插入，定位出错的行
+            for (PendingRow pending : chunk) {
+                try {
+                    jdbcTemplate.update(sql, pending.params);
+                    job.setImportedRows(job.getImportedRows() + 1);
+                } catch (DataAccessException rowError) {
+                    reject(job, pending.row, rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        chunk.clear();
+    }
+
+    private void reject(ImportJob job, Row row, String reason) {
+        job.setRejectedRows(job.getRejectedRows() + 1);
+        if (job.getRejections().size() < maxRejections) {
+            job.getRejections().add(new ImportJob.Rejection(row.line, reason, row.raw));
+        }
+    }
+
+    private Object[] nodeParams(Row row, ThemeResolver themes, Timestamp now) {
+        String name = required(row, "name", 100, "name");
+        Integer themeId = themes.resolve(row);
+        String properties = row.get("properties");
+        if (properties != null) {
+            try {
+                objectMapper.readTree(properties);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("properties不是合法的JSON");
+            }
+        }
+        return new Object[]{themeId, name, properties, optional(row, "color", 20, "color"),
+                parseInteger(row.get("size"), "size"), optional(row, "icon", 100, "icon"),
+                parseDouble(row.get("x"), "x"), parseDouble(row.get("y"), "y"), now};
+    }
+
+    private Object[] edgeParams(Row row, ThemeResolver themes, Timestamp now) {
+        String source = required(row, "source", 100, "source", "sourcenodename", "sourcename");
+        String target = required(row, "target", 100, "target", "targetnodename", "targetname");
+        String relation = required(row, "relation", 50, "relation");
+        Integer themeId = themes.resolve(row);
+        Integer width = parseInteger(row.get("width"), "width");
+        String dashed = row.get("dashed");
+        return new Object[]{source, target, relation, optional(row, "color", 20, "color"),
+                width != null ? width : 2, dashed != null && ("true".equalsIgnoreCase(dashed) || "1".equals(dashed)),
+                themeId, now};
+    }
+
+    private static String required(Row row, String label, int maxLength, String... names) {
+        String value = row.get(names);
+        if (value == null) {
+            throw new IllegalArgumentException("缺少" + label);
+        }
+        if (value.length() > maxLength) {
+            throw new IllegalArgumentException(label + "超过" + maxLength + "个字符");
+        }
+        return value;
+    }
+
+    private static String optional(Row row, String label, int maxLength, String... names) {
+        String value = row.get(names);
+        if (value != null && value.length() > maxLength) {
+            throw new IllegalArgumentException(label + "超过" + maxLength + "个字符");
+        }
+        return value;
+    }
+
+    private static Integer parseInteger(String value, String label) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(label + "不是整数: " + value);
+        }
+    }
+
+    private static Double parseDouble(String value, String label) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(label + "不是数字: " + value);
+        }
+    }
+
+    /**
+     * 首行为列名的CSV
+     */
+    private RowSource csvSource(BufferedReader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return () -> null;
+        }
+        List<String> columns = new ArrayList<>(header.size());
+        for (String column : header) {
+            columns.add(normalize(column));
+        }
+        return () -> {
+            List<String> fields;
+            do {
+                fields = csv.readRecord();
+            } while (fields != null && fields.size() == 1 && fields.get(0).isEmpty());
+            if (fields == null) {
+                return null;
+            }
+            Row row = new Row();
+            row.line = csv.getRecordLine();
+            row.raw = String.join(",", fields);
+            row.values = new HashMap<>();
+            for (int i = 0; i < fields.size() && i < columns.size(); i++) {
+                row.values.put(columns.get(i), fields.get(i));
+            }
+            return row;
+        };
+    }
+
+    /**
+     * 每行一个JSON对象，嵌套的对象/数组（如properties）按JSON文本保存
+     */
+    private RowSource jsonlSource(BufferedReader reader) {
+        long[] lineNumber = new long[1];
+        return () -> {
+            String text;
+            do {
+                text = reader.readLine();
+                lineNumber[0]++;
+            } while (text != null && text.trim().isEmpty());
+            if (text == null) {
+                return null;
+            }
+            Row row = new Row();
+            row.line = lineNumber[0];
+            row.raw = text;
+            row.values = new HashMap<>();
+            try {
+                JsonNode object = objectMapper.readTree(text);
+                if (!object.isObject()) {
+                    row.error = "不是JSON对象";
+                    return row;
+                }
+                Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    JsonNode value = field.getValue();
+                    if (value.isNull()) {
+                        continue;
+                    }
+                    row.values.put(normalize(field.getKey()), value.isContainerNode() ? value.toString() : value.asText());
+                }
+            } catch (JsonProcessingException e) {
+                row.error = "JSON解析失败: " + e.getOriginalMessage();
+            }
+            return row;
+        };
+    }
+
+    /**
+     * 主题名称/ID解析，按需创建缺失的主题
+     */
+    private class ThemeResolver {
+
+        private final boolean create;
+
+        private final ImportJob job;
+
+        private final Map<String, Integer> idByName = new HashMap<>();
+
+        private final Set<Integer> ids = new HashSet<>();
+
+        ThemeResolver(boolean create, ImportJob job) {
+            this.create = create;
+            this.job = job;
+            for (Theme theme : themeService.getAllThemes()) {
+                idByName.putIfAbsent(theme.getName(), theme.getId());
+                ids.add(theme.getId());
+            }
+        }
+
+        Integer resolve(Row row) {
+            String idText = row.get("themeid");
+            if (idText != null) {
+                Integer id = parseInteger(idText, "theme_id");
+                if (!ids.contains(id)) {
+                    throw new IllegalArgumentException("主题不存在: " + id);
+                }
+                return id;
+            }
+            String name = row.get("theme", "themename");
+            if (name == null) {
+                throw new IllegalArgumentException("缺少theme或theme_id");
+            }
+            Integer id = idByName.get(name);
+            if (id == null) {
+                if (!create) {
+                    throw new IllegalArgumentException("主题不存在: " + name);
+                }
+                if (name.length() > 50) {
+                    throw new IllegalArgumentException("theme超过50个字符");
+                }
+                Theme theme = new Theme();
+                theme.setName(name);
+                id = themeService.saveTheme(theme).getId();
+                idByName.put(name, id);
+                ids.add(id);
+                job.setCreatedThemes(job.getCreatedThemes() + 1);
+            }
+            return id;
+        }
+    }
+}
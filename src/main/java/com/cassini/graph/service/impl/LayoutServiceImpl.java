@@ -0,0 +1,270 @@
+package com.cassini.graph.service.impl;
+
+import com.cassini.graph.algorithm.ForceLayout;
+import com.cassini.graph.entity.GraphChange;
+import com.cassini.graph.index.GraphSnapshot;
+import com.cassini.graph.index.IntArrayList;
+import com.cassini.graph.index.IntIntMap;
+import com.cassini.graph.model.LayoutJob;
+import com.cassini.graph.service.GraphChangeService;
+import com.cassini.graph.service.GraphIndexService;
+import com.cassini.graph.service.LayoutService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 服务端图布局服务实现
+ * 布局任务在单独的后台线程中排队执行，单个任务内部的受力计算使用fork/join并行
+ */
+@Service
+public class LayoutServiceImpl implements LayoutService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private GraphIndexService graphIndexService;
+
+    @Autowired
+    private GraphChangeService graphChangeService;
+
+    // 并行度，0表示使用CPU核数
+    @Value("${graph.layout.parallelism:0}")
+    private int parallelism;
+
+    @Value("${graph.layout.iterations:300}")
+    private int iterations;
+
+    @Value("${graph.layout.incremental-iterations:60}")
+    private int incrementalIterations;
+
+    // 理想边长（画布像素）
+    @Value("${graph.layout.edge-length:80}")
+    private double edgeLength;
+
+    @Value("${graph.layout.batch-size:1000}")
+    private int batchSize;
+
+    // 是否定期为缺少坐标的节点自动执行增量布局，默认关闭，需要时显式开启
+    @Value("${graph.layout.auto:false}")
+    private boolean autoLayout;
+
+    private final ConcurrentHashMap<Integer, LayoutJob> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "graph-layout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool = parallelism > 0 ? new ForkJoinPool(parallelism) : new ForkJoinPool();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    @Override
+    public synchronized LayoutJob submitLayout(Integer themeId, boolean incremental) {
+        LayoutJob existing = jobs.get(themeId);
+        if (existing != null && (LayoutJob.STATUS_QUEUED.equals(existing.getStatus())
+                || LayoutJob.STATUS_RUNNING.equals(existing.getStatus()))) {
+            return existing;
+        }
+        LayoutJob job = new LayoutJob();
+        job.setThemeId(themeId);
+        job.setIncremental(incremental);
+        job.setStatus(LayoutJob.STATUS_QUEUED);
+        job.setSubmittedAt(new Date());
+        jobs.put(themeId, job);
+        executor.submit(() -> runJob(job));
+        return job;
+    }
+
+    @Override
+    public LayoutJob getJob(Integer themeId) {
+        return jobs.get(themeId);
+    }
+
+    @Override
+    public Collection<LayoutJob> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    /**
+     * 定期为存在未定位节点的主题提交增量布局
+     */
+    @Scheduled(fixedDelayString = "${graph.layout.auto-interval:300000}", initialDelay = 120000L)
+    public void layoutUnplacedNodes() {
+        if (!autoLayout) {
+            return;
+        }
+        List<Integer> themeIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT theme_id FROM node WHERE x IS NULL OR y IS NULL", Integer.class);
+        for (Integer themeId : themeIds) {
+            submitLayout(themeId, true);
+        }
+    }
+
+    private void runJob(LayoutJob job) {
+        job.setStatus(LayoutJob.STATUS_RUNNING);
+        jobs.put(job.getThemeId(), job);
+        try {
+            layoutTheme(job);
+            job.setStatus(LayoutJob.STATUS_DONE);
+        } catch (Exception e) {
+            e.printStackTrace();
+            job.setStatus(LayoutJob.STATUS_FAILED);
+            job.setMessage(e.getMessage());
+        }
+        job.setFinishedAt(new Date());
+        jobs.put(job.getThemeId(), job);
+    }
+
+    private void layoutTheme(LayoutJob job) {
+        long start = System.currentTimeMillis();
+        Integer themeId = job.getThemeId();
+        GraphSnapshot graph = graphIndexService.getSnapshot();
+
+        // 读取主题节点的当前坐标，并建立索引编号到局部编号的映射
+        ThemeNodes nodes = new ThemeNodes();
+        IntIntMap localByNode = new IntIntMap();
+        jdbcTemplate.query("SELECT id, name, x, y FROM node WHERE theme_id = ?", rs -> {
+            int node = graph.nodeIdOf(rs.getString(2));
+            double x = rs.getDouble(3);
+            boolean placed = !rs.wasNull();
+            double y = rs.getDouble(4);
+            placed = placed && !rs.wasNull();
+            if (node >= 0 && !localByNode.containsKey(node)) {
+                localByNode.put(node, nodes.size);
+                nodes.add(rs.getInt(1), x, y, placed);
+            }
+        }, themeId);
+
+        IntArrayList sources = new IntArrayList();
+        IntArrayList targets = new IntArrayList();
+        for (int e : graph.themeEdges(themeId)) {
+            int source = localByNode.get(graph.edgeSource(e), -1);
+            int target = localByNode.get(graph.edgeTarget(e), -1);
+            if (source >= 0 && target >= 0) {
+                sources.add(source);
+                targets.add(target);
+            }
+        }
+
+        int n = nodes.size;
+        int placedCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (nodes.placed[i]) {
+                placedCount++;
+            }
+        }
+        // 没有任何已定位节点时增量模式退化为完整布局
+        boolean incremental = job.isIncremental() && placedCount > 0;
+        double[] mobility = new double[n];
+        for (int i = 0; i < n; i++) {
+            mobility[i] = incremental && nodes.placed[i] ? 0.0 : 1.0;
+        }
+        job.setNodeCount(n);
+        job.setEdgeCount(sources.size());
+        if (incremental && placedCount == n) {
+            job.setMessage("没有需要布局的新节点");
+            return;
+        }
+
+        double[] x = Arrays.copyOf(nodes.x, n);
+        double[] y = Arrays.copyOf(nodes.y, n);
+        ForceLayout layout = new ForceLayout(n, sources.toArray(), targets.toArray(), x, y, mobility, edgeLength);
+        layout.seedPositions(Arrays.copyOf(nodes.placed, n), themeId);
+        if (incremental) {
+            layout.run(incrementalIterations, edgeLength * 2, pool);
+        } else {
+            layout.run(iterations, Math.sqrt(n) * edgeLength * 0.1 + edgeLength, pool);
+        }
+
+        // 分批写回坐标
+        List<Integer> movedIds = new ArrayList<>();
+        IntArrayList movedLocal = new IntArrayList();
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < n; i++) {
+            if (mobility[i] == 0.0) {
+                continue;
+            }
+            movedIds.add(nodes.ids[i]);
+            movedLocal.add(i);
+            batch.add(new Object[]{x[i], y[i], nodes.ids[i]});
+            if (batch.size() >= batchSize) {
+                jdbcTemplate.batchUpdate("UPDATE node SET x = ?, y = ? WHERE id = ?", batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE node SET x = ?, y = ? WHERE id = ?", batch);
+        }
+
+        // 先同步内存索引中的坐标（供视口查询使用）再记录变更：快照文件记下的变更版本必须已包含在索引内容中
+        int moved = movedLocal.size();
+        int[] movedDbIds = new int[moved];
+        double[] movedX = new double[moved];
+        double[] movedY = new double[moved];
+        for (int i = 0; i < moved; i++) {
+            int local = movedLocal.get(i);
+            movedDbIds[i] = nodes.ids[local];
+            movedX[i] = x[local];
+            movedY[i] = y[local];
+        }
+        graphIndexService.onNodesMoved(movedDbIds, movedX, movedY);
+        graphChangeService.recordChanges(GraphChange.TYPE_NODE, movedIds, GraphChange.ACTION_UPSERT);
+
+        job.setMovedNodeCount(movedIds.size());
+        job.setMessage("布局完成，耗时 " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * 主题节点的列式缓存
+     */
+    private static class ThemeNodes {
+        int[] ids = new int[16];
+        double[] x = new double[16];
+        double[] y = new double[16];
+        boolean[] placed = new boolean[16];
+        int size;
+
+        void add(int id, double px, double py, boolean hasPosition) {
+            if (size == ids.length) {
+                int length = size * 2;
+                ids = Arrays.copyOf(ids, length);
+                x = Arrays.copyOf(x, length);
+                y = Arrays.copyOf(y, length);
+                placed = Arrays.copyOf(placed, length);
+            }
+            ids[size] = id;
+            x[size] = px;
+            y[size] = py;
+            placed[size] = hasPosition;
+            size++;
+        }
+    }
+}
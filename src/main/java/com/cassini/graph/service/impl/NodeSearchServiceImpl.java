@@ -0,0 +1,190 @@
+package com.cassini.graph.service.impl;
+
+import com.cassini.graph.entity.Node;
+import com.cassini.graph.index.TextIndex;
+import com.cassini.graph.index.TextTokenizer;
+import com.cassini.graph.repository.NodeRepository;
+import com.cassini.graph.service.NodeSearchService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 节点全文检索服务实现
+ * 名称的词项重复计入一次，使名称命中的权重高于属性命中；properties只索引字符串值。
+ * 检索持读锁并发执行，写入和加载持写锁
+ */
+@Service
+public class NodeSearchServiceImpl implements NodeSearchService {
+
+    // 名称词项的重复次数
+    private static final int NAME_BOOST = 2;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NodeRepository nodeRepository;
+
+    private TextIndex index;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public Map<String, Object> search(String query, Integer themeId, int offset, int limit) {
+        List<String> terms = new ArrayList<>();
+        TextTokenizer.tokenizeForQuery(query, terms);
+        long start = System.nanoTime();
+        TextIndex.Result found = find(terms, themeId, offset, limit);
+        long took = (System.nanoTime() - start) / 1000;
+
+        List<Map<String, Object>> hits = new ArrayList<>(found.getNodeIds().length);
+        List<Integer> ids = new ArrayList<>(found.getNodeIds().length);
+        for (int i = 0; i < found.getNodeIds().length; i++) {
+            Map<String, Object> hit = new LinkedHashMap<>();
+            hit.put("id", found.getNodeIds()[i]);
+            hit.put("score", found.getScores()[i]);
+            hits.add(hit);
+            ids.add(found.getNodeIds()[i]);
+        }
+        // findAllById不保证顺序，按相关度重新排列
+        Map<Integer, Node> byId = new HashMap<>();
+        for (Node node : nodeRepository.findAllById(ids)) {
+            byId.put(node.getId(), node);
+        }
+        List<Node> nodes = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Node node = byId.get(id);
+            if (node != null) {
+                nodes.add(node);
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("total", found.getTotal());
+        result.put("terms", terms);
+        result.put("tookMicros", took);
+        result.put("hits", hits);
+        result.put("nodes", nodes);
+        return result;
+    }
+
+    @Override
+    public void onNodeSaved(Node node) {
+        if (node.getId() == null) {
+            return;
+        }
+        Integer themeId = node.getTheme() != null ? node.getTheme().getId() : null;
+        // 分词在锁外完成
+        List<String> terms = terms(node.getName(), node.getProperties());
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                index.put(node.getId(), themeId != null ? themeId : 0, terms);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onNodeDeleted(Integer nodeId) {
+        if (nodeId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                index.remove(nodeId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void reload() {
+        lock.writeLock().lock();
+        try {
+            index = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 读锁下检索；索引尚未加载（或刚被reload清空）时改持写锁加载后重试
+     */
+    private TextIndex.Result find(List<String> terms, Integer themeId, int offset, int limit) {
+        while (true) {
+            lock.readLock().lock();
+            try {
+                if (index != null) {
+                    return index.search(terms, themeId, offset, limit);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            lock.writeLock().lock();
+            try {
+                if (index == null) {
+                    load();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        TextIndex loaded = new TextIndex();
+        jdbcTemplate.query("SELECT id, name, theme_id, properties FROM node ORDER BY id", rs -> {
+            loaded.put(rs.getInt(1), rs.getInt(3), terms(rs.getString(2), rs.getString(4)));
+        });
+        index = loaded;
+        System.out.println("全文索引加载完成：" + loaded.size() + " 个节点，" + loaded.termCount()
+                + " 个词项，耗时 " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private List<String> terms(String name, String properties) {
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < NAME_BOOST; i++) {
+            TextTokenizer.tokenizeForIndex(name, terms);
+        }
+        if (properties != null && !properties.isEmpty()) {
+            try {
+                JsonNode root = objectMapper.readTree(properties);
+                if (root != null) {
+                    collectText(root, terms);
+                }
+            } catch (Exception e) {
+                // 无法解析的properties不参与检索
+            }
+        }
+        return terms;
+    }
+
+    private static void collectText(JsonNode node, List<String> terms) {
+        if (node.isTextual()) {
+            TextTokenizer.tokenizeForIndex(node.asText(), terms);
+        } else if (node.isContainerNode()) {
+            for (JsonNode child : node) {
+                collectText(child, terms);
+            }
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package com.cassini.graph.service.impl;
 
+import com.cassini.graph.entity.GraphChange;
 import com.cassini.graph.entity.Node;
 import com.cassini.graph.repository.NodeRepository;
+import com.cassini.graph.service.GraphChangeService;
+import com.cassini.graph.service.GraphIndexService;
+import com.cassini.graph.service.NodeSearchService;
 import com.cassini.graph.service.NodeService;
+import com.cassini.graph.service.PropertyIndexService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -15,6 +20,18 @@ public class NodeServiceImpl implements NodeService {
     @Autowired
     private NodeRepository nodeRepository;
 
+    @Autowired
+    private GraphIndexService graphIndexService;
+
+    @Autowired
+    private GraphChangeService graphChangeService;
+
+    @Autowired
+    private PropertyIndexService propertyIndexService;
+
+    @Autowired
+    private NodeSearchService nodeSearchService;
+
     @Override
     public List<Node> getAllNodes() {
         return nodeRepository.findAll();
@@ -32,11 +49,36 @@ public class NodeServiceImpl implements NodeService {
 
     @Override
     public Node saveNode(Node node) {
-        return nodeRepository.save(node);
+        Node savedNode = nodeRepository.save(node);
+        graphIndexService.onNodeSaved(savedNode);
+        propertyIndexService.onNodeSaved(savedNode);
+        nodeSearchService.onNodeSaved(savedNode);
+        graphChangeService.recordChange(GraphChange.TYPE_NODE, savedNode.getId(), GraphChange.ACTION_UPSERT);
+        return savedNode;
     }
 
     @Override
     public void deleteNode(Integer id) {
         nodeRepository.deleteById(id);
+        graphIndexService.onNodeDeleted(id);
+        propertyIndexService.onNodeDeleted(id);
+        nodeSearchService.onNodeDeleted(id);
+        graphChangeService.recordChange(GraphChange.TYPE_NODE, id, GraphChange.ACTION_DELETE);
+    }
+
+    @Override
+    public void syncNode(Integer id) {
+        Optional<Node> node = nodeRepository.findById(id);
+        if (node.isPresent()) {
+            graphIndexService.onNodeSaved(node.get());
+            propertyIndexService.onNodeSaved(node.get());
+            nodeSearchService.onNodeSaved(node.get());
+            graphChangeService.recordChange(GraphChange.TYPE_NODE, id, GraphChange.ACTION_UPSERT);
+        } else {
+            graphIndexService.onNodeDeleted(id);
+            propertyIndexService.onNodeDeleted(id);
+            nodeSearchService.onNodeDeleted(id);
+            graphChangeService.recordChange(GraphChange.TYPE_NODE, id, GraphChange.ACTION_DELETE);
+        }
     }
 }
@@ -0,0 +1,280 @@
+package com.cassini.graph.service.impl;
+
+import com.cassini.graph.entity.Node;
+import com.cassini.graph.index.PropertyIndex;
+import com.cassini.graph.model.PropertyFilter;
+import com.cassini.graph.repository.NodeRepository;
+import com.cassini.graph.service.GraphIndexService;
+import com.cassini.graph.service.PropertyIndexService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 节点属性索引服务实现
+ * properties按JSON解析后扁平化：嵌套对象展开为点号路径，数组的每个元素单独索引，
+ * 标量统一按文本值进入倒排表，可解析为数字的值同时进入数值列
+ */
+@Service
+public class PropertyIndexServiceImpl implements PropertyIndexService {
+
+    // 单个节点最多索引的 (键, 值) 对
+    private static final int MAX_ENTRIES_PER_NODE = 256;
+
+    // 超长的文本值不进入索引
+    private static final int MAX_VALUE_LENGTH = 256;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private GraphIndexService graphIndexService;
+
+    @Autowired
+    private NodeRepository nodeRepository;
+
+    private PropertyIndex index;
+
+    @Override
+    public Map<String, Object> filter(PropertyFilter filter, Integer themeId, int offset, int limit) {
+        if (filter == null) {
+            throw new IllegalArgumentException("缺少过滤条件");
+        }
+        BitSet matched;
+        synchronized (this) {
+            matched = evaluate(getIndex(), filter);
+        }
+        if (themeId != null) {
+            BitSet themeNodes = new BitSet();
+            for (Integer id : graphIndexService.getNodeIdsByTheme(themeId)) {
+                themeNodes.set(id);
+            }
+            matched.and(themeNodes);
+        }
+
+        List<Integer> nodeIds = new ArrayList<>(Math.min(limit, 1024));
+        int skipped = 0;
+        for (int id = matched.nextSetBit(0); id >= 0 && nodeIds.size() < limit; id = matched.nextSetBit(id + 1)) {
+            if (skipped++ >= offset) {
+                nodeIds.add(id);
+            }
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("total", matched.cardinality());
+        result.put("nodeIds", nodeIds);
+        result.put("nodes", nodeRepository.findAllById(nodeIds));
+        return result;
+    }
+
+    @Override
+    public synchronized Map<String, Integer> getKeys() {
+        PropertyIndex current = getIndex();
+        Map<String, Integer> keys = new TreeMap<>();
+        for (String key : current.keys()) {
+            keys.put(key, current.distinctValues(key));
+        }
+        return keys;
+    }
+
+    @Override
+    public synchronized Map<String, Integer> getValues(String key, int limit) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(getIndex().valueCounts(key).entrySet());
+        entries.sort((a, b) -> b.getValue() - a.getValue());
+        Map<String, Integer> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : entries) {
+            if (values.size() >= limit) {
+                break;
+            }
+            values.put(entry.getKey(), entry.getValue());
+        }
+        return values;
+    }
+
+    @Override
+    public synchronized void onNodeSaved(Node node) {
+        if (index == null || node.getId() == null) {
+            return;
+        }
+        index.put(node.getId(), flatten(node.getProperties()));
+    }
+
+    @Override
+    public synchronized void onNodeDeleted(Integer nodeId) {
+        if (index == null || nodeId == null) {
+            return;
+        }
+        index.remove(nodeId);
+    }
+
+    @Override
+    public synchronized void reload() {
+        index = null;
+    }
+
+    private PropertyIndex getIndex() {
+        if (index == null) {
+            load();
+        }
+        return index;
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        PropertyIndex loaded = new PropertyIndex();
+        jdbcTemplate.query("SELECT id, properties FROM node", rs -> {
+            loaded.put(rs.getInt(1), flatten(rs.getString(2)));
+        });
+        index = loaded;
+        System.out.println("属性索引加载完成：" + loaded.size() + " 个节点，" + loaded.keys().size()
+                + " 个属性键，耗时 " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private BitSet evaluate(PropertyIndex current, PropertyFilter filter) {
+        String op = filter.getOp();
+        if (op != null) {
+            List<PropertyFilter> children = filter.getFilters();
+            if (children == null || children.isEmpty()) {
+                throw new IllegalArgumentException("组合条件缺少filters");
+            }
+            switch (op.toLowerCase()) {
+                case PropertyFilter.OP_AND: {
+                    BitSet result = evaluate(current, children.get(0));
+                    for (int i = 1; i < children.size() && !result.isEmpty(); i++) {
+                        result.and(evaluate(current, children.get(i)));
+                    }
+                    return result;
+                }
+                case PropertyFilter.OP_OR: {
+                    BitSet result = new BitSet();
+                    for (PropertyFilter child : children) {
+                        result.or(evaluate(current, child));
+                    }
+                    return result;
+                }
+                case PropertyFilter.OP_NOT: {
+                    BitSet result = current.all();
+                    result.andNot(evaluate(current, children.get(0)));
+                    return result;
+                }
+                default:
+                    throw new IllegalArgumentException("op只支持and、or、not");
+            }
+        }
+
+        String key = filter.getKey();
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("条件缺少key");
+        }
+        // 同一叶子条件上的多个约束按AND组合
+        BitSet result = null;
+        if (filter.getEq() != null) {
+            result = current.equalTo(key, filter.getEq());
+        }
+        if (filter.getIn() != null) {
+            BitSet any = new BitSet();
+            for (String value : filter.getIn()) {
+                if (value != null) {
+                    any.or(current.equalTo(key, value));
+                }
+            }
+            result = intersect(result, any);
+        }
+        if (filter.getGt() != null || filter.getGte() != null || filter.getLt() != null || filter.getLte() != null) {
+            double lower = Double.NaN;
+            boolean lowerInclusive = true;
+            if (filter.getGte() != null) {
+                lower = filter.getGte();
+            }
+            if (filter.getGt() != null && (Double.isNaN(lower) || filter.getGt() >= lower)) {
+                lower = filter.getGt();
+                lowerInclusive = false;
+            }
+            double upper = Double.NaN;
+            boolean upperInclusive = true;
+            if (filter.getLte() != null) {
+                upper = filter.getLte();
+            }
+            if (filter.getLt() != null && (Double.isNaN(upper) || filter.getLt() <= upper)) {
+                upper = filter.getLt();
+                upperInclusive = false;
+            }
+            result = intersect(result, current.range(key, lower, lowerInclusive, upper, upperInclusive));
+        }
+        if (filter.getExists() != null) {
+            BitSet present = current.exists(key);
+            if (!filter.getExists()) {
+                BitSet absent = current.all();
+                absent.andNot(present);
+                present = absent;
+            }
+            result = intersect(result, present);
+        }
+        // 只给出key时等价于exists
+        return result != null ? result : current.exists(key);
+    }
+
+    private static BitSet intersect(BitSet result, BitSet other) {
+        if (result == null) {
+            return other;
+        }
+        result.and(other);
+        return result;
+    }
+
+    /**
+     * 将properties JSON扁平化为 [key0, value0, key1, value1, ...]，无法解析的JSON按无属性处理
+     */
+    private String[] flatten(String properties) {
+        if (properties == null || properties.isEmpty()) {
+            return new String[0];
+        }
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(properties);
+        } catch (Exception e) {
+            return new String[0];
+        }
+        List<String> entries = new ArrayList<>();
+        if (root != null && root.isObject()) {
+            flatten(root, "", entries);
+        }
+        return entries.toArray(new String[0]);
+    }
+
+    private void flatten(JsonNode node, String path, List<String> entries) {
+        if (entries.size() >= MAX_ENTRIES_PER_NODE * 2) {
+            return;
+        }
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                flatten(field.getValue(), path.isEmpty() ? field.getKey() : path + "." + field.getKey(), entries);
+            }
+        } else if (node.isArray()) {
+            for (JsonNode element : node) {
+                flatten(element, path, entries);
+            }
+        } else if (!node.isNull() && !path.isEmpty()) {
+            String value = node.asText();
+            if (value.length() <= MAX_VALUE_LENGTH) {
+                entries.add(path);
+                entries.add(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.cassini.graph.service.impl;
+
+import com.cassini.graph.index.GraphSnapshot;
+import com.cassini.graph.index.PrefixIndex;
+import com.cassini.graph.service.GraphIndexService;
+import com.cassini.graph.service.SuggestService;
+import com.cassini.graph.util.PinyinInitials;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 节点名称自动补全服务实现
+ * 前缀索引从图快照构建：每个节点以小写名称为键，含汉字的名称再以拼音首字母串为键，权重为出入度之和。
+ * 节点增删、改名后只把变化的节点放入一个小的增量索引，查询时与主索引按权重合并；
+ * 增量过大或度数权重超过weight-refresh-interval未刷新时才在后台完整重建。查询始终使用已构建好的索引，不会被阻塞
+ */
+@Service
+public class SuggestServiceImpl implements SuggestService {
+
+    // 按主题过滤时最多检查的候选数
+    private static final int MAX_SCANNED = 5000;
+
+    // 增量索引的节点数超过主索引的1/20时改为完整重建
+    private static final int MAX_DELTA_DIVISOR = 20;
+
+    private static final String MATCHED_NAME = "name";
+    private static final String MATCHED_PINYIN = "pinyin";
+
+    @Autowired
+    private GraphIndexService graphIndexService;
+
+    // 节点增删、改名后合并增量的最短间隔
+    @Value("${graph.suggest.delta-interval:200}")
+    private long deltaInterval;
+
+    // 只有度数变化时完整重建的最短间隔，期间排序权重可能略旧
+    @Value("${graph.suggest.weight-refresh-interval:60000}")
+    private long weightRefreshInterval;
+
+    private volatile Completion completion;
+
+    private ScheduledExecutorService executor;
+
+    // 已安排的刷新及其执行时间，更早的需求到来时改期
+    private ScheduledFuture<?> pending;
+
+    private volatile long pendingAt = Long.MAX_VALUE;
+
+    /**
+     * 构建完成的前缀索引，值为节点编号（名称字典编号，各快照之间一致），拼音键的值取反减一以区分匹配方式
+     */
+    private static class Completion {
+        // 主索引及构建它的快照
+        GraphSnapshot base;
+        PrefixIndex index;
+        long builtAt;
+
+        // 最近一次合并增量时的快照，结果中的主键、名称、主题都取自这里
+        GraphSnapshot graph;
+        long mergedAt;
+
+        // 主索引中已过期（删除、改名或改主题）的节点，以及graph中新增或变化的节点组成的增量索引
+        BitSet replaced = new BitSet();
+        PrefixIndex delta;
+        int deltaNodes;
+    }
+
+    private static class Keys {
+        final List<String> keys = new ArrayList<>();
+        int[] values = new int[16];
+        int[] weights = new int[16];
+
+        void add(GraphSnapshot graph, int node) {
+            String name = graph.nodeName(node).toLowerCase();
+            int degree = graph.inDegree(node) + graph.outDegree(node);
+            add(name, node, degree);
+            String initials = PinyinInitials.of(name);
+            if (initials != null && !initials.isEmpty() && !initials.equals(name)) {
+                add(initials, -node - 1, degree);
+            }
+        }
+
+        private void add(String key, int value, int weight) {
+            int size = keys.size();
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            values[size] = value;
+            weights[size] = weight;
+            keys.add(key);
+        }
+
+        PrefixIndex build() {
+            int size = keys.size();
+            return PrefixIndex.build(keys.toArray(new String[0]),
+                    Arrays.copyOf(values, size), Arrays.copyOf(weights, size));
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "graph-suggest");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public List<Map<String, Object>> suggest(String prefix, Integer themeId, int limit) {
+        Completion current = getCompletion();
+        GraphSnapshot graph = current.graph;
+        List<Map<String, Object>> result = new ArrayList<>(limit);
+        if (limit <= 0) {
+            return result;
+        }
+        String key = prefix.trim().toLowerCase();
+
+        // 增量索引很小，先取出全部匹配（已按权重降序），遍历主索引时把权重更高的插在前面
+        List<int[]> deltaMatches = new ArrayList<>();
+        if (current.delta != null) {
+            current.delta.complete(key, (value, weight, matched) -> deltaMatches.add(new int[]{value, weight})
+                    && deltaMatches.size() < MAX_SCANNED);
+        }
+        BitSet seen = new BitSet();
+        int[] scanned = new int[1];
+        int[] nextDelta = new int[1];
+        Collector collector = (value, weight) -> {
+            boolean pinyin = value < 0;
+            int node = pinyin ? -value - 1 : value;
+            if (seen.get(node) || (themeId != null && graph.nodeTheme(node) != themeId)) {
+                return ++scanned[0] < MAX_SCANNED;
+            }
+            seen.set(node);
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("nodeId", graph.nodeDbId(node));
+            item.put("name", graph.nodeName(node));
+            item.put("themeId", graph.nodeTheme(node));
+            item.put("degree", weight);
+            item.put("matched", pinyin ? MATCHED_PINYIN : MATCHED_NAME);
+            result.add(item);
+            return result.size() < limit && ++scanned[0] < MAX_SCANNED;
+        };
+        boolean[] more = {true};
+        current.index.complete(key, (value, weight, matched) -> {
+            while (nextDelta[0] < deltaMatches.size() && deltaMatches.get(nextDelta[0])[1] > weight) {
+                int[] match = deltaMatches.get(nextDelta[0]++);
+                if (!collector.collect(match[0], match[1])) {
+                    more[0] = false;
+                    return false;
+                }
+            }
+            int node = value < 0 ? -value - 1 : value;
+            if (current.replaced.get(node)) {
+                return ++scanned[0] < MAX_SCANNED;
+            }
+            more[0] = collector.collect(value, weight);
+            return more[0];
+        });
+        while (more[0] && nextDelta[0] < deltaMatches.size()) {
+            int[] match = deltaMatches.get(nextDelta[0]++);
+            more[0] = collector.collect(match[0], match[1]);
+        }
+        return result;
+    }
+
+    private interface Collector {
+        boolean collect(int value, int weight);
+    }
+
+    /**
+     * 首次调用时同步构建；图版本变化后安排后台刷新并返回当前索引
+     */
+    private Completion getCompletion() {
+        Completion current = completion;
+        if (current == null) {
+            synchronized (this) {
+                if (completion == null) {
+                    completion = build(graphIndexService.getSnapshot());
+                }
+                return completion;
+            }
+        }
+        GraphSnapshot graph = graphIndexService.getSnapshot();
+        if (current.graph.getVersion() != graph.getVersion()) {
+            scheduleRefresh(current.graph.getNodeVersion() != graph.getNodeVersion()
+                    ? current.mergedAt + deltaInterval : current.builtAt + weightRefreshInterval);
+        }
+        return current;
+    }
+
+    private void scheduleRefresh(long at) {
+        if (at >= pendingAt) {
+            return;
+        }
+        synchronized (this) {
+            if (at >= pendingAt) {
+                return;
+            }
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            pendingAt = at;
+            pending = executor.schedule(this::refresh,
+                    Math.max(0, at - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 权重到期或增量过大时完整重建，否则只重建增量索引
+     */
+    private void refresh() {
+        synchronized (this) {
+            pending = null;
+            pendingAt = Long.MAX_VALUE;
+        }
+        try {
+            Completion current = completion;
+            GraphSnapshot graph = graphIndexService.getSnapshot();
+            if (graph.getVersion() == current.graph.getVersion()) {
+                return;
+            }
+            if (System.currentTimeMillis() >= current.builtAt + weightRefreshInterval) {
+                completion = build(graph);
+                return;
+            }
+            if (graph.getNodeVersion() != current.graph.getNodeVersion()) {
+                Completion merged = merge(current, graph);
+                completion = merged.deltaNodes > current.base.getNodeCount() / MAX_DELTA_DIVISOR ? build(graph) : merged;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static Completion build(GraphSnapshot graph) {
+        long start = System.currentTimeMillis();
+        Keys keys = new Keys();
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            if (graph.nodeDbId(node) >= 0) {
+                keys.add(graph, node);
+            }
+        }
+        Completion built = new Completion();
+        built.base = graph;
+        built.index = keys.build();
+        built.builtAt = System.currentTimeMillis();
+        built.graph = graph;
+        built.mergedAt = built.builtAt;
+        System.out.println("自动补全索引构建完成：" + keys.keys.size() + " 个键，耗时 " + (System.currentTimeMillis() - start) + " ms");
+        return built;
+    }
+
+    /**
+     * 对比主索引的快照和最新快照，节点编号即名称编号，同一编号的主键或主题不同即视为变化，耗时O(节点数)
+     */
+    private static Completion merge(Completion current, GraphSnapshot graph) {
+        GraphSnapshot base = current.base;
+        Completion merged = new Completion();
+        merged.base = base;
+        merged.index = current.index;
+        merged.builtAt = current.builtAt;
+        merged.graph = graph;
+        merged.mergedAt = System.currentTimeMillis();
+        Keys keys = new Keys();
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            boolean existed = node < base.getNodeCount() && base.nodeDbId(node) >= 0;
+            if (existed && base.nodeDbId(node) == graph.nodeDbId(node) && base.nodeTheme(node) == graph.nodeTheme(node)) {
+                continue;
+            }
+            if (existed) {
+                merged.replaced.set(node);
+            }
+            if (graph.nodeDbId(node) >= 0) {
+                keys.add(graph, node);
+                merged.deltaNodes++;
+            }
+        }
+        merged.delta = keys.keys.isEmpty() ? null : keys.build();
+        return merged;
+    }
+}
@@ -0,0 +1,312 @@
+package com.cassini.graph.service.impl;
+
+import com.cassini.graph.entity.Edge;
+import com.cassini.graph.entity.Node;
+import com.cassini.graph.entity.Theme;
+import com.cassini.graph.repository.ThemeRepository;
+import com.cassini.graph.service.GraphIndexService;
+import com.cassini.graph.service.ThemeGraphCacheService;
+import com.cassini.graph.util.GraphBinaryWriter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 主题子图缓存服务实现
+ * 每个条目记录构建前读取的主题版本（GraphIndexService.getThemeVersion），读取时版本不一致即视为过期，
+ * 因此只有真正受写入影响的主题需要重建。缓存按总字节数限制，超出时按最近最少使用淘汰
+ * 同一主题和格式同时只有一个构建，其余请求等待同一个构建结果。配置了max-stale-ms时，
+ * 构建不超过该时长的旧结果可以先返回并在后台重建，默认不返回旧结果
+ */
+@Service
+public class ThemeGraphCacheServiceImpl implements ThemeGraphCacheService {
+
+    private static final String NODE_COLUMNS = "SELECT id, theme_id, name, properties, color, size, icon, x, y, created_at FROM node";
+
+    private static final String EDGE_COLUMNS = "SELECT id, source_node_name, target_node_name, relation, color, width, dashed, "
+            + "theme_id, created_at FROM edge";
+
+    private static final int IN_CHUNK = 1000;
+
+    @Autowired
+    private GraphIndexService graphIndexService;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 缓存占用的最大字节数，0表示不缓存（每次请求都重新组装，用于压测对比）
+    @Value("${graph.theme-cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    // 主题写入后仍可返回旧结果的最长时间（从旧结果开始构建算起），0表示总是等待重建
+    @Value("${graph.theme-cache.max-stale-ms:0}")
+    private long maxStaleMs;
+
+    // 后台重建的线程数
+    @Value("${graph.theme-cache.rebuild-threads:2}")
+    private int rebuildThreads;
+
+    // 访问顺序的LinkedHashMap，迭代顺序即LRU顺序
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // 正在进行的构建，同一个键的并发请求共享
+    private final Map<String, CompletableFuture<byte[]>> building = new HashMap<>();
+
+    private ExecutorService rebuildExecutor;
+
+    private long totalBytes;
+
+    // invalidateAll时递增，清空前开始构建的结果不再放入缓存
+    private long generation;
+
+    private long hits;
+    private long staleHits;
+    private long misses;
+    private long coalesced;
+    private long evictions;
+
+    private static class Entry {
+        long themeVersion;
+        long builtAt;
+        byte[] payload;
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuildExecutor = Executors.newFixedThreadPool(Math.max(1, rebuildThreads), r -> {
+            Thread thread = new Thread(r, "theme-cache-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    @Override
+    public byte[] getThemeGraph(Integer themeId, String format) {
+        if (!FORMAT_JSON.equals(format) && !FORMAT_BINARY.equals(format)) {
+            throw new IllegalArgumentException("Unknown format: " + format);
+        }
+        if (maxBytes <= 0) {
+            return build(themeId, format);
+        }
+        String key = themeId + ":" + format;
+        long themeVersion = graphIndexService.getThemeVersion(themeId);
+        long now = System.currentTimeMillis();
+        CompletableFuture<byte[]> future;
+        boolean owner = false;
+        long buildGeneration = 0;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.themeVersion == themeVersion) {
+                hits++;
+                return entry.payload;
+            }
+            future = building.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                building.put(key, future);
+                owner = true;
+                misses++;
+                buildGeneration = generation;
+            }
+            if (entry != null && now - entry.builtAt < maxStaleMs) {
+                // 旧结果未超过max-stale-ms时先返回，重建在后台进行
+                staleHits++;
+                if (owner) {
+                    CompletableFuture<byte[]> rebuild = future;
+                    long rebuildGeneration = buildGeneration;
+                    rebuildExecutor.execute(() -> rebuild(key, themeId, format, themeVersion, now, rebuildGeneration, rebuild));
+                }
+                return entry.payload;
+            }
+            if (!owner) {
+                coalesced++;
+            }
+        }
+
+        if (owner) {
+            rebuild(key, themeId, format, themeVersion, now, buildGeneration, future);
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 在锁外组装，构建期间发生的写入会使版本变化，下次读取时再重建
+     */
+    private void rebuild(String key, Integer themeId, String format, long themeVersion, long builtAt,
+                         long buildGeneration, CompletableFuture<byte[]> future) {
+        byte[] payload;
+        try {
+            payload = build(themeId, format);
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                building.remove(key, future);
+            }
+            future.completeExceptionally(e);
+            return;
+        }
+        synchronized (this) {
+            building.remove(key, future);
+            if (buildGeneration == generation && payload.length <= maxBytes / 4) {
+                Entry entry = new Entry();
+                entry.themeVersion = themeVersion;
+                entry.builtAt = builtAt;
+                entry.payload = payload;
+                Entry replaced = entries.put(key, entry);
+                if (replaced != null) {
+                    totalBytes -= replaced.payload.length;
+                }
+                totalBytes += payload.length;
+                evict();
+            }
+        }
+        future.complete(payload);
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        entries.clear();
+        building.clear();
+        totalBytes = 0;
+        generation++;
+    }
+
+    @Override
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("bytes", totalBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("maxStaleMs", maxStaleMs);
+        stats.put("hits", hits);
+        stats.put("staleHits", staleHits);
+        stats.put("misses", misses);
+        stats.put("coalesced", coalesced);
+        stats.put("building", building.size());
+        stats.put("evictions", evictions);
+        return stats;
+    }
+
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            totalBytes -= iterator.next().payload.length;
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private byte[] build(Integer themeId, String format) {
+        List<Theme> themeList = themeRepository.findAll();
+        Map<Integer, Theme> themes = new HashMap<>();
+        for (Theme theme : themeList) {
+            themes.put(theme.getId(), theme);
+        }
+        List<Node> nodes = jdbcTemplate.query(NODE_COLUMNS + " WHERE theme_id = ? ORDER BY id",
+                (rs, rowNum) -> mapNode(rs, themes), themeId);
+        List<Edge> edges = loadEdges(themeId, themes);
+        if (FORMAT_BINARY.equals(format)) {
+            return GraphBinaryWriter.encode(themeList, nodes, edges);
+        }
+        Map<String, Object> graphData = new HashMap<>();
+        graphData.put("nodes", nodes);
+        graphData.put("edges", edges);
+        try {
+            return objectMapper.writeValueAsBytes(graphData);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 边的ID集合取自内存索引（至少一端属于该主题）；行数据先按theme_id一次查出，
+     * 归属其他主题的跨主题边再按主键分批补齐。不经过Hibernate，主题对象复用同一份
+     */
+    private List<Edge> loadEdges(Integer themeId, Map<Integer, Theme> themes) {
+        Set<Integer> wanted = new HashSet<>(graphIndexService.getEdgeIdsByTheme(themeId));
+        List<Edge> edges = new ArrayList<>(wanted.size());
+        jdbcTemplate.query(EDGE_COLUMNS + " WHERE theme_id = ?", rs -> {
+            Edge edge = mapEdge(rs, themes);
+            if (wanted.remove(edge.getId())) {
+                edges.add(edge);
+            }
+        }, themeId);
+        List<Integer> remaining = new ArrayList<>(wanted);
+        for (int from = 0; from < remaining.size(); from += IN_CHUNK) {
+            List<Integer> chunk = remaining.subList(from, Math.min(from + IN_CHUNK, remaining.size()));
+            jdbcTemplate.query(EDGE_COLUMNS + " WHERE id IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")",
+                    (RowCallbackHandler) rs -> edges.add(mapEdge(rs, themes)), chunk.toArray());
+        }
+        edges.sort(Comparator.comparing(Edge::getId));
+        return edges;
+    }
+
+    private static Node mapNode(ResultSet rs, Map<Integer, Theme> themes) throws SQLException {
+        Node node = new Node();
+        node.setId(rs.getInt("id"));
+        node.setTheme(themes.get(rs.getInt("theme_id")));
+        node.setName(rs.getString("name"));
+        node.setProperties(rs.getString("properties"));
+        node.setColor(rs.getString("color"));
+        node.setSize(rs.getObject("size", Integer.class));
+        node.setIcon(rs.getString("icon"));
+        node.setX(rs.getObject("x", Double.class));
+        node.setY(rs.getObject("y", Double.class));
+        node.setCreatedAt(rs.getTimestamp("created_at"));
+        return node;
+    }
+
+    private static Edge mapEdge(ResultSet rs, Map<Integer, Theme> themes) throws SQLException {
+        Edge edge = new Edge();
+        edge.setId(rs.getInt("id"));
+        edge.setSourceNodeName(rs.getString("source_node_name"));
+        edge.setTargetNodeName(rs.getString("target_node_name"));
+        edge.setRelation(rs.getString("relation"));
+        edge.setColor(rs.getString("color"));
+        edge.setWidth(rs.getObject("width", Integer.class));
+        edge.setDashed(rs.getObject("dashed", Boolean.class));
+        edge.setTheme(themes.get(rs.getInt("theme_id")));
+        edge.setCreatedAt(rs.getTimestamp("created_at"));
+        return edge;
+    }
+}
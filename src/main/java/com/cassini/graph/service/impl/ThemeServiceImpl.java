@@ -1,7 +1,10 @@
 package com.cassini.graph.service.impl;
 
+import com.cassini.graph.entity.GraphChange;
 import com.cassini.graph.entity.Theme;
 import com.cassini.graph.repository.ThemeRepository;
+import com.cassini.graph.service.GraphChangeService;
+import com.cassini.graph.service.ThemeGraphCacheService;
 import com.cassini.graph.service.ThemeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -15,6 +18,12 @@ public class ThemeServiceImpl implements ThemeService {
     @Autowired
     private ThemeRepository themeRepository;
 
+    @Autowired
+    private GraphChangeService graphChangeService;
+
+    @Autowired
+    private ThemeGraphCacheService themeGraphCacheService;
+
     @Override
     public List<Theme> getAllThemes() {
         return themeRepository.findAll();
@@ -27,11 +36,16 @@ public class ThemeServiceImpl implements ThemeService {
 
     @Override
     public Theme saveTheme(Theme theme) {
-        return themeRepository.save(theme);
+        Theme savedTheme = themeRepository.save(theme);
+        themeGraphCacheService.invalidateAll();
+        graphChangeService.recordChange(GraphChange.TYPE_THEME, savedTheme.getId(), GraphChange.ACTION_UPSERT);
+        return savedTheme;
     }
 
     @Override
     public void deleteTheme(Integer id) {
         themeRepository.deleteById(id);
+        themeGraphCacheService.invalidateAll();
+        graphChangeService.recordChange(GraphChange.TYPE_THEME, id, GraphChange.ACTION_DELETE);
     }
 }
@@ -0,0 +1,108 @@
+package com.cassini.graph.util;
+
+import com.cassini.graph.model.ImportJob;
+import com.cassini.graph.service.ImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 命令行批量导入
+ * java -jar knowledge-graph.jar --spring.main.web-application-type=none \
+ *     --import.nodes=nodes.csv --import.edges=edges.jsonl.gz [--import.create-themes=true] [--import.exit=false]
+ * 格式按扩展名判断（.jsonl/.ndjson为JSONL，其余为CSV），.gz文件自动解压；导入完成后默认退出进程
+ */
+@Component
+public class BulkImportRunner implements ApplicationRunner {
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String nodesFile = option(args, "import.nodes");
+        String edgesFile = option(args, "import.edges");
+        if (nodesFile == null && edgesFile == null) {
+            return;
+        }
+        boolean createThemes = "true".equalsIgnoreCase(option(args, "import.create-themes"));
+        boolean failed = false;
+
+        Thread progress = new Thread(this::printProgress, "import-progress");
+        progress.setDaemon(true);
+        progress.start();
+        try {
+            // 先导入节点，再导入引用节点名称的边
+            if (nodesFile != null) {
+                failed = !importFile(ImportService.ENTITY_NODE, nodesFile, createThemes);
+            }
+            if (edgesFile != null && !failed) {
+                failed = !importFile(ImportService.ENTITY_EDGE, edgesFile, createThemes);
+            }
+        } finally {
+            progress.interrupt();
+        }
+
+        if (!"false".equalsIgnoreCase(option(args, "import.exit"))) {
+            int exitCode = failed ? 1 : 0;
+            System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+        }
+    }
+
+    private boolean importFile(String entityType, String file, boolean createThemes) throws IOException {
+        String name = file.toLowerCase();
+        String plain = name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+        String format = plain.endsWith(".jsonl") || plain.endsWith(".ndjson")
+                ? ImportService.FORMAT_JSONL : ImportService.FORMAT_CSV;
+        long start = System.currentTimeMillis();
+        try (InputStream raw = new BufferedInputStream(new FileInputStream(file), 65536)) {
+            InputStream input = name.endsWith(".gz") ? new GZIPInputStream(raw, 65536) : raw;
+            ImportJob job = importService.importData(entityType, format, input, createThemes);
+            long elapsed = System.currentTimeMillis() - start;
+            System.out.println("导入" + file + "：" + job.getStatus() + "，读取 " + job.getProcessedRows()
+                    + " 行，写入 " + job.getImportedRows() + " 行，拒绝 " + job.getRejectedRows()
+                    + " 行，新建主题 " + job.getCreatedThemes() + " 个，耗时 " + elapsed + " ms");
+            for (ImportJob.Rejection rejection : job.getRejections()) {
+                System.out.println("  第" + rejection.getLine() + "行: " + rejection.getReason());
+            }
+            if (job.getMessage() != null) {
+                System.out.println("  " + job.getMessage());
+            }
+            return !ImportJob.STATUS_FAILED.equals(job.getStatus());
+        }
+    }
+
+    private void printProgress() {
+        try {
+            while (true) {
+                Thread.sleep(5000);
+                for (ImportJob job : importService.getJobs()) {
+                    if (ImportJob.STATUS_RUNNING.equals(job.getStatus())) {
+                        System.out.println("正在导入" + job.getEntityType() + "：已读取 " + job.getProcessedRows()
+                                + " 行，已写入 " + job.getImportedRows() + " 行");
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String option(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        return values != null && !values.isEmpty() ? values.get(0) : null;
+    }
+}
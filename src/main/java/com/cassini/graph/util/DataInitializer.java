@@ -29,8 +29,8 @@ public class DataInitializer implements ApplicationRunner {
 
     @Override
     public void run(ApplicationArguments args) throws Exception {
-        // 检查是否已经存在数据，如果存在则不初始化
-        if (!themeService.getAllThemes().isEmpty()) {
+        // 检查是否已经存在数据，如果存在则不初始化；生成合成数据时也不初始化
+        if (args.containsOption("seed.nodes") || !themeService.getAllThemes().isEmpty()) {
             return;
         }
 
@@ -0,0 +1,240 @@
+package com.cassini.graph.util;
+
+import com.cassini.graph.entity.Edge;
+import com.cassini.graph.entity.Node;
+import com.cassini.graph.entity.Theme;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 图数据的列式二进制编码（application/x-graph-columnar）
+ *
+ * 格式（varint为无符号LEB128，str为字符串字典下标+1、0表示null，
+ * opt为zigzag(值)+1、0表示null，double为小端IEEE754）：
+ * <pre>
+ * magic        'C' 'G' 'F' 0x01
+ * strings      varint count, 每项 varint 字节数 + UTF-8
+ * themes       varint count, 每项 varint id, str name, str description, str defaultNodeColor,
+ *              opt defaultNodeSize, str defaultNodeIcon, str defaultEdgeColor, opt defaultEdgeWidth
+ * nodes        varint count, 随后按列依次为：
+ *              id(zigzag差分) | theme(主题表下标+1) | name(str) | properties(str) | color(str)
+ *              | size(opt) | icon(str) | flags(byte, bit0=有坐标) | x, y(double, 仅有坐标的节点)
+ * edges        varint count, 随后按列依次为：
+ *              id(zigzag差分) | source(str, 节点名称) | target(str) | relation(str) | color(str)
+ *              | width(opt) | flags(byte, bit0=虚线) | theme(主题表下标+1)
+ * </pre>
+ * 主题只在主题表中出现一次，节点名称、关系名称等重复字符串只存一份；不包含createdAt字段
+ */
+public class GraphBinaryWriter {
+
+    public static final String MEDIA_TYPE = "application/x-graph-columnar";
+
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+    private final Map<Integer, Integer> themeIndex = new HashMap<>();
+
+    private final ByteSink body = new ByteSink(1 << 16);
+
+    /**
+     * 编码主题表、节点和边，返回完整的二进制负载
+     */
+    public static byte[] encode(Collection<Theme> themes, Collection<Node> nodes, Collection<Edge> edges) {
+        GraphBinaryWriter writer = new GraphBinaryWriter();
+        writer.writeThemes(themes);
+        writer.writeNodes(nodes);
+        writer.writeEdges(edges);
+        return writer.finish();
+    }
+
+    private void writeThemes(Collection<Theme> themes) {
+        body.writeVarint(themes.size());
+        for (Theme theme : themes) {
+            themeIndex.put(theme.getId(), themeIndex.size());
+            body.writeVarint(theme.getId());
+            writeString(theme.getName());
+            writeString(theme.getDescription());
+            writeString(theme.getDefaultNodeColor());
+            writeOptional(theme.getDefaultNodeSize());
+            writeString(theme.getDefaultNodeIcon());
+            writeString(theme.getDefaultEdgeColor());
+            writeOptional(theme.getDefaultEdgeWidth());
+        }
+    }
+
+    private void writeNodes(Collection<Node> nodes) {
+        body.writeVarint(nodes.size());
+        int previousId = 0;
+        for (Node node : nodes) {
+            body.writeVarint(zigzag(node.getId() - previousId));
+            previousId = node.getId();
+        }
+        for (Node node : nodes) {
+            writeThemeRef(node.getTheme());
+        }
+        for (Node node : nodes) {
+            writeString(node.getName());
+        }
+        for (Node node : nodes) {
+            writeString(node.getProperties());
+        }
+        for (Node node : nodes) {
+            writeString(node.getColor());
+        }
+        for (Node node : nodes) {
+            writeOptional(node.getSize());
+        }
+        for (Node node : nodes) {
+            writeString(node.getIcon());
+        }
+        for (Node node : nodes) {
+            body.writeByte(hasCoordinates(node) ? 1 : 0);
+        }
+        for (Node node : nodes) {
+            if (hasCoordinates(node)) {
+                body.writeDouble(node.getX());
+                body.writeDouble(node.getY());
+            }
+        }
+    }
+
+    private void writeEdges(Collection<Edge> edges) {
+        body.writeVarint(edges.size());
+        int previousId = 0;
+        for (Edge edge : edges) {
+            body.writeVarint(zigzag(edge.getId() - previousId));
+            previousId = edge.getId();
+        }
+        for (Edge edge : edges) {
+            writeString(edge.getSourceNodeName());
+        }
+        for (Edge edge : edges) {
+            writeString(edge.getTargetNodeName());
+        }
+        for (Edge edge : edges) {
+            writeString(edge.getRelation());
+        }
+        for (Edge edge : edges) {
+            writeString(edge.getColor());
+        }
+        for (Edge edge : edges) {
+            writeOptional(edge.getWidth());
+        }
+        for (Edge edge : edges) {
+            body.writeByte(Boolean.TRUE.equals(edge.getDashed()) ? 1 : 0);
+        }
+        for (Edge edge : edges) {
+            writeThemeRef(edge.getTheme());
+        }
+    }
+
+    private byte[] finish() {
+        ByteSink out = new ByteSink(body.size() + strings.size() * 16 + 16);
+        out.writeByte('C');
+        out.writeByte('G');
+        out.writeByte('F');
+        out.writeByte(1);
+        out.writeVarint(strings.size());
+        for (String value : strings.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeVarint(bytes.length);
+            out.writeBytes(bytes, bytes.length);
+        }
+        out.writeBytes(body.array(), body.size());
+        return out.toByteArray();
+    }
+
+    private static boolean hasCoordinates(Node node) {
+        return node.getX() != null && node.getY() != null;
+    }
+
+    private void writeString(String value) {
+        if (value == null) {
+            body.writeVarint(0);
+            return;
+        }
+        Integer index = strings.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.put(value, index);
+        }
+        body.writeVarint(index + 1);
+    }
+
+    private void writeOptional(Integer value) {
+        body.writeVarint(value == null ? 0 : zigzag(value) + 1);
+    }
+
+    private void writeThemeRef(Theme theme) {
+        Integer index = theme != null ? themeIndex.get(theme.getId()) : null;
+        body.writeVarint(index == null ? 0 : index + 1);
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * 可增长的小端字节缓冲区
+     */
+    private static class ByteSink {
+
+        private byte[] data;
+
+        private int size;
+
+        ByteSink(int capacity) {
+            data = new byte[Math.max(capacity, 16)];
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+            }
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            data[size++] = (byte) value;
+        }
+
+        void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        void writeDouble(double value) {
+            ensure(8);
+            long bits = Double.doubleToLongBits(value);
+            for (int i = 0; i < 8; i++) {
+                data[size++] = (byte) (bits >>> (i * 8));
+            }
+        }
+
+        void writeBytes(byte[] bytes, int length) {
+            ensure(length);
+            System.arraycopy(bytes, 0, data, size, length);
+            size += length;
+        }
+
+        byte[] array() {
+            return data;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.cassini.graph.util;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+
+/**
+ * 汉字拼音首字母
+ * GB2312一级汉字按拼音排序，根据区位码所在区间即可确定首字母；
+ * 二级汉字（按部首排序）和其他字符无法确定首字母，返回0
+ */
+public final class PinyinInitials {
+
+    // 各首字母第一个汉字的GB2312编码
+    private static final int[] BOUNDARIES = {
+            0xB0A1, 0xB0C5, 0xB2C1, 0xB4EE, 0xB6EA, 0xB7A2, 0xB8C1, 0xB9FE, 0xBBF7,
+            0xBFA6, 0xC0AC, 0xC2E8, 0xC4C3, 0xC5B6, 0xC5BE, 0xC6DA, 0xC8BB, 0xC8F6,
+            0xCBFA, 0xCDDA, 0xCEF4, 0xD1B9, 0xD4D1, 0xD7FA};
+
+    private static final char[] LETTERS = "abcdefghjklmnopqrstwxyz".toCharArray();
+
+    private static final int CJK_BEGIN = 0x4E00;
+    private static final int CJK_END = 0xA000;
+
+    // 基本汉字区的首字母表，启动时计算一次
+    private static final char[] TABLE = buildTable();
+
+    private PinyinInitials() {
+    }
+
+    /**
+     * 单个字符的拼音首字母，无法确定时返回0
+     */
+    public static char initialOf(char c) {
+        if (c < CJK_BEGIN || c >= CJK_END) {
+            return 0;
+        }
+        return TABLE[c - CJK_BEGIN];
+    }
+
+    /**
+     * 文本的首字母串：汉字替换为首字母，字母数字转小写保留，其他字符去掉
+     * 文本中没有可转换的汉字时返回null
+     */
+    public static String of(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder initials = new StringBuilder(text.length());
+        boolean converted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            char initial = initialOf(c);
+            if (initial != 0) {
+                initials.append(initial);
+                converted = true;
+            } else if (Character.isLetterOrDigit(c) && c < CJK_BEGIN) {
+                initials.append(Character.toLowerCase(c));
+            }
+        }
+        return converted ? initials.toString() : null;
+    }
+
+    private static char[] buildTable() {
+        char[] table = new char[CJK_END - CJK_BEGIN];
+        CharsetEncoder encoder = Charset.forName("GB2312").newEncoder();
+        CharBuffer in = CharBuffer.allocate(1);
+        ByteBuffer out = ByteBuffer.allocate(4);
+        for (int c = CJK_BEGIN; c < CJK_END; c++) {
+            // 转成Buffer调用，避免链接到JDK 9+的协变重载，在Java 8上运行时找不到方法
+            ((Buffer) in).clear();
+            in.put((char) c);
+            ((Buffer) in).flip();
+            ((Buffer) out).clear();
+            try {
+                encoder.reset();
+                encoder.encode(in, out, true);
+            } catch (Exception e) {
+                continue;
+            }
+            if (out.position() != 2) {
+                continue;
+            }
+            int code = ((out.get(0) & 0xFF) << 8) | (out.get(1) & 0xFF);
+            table[c - CJK_BEGIN] = letterOf(code);
+        }
+        return table;
+    }
+
+    private static char letterOf(int code) {
+        if (code < BOUNDARIES[0] || code >= BOUNDARIES[BOUNDARIES.length - 1]) {
+            return 0;
+        }
+        for (int i = LETTERS.length - 1; i >= 0; i--) {
+            if (code >= BOUNDARIES[i]) {
+                return LETTERS[i];
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,251 @@
+package com.cassini.graph.util;
+
+import com.cassini.graph.entity.Theme;
+import com.cassini.graph.service.GraphIndexService;
+import com.cassini.graph.service.NodeSearchService;
+import com.cassini.graph.service.PropertyIndexService;
+import com.cassini.graph.service.ThemeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 命令行生成合成数据，用于压测和容量评估
+ * java -jar knowledge-graph.jar --seed.nodes=1000000 --seed.edges=5000000 [--seed.themes=6]
+ *     [--seed.persons=10000] [--seed.events=50000] [--seed.distribution=powerlaw] [--seed.random=42] [--seed.exit=false]
+ * 节点、边、时间线人物和事件按块在单独事务中批量插入（与批量导入相同，依赖rewriteBatchedStatements），
+ * 完成后重建内存索引；生成的数据不写变更日志，应在空库或测试库上运行。完成后默认退出进程
+ */
+@Component
+public class SeedDataRunner implements ApplicationRunner {
+
+    private static final String NODE_SQL = "INSERT INTO node (theme_id, name, properties, color, size, icon, x, y, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String EDGE_SQL = "INSERT INTO edge (source_node_name, target_node_name, relation, color, width, "
+            + "dashed, theme_id, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String PERSON_SQL = "INSERT INTO timeline_persons (name, birth_date, death_date, bio, life_span) "
+            + "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String EVENT_SQL = "INSERT INTO timeline_events (event_name, start_date, end_date, description, "
+            + "event_category, create_time, update_time) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // 时间线表没有对应的JPA实体，不存在时按TimelinePerson/TimelineEvent的字段建表
+    private static final String[] TIMELINE_DDL = {
+            "CREATE TABLE IF NOT EXISTS timeline_persons (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(100) NOT NULL, "
+                    + "birth_date DATE, death_date DATE, bio TEXT, life_span INT)",
+            "CREATE TABLE IF NOT EXISTS timeline_events (id INT AUTO_INCREMENT PRIMARY KEY, event_name VARCHAR(200) NOT NULL, "
+                    + "start_date DATE, end_date DATE, description TEXT, event_category VARCHAR(50), "
+                    + "create_time TIMESTAMP NULL, update_time TIMESTAMP NULL)"};
+
+    private static final String[] EVENT_KINDS = {"之战", "会盟", "变法", "迁都", "大水", "科举", "起义", "出使", "修史", "建城"};
+
+    private static final String[] EVENT_CATEGORIES = {"政治", "军事", "文化", "经济", "外交", "科技"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ThemeService themeService;
+
+    @Autowired
+    private GraphIndexService graphIndexService;
+
+    @Autowired
+    private PropertyIndexService propertyIndexService;
+
+    @Autowired
+    private NodeSearchService nodeSearchService;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    // 每个事务插入的行数，与批量导入共用
+    @Value("${graph.import.chunk-size:5000}")
+    private int chunkSize;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String nodesOption = option(args, "seed.nodes");
+        if (nodesOption == null) {
+            return;
+        }
+        int nodeCount = Integer.parseInt(nodesOption);
+        int edgeCount = intOption(args, "seed.edges", nodeCount * 5);
+        int themeCount = intOption(args, "seed.themes", 6);
+        int personCount = intOption(args, "seed.persons", Math.max(100, nodeCount / 100));
+        int eventCount = intOption(args, "seed.events", Math.max(500, nodeCount / 20));
+        String distribution = option(args, "seed.distribution");
+        if (distribution != null && !SyntheticGraph.DISTRIBUTION_UNIFORM.equals(distribution)
+                && !SyntheticGraph.DISTRIBUTION_POWERLAW.equals(distribution)) {
+            throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        }
+        boolean powerLaw = !SyntheticGraph.DISTRIBUTION_UNIFORM.equals(distribution);
+        Random random = new Random(intOption(args, "seed.random", 42));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        long start = System.currentTimeMillis();
+        int[] themeIds = resolveThemes(themeCount);
+
+        // 节点名称在边生成完之前都要保留，重名时追加序号（包括库中已有的名称）
+        Set<String> usedNames = new HashSet<>(jdbcTemplate.queryForList("SELECT name FROM node", String.class));
+        String[] names = new String[nodeCount];
+        int[] nodeThemes = new int[nodeCount];
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> chunk = new ArrayList<>(chunkSize);
+        long phase = System.currentTimeMillis();
+        for (int i = 0; i < nodeCount; i++) {
+            int theme = random.nextInt(themeIds.length);
+            names[i] = SyntheticGraph.uniqueName(SyntheticGraph.randomName(random), usedNames);
+            nodeThemes[i] = themeIds[theme];
+            chunk.add(new Object[]{themeIds[theme], names[i], SyntheticGraph.randomProperties(random),
+                    SyntheticGraph.theme(theme).getDefaultNodeColor(), 20, null,
+                    random.nextDouble() * 10000, random.nextDouble() * 10000, now});
+            flushIfFull(chunk, NODE_SQL, transaction, "节点", i + 1, nodeCount);
+        }
+        flush(chunk, NODE_SQL, transaction);
+        report("节点", nodeCount, phase);
+
+        phase = System.currentTimeMillis();
+        for (int i = 0; i < edgeCount && nodeCount > 1; i++) {
+            int source = SyntheticGraph.pick(random, nodeCount, powerLaw);
+            int target = SyntheticGraph.pick(random, nodeCount, powerLaw);
+            if (target == source) {
+                target = (source + 1) % nodeCount;
+            }
+            chunk.add(new Object[]{names[source], names[target],
+                    SyntheticGraph.RELATIONS[random.nextInt(SyntheticGraph.RELATIONS.length)],
+                    "#999999", 2, false, nodeThemes[source], now});
+            flushIfFull(chunk, EDGE_SQL, transaction, "边", i + 1, edgeCount);
+        }
+        flush(chunk, EDGE_SQL, transaction);
+        report("边", nodeCount > 1 ? edgeCount : 0, phase);
+
+        phase = System.currentTimeMillis();
+        for (String ddl : TIMELINE_DDL) {
+            jdbcTemplate.execute(ddl);
+        }
+        for (int i = 0; i < personCount; i++) {
+            chunk.add(personParams(random));
+            flushIfFull(chunk, PERSON_SQL, transaction, "时间线人物", i + 1, personCount);
+        }
+        flush(chunk, PERSON_SQL, transaction);
+        for (int i = 0; i < eventCount; i++) {
+            chunk.add(eventParams(random, now));
+            flushIfFull(chunk, EVENT_SQL, transaction, "时间线事件", i + 1, eventCount);
+        }
+        flush(chunk, EVENT_SQL, transaction);
+        report("时间线人物和事件", personCount + eventCount, phase);
+
+        phase = System.currentTimeMillis();
+        graphIndexService.reload();
+        propertyIndexService.reload();
+        nodeSearchService.reload();
+        System.out.println("重建索引耗时 " + (System.currentTimeMillis() - phase) + " ms，造数据总耗时 "
+                + (System.currentTimeMillis() - start) + " ms");
+
+        if (!"false".equalsIgnoreCase(option(args, "seed.exit"))) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    /**
+     * 按名称复用已有主题，不存在时创建
+     */
+    private int[] resolveThemes(int themeCount) {
+        Map<String, Integer> existing = new HashMap<>();
+        for (Theme theme : themeService.getAllThemes()) {
+            existing.putIfAbsent(theme.getName(), theme.getId());
+        }
+        int[] ids = new int[Math.max(themeCount, 1)];
+        for (int t = 0; t < ids.length; t++) {
+            Theme theme = SyntheticGraph.theme(t);
+            Integer id = existing.get(theme.getName());
+            ids[t] = id != null ? id : themeService.saveTheme(theme).getId();
+        }
+        return ids;
+    }
+
+    private Object[] personParams(Random random) {
+        int birthYear = 600 + random.nextInt(1300);
+        int lifeSpan = 20 + random.nextInt(70);
+        String dynasty = SyntheticGraph.DYNASTIES[random.nextInt(SyntheticGraph.DYNASTIES.length)];
+        String bio = dynasty + "代" + SyntheticGraph.OCCUPATIONS[random.nextInt(SyntheticGraph.OCCUPATIONS.length)]
+                + "，籍贯" + SyntheticGraph.PLACES[random.nextInt(SyntheticGraph.PLACES.length)];
+        return new Object[]{SyntheticGraph.randomName(random), date(birthYear, random),
+                date(birthYear + lifeSpan, random), bio, lifeSpan};
+    }
+
+    private Object[] eventParams(Random random, Timestamp now) {
+        int year = 600 + random.nextInt(1350);
+        String place = SyntheticGraph.PLACES[random.nextInt(SyntheticGraph.PLACES.length)];
+        String name = place + EVENT_KINDS[random.nextInt(EVENT_KINDS.length)];
+        // 约三分之一的事件持续多年
+        String end = random.nextInt(3) == 0 ? date(year + 1 + random.nextInt(10), random) : null;
+        return new Object[]{name, date(year, random), end, year + "年，" + SyntheticGraph.randomName(random) + "于" + place + "主持" + name,
+                EVENT_CATEGORIES[random.nextInt(EVENT_CATEGORIES.length)], now, now};
+    }
+
+    /**
+     * 日期以yyyy-MM-dd字符串写入，避免时区转换
+     */
+    private static String date(int year, Random random) {
+        return String.format("%04d-%02d-%02d", year, 1 + random.nextInt(12), 1 + random.nextInt(28));
+    }
+
+    private void flushIfFull(List<Object[]> chunk, String sql, TransactionTemplate transaction,
+                             String label, int done, int total) {
+        if (chunk.size() < chunkSize) {
+            return;
+        }
+        flush(chunk, sql, transaction);
+        // 每写入约5%打印一次进度
+        int step = Math.max(chunkSize, total / 20 / chunkSize * chunkSize);
+        if (done % step == 0) {
+            System.out.println("正在写入" + label + "：" + done + " / " + total);
+        }
+    }
+
+    private void flush(List<Object[]> chunk, String sql, TransactionTemplate transaction) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        transaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, chunk));
+        chunk.clear();
+    }
+
+    private static void report(String label, int rows, long start) {
+        long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+        System.out.println("写入" + label + " " + rows + " 行，耗时 " + elapsed + " ms（" + rows * 1000L / elapsed + " 行/秒）");
+    }
+
+    private static int intOption(ApplicationArguments args, String name, int defaultValue) {
+        String value = option(args, name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private static String option(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        return values != null && !values.isEmpty() ? values.get(0) : null;
+    }
+}
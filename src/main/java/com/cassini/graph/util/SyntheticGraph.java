@@ -0,0 +1,173 @@
+package com.cassini.graph.util;
+
+import com.cassini.graph.entity.Edge;
+import com.cassini.graph.entity.Node;
+import com.cassini.graph.entity.Theme;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 合成图数据生成器，用于基准测试和压测造数
+ * 节点名称为随机组合的中文人名（重名时追加序号），properties为带朝代、年龄、籍贯等字段的JSON；
+ * 边的端点按度分布抽样：uniform为均匀分布，powerlaw时少数节点拥有大量的边。
+ * 相同的参数和种子总是生成相同的数据，实体ID从1开始连续编号
+ */
+public class SyntheticGraph {
+
+    public static final String DISTRIBUTION_UNIFORM = "uniform";
+    public static final String DISTRIBUTION_POWERLAW = "powerlaw";
+
+    static final String[] SURNAMES = {
+            "李", "王", "张", "刘", "陈", "杨", "赵", "黄", "周", "吴", "徐", "孙", "胡", "朱", "高", "林",
+            "何", "郭", "马", "罗", "梁", "宋", "郑", "谢", "韩", "唐", "冯", "于", "董", "萧", "程", "曹",
+            "袁", "邓", "许", "傅", "沈", "曾", "彭", "吕", "苏", "卢", "蒋", "蔡", "贾", "丁", "魏", "薛",
+            "欧阳", "司马", "上官", "诸葛", "长孙", "慕容"};
+
+    static final String GIVEN_CHARS = "白甫维轼游愈元修安石居易商隐牧之渊明照清弃疾子美太冲"
+            + "光远仲淹宗道圭璋敏德惠文武昭宣成康庄景熙乾嘉庆和平正明思齐贤良方廉逸云飞鹏"
+            + "志远浩然若水如松柏青山泉秀英华国伟建军春秋冬夏玉兰梅竹菊芳丽娟静婉";
+
+    static final String[] DYNASTIES = {"先秦", "汉", "三国", "晋", "南北朝", "隋", "唐", "五代", "宋", "元", "明", "清"};
+
+    static final String[] PLACES = {"长安", "洛阳", "开封", "杭州", "南京", "北京", "成都", "苏州", "扬州", "广州",
+            "太原", "济南", "武昌", "长沙", "福州", "西安", "绍兴", "徽州"};
+
+    static final String[] OCCUPATIONS = {"诗人", "文学家", "政治家", "军事家", "思想家", "史学家", "书法家", "画家",
+            "医学家", "天文学家", "商人", "僧人"};
+
+    static final String[] RELATIONS = {"师从", "好友", "同僚", "父子", "兄弟", "夫妻", "政敌", "同乡", "唱和", "提携"};
+
+    private static final String[] THEME_NAMES = {"人物", "组织", "概念", "地点", "事件", "作品"};
+
+    private static final String[] COLORS = {"#4285F4", "#34A853", "#FBBC05", "#EA4335", "#9C27B0", "#00ACC1"};
+
+    private final List<Theme> themes = new ArrayList<>();
+    private final List<Node> nodes = new ArrayList<>();
+    private final List<Edge> edges = new ArrayList<>();
+
+    private SyntheticGraph() {
+    }
+
+    /**
+     * 生成合成图
+     *
+     * @param distribution uniform或powerlaw
+     */
+    public static SyntheticGraph generate(int nodeCount, int edgeCount, int themeCount, String distribution, long seed) {
+        if (!DISTRIBUTION_UNIFORM.equals(distribution) && !DISTRIBUTION_POWERLAW.equals(distribution)) {
+            throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        }
+        Random random = new Random(seed);
+        SyntheticGraph graph = new SyntheticGraph();
+        for (int t = 0; t < Math.max(themeCount, 1); t++) {
+            Theme theme = theme(t);
+            theme.setId(t + 1);
+            graph.themes.add(theme);
+        }
+
+        Set<String> usedNames = new HashSet<>(nodeCount * 2);
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = new Node();
+            node.setId(i + 1);
+            node.setName(uniqueName(randomName(random), usedNames));
+            node.setTheme(graph.themes.get(random.nextInt(graph.themes.size())));
+            node.setProperties(randomProperties(random));
+            node.setColor(node.getTheme().getDefaultNodeColor());
+            node.setSize(20);
+            node.setX(random.nextDouble() * 10000);
+            node.setY(random.nextDouble() * 10000);
+            graph.nodes.add(node);
+        }
+
+        boolean powerLaw = DISTRIBUTION_POWERLAW.equals(distribution);
+        for (int i = 0; i < edgeCount && nodeCount > 1; i++) {
+            int source = pick(random, nodeCount, powerLaw);
+            int target = pick(random, nodeCount, powerLaw);
+            if (target == source) {
+                target = (source + 1) % nodeCount;
+            }
+            Edge edge = new Edge();
+            edge.setId(i + 1);
+            edge.setSourceNodeName(graph.nodes.get(source).getName());
+            edge.setTargetNodeName(graph.nodes.get(target).getName());
+            edge.setRelation(RELATIONS[random.nextInt(RELATIONS.length)]);
+            edge.setTheme(graph.nodes.get(source).getTheme());
+            edge.setColor("#999999");
+            graph.edges.add(edge);
+        }
+        return graph;
+    }
+
+    /**
+     * 第index个主题（不含ID）
+     */
+    public static Theme theme(int index) {
+        Theme theme = new Theme();
+        theme.setName(index < THEME_NAMES.length ? THEME_NAMES[index] : "主题" + (index + 1));
+        theme.setDescription("合成数据主题" + (index + 1));
+        theme.setDefaultNodeColor(COLORS[index % COLORS.length]);
+        return theme;
+    }
+
+    /**
+     * 按度分布抽取节点下标；powerlaw时对均匀随机数取3次方，下标越小被抽中的概率越高
+     */
+    static int pick(Random random, int nodeCount, boolean powerLaw) {
+        double u = random.nextDouble();
+        if (powerLaw) {
+            u = u * u * u;
+        }
+        return Math.min((int) (u * nodeCount), nodeCount - 1);
+    }
+
+    /**
+     * 随机中文人名：姓 + 一到两个字
+     */
+    public static String randomName(Random random) {
+        StringBuilder name = new StringBuilder(SURNAMES[random.nextInt(SURNAMES.length)]);
+        int length = random.nextInt(3) == 0 ? 1 : 2;
+        for (int k = 0; k < length; k++) {
+            name.append(GIVEN_CHARS.charAt(random.nextInt(GIVEN_CHARS.length())));
+        }
+        return name.toString();
+    }
+
+    static String uniqueName(String name, Set<String> usedNames) {
+        if (usedNames.add(name)) {
+            return name;
+        }
+        for (int suffix = 2; ; suffix++) {
+            String candidate = name + suffix;
+            if (usedNames.add(candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * 随机properties JSON：朝代、籍贯、身份、年龄、代表作数量
+     */
+    public static String randomProperties(Random random) {
+        return "{\"朝代\":\"" + DYNASTIES[random.nextInt(DYNASTIES.length)]
+                + "\",\"籍贯\":\"" + PLACES[random.nextInt(PLACES.length)]
+                + "\",\"身份\":\"" + OCCUPATIONS[random.nextInt(OCCUPATIONS.length)]
+                + "\",\"年龄\":" + (20 + random.nextInt(70))
+                + ",\"代表作\":" + random.nextInt(50) + "}";
+    }
+
+    public List<Theme> getThemes() {
+        return themes;
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public List<Edge> getEdges() {
+        return edges;
+    }
+}